@@ -0,0 +1,82 @@
+package com.example.wastetoworth.ml;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * CPU-only latency benchmark of the bundled freshness model, run on a device.
+ *
+ * Skipped when no model is bundled. Results are logged under the "TfLiteBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TfLiteBackendBenchmark {
+
+    private static final String TAG = "TfLiteBenchmark";
+    private static final String MODEL_ASSET = "food_freshness.tflite";
+    private static final String LABELS_ASSET = "food_freshness_labels.txt";
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    public void measureCpuLatency() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        TfLiteBackend.Options options = new TfLiteBackend.Options();
+        options.allowGpu = false;
+        options.allowNnapi = false;
+        TfLiteBackend backend = TfLiteBackend.fromAssets(context, MODEL_ASSET, LABELS_ASSET, options);
+        assumeNotNull(backend);
+
+        try {
+            Bitmap image = randomImage(backend.getInputSize());
+            long start = System.nanoTime();
+            backend.warmUp();
+            double warmUpMs = (System.nanoTime() - start) / 1_000_000.0;
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                backend.infer(image);
+            }
+
+            double[] latencies = new double[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                start = System.nanoTime();
+                assertFalse(backend.infer(image).isEmpty());
+                latencies[i] = (System.nanoTime() - start) / 1_000_000.0;
+            }
+            Arrays.sort(latencies);
+            double mean = 0;
+            for (double latency : latencies) mean += latency / ITERATIONS;
+
+            Log.i(TAG, String.format("%s first=%.1fms mean=%.1fms p50=%.1fms p90=%.1fms",
+                    backend.getName(), warmUpMs, mean,
+                    latencies[ITERATIONS / 2], latencies[ITERATIONS * 9 / 10]));
+            assertTrue(backend.getAcceleration() == AccelerationPolicy.Acceleration.XNNPACK
+                    || backend.getAcceleration() == AccelerationPolicy.Acceleration.CPU);
+        } finally {
+            backend.close();
+        }
+    }
+
+    private static Bitmap randomImage(int size) {
+        Random random = new Random(1);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                bitmap.setPixel(x, y, Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            }
+        }
+        return bitmap;
+    }
+}
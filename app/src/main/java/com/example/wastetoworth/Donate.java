@@ -29,6 +29,7 @@ import com.example.wastetoworth.data.DonationRepository;
 import com.example.wastetoworth.databinding.ActivityDonateNewBinding;
 import com.example.wastetoworth.viewmodel.DonateFormState;
 import com.example.wastetoworth.viewmodel.DonateViewModel;
+import com.example.wastetoworth.viewmodel.DonateViewModelFactory;
 import com.example.wastetoworth.viewmodel.DonationSubmissionState;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
@@ -116,8 +117,8 @@ public class Donate extends AppCompatActivity implements OnMapReadyCallback {
         setContentView(binding.getRoot());
         rootView = binding.getRoot();
 
-        DonationRepository repository = new DonationRepository();
-        ViewModelProvider.Factory factory = new ViewModelProvider.AndroidViewModelFactory(getApplication());
+        DonationRepository repository = new DonationRepository(getApplicationContext());
+        ViewModelProvider.Factory factory = new DonateViewModelFactory(getApplication(), repository);
         viewModel = new ViewModelProvider(this, factory).get(DonateViewModel.class);
 
         mAuth = FirebaseAuth.getInstance();
@@ -5,8 +5,6 @@ import android.app.AlertDialog;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.os.Bundle;
 import android.provider.MediaStore;
@@ -27,10 +25,16 @@ import com.google.android.material.textfield.TextInputLayout;
 import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import com.example.wastetoworth.R;
+import com.example.wastetoworth.data.DonationSummaries;
+import com.example.wastetoworth.data.GeocodingService;
+import com.example.wastetoworth.data.outbox.OutboxEntry;
+import com.example.wastetoworth.data.outbox.WriteOutbox;
+import com.example.wastetoworth.util.GeoHash;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
@@ -47,10 +51,8 @@ import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
-import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 public class DonateActivity extends AppCompatActivity implements OnMapReadyCallback {
@@ -282,7 +284,8 @@ public class DonateActivity extends AppCompatActivity implements OnMapReadyCallb
                         }
                         
                         Toast.makeText(DonateActivity.this, 
-                                     "AI detected: " + result.category + " - " + result.freshness, 
+                                     (result.fromCache ? "Matches an earlier photo: " : "AI detected: ")
+                                             + result.category + " - " + result.freshness, 
                                      Toast.LENGTH_LONG).show();
                     });
                 }
@@ -374,17 +377,15 @@ public class DonateActivity extends AppCompatActivity implements OnMapReadyCallb
                             .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_GREEN)));
                     mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(currentLatLng, 15));
                     // Get address
-                    Geocoder geocoder = new Geocoder(this, Locale.getDefault());
-                    try {
-                        List<Address> addresses = geocoder.getFromLocation(currentLocationLat, currentLocationLng, 1);
-                        if (addresses != null && !addresses.isEmpty()) {
-                            currentLocationAddress = addresses.get(0).getAddressLine(0);
-                            locationEditText.setText(currentLocationAddress);
-                            isUsingCurrentLocation = true;
+                    GeocodingService.getInstance(this).reverseGeocode(currentLocationLat, currentLocationLng, addressLine -> {
+                        if (addressLine == null) {
+                            Toast.makeText(this, "Error getting address", Toast.LENGTH_SHORT).show();
+                            return;
                         }
-                    } catch (IOException e) {
-                        Toast.makeText(this, "Error getting address", Toast.LENGTH_SHORT).show();
-                    }
+                        currentLocationAddress = addressLine;
+                        locationEditText.setText(currentLocationAddress);
+                        isUsingCurrentLocation = true;
+                    });
                 } else {
                     // Fallback to default location if no last location
                     LatLng defaultLocation = new LatLng(28.6139, 77.2090);
@@ -394,6 +395,39 @@ public class DonateActivity extends AppCompatActivity implements OnMapReadyCallb
         }
     }
 
+    /**
+     * Reverse geocodes the current location in the background, then fills in the
+     * address and moves the map marker.
+     * @param updates Location updates to stop once an address is found, or null
+     */
+    private void showCurrentLocationAddress(double latitude, double longitude, @Nullable LocationCallback updates) {
+        GeocodingService.getInstance(this).reverseGeocode(latitude, longitude, addressLine -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (addressLine == null) {
+                Toast.makeText(DonateActivity.this, "Error getting location", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            currentLocationAddress = addressLine;
+            locationEditText.setText(currentLocationAddress);
+            isUsingCurrentLocation = true;
+            // Update map
+            if (mMap != null) {
+                LatLng currentLatLng = new LatLng(latitude, longitude);
+                if (currentLocationMarker != null) {
+                    currentLocationMarker.remove();
+                }
+                currentLocationMarker = mMap.addMarker(new MarkerOptions()
+                        .position(currentLatLng)
+                        .title("Your Current Location")
+                        .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_GREEN)));
+                mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(currentLatLng, 15));
+            }
+            if (updates != null) {
+                fusedLocationClient.removeLocationUpdates(updates);
+            }
+        });
+    }
+
     private void checkLocationPermission() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
                 != PackageManager.PERMISSION_GRANTED) {
@@ -439,31 +473,7 @@ public class DonateActivity extends AppCompatActivity implements OnMapReadyCallb
                             if (location != null) {
                                 currentLocationLat = location.getLatitude();
                                 currentLocationLng = location.getLongitude();
-                                Geocoder geocoder = new Geocoder(DonateActivity.this, Locale.getDefault());
-                                try {
-                                    List<Address> addresses = geocoder.getFromLocation(
-                                            location.getLatitude(), location.getLongitude(), 1);
-                                    if (addresses != null && !addresses.isEmpty()) {
-                                        Address address = addresses.get(0);
-                                        currentLocationAddress = address.getAddressLine(0);
-                                        locationEditText.setText(currentLocationAddress);
-                                        isUsingCurrentLocation = true;
-                                        // Update map
-                                        if (mMap != null) {
-                                            LatLng currentLatLng = new LatLng(currentLocationLat, currentLocationLng);
-                                            if (currentLocationMarker != null) {
-                                                currentLocationMarker.remove();
-                                            }
-                                            currentLocationMarker = mMap.addMarker(new MarkerOptions()
-                                                    .position(currentLatLng)
-                                                    .title("Your Current Location")
-                                                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_GREEN)));
-                                            mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(currentLatLng, 15));
-                                        }
-                                    }
-                                } catch (IOException e) {
-                                    Toast.makeText(DonateActivity.this, "Error getting location", Toast.LENGTH_SHORT).show();
-                                }
+                                showCurrentLocationAddress(location.getLatitude(), location.getLongitude(), null);
                             } else {
                                 // If last location is null, request location updates
                                 if (ActivityCompat.checkSelfPermission(DonateActivity.this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
@@ -480,32 +490,7 @@ public class DonateActivity extends AppCompatActivity implements OnMapReadyCallb
                                                     Location location = locationResult.getLastLocation();
                                                     currentLocationLat = location.getLatitude();
                                                     currentLocationLng = location.getLongitude();
-                                                    Geocoder geocoder = new Geocoder(DonateActivity.this, Locale.getDefault());
-                                                    try {
-                                                        List<Address> addresses = geocoder.getFromLocation(
-                                                                location.getLatitude(), location.getLongitude(), 1);
-                                                        if (addresses != null && !addresses.isEmpty()) {
-                                                            Address address = addresses.get(0);
-                                                            currentLocationAddress = address.getAddressLine(0);
-                                                            locationEditText.setText(currentLocationAddress);
-                                                            isUsingCurrentLocation = true;
-                                                            // Update map
-                                                            if (mMap != null) {
-                                                                LatLng currentLatLng = new LatLng(currentLocationLat, currentLocationLng);
-                                                                if (currentLocationMarker != null) {
-                                                                    currentLocationMarker.remove();
-                                                                }
-                                                                currentLocationMarker = mMap.addMarker(new MarkerOptions()
-                                                                        .position(currentLatLng)
-                                                                        .title("Your Current Location")
-                                                                        .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_GREEN)));
-                                                                mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(currentLatLng, 15));
-                                                            }
-                                                            fusedLocationClient.removeLocationUpdates(this);
-                                                        }
-                                                    } catch (IOException e) {
-                                                        Toast.makeText(DonateActivity.this, "Error getting location", Toast.LENGTH_SHORT).show();
-                                                    }
+                                                    showCurrentLocationAddress(location.getLatitude(), location.getLongitude(), this);
                                                 }
                                             }
                                         }, null);
@@ -598,6 +583,9 @@ public class DonateActivity extends AppCompatActivity implements OnMapReadyCallb
         donationData.put("quantity", quantity);
         donationData.put("description", description);
         donationData.put("location", location);
+        if (isCurrentLocation) {
+            GeoHash.putPosition(donationData, currentLocationLat, currentLocationLng);
+        }
         donationData.put("condition", condition);
         donationData.put("type", category);
         donationData.put("donorId", mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : "");
@@ -613,30 +601,66 @@ public class DonateActivity extends AppCompatActivity implements OnMapReadyCallb
             donationData.put("itemName", itemNameEditText.getText().toString().trim());
         }
 
-        db.collection("donations").add(donationData)
-                .addOnSuccessListener(documentReference -> {
-                    Toast.makeText(DonateActivity.this, "Donation submitted successfully!", Toast.LENGTH_SHORT).show();
-                    // Clear fields
-                    itemNameEditText.setText("");
-                    quantityEditText.setText("");
-                    descriptionEditText.setText("");
-                    locationEditText.setText("");
-                    conditionSpinner.setSelection(0);
-                    categorySpinner.setSelection(0);
-                    isUsingCurrentLocation = false;
-                    currentLocationLat = 0.0;
-                    currentLocationLng = 0.0;
-                    if (currentLocationMarker != null) {
-                        currentLocationMarker.remove();
-                        currentLocationMarker = null;
-                    }
-                    submitButton.setEnabled(true);
-                    submitButton.setText("Submit Donation");
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(DonateActivity.this, "Error submitting donation: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    submitButton.setEnabled(true);
-                    submitButton.setText("Submit Donation");
-                });
+        if (isCurrentLocation) {
+            enqueueDonation(donationData);
+            return;
+        }
+        // Typed addresses are geocoded now, since the map only finds donations by geohash.
+        // If the address cannot be resolved the donation is still saved, just not mapped
+        GeocodingService.getInstance(this).geocode(location, latLng -> {
+            if (latLng != null) {
+                GeoHash.putPosition(donationData, latLng.latitude, latLng.longitude);
+            }
+            enqueueDonation(donationData);
+        });
+    }
+
+    private void enqueueDonation(Map<String, Object> donationData) {
+        // Saved on the device first, so the donation is not lost without coverage
+        WriteOutbox outbox = WriteOutbox.getInstance(this);
+        String donationId = outbox.newDocumentId("donations");
+        outbox.enqueue("donations", donationId, donationData,
+                Collections.singletonList(DonationSummaries.linkedTo(donationId, donationData)),
+                new WriteOutbox.WriteListener() {
+            @Override
+            public void onSent(OutboxEntry entry) {
+                if (isFinishing() || isDestroyed()) return;
+                Toast.makeText(DonateActivity.this, "Donation submitted successfully!", Toast.LENGTH_SHORT).show();
+                clearDonationForm();
+            }
+
+            @Override
+            public void onDeferred(OutboxEntry entry) {
+                if (isFinishing() || isDestroyed()) return;
+                Toast.makeText(DonateActivity.this, "No connection right now. Your donation is saved and will be sent automatically.", Toast.LENGTH_LONG).show();
+                clearDonationForm();
+            }
+
+            @Override
+            public void onRejected(OutboxEntry entry) {
+                if (isFinishing() || isDestroyed()) return;
+                Toast.makeText(DonateActivity.this, "Error submitting donation: " + entry.getLastError(), Toast.LENGTH_SHORT).show();
+                submitButton.setEnabled(true);
+                submitButton.setText("Submit Donation");
+            }
+        });
+    }
+
+    private void clearDonationForm() {
+        itemNameEditText.setText("");
+        quantityEditText.setText("");
+        descriptionEditText.setText("");
+        locationEditText.setText("");
+        conditionSpinner.setSelection(0);
+        categorySpinner.setSelection(0);
+        isUsingCurrentLocation = false;
+        currentLocationLat = 0.0;
+        currentLocationLng = 0.0;
+        if (currentLocationMarker != null) {
+            currentLocationMarker.remove();
+            currentLocationMarker = null;
+        }
+        submitButton.setEnabled(true);
+        submitButton.setText("Submit Donation");
     }
 }
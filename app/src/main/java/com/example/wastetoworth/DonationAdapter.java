@@ -21,11 +21,11 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 // RecyclerView Adapter for displaying donation items
-public class DonationAdapter extends RecyclerView.Adapter<DonationAdapter.DonationViewHolder> {
+public class DonationAdapter extends KeyedDiffAdapter<DonationModel, DonationAdapter.DonationViewHolder> {
 
     public interface OnReceiveClickListener {
         void onReceiveClick(DonationModel donation);
@@ -37,14 +37,12 @@ public class DonationAdapter extends RecyclerView.Adapter<DonationAdapter.Donati
 
     private OnReceiveClickListener receiveClickListener;
     private final Context context;
-    private final List<DonationModel> donationList;
     private final FirebaseFirestore firestore;
     private final FirebaseAuth auth;
     private final OnItemClickListener listener;
 
-    public DonationAdapter(Context context, List<DonationModel> donationList, OnItemClickListener listener) {
+    public DonationAdapter(Context context, OnItemClickListener listener) {
         this.context = context;
-        this.donationList = donationList;
         this.listener = listener;
         this.firestore = FirebaseFirestore.getInstance();
         this.auth = FirebaseAuth.getInstance();
@@ -54,6 +52,20 @@ public class DonationAdapter extends RecyclerView.Adapter<DonationAdapter.Donati
         this.receiveClickListener = listener;
     }
 
+    @Override
+    protected String getItemKey(@NonNull DonationModel donation) {
+        return donation.getDocumentId();
+    }
+
+    @Override
+    protected int getContentHash(@NonNull DonationModel donation) {
+        return Objects.hash(donation.getFoodName(), donation.getName(), donation.getType(),
+                donation.getDescription(), donation.getQuantity(), donation.getDonorName(),
+                donation.getDonorId(), donation.getDonorPhone(), donation.getCategory(),
+                donation.getLocation(), donation.getAddress(), donation.getTimestamp(),
+                donation.isReceived(), donation.getReceiverName());
+    }
+
     @NonNull
     @Override
     public DonationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -63,10 +75,10 @@ public class DonationAdapter extends RecyclerView.Adapter<DonationAdapter.Donati
 
     @Override
     public void onBindViewHolder(@NonNull DonationViewHolder holder, int position) {
-        if (donationList == null || position < 0 || position >= donationList.size()) {
+        if (position < 0 || position >= getItemCount()) {
             return;
         }
-        DonationModel donation = donationList.get(position);
+        DonationModel donation = getItem(position);
         if (donation == null) {
             return;
         }
@@ -168,11 +180,6 @@ public class DonationAdapter extends RecyclerView.Adapter<DonationAdapter.Donati
         holder.bind(donation, listener);
     }
 
-    @Override
-    public int getItemCount() {
-        return donationList != null ? donationList.size() : 0;
-    }
-
     private String getTimeAgo(Timestamp timestamp) {
         Date date = timestamp.toDate();
         long diff = System.currentTimeMillis() - date.getTime();
@@ -17,17 +17,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
+import com.example.wastetoworth.data.DonationFeedLoader;
+import com.example.wastetoworth.data.DonationMapper;
+import com.example.wastetoworth.data.claim.ClaimRequest;
+import com.example.wastetoworth.data.claim.ClaimService;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.GeoPoint;
 import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +37,7 @@ import java.util.Map;
 public class DonationFeedActivity extends AppCompatActivity {
 
     private static final String TAG = "DonationFeedActivity";
+    private static final int LOAD_MORE_THRESHOLD = 5;
 
     private RecyclerView recyclerViewDonations;
     private DonationAdapter donationAdapter;
@@ -48,6 +50,8 @@ public class DonationFeedActivity extends AppCompatActivity {
 
     private FirebaseFirestore firestore;
     private FirebaseAuth auth;
+    private final DonationMapper donationMapper = DonationMapper.forCollection("donations");
+    private DonationFeedLoader feedLoader;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -81,11 +85,21 @@ public class DonationFeedActivity extends AppCompatActivity {
     private void setupFirebase() {
         firestore = FirebaseFirestore.getInstance();
         auth = FirebaseAuth.getInstance();
+
+        // Both sources are ordered newest first so pages can be merged without re-sorting
+        feedLoader = new DonationFeedLoader()
+                .addSource(firestore.collection("donations")
+                                .orderBy("timestamp", Query.Direction.DESCENDING),
+                        donationMapper::mapAll)
+                .addSource(firestore.collection("urgent_requests")
+                                .whereEqualTo("status", "pending")
+                                .orderBy("timestamp", Query.Direction.DESCENDING),
+                        this::createUrgentFromDocuments);
     }
 
     private void setupRecyclerView() {
         donationList = new ArrayList<>();
-        donationAdapter = new DonationAdapter(this, donationList, donation -> {
+        donationAdapter = new DonationAdapter(this, donation -> {
             // Handle item click if needed
         });
         
@@ -99,6 +113,20 @@ public class DonationFeedActivity extends AppCompatActivity {
         
         recyclerViewDonations.setLayoutManager(new LinearLayoutManager(this));
         recyclerViewDonations.setAdapter(donationAdapter);
+
+        // Load the next page when the user scrolls near the end of the feed
+        recyclerViewDonations.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (dy <= 0 || layoutManager == null) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= donationList.size() - LOAD_MORE_THRESHOLD
+                        && feedLoader.hasMore() && !feedLoader.isLoading()) {
+                    loadNextFeedPage(false);
+                }
+            }
+        });
     }
 
     private void setupFilters() {
@@ -134,112 +162,41 @@ public class DonationFeedActivity extends AppCompatActivity {
         showLoading(true);
         if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(true);
 
-        firestore.collection("donations")
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(donationsSnap -> {
-                    List<DonationModel> combined = new ArrayList<>();
-                    for (DocumentSnapshot document : donationsSnap) {
-                        DonationModel model = createDonationFromDocument(document);
-                        if (model != null) combined.add(model);
-                    }
-                    firestore.collection("urgent_requests")
-                            .whereEqualTo("status", "pending")
-                            .get()
-                            .addOnSuccessListener(urgentSnap -> {
-                                for (DocumentSnapshot document : urgentSnap) {
-                                    DonationModel urgent = createUrgentFromDocument(document);
-                                    if (urgent != null) combined.add(urgent);
-                                }
-                                Collections.sort(combined, new Comparator<DonationModel>() {
-                                    @Override
-                                    public int compare(DonationModel o1, DonationModel o2) {
-                                        if (o1.getTimestamp() == null && o2.getTimestamp() == null) return 0;
-                                        if (o1.getTimestamp() == null) return 1;
-                                        if (o2.getTimestamp() == null) return -1;
-                                        return o2.getTimestamp().compareTo(o1.getTimestamp());
-                                    }
-                                });
-                                showLoading(false);
-                                if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(false);
-                                updateDonationList(combined);
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "urgent_requests load error", e);
-                                Toast.makeText(this, "Failed to load urgent requests: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                                showLoading(false);
-                                if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(false);
-                                updateDonationList(new ArrayList<>());
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "donations load error", e);
-                    Toast.makeText(this, "Failed to load donations: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    showLoading(false);
-                    if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(false);
-                    updateDonationList(new ArrayList<>());
-                });
+        feedLoader.reset();
+        loadNextFeedPage(true);
     }
 
-    private DonationModel createDonationFromDocument(DocumentSnapshot document) {
-        try {
-            String documentId = document.getId();
-            String itemName = safe(document.getString("itemName"));
-            String name = safe(document.getString("name"));
-            String foodName = safe(document.getString("foodName"));
-            String type = safe(document.getString("type"));
-            String category = safe(document.getString("category"));
-            String resolvedName = !itemName.isEmpty() ? itemName : (!foodName.isEmpty() ? foodName : (!name.isEmpty() ? name : (!category.isEmpty() ? category : "Donation")));
-            String description = safe(document.getString("description"));
-            String quantity = extractQuantity(document.get("quantity"));
-            String donorName = safe(document.getString("donorName"));
-            String donorId = coalesce(document.getString("donorId"), document.getString("userId"), document.getString("userid"));
-
-            String address = safe(document.getString("address"));
-            String locationStr = "";
-            Object locObj = document.get("location");
-            if (locObj instanceof String) {
-                locationStr = (String) locObj;
-            } else if (locObj instanceof GeoPoint) {
-                GeoPoint gp = (GeoPoint) locObj;
-                locationStr = gp.getLatitude() + "," + gp.getLongitude();
+    private void loadNextFeedPage(boolean refresh) {
+        feedLoader.loadNextPage(new DonationFeedLoader.FeedCallback() {
+            @Override
+            public void onPageLoaded(List<DonationModel> page, boolean hasMore) {
+                if (isFinishing() || isDestroyed()) return;
+                showLoading(false);
+                if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(false);
+                List<DonationModel> donations = refresh ? new ArrayList<>() : new ArrayList<>(donationList);
+                donations.addAll(page);
+                updateDonationList(donations);
             }
-            if (address.isEmpty()) address = locationStr;
 
-            Timestamp timestamp = null;
-            Object tsObj = document.get("timestamp");
-            if (tsObj instanceof Timestamp) {
-                timestamp = (Timestamp) tsObj;
-            } else if (tsObj instanceof Number) {
-                timestamp = new Timestamp(new Date(((Number) tsObj).longValue()));
+            @Override
+            public void onError(String error) {
+                if (isFinishing() || isDestroyed()) return;
+                Log.e(TAG, "feed load error: " + error);
+                Toast.makeText(DonationFeedActivity.this, "Failed to load donations: " + error, Toast.LENGTH_SHORT).show();
+                showLoading(false);
+                if (swipeRefreshLayout != null) swipeRefreshLayout.setRefreshing(false);
+                if (refresh) updateDonationList(new ArrayList<>());
             }
+        });
+    }
 
-            DonationModel donation = new DonationModel();
-            donation.setDocumentId(documentId);
-            donation.setName(resolvedName);
-            donation.setFoodName(!foodName.isEmpty() ? foodName : resolvedName);
-            donation.setDescription(description);
-            donation.setType(type.isEmpty() ? "food" : type);
-            donation.setCategory(category);
-            donation.setQuantity(quantity);
-            donation.setDonorName(donorName);
-            donation.setDonorId(donorId);
-            donation.setAddress(address);
-            donation.setTimestamp(timestamp);
-            if (!locationStr.isEmpty()) donation.setLocation(locationStr);
-            String status = document.getString("status");
-            if (status != null) donation.setStatus(status);
-            String phone = coalesce(document.getString("phone"), document.getString("donorPhone"));
-            if (phone != null) donation.setPhone(phone);
-            String imageUrl = document.getString("imageUrl");
-            if (imageUrl != null) donation.setImageUrl(imageUrl);
-            Boolean isReceived = document.getBoolean("isReceived");
-            if (isReceived != null) donation.setReceived(isReceived);
-            return donation;
-        } catch (Exception e) {
-            Log.e(TAG, "Error creating donation from document: " + e.getMessage());
-            return null;
+    private List<DonationModel> createUrgentFromDocuments(List<DocumentSnapshot> documents) {
+        List<DonationModel> urgents = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            DonationModel urgent = createUrgentFromDocument(document);
+            if (urgent != null) urgents.add(urgent);
         }
+        return urgents;
     }
 
     private DonationModel createUrgentFromDocument(DocumentSnapshot document) {
@@ -292,7 +249,7 @@ public class DonationFeedActivity extends AppCompatActivity {
     private void updateDonationList(List<DonationModel> donations) {
         donationList.clear();
         donationList.addAll(donations);
-        donationAdapter.notifyDataSetChanged();
+        donationAdapter.submitList(donationList);
         if (donations.isEmpty()) {
             layoutEmptyState.setVisibility(View.VISIBLE);
             recyclerViewDonations.setVisibility(View.GONE);
@@ -334,13 +291,9 @@ public class DonationFeedActivity extends AppCompatActivity {
             collectionName = "urgent_requests";
         }
 
-        // Firestore reference to donation document
-        DocumentReference donationRef = firestore.collection(collectionName).document(donation.getDocumentId());
-
-        // Update fields in Firestore
+        // Fields written together with the claim
         Map<String, Object> updates = new HashMap<>();
-        updates.put("isReceived", true);
-        updates.put("receiverId", currentUserId);
+        updates.put(ClaimRequest.FIELD_RECEIVED, true);
         updates.put("receiverEmail", currentUserEmail);
         updates.put("receiverName", currentUserName);
         updates.put("receivedTimestamp", Timestamp.now());
@@ -349,26 +302,39 @@ public class DonationFeedActivity extends AppCompatActivity {
         // Show loading state
         showLoading(true);
 
-        // Apply updates to Firestore
-        donationRef.update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    showLoading(false);
-                    
-                    // Refresh the adapter to show updated status
-                    donationAdapter.notifyDataSetChanged();
-                    
-                    String message = "urgent_request".equals(donation.getType()) ? 
+        // Claim the donation so that only one user can receive it
+        String receiverName = currentUserName;
+        ClaimRequest claim = ClaimRequest.receiver(collectionName, donation.getDocumentId(), currentUserId, updates);
+        ClaimService.getInstance().claim(claim, result -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            showLoading(false);
+            switch (result.getOutcome()) {
+                case WON:
+                    // Refresh the row to show updated status
+                    donation.setReceived(true);
+                    donation.setReceiverName(receiverName);
+                    donationAdapter.submitList(donationList);
+
+                    String message = "urgent_request".equals(donation.getType()) ?
                         "Request fulfilled successfully!" : "Donation received successfully!";
                     Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
-                    
-                    // Reload the feed to get latest data
-                    loadAllFeed();
-                })
-                .addOnFailureListener(e -> {
-                    showLoading(false);
-                    Toast.makeText(this, "Failed to receive donation: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    Log.e(TAG, "Error receiving donation", e);
-                });
+                    break;
+                case LOST_TO_OTHER:
+                    Toast.makeText(this, "Someone else already received this donation", Toast.LENGTH_SHORT).show();
+                    break;
+                case STALE:
+                    Toast.makeText(this, "This donation is no longer available", Toast.LENGTH_SHORT).show();
+                    break;
+                default:
+                    Toast.makeText(this, "Failed to receive donation: " + result.getError(), Toast.LENGTH_SHORT).show();
+                    Log.e(TAG, "Error receiving donation: " + result.getError());
+                    return;
+            }
+            // Reload the feed to get latest data
+            loadAllFeed();
+        });
     }
 
     private void showLoading(boolean show) {
@@ -379,7 +345,6 @@ public class DonationFeedActivity extends AppCompatActivity {
     private static String safe(String s) { return s == null ? "" : s; }
     private static String coalesce(String a, String b, String c) { return a != null ? a : (b != null ? b : c); }
     private static String coalesce(String a, String b, String c, String d) { return a != null ? a : (b != null ? b : (c != null ? c : d)); }
-    private static String coalesce(String a, String b) { return a != null ? a : b; }
     private static String extractQuantity(Object q) {
         if (q == null) return "";
         if (q instanceof String) return (String) q;
@@ -1,8 +1,6 @@
 package com.example.wastetoworth;
 
 
-import com.google.firebase.firestore.ListenerRegistration;
-
 import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
@@ -12,14 +10,15 @@ import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.wastetoworth.data.DonationHistoryPager;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -32,12 +31,15 @@ import java.util.List;
  */
 public class DonationHistoryActivity extends AppCompatActivity {
     
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
     private RecyclerView recyclerView;
     private TextView textEmpty;
     private DonationHistoryAdapter adapter;
     private List<DonationItem> donationList;
+    private DonationHistoryPager historyPager;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -62,7 +64,7 @@ public class DonationHistoryActivity extends AppCompatActivity {
         
         // Initialize donation list and adapter
         donationList = new ArrayList<>();
-        adapter = new DonationHistoryAdapter(donationList);
+        adapter = new DonationHistoryAdapter();
         
         // Setup RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
@@ -72,8 +74,6 @@ public class DonationHistoryActivity extends AppCompatActivity {
         loadDonationHistory();
     }
     
-    private ListenerRegistration historyListener;
-
     private void loadDonationHistory() {
         String userId = mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : null;
         
@@ -83,12 +83,9 @@ public class DonationHistoryActivity extends AppCompatActivity {
             return;
         }
         
-        // Check network connectivity
+        // Check network connectivity; cached pages are still shown when offline
         if (!isNetworkAvailable()) {
             Toast.makeText(this, "No internet connection. Please check your network.", Toast.LENGTH_LONG).show();
-            textEmpty.setVisibility(View.VISIBLE);
-            recyclerView.setVisibility(View.GONE);
-            return;
         }
         
         // Check Firebase initialization
@@ -99,150 +96,112 @@ public class DonationHistoryActivity extends AppCompatActivity {
             return;
         }
         
-        // Load donations from Firestore with real-time listener
-        // Note: Avoiding composite index by filtering in memory
-        historyListener = db.collection("donations")
-                .orderBy("timestamp", com.google.firebase.firestore.Query.Direction.DESCENDING)
-                .limit(100) // Get more documents to filter in memory
-                .addSnapshotListener((queryDocumentSnapshots, e) -> {
-                    if (e != null) {
-                        Log.e("DonationHistoryActivity", "Error loading donation history: " + e.getMessage(), e);
-                        Toast.makeText(this, "Error loading donation history: " + e.getMessage(), 
-                                Toast.LENGTH_SHORT).show();
-                        textEmpty.setVisibility(View.VISIBLE);
-                        recyclerView.setVisibility(View.GONE);
-                        return;
-                    }
-                    
-                    donationList.clear();
-                    
-                    if (queryDocumentSnapshots == null || queryDocumentSnapshots.isEmpty()) {
-                        textEmpty.setVisibility(View.VISIBLE);
-                        recyclerView.setVisibility(View.GONE);
-                    } else {
-                        textEmpty.setVisibility(View.GONE);
-                        recyclerView.setVisibility(View.VISIBLE);
-                        
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            // Filter donations by donorId in memory to avoid composite index
-                            String documentDonorId = document.getString("donorId");
-                            if (documentDonorId == null) {
-                                // Try alternative field names
-                                documentDonorId = document.getString("userId");
-                            }
-                            if (documentDonorId == null) {
-                                documentDonorId = document.getString("userid");
-                            }
-                            if (documentDonorId == null || !documentDonorId.equals(userId)) {
-                                continue; // Skip donations not made by current user
-                            }
-                            
-                            DonationItem donation = new DonationItem();
-                            donation.setId(document.getId());
-                            
-                            // Handle different donation types
-                            String category = document.getString("type");
-                            String itemName = "";
-                            
-                            if ("Clothes".equals(category)) {
-                                String clothesType = document.getString("clothesType");
-                                String clothesSize = document.getString("clothesSize");
-                                String clothesGender = document.getString("clothesGender");
-                                itemName = "Clothes - " + (clothesType != null ? clothesType : "") + " (" + (clothesSize != null ? clothesSize : "") + ", " + (clothesGender != null ? clothesGender : "") + ")";
-                            } else {
-                                // Default to food or other types
-                                itemName = document.getString("itemName");
-                                if (itemName == null || itemName.isEmpty()) {
-                                    itemName = document.getString("foodName");
-                                }
-                                if (itemName == null || itemName.isEmpty()) {
-                                    itemName = category != null ? category + " donation" : "Donation";
-                                }
-                            }
-                            
-                            // Check if this is an urgent request
-                            Boolean isUrgent = document.getBoolean("urgent");
-                            String urgentReason = document.getString("urgentReason");
-                            if (isUrgent != null && isUrgent && urgentReason != null && !urgentReason.isEmpty()) {
-                                itemName = "\uD83D\uDEA8 URGENT: " + itemName;
-                                donation.setUrgent(true);
-                                donation.setUrgentReason(urgentReason);
-                            }
-                            
-                            donation.setItemName(itemName);
-                            // Handle quantity field - could be String or Number
-                            Object quantityObj = document.get("quantity");
-                            String quantityString = "";
-                            if (quantityObj instanceof String) {
-                                quantityString = (String) quantityObj;
-                            } else if (quantityObj instanceof Number) {
-                                quantityString = String.valueOf(quantityObj);
-                            }
-                            donation.setQuantity(quantityString);
-                            // Handle location field - check if it's stored as GeoPoint or String
-                            Object locationObj = document.get("location");
-                            String locationString = "";
-                            
-                            if (locationObj instanceof com.google.firebase.firestore.GeoPoint) {
-                                com.google.firebase.firestore.GeoPoint geoPoint = (com.google.firebase.firestore.GeoPoint) locationObj;
-                                locationString = geoPoint.getLatitude() + "," + geoPoint.getLongitude();
-                            } else if (locationObj instanceof String) {
-                                locationString = (String) locationObj;
-                            } else {
-                                String address = document.getString("address");
-                                if (address != null) locationString = address;
-                            }
-                            
-                            donation.setLocation(locationString);
-                            donation.setCategory(category);
-                            
-                            // Handle timestamp - check for both timestamp and createdAt fields
-                            java.util.Date date = null;
-                            Object tsObj = document.get("timestamp");
-                            if (tsObj instanceof com.google.firebase.Timestamp) {
-                                date = ((com.google.firebase.Timestamp) tsObj).toDate();
-                            } else if (tsObj instanceof Number) {
-                                date = new java.util.Date(((Number) tsObj).longValue());
-                            }
-                            if (date != null) {
-                                donation.setTimestamp(date);
-                            }
-                            
-                            // Set status based on isReceived field
-                            Boolean isReceived = document.getBoolean("isReceived");
-                            if (isReceived != null && isReceived) {
-                                donation.setStatus("Claimed");
-                            } else {
-                                donation.setStatus("Available");
-                            }
-                            
-                            donation.setReceiverId(document.getString("receiverId"));
-                            donation.setDonorName(document.getString("donorName"));
-                            
-                            // Add phone number for call functionality
-                            String phone = document.getString("phone");
-                            if (phone != null && !phone.isEmpty()) {
-                                donation.setPhone(phone);
-                            }
-                            
-                            donationList.add(donation);
-                            
-                            // Limit to 50 donations after filtering
-                            if (donationList.size() >= 50) {
-                                break;
-                            }
-                        }
-                        
-                        adapter.notifyDataSetChanged();
-                    }
-                });
+        historyPager = DonationHistoryPager.forDonor(userId);
+
+        // Load the next page when the user scrolls near the end of the list
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (dy <= 0 || layoutManager == null) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= donationList.size() - LOAD_MORE_THRESHOLD && historyPager.hasMore()) {
+                    historyPager.loadNextPage();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (historyPager == null) {
+            return;
+        }
+        historyPager.start(new DonationHistoryPager.HistoryCallback() {
+            @Override
+            public void onHistoryLoaded(List<DonationModel> donations, boolean hasMore) {
+                donationList.clear();
+                for (DonationModel donation : donations) {
+                    donationList.add(toHistoryItem(donation));
+                }
+
+                if (donationList.isEmpty()) {
+                    textEmpty.setVisibility(View.VISIBLE);
+                    recyclerView.setVisibility(View.GONE);
+                } else {
+                    textEmpty.setVisibility(View.GONE);
+                    recyclerView.setVisibility(View.VISIBLE);
+                }
+                adapter.submitList(donationList);
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e("DonationHistoryActivity", "Error loading donation history: " + error);
+                Toast.makeText(DonationHistoryActivity.this, "Error loading donation history: " + error,
+                        Toast.LENGTH_SHORT).show();
+                if (donationList.isEmpty()) {
+                    textEmpty.setVisibility(View.VISIBLE);
+                    recyclerView.setVisibility(View.GONE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Builds the history row for a mapped donation.
+     */
+    private DonationItem toHistoryItem(DonationModel source) {
+        DonationItem donation = new DonationItem();
+        donation.setId(source.getDocumentId());
+
+        // Handle different donation types
+        String category = source.getType();
+        String itemName;
+        if ("Clothes".equals(category)) {
+            String clothesType = source.getClothesType();
+            String clothesSize = source.getClothesSize();
+            String clothesGender = source.getClothesGender();
+            itemName = "Clothes - " + (clothesType != null ? clothesType : "") + " (" + (clothesSize != null ? clothesSize : "") + ", " + (clothesGender != null ? clothesGender : "") + ")";
+        } else {
+            itemName = source.getName();
+        }
+
+        // Check if this is an urgent request
+        String urgentReason = source.getUrgentReason();
+        if (source.isUrgent() && urgentReason != null && !urgentReason.isEmpty()) {
+            itemName = "\uD83D\uDEA8 URGENT: " + itemName;
+            donation.setUrgent(true);
+            donation.setUrgentReason(urgentReason);
+        }
+
+        donation.setItemName(itemName);
+        donation.setQuantity(source.getQuantity());
+        donation.setLocation(source.getLocation() != null ? source.getLocation() : source.getAddress());
+        donation.setCategory(category);
+        if (source.getTimestamp() != null) {
+            donation.setTimestamp(source.getTimestamp().toDate());
+        }
+
+        // Set status based on isReceived field
+        donation.setStatus(source.isReceived() ? "Claimed" : "Available");
+        donation.setReceiverId(source.getReceiverId());
+        donation.setDonorName(source.getDonorName());
+
+        // Add phone number for call functionality
+        String phone = source.getPhone();
+        if (phone != null && !phone.isEmpty()) {
+            donation.setPhone(phone);
+        }
+        return donation;
     }
 
     @Override
-    protected void onPause() {
-        super.onPause();
-        if (historyListener != null) {
-            historyListener.remove();
+    protected void onStop() {
+        super.onStop();
+        if (historyPager != null) {
+            historyPager.stop();
         }
     }
     
@@ -14,20 +14,26 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
-import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Adapter for displaying donation history items
  */
-public class DonationHistoryAdapter extends RecyclerView.Adapter<DonationHistoryAdapter.ViewHolder> {
+public class DonationHistoryAdapter extends KeyedDiffAdapter<DonationHistoryActivity.DonationItem, DonationHistoryAdapter.ViewHolder> {
     
-    private List<DonationHistoryActivity.DonationItem> donationList;
     private Context context;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
     
-    public DonationHistoryAdapter(List<DonationHistoryActivity.DonationItem> donationList) {
-        this.donationList = donationList;
+    @Override
+    protected String getItemKey(@NonNull DonationHistoryActivity.DonationItem donation) {
+        return donation.getId();
+    }
+    
+    @Override
+    protected int getContentHash(@NonNull DonationHistoryActivity.DonationItem donation) {
+        return Objects.hash(donation.getItemName(), donation.getQuantity(), donation.getLocation(),
+                donation.getStatus(), donation.getTimestamp(), donation.getPhone());
     }
     
     @NonNull
@@ -40,7 +46,7 @@ public class DonationHistoryAdapter extends RecyclerView.Adapter<DonationHistory
     
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        DonationHistoryActivity.DonationItem donation = donationList.get(position);
+        DonationHistoryActivity.DonationItem donation = getItem(position);
         
         // Set item name
         holder.textFoodItem.setText(donation.getItemName());
@@ -108,11 +114,6 @@ public class DonationHistoryAdapter extends RecyclerView.Adapter<DonationHistory
         }
     }
     
-    @Override
-    public int getItemCount() {
-        return donationList.size();
-    }
-    
     public static class ViewHolder extends RecyclerView.ViewHolder {
         TextView textFoodItem, textQuantity, textStatus, textLocation, textDate;
         Button btnCall, btnViewMap;
@@ -179,6 +179,10 @@ public class DonationModel {
     public boolean isUrgent() { return urgent; }
     public void setUrgent(boolean urgent) { this.urgent = urgent; }
     
+    private String urgentReason;
+    public String getUrgentReason() { return urgentReason; }
+    public void setUrgentReason(String urgentReason) { this.urgentReason = urgentReason; }
+    
 
     // Alias for getDocumentId() for compatibility
     public String getDonationId() { return documentId; }
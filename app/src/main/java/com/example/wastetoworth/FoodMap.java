@@ -10,12 +10,9 @@ import androidx.core.content.ContextCompat;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.net.Uri;
 import android.os.Bundle;
-import android.util.Log;
 import android.widget.Toast;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
@@ -28,16 +25,11 @@ import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.material.button.MaterialButton;
 
-import java.io.IOException;
-import java.util.List;
-import java.util.Locale;
-
 public class FoodMap extends AppCompatActivity implements
         OnMapReadyCallback,
         GoogleApiClient.ConnectionCallbacks,
@@ -54,6 +46,8 @@ public class FoodMap extends AppCompatActivity implements
     private SupportMapFragment mapFragment;
     private final int REQUEST_CODE = 11;
     private FirebaseFirestore cloudstorage;
+    private MapMarkerLayer markerLayer;
+    private Marker currentLocationMarker;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -118,7 +112,7 @@ public class FoodMap extends AppCompatActivity implements
             mMap.setPadding(0, 0, 0, 200);
         }
 
-        loadMarkers();
+        attachMarkerLayer();
     }
 
     protected synchronized void buildGoogleApiClient() {
@@ -147,109 +141,43 @@ public class FoodMap extends AppCompatActivity implements
         } else {
             mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(currentLatLng, 15));
         }
-        mMap.addMarker(new MarkerOptions()
-                .position(currentLatLng)
-                .title("You are here")
-                .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_RED)))
-                .showInfoWindow();
+        if (currentLocationMarker == null) {
+            currentLocationMarker = mMap.addMarker(new MarkerOptions()
+                    .position(currentLatLng)
+                    .title("You are here")
+                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_RED)));
+            if (currentLocationMarker != null) currentLocationMarker.showInfoWindow();
+        } else {
+            currentLocationMarker.setPosition(currentLatLng);
+        }
     }
 
-    private void loadMarkers() {
-        // Donations
-        cloudstorage.collection("donations")
-                .get()
-                .addOnSuccessListener(snap -> {
-                    int added = 0;
-                    for (QueryDocumentSnapshot doc : snap) {
-                        try {
-                            String itemName = coalesce(doc.getString("itemName"), doc.getString("foodName"), doc.getString("name"), "Donation");
-                            String description = safe(doc.getString("description"));
-                            String locationStr = safeStringField(doc.get("location"));
-                            String address = safe(doc.getString("address"));
-                            String loc = !locationStr.isEmpty() ? locationStr : address;
-                            LatLng latLng = toLatLng(loc);
-                            if (latLng == null) continue;
-                            boolean isReceived = Boolean.TRUE.equals(doc.getBoolean("isReceived"));
-                            float color = isReceived ? BitmapDescriptorFactory.HUE_GREEN : BitmapDescriptorFactory.HUE_BLUE;
-                            mMap.addMarker(new MarkerOptions()
-                                    .position(latLng)
-                                    .title(itemName)
-                                    .snippet(description)
-                                    .icon(BitmapDescriptorFactory.defaultMarker(color)));
-                            added++;
-                        } catch (Exception e) {
-                            Log.e(TAG, "Donation marker error: " + e.getMessage());
-                        }
-                    }
-                    if (added == 0) Log.d(TAG, "No donation markers added (string location parse)");
+    /**
+     * Shows donations and pending urgent requests inside the visible part of the map,
+     * clustered and loaded incrementally as the camera moves.
+     */
+    private void attachMarkerLayer() {
+        if (markerLayer != null) return;
+        markerLayer = new MapMarkerLayer(this, mMap)
+                .addSource(cloudstorage.collection("donations"), doc -> {
+                    LatLng position = MapMarkerLayer.readPosition(doc);
+                    if (position == null) return null;
+                    String itemName = coalesce(doc.getString("itemName"), doc.getString("foodName"), doc.getString("name"), "Donation");
+                    boolean isReceived = Boolean.TRUE.equals(doc.getBoolean("isReceived"));
+                    float color = isReceived ? BitmapDescriptorFactory.HUE_GREEN : BitmapDescriptorFactory.HUE_BLUE;
+                    return new MapMarkerLayer.Item(doc.getId(), position, itemName, safe(doc.getString("description")), color);
                 })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Donations load failed", e);
-                    Toast.makeText(this, "Failed to load donations: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
-
-        // Urgent requests
-        cloudstorage.collection("urgent_requests")
-                .whereEqualTo("status", "pending")
-                .get()
-                .addOnSuccessListener(snap -> {
-                    int added = 0;
-                    for (QueryDocumentSnapshot doc : snap) {
-                        try {
-                            String itemName = coalesce(doc.getString("itemName"), doc.getString("foodType"), "Urgent Request");
-                            String description = safe(doc.getString("description"));
-                            if (description.isEmpty()) {
-                                String qty = extractQuantity(doc.get("quantity"));
-                                description = "Urgent food request: " + qty;
-                            }
-                            String locationStr = safeStringField(doc.get("location"));
-                            String address = safe(doc.getString("deliveryAddress"));
-                            String loc = !locationStr.isEmpty() ? locationStr : address;
-                            LatLng latLng = toLatLng(loc);
-                            if (latLng == null) continue;
-                            mMap.addMarker(new MarkerOptions()
-                                    .position(latLng)
-                                    .title(itemName)
-                                    .snippet(description)
-                                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_ORANGE)));
-                            added++;
-                        } catch (Exception e) {
-                            Log.e(TAG, "Urgent marker error: " + e.getMessage());
-                        }
+                .addSource(cloudstorage.collection("urgent_requests").whereEqualTo("status", "pending"), doc -> {
+                    LatLng position = MapMarkerLayer.readPosition(doc);
+                    if (position == null) return null;
+                    String itemName = coalesce(doc.getString("itemName"), doc.getString("foodType"), "Urgent Request");
+                    String description = safe(doc.getString("description"));
+                    if (description.isEmpty()) {
+                        description = "Urgent food request: " + extractQuantity(doc.get("quantity"));
                     }
-                    if (added == 0) Log.d(TAG, "No urgent markers added (string location parse)");
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Urgent requests load failed", e);
-                    Toast.makeText(this, "Failed to load urgent requests: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    return new MapMarkerLayer.Item(doc.getId(), position, itemName, description, BitmapDescriptorFactory.HUE_ORANGE);
                 });
-    }
-
-    private LatLng toLatLng(String locationOrAddress) {
-        if (locationOrAddress == null) return null;
-        String val = locationOrAddress.trim();
-        if (val.isEmpty() || val.equals(".")) return null;
-        if (val.contains(",")) {
-            try {
-                String[] parts = val.split(",");
-                double lat = Double.parseDouble(parts[0].trim());
-                double lng = Double.parseDouble(parts[1].trim());
-                if (Math.abs(lat) <= 90 && Math.abs(lng) <= 180) return new LatLng(lat, lng);
-            } catch (Exception ignored) {}
-        }
-        try {
-            Geocoder geocoder = new Geocoder(this, Locale.getDefault());
-            List<Address> results = geocoder.getFromLocationName(val, 1);
-            if (results != null && !results.isEmpty()) {
-                Address a = results.get(0);
-                return new LatLng(a.getLatitude(), a.getLongitude());
-            }
-        } catch (IOException io) {
-            Log.e(TAG, "Geocoding failed: " + io.getMessage());
-        } catch (Exception e) {
-            Log.e(TAG, "Geocoding error: " + e.getMessage());
-        }
-        return null;
+        markerLayer.attach();
     }
 
     private static String extractQuantity(Object q) {
@@ -262,7 +190,12 @@ public class FoodMap extends AppCompatActivity implements
     private static String safe(String s) { return s == null ? "" : s; }
     private static String coalesce(String a, String b, String c, String d) { return a != null ? a : (b != null ? b : (c != null ? c : d)); }
     private static String coalesce(String a, String b, String c) { return a != null ? a : (b != null ? b : c); }
-    private static String safeStringField(Object o) { return (o instanceof String) ? (String)o : ""; }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (markerLayer != null) markerLayer.detach();
+    }
 
     @Override
     public void onConnected(@Nullable Bundle bundle) {
@@ -288,7 +221,6 @@ public class FoodMap extends AppCompatActivity implements
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
                 if (mapFragment != null) {
                     mapFragment.getMapAsync(this);
-                    loadMarkers();
                 }
             } else {
                 Toast.makeText(this, "Location permission is required to show your location on the map", Toast.LENGTH_LONG).show();
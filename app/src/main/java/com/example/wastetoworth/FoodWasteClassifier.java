@@ -1,17 +1,43 @@
 package com.example.wastetoworth;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
-import com.google.mlkit.vision.common.InputImage;
-import com.google.mlkit.vision.label.ImageLabel;
-import com.google.mlkit.vision.label.ImageLabeler;
-import com.google.mlkit.vision.label.ImageLabeling;
-import com.google.mlkit.vision.label.defaults.ImageLabelerOptions;
+import androidx.annotation.Nullable;
+import com.example.wastetoworth.ml.BatchPipeline;
+import com.example.wastetoworth.ml.BatchSummary;
+import com.example.wastetoworth.ml.BitmapDecoder;
+import com.example.wastetoworth.ml.BitmapPool;
+import com.example.wastetoworth.ml.ClassifierBackend;
+import com.example.wastetoworth.ml.FoodTaxonomy;
+import com.example.wastetoworth.ml.Label;
+import com.example.wastetoworth.ml.MlKitBackend;
+import com.example.wastetoworth.ml.PerceptualHash;
+import com.example.wastetoworth.ml.StageTimings;
+import com.example.wastetoworth.ml.StageTimings.Stage;
+import com.example.wastetoworth.ml.TfLiteBackend;
+import com.example.wastetoworth.util.LruTtlCache;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -19,12 +45,75 @@ import java.util.Map;
  * 
  * This class uses Google ML Kit to analyze images of food items and classify them
  * into categories, estimate freshness, and provide donation recommendations.
+ * When a freshness model is bundled in the assets, freshness comes from that
+ * TensorFlow Lite model instead of being inferred from label confidence.
+ *
+ * Classification runs as a pipeline of decode, preprocess, infer and postprocess stages on a
+ * dedicated background thread. Images are decoded subsampled to the model input size and
+ * scaled into pooled bitmaps, and the time spent in each stage is reported with the result.
+ * Callbacks are delivered on the main thread.
+ *
+ * Results are cached by a perceptual hash of the preprocessed image, so re-shooting the
+ * same tray returns the earlier result without running the models. Picked image files only
+ * reuse results for the same image, and batch images never do, since the trays of one
+ * donation look alike but must each be classified. The cache is LRU, expires entries as
+ * food ages, and is persisted across restarts until the app is updated.
  */
 public class FoodWasteClassifier {
     
     private static final String TAG = "FoodWasteClassifier";
+    /** Input resolution of the labeling model */
+    public static final int MODEL_INPUT_SIZE = MlKitBackend.INPUT_SIZE;
+    private static final long BITMAP_POOL_BYTES = 8 * 1024 * 1024;
+    private static final String FRESHNESS_MODEL_ASSET = "food_freshness.tflite";
+    private static final String FRESHNESS_LABELS_ASSET = "food_freshness_labels.txt";
+    /** Optional asset overriding {@link FoodTaxonomy#DEFAULT_DEFINITION} */
+    private static final String TAXONOMY_ASSET = "food_taxonomy.txt";
+    /** Use the GPU delegate for the freshness model where supported */
+    private static final boolean FRESHNESS_ALLOW_GPU = false;
+    /** Threads decoding and preprocessing batch images while the classifier thread infers */
+    private static final int BATCH_PREPARE_THREADS = 2;
+    /** Batch images decoded but not yet classified; bounds memory for large batches */
+    private static final int BATCH_MAX_IN_FLIGHT = 4;
+    private static final String RESULT_CACHE_PREFS = "classification_cache";
+    private static final String PREF_RESULT_CACHE = "results";
+    private static final String PREF_RESULT_CACHE_SIGNATURE = "signature";
+    private static final int RESULT_CACHE_MAX_ENTRIES = 128;
+    /** Cached freshness goes stale as food ages, so results are only reused for a few hours */
+    private static final long RESULT_CACHE_TTL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    /** Camera photos whose hashes are at most this many bits apart are treated as the same food */
+    private static final int RESULT_CACHE_MAX_DISTANCE = 6;
+    /** Picked files are decoded the same way each time, so only a near-exact match is the same image */
+    private static final int RESULT_CACHE_MAX_DISTANCE_FILE = 1;
+    /** Distance for images that must not reuse cached results */
+    private static final int RESULT_CACHE_NO_LOOKUP = -1;
+    private static final long RESULT_CACHE_PERSIST_DELAY_MS = 2000;
+
+    private static final ExecutorService CLASSIFIER_EXECUTOR = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "food-classifier"));
+    private static final ExecutorService BATCH_PREPARE_EXECUTOR = Executors.newFixedThreadPool(BATCH_PREPARE_THREADS,
+            runnable -> new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "food-classifier-prepare"));
+    private static final BitmapPool BITMAP_POOL = new BitmapPool(BITMAP_POOL_BYTES);
+    private static final LruTtlCache<Long, ClassificationResult> RESULT_CACHE =
+            new LruTtlCache<>(RESULT_CACHE_MAX_ENTRIES, RESULT_CACHE_TTL_MILLIS);
+
+    // Shared by all classifiers and only touched on the classifier thread
+    private static TfLiteBackend freshnessBackend;
+    private static boolean freshnessBackendLoaded = false;
+    private static FoodTaxonomy taxonomy;
+    private static boolean resultCacheLoaded = false;
+    private static boolean resultCachePersistScheduled = false;
+
     private Context context;
-    private ImageLabeler imageLabeler;
+    private ClassifierBackend labelBackend;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean closed = false;
     
     /**
      * Food classification result
@@ -36,10 +125,27 @@ public class FoodWasteClassifier {
         public boolean donatable;
         public String recommendation;
         public List<String> detectedLabels;
+        /** Time spent in each pipeline stage */
+        public StageTimings timings;
+        /** True if the result was reused from a near-identical photo classified in the last hours */
+        public boolean fromCache;
         
         public ClassificationResult() {
             detectedLabels = new ArrayList<>();
         }
+
+        ClassificationResult copy() {
+            ClassificationResult copy = new ClassificationResult();
+            copy.category = category;
+            copy.confidence = confidence;
+            copy.freshness = freshness;
+            copy.donatable = donatable;
+            copy.recommendation = recommendation;
+            copy.detectedLabels.addAll(detectedLabels);
+            copy.timings = timings;
+            copy.fromCache = fromCache;
+            return copy;
+        }
     }
     
     /**
@@ -49,6 +155,37 @@ public class FoodWasteClassifier {
         void onClassificationSuccess(ClassificationResult result);
         void onClassificationError(String error);
     }
+
+    /**
+     * Callback for classifying an image file, which also receives the decoded image
+     */
+    public interface ImageClassificationCallback extends ClassificationCallback {
+        /**
+         * Called with the decoded, subsampled image before classification completes.
+         * Hand it back with {@link #releaseBitmap(Bitmap)} once it is no longer displayed.
+         */
+        void onImageDecoded(Bitmap bitmap);
+    }
+
+    /**
+     * Result of classifying a batch of images
+     */
+    public static class BatchResult {
+        /** One result per input image, in input order; null where classification failed */
+        public List<ClassificationResult> results;
+        /** One error per input image, in input order; null where classification succeeded */
+        public List<String> errors;
+        public BatchSummary summary;
+    }
+
+    /**
+     * Callback interface for batch classification
+     */
+    public interface BatchCallback {
+        /** Called as each image completes, in completion order; exactly one of result and error is set */
+        void onItemClassified(int index, @Nullable ClassificationResult result, @Nullable String error);
+        void onBatchComplete(BatchResult result);
+    }
     
     /**
      * Constructor
@@ -56,22 +193,67 @@ public class FoodWasteClassifier {
      */
     public FoodWasteClassifier(Context context) {
         this.context = context;
-        initializeLabeler();
+        this.labelBackend = new MlKitBackend(0.6f);
     }
-    
+
     /**
-     * Initialize the ML Kit image labeler
+     * Loads the freshness model and runs one inference on the classifier thread,
+     * so that the first real classification does not pay for model setup.
+     * Call once at app start.
      */
-    private void initializeLabeler() {
-        ImageLabelerOptions options = new ImageLabelerOptions.Builder()
-                .setConfidenceThreshold(0.6f)
-                .build();
-        imageLabeler = ImageLabeling.getClient(options);
+    public static void warmUp(Context context) {
+        Context appContext = context.getApplicationContext();
+        CLASSIFIER_EXECUTOR.execute(() -> {
+            getTaxonomy(appContext);
+            loadResultCache(appContext);
+            long start = System.nanoTime();
+            TfLiteBackend backend = getFreshnessBackend(appContext);
+            if (backend != null) {
+                backend.warmUp();
+                Log.d(TAG, "Warmed up " + backend.getName() + " in "
+                        + (System.nanoTime() - start) / 1_000_000 + "ms");
+            }
+        });
+    }
+
+    /**
+     * @return The shared taxonomy, from the taxonomy asset if one is bundled and valid
+     */
+    private static FoodTaxonomy getTaxonomy(Context context) {
+        if (taxonomy == null) {
+            try (Reader reader = new InputStreamReader(
+                    context.getAssets().open(TAXONOMY_ASSET), StandardCharsets.UTF_8)) {
+                taxonomy = FoodTaxonomy.parse(reader);
+            } catch (IOException e) {
+                Log.d(TAG, "Using built-in food taxonomy: " + e.getMessage());
+                taxonomy = FoodTaxonomy.createDefault();
+            }
+        }
+        return taxonomy;
+    }
+
+    /**
+     * @return The shared freshness model, or null if none is bundled or it failed to load
+     */
+    @Nullable
+    private static TfLiteBackend getFreshnessBackend(Context context) {
+        if (!freshnessBackendLoaded) {
+            freshnessBackendLoaded = true;
+            TfLiteBackend.Options options = new TfLiteBackend.Options();
+            options.allowGpu = FRESHNESS_ALLOW_GPU;
+            try {
+                freshnessBackend = TfLiteBackend.fromAssets(context.getApplicationContext(),
+                        FRESHNESS_MODEL_ASSET, FRESHNESS_LABELS_ASSET, options);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Freshness model unavailable, using label confidence", e);
+            }
+        }
+        return freshnessBackend;
     }
     
     /**
      * Classify food waste from a bitmap image
-     * @param bitmap The image to classify
+     * @param bitmap The image to classify; it must not be recycled until the callback runs
      * @param callback Callback for results
      */
     public void classifyFoodWaste(Bitmap bitmap, ClassificationCallback callback) {
@@ -80,56 +262,357 @@ public class FoodWasteClassifier {
             return;
         }
         
-        InputImage image = InputImage.fromBitmap(bitmap, 0);
-        
-        imageLabeler.process(image)
-                .addOnSuccessListener(labels -> {
-                    ClassificationResult result = processLabels(labels);
-                    callback.onClassificationSuccess(result);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Classification failed", e);
-                    callback.onClassificationError(e.getMessage());
-                });
+        CLASSIFIER_EXECUTOR.execute(() -> {
+            try {
+                ClassificationResult result = runPipeline(bitmap, new StageTimings(), RESULT_CACHE_MAX_DISTANCE);
+                deliver(() -> callback.onClassificationSuccess(result));
+            } catch (Exception e) {
+                Log.e(TAG, "Classification failed", e);
+                deliver(() -> callback.onClassificationError(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Classify food waste from an image file, decoding it off the main thread
+     * @param uri Content or file URI of the image
+     * @param displaySize Smallest side the decoded image should keep for display, in pixels
+     * @param callback Callback for the decoded image and the results
+     */
+    public void classifyFoodWaste(Uri uri, int displaySize, ImageClassificationCallback callback) {
+        CLASSIFIER_EXECUTOR.execute(() -> {
+            StageTimings timings = new StageTimings();
+            Bitmap decoded;
+            try {
+                long start = System.nanoTime();
+                decoded = BitmapDecoder.decodeSampled(context.getContentResolver(), uri,
+                        Math.max(MODEL_INPUT_SIZE, displaySize), BITMAP_POOL);
+                timings.record(Stage.DECODE, start);
+            } catch (Exception e) {
+                Log.e(TAG, "Decoding failed", e);
+                deliver(() -> callback.onClassificationError("Error loading image"));
+                return;
+            }
+            deliver(() -> callback.onImageDecoded(decoded));
+
+            try {
+                ClassificationResult result = runPipeline(decoded, timings, RESULT_CACHE_MAX_DISTANCE_FILE);
+                deliver(() -> callback.onClassificationSuccess(result));
+            } catch (Exception e) {
+                Log.e(TAG, "Classification failed", e);
+                deliver(() -> callback.onClassificationError(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Classify a batch of images, such as several trays of one donation.
+     *
+     * Images are decoded and preprocessed on a small worker pool while earlier ones are
+     * classified, with at most {@link #BATCH_MAX_IN_FLIGHT} decoded images held at a time.
+     * @param uris Content or file URIs of the images
+     * @param callback Callback for per-image progress and the combined result
+     */
+    public void classifyBatch(List<Uri> uris, BatchCallback callback) {
+        List<Uri> inputs = new ArrayList<>(uris);
+        CLASSIFIER_EXECUTOR.execute(() -> {
+            long batchStart = System.nanoTime();
+            int inputSize = labelBackend.getInputSize();
+            List<BatchPipeline.Outcome<ClassificationResult>> outcomes;
+            try {
+                outcomes = BatchPipeline.run(inputs, BATCH_PREPARE_EXECUTOR, BATCH_MAX_IN_FLIGHT,
+                        (index, uri) -> prepareBatchImage(uri, inputSize),
+                        (index, prepared) -> {
+                            try {
+                                return classifyInput(prepared.input, prepared.timings, RESULT_CACHE_NO_LOOKUP);
+                            } finally {
+                                BITMAP_POOL.put(prepared.input);
+                            }
+                        },
+                        (index, outcome) -> {
+                            String error = outcome.error != null ? outcome.error.getMessage() : null;
+                            deliver(() -> callback.onItemClassified(index, outcome.result, error));
+                        });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            BatchResult batch = new BatchResult();
+            batch.results = new ArrayList<>(outcomes.size());
+            batch.errors = new ArrayList<>(outcomes.size());
+            batch.summary = new BatchSummary();
+            for (BatchPipeline.Outcome<ClassificationResult> outcome : outcomes) {
+                batch.results.add(outcome.result);
+                batch.errors.add(outcome.error != null ? outcome.error.getMessage() : null);
+                if (outcome.result != null) {
+                    batch.summary.add(outcome.result.category, outcome.result.freshness, outcome.result.donatable);
+                } else {
+                    batch.summary.addFailure();
+                }
+            }
+            batch.summary.setElapsedNanos(System.nanoTime() - batchStart);
+            Log.d(TAG, String.format(Locale.ROOT, "Classified batch of %d in %.0fms (%.1f images/s)",
+                    inputs.size(), batch.summary.getElapsedMillis(), batch.summary.getImagesPerSecond()));
+            deliver(() -> callback.onBatchComplete(batch));
+        });
+    }
+
+    /**
+     * Decodes and preprocesses one batch image. Runs on a batch prepare thread.
+     */
+    private PreparedImage prepareBatchImage(Uri uri, int inputSize) throws IOException {
+        StageTimings timings = new StageTimings();
+        long start = System.nanoTime();
+        Bitmap decoded = BitmapDecoder.decodeSampled(context.getContentResolver(), uri, inputSize, BITMAP_POOL);
+        timings.record(Stage.DECODE, start);
+
+        start = System.nanoTime();
+        Bitmap input = BitmapDecoder.scaleToFit(decoded, inputSize, BITMAP_POOL);
+        if (input != decoded) {
+            BITMAP_POOL.put(decoded);
+        }
+        timings.record(Stage.PREPROCESS, start);
+        return new PreparedImage(input, timings);
+    }
+
+    /**
+     * Returns a bitmap delivered by {@link ImageClassificationCallback#onImageDecoded(Bitmap)}
+     * to the pool for reuse. It must no longer be displayed or drawn.
+     */
+    public void releaseBitmap(Bitmap bitmap) {
+        BITMAP_POOL.put(bitmap);
+    }
+
+    /**
+     * Runs the preprocess, infer and postprocess stages. Runs on the classifier thread.
+     * @param maxCacheDistance Most bits a cached result's hash may differ by, or
+     *                         {@link #RESULT_CACHE_NO_LOOKUP}
+     */
+    private ClassificationResult runPipeline(Bitmap source, StageTimings timings, int maxCacheDistance)
+            throws Exception {
+        long start = System.nanoTime();
+        Bitmap input = BitmapDecoder.scaleToFit(source, labelBackend.getInputSize(), BITMAP_POOL);
+        timings.record(Stage.PREPROCESS, start);
+
+        try {
+            ClassificationResult result = classifyInput(input, timings, maxCacheDistance);
+            Log.d(TAG, "Classified " + source.getWidth() + "x" + source.getHeight() + ": " + timings);
+            return result;
+        } finally {
+            if (input != source) {
+                BITMAP_POOL.put(input);
+            }
+        }
+    }
+
+    /**
+     * Runs the infer and postprocess stages on a preprocessed image. Runs on the classifier thread.
+     * @param maxCacheDistance Most bits a cached result's hash may differ by, or
+     *                         {@link #RESULT_CACHE_NO_LOOKUP}
+     */
+    private ClassificationResult classifyInput(Bitmap input, StageTimings timings, int maxCacheDistance)
+            throws Exception {
+        long start = System.nanoTime();
+        long hash = PerceptualHash.dHash(input);
+        ClassificationResult cached = findCachedResult(hash, maxCacheDistance);
+        timings.record(Stage.PREPROCESS, start);
+        if (cached != null) {
+            cached.timings = timings;
+            return cached;
+        }
+
+        start = System.nanoTime();
+        List<Label> labels = labelBackend.infer(input);
+        List<Label> freshnessLabels = null;
+        TfLiteBackend freshnessModel = getFreshnessBackend(context);
+        if (freshnessModel != null) {
+            freshnessLabels = freshnessModel.infer(input);
+        }
+        timings.record(Stage.INFER, start);
+
+        start = System.nanoTime();
+        ClassificationResult result = processLabels(labels, freshnessLabels);
+        timings.record(Stage.POSTPROCESS, start);
+        cacheResult(hash, result);
+        result.timings = timings;
+        return result;
+    }
+
+    /**
+     * @return A copy of the cached result for a near-identical image, or null. Runs on the classifier thread.
+     */
+    @Nullable
+    private ClassificationResult findCachedResult(long hash, int maxDistance) {
+        if (maxDistance == RESULT_CACHE_NO_LOOKUP || !isCacheable(hash)) {
+            return null;
+        }
+        loadResultCache(context);
+        ClassificationResult cached = RESULT_CACHE.getNearest(
+                key -> PerceptualHash.distance(key, hash), maxDistance);
+        if (cached == null) {
+            return null;
+        }
+        ClassificationResult result = cached.copy();
+        result.fromCache = true;
+        return result;
+    }
+
+    /**
+     * Caches a fresh result and schedules the cache to be persisted. Runs on the classifier thread.
+     */
+    private void cacheResult(long hash, ClassificationResult result) {
+        if (!isCacheable(hash)) {
+            return;
+        }
+        ClassificationResult entry = result.copy();
+        entry.timings = null;
+        RESULT_CACHE.put(hash, entry);
+        if (!resultCachePersistScheduled) {
+            resultCachePersistScheduled = true;
+            Context appContext = context.getApplicationContext();
+            mainHandler.postDelayed(() -> CLASSIFIER_EXECUTOR.execute(() -> persistResultCache(appContext)),
+                    RESULT_CACHE_PERSIST_DELAY_MS);
+        }
+    }
+
+    /** Flat images all hash to the same value and say nothing about their content */
+    private static boolean isCacheable(long hash) {
+        return hash != 0 && hash != -1L;
+    }
+
+    /**
+     * Restores the persisted result cache, unless it was written by a different app build
+     * whose models or taxonomy may classify differently. Runs on the classifier thread.
+     */
+    private static void loadResultCache(Context context) {
+        if (resultCacheLoaded) {
+            return;
+        }
+        resultCacheLoaded = true;
+        SharedPreferences prefs = context.getSharedPreferences(RESULT_CACHE_PREFS, Context.MODE_PRIVATE);
+        if (!resultCacheSignature(context).equals(prefs.getString(PREF_RESULT_CACHE_SIGNATURE, null))) {
+            prefs.edit().clear().apply();
+            return;
+        }
+        String json = prefs.getString(PREF_RESULT_CACHE, null);
+        if (json == null) {
+            return;
+        }
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject entry = array.getJSONObject(i);
+                ClassificationResult result = new ClassificationResult();
+                result.category = entry.getString("category");
+                result.confidence = (float) entry.getDouble("confidence");
+                result.freshness = entry.getString("freshness");
+                result.donatable = entry.getBoolean("donatable");
+                result.recommendation = entry.getString("recommendation");
+                JSONArray labels = entry.getJSONArray("labels");
+                for (int j = 0; j < labels.length(); j++) {
+                    result.detectedLabels.add(labels.getString(j));
+                }
+                RESULT_CACHE.restore(entry.getLong("hash"), result, entry.getLong("storedAt"));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Discarding unreadable classification cache: " + e.getMessage());
+        }
+    }
+
+    /** Runs on the classifier thread */
+    private static void persistResultCache(Context context) {
+        resultCachePersistScheduled = false;
+        JSONArray array = new JSONArray();
+        RESULT_CACHE.forEach((hash, result, storedAt) -> {
+            try {
+                JSONObject entry = new JSONObject();
+                entry.put("hash", (long) hash);
+                entry.put("storedAt", storedAt);
+                entry.put("category", result.category);
+                entry.put("confidence", (double) result.confidence);
+                entry.put("freshness", result.freshness);
+                entry.put("donatable", result.donatable);
+                entry.put("recommendation", result.recommendation);
+                entry.put("labels", new JSONArray(result.detectedLabels));
+                array.put(entry);
+            } catch (JSONException e) {
+                Log.e(TAG, "Skipping unserialisable cache entry: " + e.getMessage());
+            }
+        });
+        context.getSharedPreferences(RESULT_CACHE_PREFS, Context.MODE_PRIVATE)
+                .edit()
+                .putString(PREF_RESULT_CACHE_SIGNATURE, resultCacheSignature(context))
+                .putString(PREF_RESULT_CACHE, array.toString())
+                .apply();
+    }
+
+    /** Identifies the app build and models that produced cached results */
+    private static String resultCacheSignature(Context context) {
+        long installed = 0;
+        try {
+            installed = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Package info unavailable: " + e.getMessage());
+        }
+        return installed + "/" + (getFreshnessBackend(context) != null ? FRESHNESS_MODEL_ASSET : "labels");
+    }
+
+    /** A batch image after the decode and preprocess stages */
+    private static final class PreparedImage {
+        final Bitmap input;
+        final StageTimings timings;
+
+        PreparedImage(Bitmap input, StageTimings timings) {
+            this.input = input;
+            this.timings = timings;
+        }
+    }
+
+    private void deliver(Runnable delivery) {
+        mainHandler.post(() -> {
+            if (!closed) {
+                delivery.run();
+            }
+        });
     }
     
     /**
      * Process detected labels and create classification result
      * @param labels List of detected labels from ML Kit
+     * @param freshnessLabels Output of the freshness model, or null if none is bundled
      * @return ClassificationResult with analysis
      */
-    private ClassificationResult processLabels(List<ImageLabel> labels) {
+    private ClassificationResult processLabels(List<Label> labels, @Nullable List<Label> freshnessLabels) {
         ClassificationResult result = new ClassificationResult();
-        
-        // Food categories
-        Map<String, List<String>> foodCategories = getFoodCategories();
+        FoodTaxonomy foodTaxonomy = getTaxonomy(context);
         
         float maxConfidence = 0f;
-        String detectedCategory = "Other";
+        int detectedCategory = FoodTaxonomy.NO_CATEGORY;
         
         // Analyze labels
-        for (ImageLabel label : labels) {
-            String labelText = label.getText().toLowerCase();
+        for (Label label : labels) {
             float confidence = label.getConfidence();
-            
-            result.detectedLabels.add(labelText + " (" + String.format("%.1f%%", confidence * 100) + ")");
+            result.detectedLabels.add(formatLabel(label.getText(), confidence));
             
             // Find category
-            for (Map.Entry<String, List<String>> entry : foodCategories.entrySet()) {
-                if (entry.getValue().contains(labelText)) {
-                    if (confidence > maxConfidence) {
-                        maxConfidence = confidence;
-                        detectedCategory = entry.getKey();
-                    }
-                }
+            int category = foodTaxonomy.lookup(label.getText());
+            if (category != FoodTaxonomy.NO_CATEGORY && confidence > maxConfidence) {
+                maxConfidence = confidence;
+                detectedCategory = category;
             }
         }
         
-        result.category = detectedCategory;
+        result.category = detectedCategory == FoodTaxonomy.NO_CATEGORY
+                ? "Other" : foodTaxonomy.categoryName(detectedCategory);
         result.confidence = maxConfidence;
         
         // Estimate freshness based on visual cues and confidence
-        result.freshness = estimateFreshness(labels, maxConfidence);
+        result.freshness = modelFreshness(freshnessLabels);
+        if (result.freshness == null) {
+            result.freshness = estimateFreshness(labels, maxConfidence);
+        }
         
         // Determine if donatable
         result.donatable = isDonatable(result.freshness, maxConfidence);
@@ -141,72 +624,56 @@ public class FoodWasteClassifier {
     }
     
     /**
-     * Get food categories for classification
-     * @return Map of categories and their keywords
+     * Format a label for display as "text (confidence%)" with one decimal
      */
-    private Map<String, List<String>> getFoodCategories() {
-        Map<String, List<String>> categories = new HashMap<>();
-        
-        List<String> fruits = new ArrayList<>();
-        fruits.add("fruit");
-        fruits.add("apple");
-        fruits.add("banana");
-        fruits.add("orange");
-        fruits.add("grape");
-        fruits.add("berry");
-        categories.put("Fruits", fruits);
-        
-        List<String> vegetables = new ArrayList<>();
-        vegetables.add("vegetable");
-        vegetables.add("carrot");
-        vegetables.add("potato");
-        vegetables.add("tomato");
-        vegetables.add("lettuce");
-        vegetables.add("broccoli");
-        categories.put("Vegetables", vegetables);
-        
-        List<String> grains = new ArrayList<>();
-        grains.add("bread");
-        grains.add("rice");
-        grains.add("pasta");
-        grains.add("cereal");
-        grains.add("grain");
-        categories.put("Grains", grains);
-        
-        List<String> dairy = new ArrayList<>();
-        dairy.add("milk");
-        dairy.add("cheese");
-        dairy.add("yogurt");
-        dairy.add("dairy");
-        categories.put("Dairy", dairy);
-        
-        List<String> protein = new ArrayList<>();
-        protein.add("meat");
-        protein.add("chicken");
-        protein.add("fish");
-        protein.add("egg");
-        protein.add("bean");
-        categories.put("Protein", protein);
-        
-        List<String> prepared = new ArrayList<>();
-        prepared.add("meal");
-        prepared.add("dish");
-        prepared.add("food");
-        prepared.add("cuisine");
-        categories.put("Prepared Food", prepared);
-        
-        return categories;
+    private static String formatLabel(String text, float confidence) {
+        int tenths = Math.round(confidence * 1000);
+        return new StringBuilder(text.length() + 10)
+                .append(text.toLowerCase(Locale.ROOT))
+                .append(" (")
+                .append(tenths / 10)
+                .append('.')
+                .append(tenths % 10)
+                .append("%)")
+                .toString();
     }
     
+    /**
+     * Read freshness from the freshness model's top label
+     * @param freshnessLabels Output of the freshness model, or null
+     * @return Fresh, Good, Fair or Poor, or null if the model gave no recognised answer
+     */
+    @Nullable
+    private String modelFreshness(@Nullable List<Label> freshnessLabels) {
+        if (freshnessLabels == null || freshnessLabels.isEmpty()) {
+            return null;
+        }
+        String top = freshnessLabels.get(0).getText().trim().toLowerCase();
+        switch (top) {
+            case "fresh":
+                return "Fresh";
+            case "good":
+                return "Good";
+            case "fair":
+                return "Fair";
+            case "poor":
+            case "rotten":
+            case "spoiled":
+                return "Poor";
+            default:
+                return null;
+        }
+    }
+
     /**
      * Estimate freshness based on ML analysis
      * @param labels Detected labels
      * @param confidence Confidence score
      * @return Freshness estimate (Fresh, Good, Fair, Poor)
      */
-    private String estimateFreshness(List<ImageLabel> labels, float confidence) {
+    private String estimateFreshness(List<Label> labels, float confidence) {
         // Check for spoilage indicators
-        for (ImageLabel label : labels) {
+        for (Label label : labels) {
             String text = label.getText().toLowerCase();
             if (text.contains("rotten") || text.contains("moldy") || text.contains("spoiled")) {
                 return "Poor";
@@ -303,8 +770,9 @@ public class FoodWasteClassifier {
      * Release resources
      */
     public void close() {
-        if (imageLabeler != null) {
-            imageLabeler.close();
+        closed = true;
+        if (labelBackend != null) {
+            labelBackend.close();
         }
     }
 }
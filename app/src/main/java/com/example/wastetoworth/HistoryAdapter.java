@@ -13,14 +13,13 @@ import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryViewHolder> {
+import java.util.Objects;
+public class HistoryAdapter extends KeyedDiffAdapter<HistoryItem, HistoryAdapter.HistoryViewHolder> {
     private static final String TAG = "HistoryAdapter";
     
-    private List<HistoryItem> historyItems;
     private final OnHistoryItemClickListener listener;
     private final SimpleDateFormat timeFormat;
     private final SimpleDateFormat dateFormat;
@@ -29,10 +28,18 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryV
         void onHistoryItemClick(HistoryItem item);
     }
     public HistoryAdapter(@Nullable List<HistoryItem> historyItems, @Nullable OnHistoryItemClickListener listener) {
-        this.historyItems = historyItems != null ? historyItems : new ArrayList<>();
         this.listener = listener;
         this.timeFormat = new SimpleDateFormat("h:mm a", Locale.getDefault());
         this.dateFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
+        submitList(historyItems);
+    }
+    @Override
+    protected String getItemKey(@NonNull HistoryItem item) {
+        return item.getId();
+    }
+    @Override
+    protected int getContentHash(@NonNull HistoryItem item) {
+        return Objects.hash(item.getTitle(), item.getDescription(), item.getTimestamp(), item.getStatus());
     }
     @NonNull
     @Override
@@ -43,12 +50,12 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryV
     }
     @Override
     public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
-        if (position < 0 || position >= historyItems.size()) {
+        if (position < 0 || position >= getItemCount()) {
             Log.w(TAG, "Invalid position: " + position);
             return;
         }
 
-        HistoryItem item = historyItems.get(position);
+        HistoryItem item = getItem(position);
         if (item == null) {
             Log.w(TAG, "Item at position " + position + " is null");
             return;
@@ -109,41 +116,10 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryV
                 return 0;
         }
     }
-    @Override
-    public int getItemCount() {
-        return historyItems != null ? historyItems.size() : 0;
-    }
     public void updateData(@Nullable List<HistoryItem> newItems) {
-        if (historyItems == null) {
-            historyItems = new ArrayList<>();
-        } else {
-            historyItems.clear();
-        }
-        
-        if (newItems != null && !newItems.isEmpty()) {
-            historyItems.addAll(newItems);
-        }
-        
-        try {
-            notifyDataSetChanged();
-        } catch (IllegalStateException e) {
-            Log.e(TAG, "Error notifying data set changed", e);
-        }
+        submitList(newItems);
     }
     
-    @Override
-    public int getItemViewType(int position) {
-        return position;
-    }
-    
-    @Override
-    public long getItemId(int position) {
-        if (position >= 0 && position < historyItems.size() && historyItems.get(position) != null) {
-            String id = historyItems.get(position).getId();
-            return id != null ? id.hashCode() : super.getItemId(position);
-        }
-        return super.getItemId(position);
-    }
     static class HistoryViewHolder extends RecyclerView.ViewHolder {
         ImageView historyIcon;
         TextView historyTitle, historyDescription, historyTime, historyDate;
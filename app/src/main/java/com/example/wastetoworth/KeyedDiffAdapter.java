@@ -0,0 +1,132 @@
+package com.example.wastetoworth;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base adapter that applies list updates as background-computed diffs instead of full rebinds.
+ *
+ * Rows are matched by a stable key (usually the Firestore document ID) and compared by a
+ * content hash taken when the list is submitted, so items mutated in place after submission
+ * are still detected as changed on the next submit. Changed rows are rebound with
+ * {@link #PAYLOAD_CONTENT_CHANGED}, which updates the existing view holder without the
+ * default cross-fade; subclasses may override {@link #onBindViewHolder(RecyclerView.ViewHolder, int, List)}
+ * to rebind only part of a row.
+ *
+ * @param <T>  Type of the list items
+ * @param <VH> Type of the view holder
+ */
+public abstract class KeyedDiffAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    /** Payload passed to changed rows */
+    protected static final Object PAYLOAD_CONTENT_CHANGED = new Object();
+
+    private final AsyncListDiffer<Entry<T>> differ = new AsyncListDiffer<>(
+            new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(new EntryCallback<T>()).build());
+
+    /**
+     * @return Stable identity of the item, or null to match the item by reference
+     */
+    @Nullable
+    protected abstract String getItemKey(@NonNull T item);
+
+    /**
+     * @return Hash of every field the row displays
+     */
+    protected abstract int getContentHash(@NonNull T item);
+
+    /**
+     * Replaces the displayed items. The diff is computed on a background thread and
+     * dispatched on the main thread; the given list is copied and may be reused by the caller.
+     */
+    public void submitList(@Nullable List<T> items) {
+        submitList(items, null);
+    }
+
+    /**
+     * Replaces the displayed items and runs commitCallback once the update has been applied.
+     */
+    public void submitList(@Nullable List<T> items, @Nullable Runnable commitCallback) {
+        List<Entry<T>> entries = new ArrayList<>(items != null ? items.size() : 0);
+        if (items != null) {
+            for (T item : items) {
+                if (item != null) {
+                    entries.add(new Entry<>(getItemKey(item), getContentHash(item), item));
+                }
+            }
+        }
+        differ.submitList(entries, commitCallback);
+    }
+
+    /**
+     * @return The item displayed at the given position
+     */
+    public T getItem(int position) {
+        return differ.getCurrentList().get(position).item;
+    }
+
+    /**
+     * @return Read-only view of the displayed items
+     */
+    public List<T> getCurrentItems() {
+        List<Entry<T>> entries = differ.getCurrentList();
+        List<T> items = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            items.add(entry.item);
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH holder, int position, @NonNull List<Object> payloads) {
+        onBindViewHolder(holder, position);
+    }
+
+    private static final class Entry<T> {
+        final String key;
+        final int contentHash;
+        final T item;
+
+        Entry(String key, int contentHash, T item) {
+            this.key = key;
+            this.contentHash = contentHash;
+            this.item = item;
+        }
+    }
+
+    private static final class EntryCallback<T> extends DiffUtil.ItemCallback<Entry<T>> {
+        @Override
+        public boolean areItemsTheSame(@NonNull Entry<T> oldEntry, @NonNull Entry<T> newEntry) {
+            if (oldEntry.key == null || newEntry.key == null) {
+                return oldEntry.item == newEntry.item;
+            }
+            return oldEntry.key.equals(newEntry.key);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Entry<T> oldEntry, @NonNull Entry<T> newEntry) {
+            return oldEntry.contentHash == newEntry.contentHash;
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Entry<T> oldEntry, @NonNull Entry<T> newEntry) {
+            return PAYLOAD_CONTENT_CHANGED;
+        }
+    }
+}
@@ -19,7 +19,6 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import com.google.android.material.card.MaterialCardView;
-import java.io.IOException;
 
 /**
  * MLClassifierActivity - Activity for ML-based food waste classification
@@ -45,6 +44,7 @@ public class MLClassifierActivity extends AppCompatActivity {
     
     private FoodWasteClassifier classifier;
     private Bitmap selectedImage;
+    private boolean selectedImagePooled = false;
     
     // Activity result launchers
     private ActivityResultLauncher<Intent> cameraLauncher;
@@ -99,8 +99,7 @@ public class MLClassifierActivity extends AppCompatActivity {
                 if (result.getResultCode() == RESULT_OK && result.getData() != null) {
                     Bundle extras = result.getData().getExtras();
                     if (extras != null) {
-                        selectedImage = (Bitmap) extras.get("data");
-                        imgPreview.setImageBitmap(selectedImage);
+                        showPreview((Bitmap) extras.get("data"), false);
                         classifyImage(selectedImage);
                     }
                 }
@@ -113,12 +112,8 @@ public class MLClassifierActivity extends AppCompatActivity {
             result -> {
                 if (result.getResultCode() == RESULT_OK && result.getData() != null) {
                     Uri imageUri = result.getData().getData();
-                    try {
-                        selectedImage = MediaStore.Images.Media.getBitmap(getContentResolver(), imageUri);
-                        imgPreview.setImageBitmap(selectedImage);
-                        classifyImage(selectedImage);
-                    } catch (IOException e) {
-                        Toast.makeText(this, "Error loading image", Toast.LENGTH_SHORT).show();
+                    if (imageUri != null) {
+                        classifyImage(imageUri);
                     }
                 }
             }
@@ -192,6 +187,49 @@ public class MLClassifierActivity extends AppCompatActivity {
         });
     }
     
+    /**
+     * Decode the picked image in the background at preview size and classify it
+     */
+    private void classifyImage(Uri imageUri) {
+        progressBar.setVisibility(View.VISIBLE);
+        cardResult.setVisibility(View.GONE);
+        
+        int displaySize = Math.min(imgPreview.getWidth(), imgPreview.getHeight());
+        classifier.classifyFoodWaste(imageUri, displaySize, new FoodWasteClassifier.ImageClassificationCallback() {
+            @Override
+            public void onImageDecoded(Bitmap bitmap) {
+                showPreview(bitmap, true);
+            }
+            
+            @Override
+            public void onClassificationSuccess(FoodWasteClassifier.ClassificationResult result) {
+                progressBar.setVisibility(View.GONE);
+                displayResults(result);
+            }
+            
+            @Override
+            public void onClassificationError(String error) {
+                progressBar.setVisibility(View.GONE);
+                Toast.makeText(MLClassifierActivity.this, 
+                             "Classification error: " + error, 
+                             Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+    
+    /**
+     * Show a new preview image, handing the previous pooled one back to the classifier
+     */
+    private void showPreview(Bitmap bitmap, boolean pooled) {
+        Bitmap previous = selectedImagePooled ? selectedImage : null;
+        selectedImage = bitmap;
+        selectedImagePooled = pooled;
+        imgPreview.setImageBitmap(bitmap);
+        if (previous != null && previous != bitmap) {
+            classifier.releaseBitmap(previous);
+        }
+    }
+    
     /**
      * Display classification results
      */
@@ -13,6 +13,8 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
+import com.example.wastetoworth.data.ImpactStats;
+import com.example.wastetoworth.data.ImpactStatsRepository;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
@@ -96,8 +98,7 @@ public class MainActivityModern extends AppCompatActivity {
         // Load user data
         loadUserData();
         
-        // Load impact statistics
-        loadImpactStatistics();
+        // Impact statistics are loaded in onResume
     }
     
     /**
@@ -303,24 +304,18 @@ public class MainActivityModern extends AppCompatActivity {
      */
     private void loadImpactStatistics() {
         if (mAuth.getCurrentUser() != null) {
-            String userId = mAuth.getCurrentUser().getUid();
-            
-            db.collection("donations")
-                .whereEqualTo("donorId", userId)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    int totalDonations = queryDocumentSnapshots.size();
-                    int mealsFed = totalDonations * 3; // Estimate 3 meals per donation
-                    int co2Saved = totalDonations * 2; // Estimate 2kg CO2 per donation
-                    
-                    txtTotalDonations.setText(String.valueOf(totalDonations));
-                    txtMealsFed.setText(String.valueOf(mealsFed));
-                    txtCO2Saved.setText(String.valueOf(co2Saved));
-                })
-                .addOnFailureListener(e -> {
-                    // Keep default values
-                });
+            // Cached totals show at once; the server aggregates again only once they expire
+            ImpactStatsRepository.getInstance(this).load(mAuth.getCurrentUser().getUid(), this::showImpactStatistics);
+        }
+    }
+    
+    private void showImpactStatistics(ImpactStats stats) {
+        if (isFinishing() || isDestroyed()) {
+            return;
         }
+        txtTotalDonations.setText(String.valueOf(stats.getDonationCount()));
+        txtMealsFed.setText(String.valueOf(stats.getMealsFed()));
+        txtCO2Saved.setText(String.valueOf(stats.getCo2SavedKg()));
     }
     
     @Override
@@ -0,0 +1,412 @@
+package com.example.wastetoworth;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.data.DonationMapper;
+import com.example.wastetoworth.data.GeocodingService;
+import com.example.wastetoworth.util.GeoHash;
+import com.example.wastetoworth.util.GeoRangeCoverage;
+import com.example.wastetoworth.util.GridClusterer;
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clustered markers for Firestore documents, loaded only for the visible part of the map.
+ *
+ * When the camera settles, the visible bounds are covered with geohash ranges and only
+ * ranges not recently loaded are queried, so panning back over an area costs nothing
+ * until its data is due for a refresh. A range whose query hits the cap is queried again
+ * only at a finer zoom; see {@link GeoRangeCoverage}.
+ * Clustering runs on a background thread, and markers are keyed by cluster so that
+ * unchanged clusters keep their marker and vanished ones are hidden and reused.
+ *
+ * Every source query must be on documents carrying a {@link GeoHash#FIELD_GEOHASH} field.
+ * The layer must be used from the main thread.
+ */
+public class MapMarkerLayer implements GoogleMap.OnCameraIdleListener, GoogleMap.OnMarkerClickListener {
+    private static final String TAG = "MapMarkerLayer";
+    /** Cap per geohash range; a full range is retried only at a finer zoom */
+    private static final int MAX_ITEMS_PER_RANGE = 300;
+    /** Loaded ranges are queried again after this long, to pick up new and removed documents */
+    private static final long RANGE_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_POOLED_MARKERS = 50;
+    private static final float CLUSTER_ZOOM_STEP = 2f;
+    private static final int CLUSTER_ICON_DP = 40;
+
+    private static final ExecutorService CLUSTER_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * A document to be shown on the map.
+     */
+    public static final class Item {
+        final String id;
+        final LatLng position;
+        final String title;
+        final String snippet;
+        final float hue;
+
+        public Item(String id, LatLng position, String title, @Nullable String snippet, float hue) {
+            this.id = id;
+            this.position = position;
+            this.title = title;
+            this.snippet = snippet;
+            this.hue = hue;
+        }
+    }
+
+    /**
+     * Converts a document into an item. Runs on a background thread.
+     */
+    public interface ItemReader {
+        /** @return The item, or null if the document should not be shown */
+        @Nullable
+        Item read(DocumentSnapshot document);
+    }
+
+    private final Context context;
+    private final GoogleMap map;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Source> sources = new ArrayList<>();
+    private final Map<String, GridClusterer.Point<Item>> points = new HashMap<>();
+    private final Map<String, BitmapDescriptor> icons = new HashMap<>();
+    private final ArrayDeque<Marker> markerPool = new ArrayDeque<>();
+    private Map<String, Marker> visibleMarkers = new HashMap<>();
+    private int clusterGeneration = 0;
+    private boolean detached = false;
+
+    public MapMarkerLayer(Context context, GoogleMap map) {
+        this.context = context.getApplicationContext();
+        this.map = map;
+    }
+
+    /**
+     * Adds a source of items.
+     * @param query  Query without an orderBy or limit; the layer adds both per geohash range
+     * @param reader Converts the query's documents into items
+     */
+    public MapMarkerLayer addSource(Query query, ItemReader reader) {
+        sources.add(new Source(query, reader));
+        return this;
+    }
+
+    /**
+     * Registers the layer's camera and marker listeners on the map and loads the current viewport.
+     */
+    public void attach() {
+        map.setOnCameraIdleListener(this);
+        map.setOnMarkerClickListener(this);
+        onCameraIdle();
+    }
+
+    /**
+     * Removes the layer's listeners. Loads and clustering still in flight are discarded.
+     */
+    public void detach() {
+        detached = true;
+        clusterGeneration++;
+        map.setOnCameraIdleListener(null);
+        map.setOnMarkerClickListener(null);
+    }
+
+    @Override
+    public void onCameraIdle() {
+        if (detached) return;
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        List<String[]> ranges = GeoHash.queryBoundsForBox(bounds.southwest.latitude, bounds.southwest.longitude,
+                bounds.northeast.latitude, bounds.northeast.longitude);
+        long now = SystemClock.elapsedRealtime();
+        for (Source source : sources) {
+            for (String[] range : ranges) {
+                String prefix = prefixOf(range);
+                if (!source.coverage.isCovered(prefix, now) && source.inFlight.add(prefix)) {
+                    load(source, range, prefix);
+                }
+            }
+        }
+        cluster();
+    }
+
+    @Override
+    public boolean onMarkerClick(Marker marker) {
+        Object tag = marker.getTag();
+        if (!(tag instanceof Bound) || ((Bound) tag).cluster.size() < 2) {
+            return false;
+        }
+        float zoom = map.getCameraPosition().zoom + CLUSTER_ZOOM_STEP;
+        map.animateCamera(CameraUpdateFactory.newLatLngZoom(marker.getPosition(), zoom));
+        return true;
+    }
+
+    /**
+     * Reads a document's coordinates from latitude/longitude fields or a
+     * location stored as a GeoPoint or a "lat,lng" string.
+     */
+    @Nullable
+    public static LatLng readPosition(DocumentSnapshot document) {
+        Double lat = document.getDouble("latitude");
+        Double lng = document.getDouble("longitude");
+        if (lat != null && lng != null) {
+            return new LatLng(lat, lng);
+        }
+        Object location = document.get("location");
+        if (location instanceof GeoPoint) {
+            GeoPoint geoPoint = (GeoPoint) location;
+            return new LatLng(geoPoint.getLatitude(), geoPoint.getLongitude());
+        }
+        if (location instanceof String) {
+            return GeocodingService.parseLatLng((String) location);
+        }
+        return null;
+    }
+
+    private void load(Source source, String[] range, String prefix) {
+        source.query.orderBy(GeoHash.FIELD_GEOHASH)
+                .startAt(range[0])
+                .endAt(range[1])
+                .limit(MAX_ITEMS_PER_RANGE)
+                .get()
+                .continueWith(DonationMapper.getExecutor(), task -> {
+                    List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                    List<GridClusterer.Point<Item>> loaded = new ArrayList<>(documents.size());
+                    for (DocumentSnapshot document : documents) {
+                        try {
+                            Item item = source.reader.read(document);
+                            if (item != null) {
+                                loaded.add(new GridClusterer.Point<>(item.id, item.position.latitude,
+                                        item.position.longitude, item));
+                            }
+                        } catch (RuntimeException e) {
+                            Log.e(TAG, "Skipping unreadable document " + document.getId(), e);
+                        }
+                    }
+                    // A full page may have been truncated, so the range is only refined from here
+                    return new Loaded(loaded, documents.size() < MAX_ITEMS_PER_RANGE);
+                })
+                .addOnCompleteListener(task -> {
+                    source.inFlight.remove(prefix);
+                    if (detached) return;
+                    if (!task.isSuccessful()) {
+                        Log.e(TAG, "Loading markers failed for range " + prefix, task.getException());
+                        return;
+                    }
+                    Loaded result = task.getResult();
+                    source.coverage.markLoaded(prefix, result.complete, SystemClock.elapsedRealtime());
+                    if (result.complete) {
+                        removeMissing(source, range, result.points);
+                    }
+                    for (GridClusterer.Point<Item> point : result.points) {
+                        points.put(source.index + "/" + point.id, point);
+                    }
+                    cluster();
+                });
+    }
+
+    /**
+     * Drops the source's points inside a completely reloaded range that the reload did not
+     * return, such as deleted donations.
+     */
+    private void removeMissing(Source source, String[] range, List<GridClusterer.Point<Item>> reloaded) {
+        Set<String> kept = new HashSet<>(reloaded.size() * 2);
+        for (GridClusterer.Point<Item> point : reloaded) {
+            kept.add(point.id);
+        }
+        String keyPrefix = source.index + "/";
+        Iterator<Map.Entry<String, GridClusterer.Point<Item>>> it = points.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, GridClusterer.Point<Item>> entry = it.next();
+            GridClusterer.Point<Item> point = entry.getValue();
+            if (!entry.getKey().startsWith(keyPrefix) || kept.contains(point.id)) {
+                continue;
+            }
+            String geohash = GeoHash.encode(point.latitude, point.longitude);
+            if (geohash.compareTo(range[0]) >= 0 && geohash.compareTo(range[1]) <= 0) {
+                it.remove();
+            }
+        }
+    }
+
+    /** Clusters the loaded points for the current camera on the background thread */
+    private void cluster() {
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        double cellDegrees = GridClusterer.cellDegreesForZoom(map.getCameraPosition().zoom);
+        List<GridClusterer.Point<Item>> snapshot = new ArrayList<>(points.values());
+        int generation = ++clusterGeneration;
+        CLUSTER_EXECUTOR.execute(() -> {
+            List<GridClusterer.Cluster<Item>> clusters = GridClusterer.cluster(snapshot,
+                    bounds.southwest.latitude, bounds.southwest.longitude,
+                    bounds.northeast.latitude, bounds.northeast.longitude, cellDegrees);
+            mainHandler.post(() -> {
+                if (generation == clusterGeneration) render(clusters);
+            });
+        });
+    }
+
+    private void render(List<GridClusterer.Cluster<Item>> clusters) {
+        Map<String, Marker> next = new HashMap<>(clusters.size() * 2);
+        for (GridClusterer.Cluster<Item> cluster : clusters) {
+            Marker marker = visibleMarkers.remove(cluster.key);
+            if (marker == null) {
+                marker = markerPool.poll();
+            }
+            if (marker == null) {
+                marker = map.addMarker(new MarkerOptions().position(new LatLng(cluster.latitude, cluster.longitude)));
+                if (marker == null) continue;
+            }
+            bind(marker, cluster);
+            next.put(cluster.key, marker);
+        }
+        for (Marker stale : visibleMarkers.values()) {
+            recycle(stale);
+        }
+        visibleMarkers = next;
+    }
+
+    private void bind(Marker marker, GridClusterer.Cluster<Item> cluster) {
+        Object tag = marker.getTag();
+        Bound previous = tag instanceof Bound ? (Bound) tag : null;
+        LatLng position = new LatLng(cluster.latitude, cluster.longitude);
+        if (!position.equals(marker.getPosition())) {
+            marker.setPosition(position);
+        }
+
+        String iconKey;
+        if (cluster.size() == 1) {
+            Item item = cluster.points.get(0).payload;
+            iconKey = "hue:" + item.hue;
+            marker.setTitle(item.title);
+            marker.setSnippet(item.snippet);
+        } else {
+            iconKey = "count:" + countLabel(cluster.size());
+            marker.setTitle(cluster.size() + " items");
+            marker.setSnippet(null);
+        }
+        if (previous == null || !iconKey.equals(previous.iconKey)) {
+            marker.setIcon(iconFor(iconKey, cluster));
+        }
+        marker.setTag(new Bound(cluster, iconKey));
+        if (!marker.isVisible()) {
+            marker.setVisible(true);
+        }
+    }
+
+    private void recycle(Marker marker) {
+        marker.hideInfoWindow();
+        if (markerPool.size() < MAX_POOLED_MARKERS) {
+            marker.setVisible(false);
+            markerPool.push(marker);
+        } else {
+            marker.remove();
+        }
+    }
+
+    private BitmapDescriptor iconFor(String iconKey, GridClusterer.Cluster<Item> cluster) {
+        BitmapDescriptor icon = icons.get(iconKey);
+        if (icon == null) {
+            icon = cluster.size() == 1
+                    ? BitmapDescriptorFactory.defaultMarker(cluster.points.get(0).payload.hue)
+                    : BitmapDescriptorFactory.fromBitmap(drawClusterIcon(countLabel(cluster.size())));
+            icons.put(iconKey, icon);
+        }
+        return icon;
+    }
+
+    private Bitmap drawClusterIcon(String label) {
+        float density = context.getResources().getDisplayMetrics().density;
+        int size = Math.round(CLUSTER_ICON_DP * density);
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        Paint fill = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fill.setColor(Color.rgb(46, 125, 50));
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, fill);
+
+        Paint text = new Paint(Paint.ANTI_ALIAS_FLAG);
+        text.setColor(Color.WHITE);
+        text.setTextAlign(Paint.Align.CENTER);
+        text.setFakeBoldText(true);
+        text.setTextSize(14 * density);
+        float baseline = size / 2f - (text.descent() + text.ascent()) / 2f;
+        canvas.drawText(label, size / 2f, baseline, text);
+        return bitmap;
+    }
+
+    /** Buckets large counts so that icons can be shared between clusters */
+    private static String countLabel(int count) {
+        if (count < 10) return String.valueOf(count);
+        if (count < 50) return "10+";
+        if (count < 100) return "50+";
+        if (count < 500) return "100+";
+        return "500+";
+    }
+
+    private static String prefixOf(String[] range) {
+        // The whole-keyspace range is stored as the empty prefix, which covers every cell
+        return "0".equals(range[0]) && "~".equals(range[1]) ? "" : range[0];
+    }
+
+    private final class Source {
+        final int index = sources.size();
+        final Query query;
+        final ItemReader reader;
+        final GeoRangeCoverage coverage = new GeoRangeCoverage(RANGE_TTL_MS);
+        final Set<String> inFlight = new HashSet<>();
+
+        Source(Query query, ItemReader reader) {
+            this.query = query;
+            this.reader = reader;
+        }
+    }
+
+    /** Items read from one geohash range */
+    private static final class Loaded {
+        final List<GridClusterer.Point<Item>> points;
+        final boolean complete;
+
+        Loaded(List<GridClusterer.Point<Item>> points, boolean complete) {
+            this.points = points;
+            this.complete = complete;
+        }
+    }
+
+    /** Cluster currently shown by a marker, kept in the marker's tag */
+    private static final class Bound {
+        final GridClusterer.Cluster<Item> cluster;
+        final String iconKey;
+
+        Bound(GridClusterer.Cluster<Item> cluster, String iconKey) {
+            this.cluster = cluster;
+            this.iconKey = iconKey;
+        }
+    }
+}
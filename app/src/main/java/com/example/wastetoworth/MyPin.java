@@ -26,15 +26,11 @@ import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.Task;
 // Firebase imports
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.GeoPoint;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.QuerySnapshot;
 /**
  * MyPin Activity
  * 
@@ -57,6 +53,8 @@ public class MyPin extends AppCompatActivity implements
     private FirebaseFirestore fStore;         // Firestore database instance
     private FirebaseAuth fAuth;               // Firebase Authentication instance
     private FirebaseFirestore cloudstorage;    // Additional Firestore instance for data access
+    private MapMarkerLayer markerLayer;        // Clustered, viewport-bounded donation markers
+    private Marker currentLocationMarker;      // Marker moved to each new device location
     // Tag for logging
     public static final String TAG = "MyPinActivity";
     /**
@@ -135,6 +133,8 @@ public class MyPin extends AppCompatActivity implements
                 REQUEST_CODE);
             return; // Permission not granted, return early
         }
+        // Show the user's donations in the visible area
+        showLocation();
         // Start location updates
         startLocationUpdates();
         // Enable the location layer on the map
@@ -185,72 +185,47 @@ public class MyPin extends AppCompatActivity implements
     private void onLocationChanged(@NonNull Location location) {
         // Store the last known location
         mLastLocation = location;
-        // Show nearby locations from Firestore
-        showLocation();
         // Create a LatLng object from the location
         LatLng latLng = new LatLng(location.getLatitude(), location.getLongitude());
-        // Create a marker at the current location
-        MarkerOptions markerOptions = new MarkerOptions()
-                .position(latLng)
-                .title("You are here")
-                .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_RED));
         // Animate the camera to the current location with zoom level 15
         mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(latLng, 15));
-        // Add the marker to the map and show its info window
-        mMap.addMarker(markerOptions).showInfoWindow();
+        // Move the existing marker rather than adding one per update
+        if (currentLocationMarker == null) {
+            currentLocationMarker = mMap.addMarker(new MarkerOptions()
+                    .position(latLng)
+                    .title("You are here")
+                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_RED)));
+            if (currentLocationMarker != null) currentLocationMarker.showInfoWindow();
+        } else {
+            currentLocationMarker.setPosition(latLng);
+        }
     }
+    /**
+     * Shows the current user's donations inside the visible part of the map,
+     * clustered and loaded incrementally as the camera moves.
+     */
     public void showLocation() {
+        String userID = fAuth.getCurrentUser() != null ? fAuth.getCurrentUser().getUid() : null;
+        if (mMap == null || userID == null || markerLayer != null) {
+            return;
+        }
         this.cloudstorage = FirebaseFirestore.getInstance();
-        cloudstorage.collection("donations")
-                .get()
-                .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
-                    @Override
-                    public void onComplete(@NonNull Task<QuerySnapshot> task) {
-                        if (task.isSuccessful()) {
-                            for (QueryDocumentSnapshot document : task.getResult()) {
-                                Log.d(TAG, document.getId() + " => " + document.getData());//
-                                try {
-                                    Object locObj = document.get("location");
-                                    GeoPoint location = null;
-                                    if (locObj instanceof GeoPoint) {
-                                        location = (GeoPoint) locObj;
-                                    } else if (locObj instanceof String) {
-                                        String locStr = (String) locObj;
-                                        if (locStr != null && !locStr.isEmpty()) {
-                                            try {
-                                                String[] parts = locStr.split(",");
-                                                if (parts.length == 2) {
-                                                    double lat = Double.parseDouble(parts[0].trim());
-                                                    double lng = Double.parseDouble(parts[1].trim());
-                                                    location = new GeoPoint(lat, lng);
-                                                }
-                                            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                                                Log.e(TAG, "Error parsing location string for donation: " + document.getId(), e);
-                                                location = null;
-                                            }
-                                        }
-                                    }
-                                    String title = document.getString("foodName");
-                                    if (title == null || title.trim().isEmpty()) title = document.getString("name");
-                                    if (title == null || title.trim().isEmpty()) title = document.getString("category");
-                                    if (title == null || title.trim().isEmpty()) title = "Donation";
-                                    String type = document.getString("type");
-                                    String description = document.getString("description");
-                                    String donorId = document.getString("donorId");
-                                    String userID = fAuth.getCurrentUser() != null ? fAuth.getCurrentUser().getUid() : null;
-                                    if (location != null && userID != null && donorId != null && donorId.equals(userID)) {
-                                        LatLng latLng = new LatLng(location.getLatitude(), location.getLongitude());
-                                        mMap.addMarker(new MarkerOptions().position(latLng).title(title + (type != null ? "(" + type + ")" : "")).snippet(description != null ? description : "" ).icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_GREEN)));
-                                    }
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error processing donation document: " + document.getId(), e);
-                                }
-                            }
-                        } else {
-                            Log.d(TAG, "Error fetching data: ", task.getException());
-                        }
-                    }
+        markerLayer = new MapMarkerLayer(this, mMap)
+                .addSource(cloudstorage.collection("donations").whereEqualTo("donorId", userID), document -> {
+                    LatLng latLng = MapMarkerLayer.readPosition(document);
+                    if (latLng == null) return null;
+                    String title = document.getString("foodName");
+                    if (title == null || title.trim().isEmpty()) title = document.getString("name");
+                    if (title == null || title.trim().isEmpty()) title = document.getString("category");
+                    if (title == null || title.trim().isEmpty()) title = "Donation";
+                    String type = document.getString("type");
+                    String description = document.getString("description");
+                    return new MapMarkerLayer.Item(document.getId(), latLng,
+                            title + (type != null ? "(" + type + ")" : ""),
+                            description != null ? description : "",
+                            BitmapDescriptorFactory.HUE_GREEN);
                 });
+        markerLayer.attach();
     }
     private void stopLocationUpdates() {
         if (locationCallback != null) {
@@ -276,6 +251,9 @@ public class MyPin extends AppCompatActivity implements
     protected void onDestroy() {
         super.onDestroy();
         stopLocationUpdates();
+        if (markerLayer != null) {
+            markerLayer.detach();
+        }
     }
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
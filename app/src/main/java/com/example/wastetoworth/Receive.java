@@ -18,6 +18,10 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.example.wastetoworth.data.DonationSummaries;
+import com.example.wastetoworth.data.outbox.OutboxEntry;
+import com.example.wastetoworth.data.outbox.WriteOutbox;
+import com.example.wastetoworth.util.GeoHash;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
@@ -32,11 +36,11 @@ import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.GeoPoint;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -223,7 +227,6 @@ public class Receive extends AppCompatActivity implements OnMapReadyCallback {
             userID = fAuth.getCurrentUser().getUid();
             
             // Create data to save
-            CollectionReference collectionReference = fStore.collection("donations");
             GeoPoint geoPoint = new GeoPoint(mLastLocation.getLatitude(), mLastLocation.getLongitude());
             
             Map<String, Object> donation = new HashMap<>();
@@ -232,28 +235,48 @@ public class Receive extends AppCompatActivity implements OnMapReadyCallback {
             donation.put("description", description);
             donation.put("quantity", String.valueOf(quantity));
             donation.put("location", geoPoint);
+            donation.put(GeoHash.FIELD_GEOHASH, GeoHash.encode(geoPoint.getLatitude(), geoPoint.getLongitude()));
             donation.put("donorId", userID);
             donation.put("type", type);
             donation.put("status", "available");
             donation.put("category", "Food");
             
-            // Save to Firestore
-            collectionReference.add(donation)
-                .addOnSuccessListener(documentReference -> {
-                    Toast.makeText(this, "Success!", Toast.LENGTH_SHORT).show();
-                    Intent intent = new Intent(Receive.this, MainActivity.class);
-                    intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | 
-                                  Intent.FLAG_ACTIVITY_CLEAR_TASK | 
-                                  Intent.FLAG_ACTIVITY_NEW_TASK);
-                    startActivity(intent);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    Log.e(TAG, "Error saving data", e);
-                });
+            // Save through the outbox, so the donation is kept until Firestore has it
+            WriteOutbox outbox = WriteOutbox.getInstance(this);
+            String donationId = outbox.newDocumentId("donations");
+            outbox.enqueue("donations", donationId, donation,
+                    Collections.singletonList(DonationSummaries.linkedTo(donationId, donation)),
+                    new WriteOutbox.WriteListener() {
+                @Override
+                public void onSent(OutboxEntry entry) {
+                    Toast.makeText(Receive.this, "Success!", Toast.LENGTH_SHORT).show();
+                    goHome();
+                }
+
+                @Override
+                public void onDeferred(OutboxEntry entry) {
+                    Toast.makeText(Receive.this, "Saved. It will be sent automatically when you're back online.", Toast.LENGTH_LONG).show();
+                    goHome();
+                }
+
+                @Override
+                public void onRejected(OutboxEntry entry) {
+                    Toast.makeText(Receive.this, "Error: " + entry.getLastError(), Toast.LENGTH_SHORT).show();
+                    Log.e(TAG, "Error saving data: " + entry.getLastError());
+                }
+            });
         });
     }
 
+    private void goHome() {
+        if (isFinishing() || isDestroyed()) return;
+        Intent intent = new Intent(Receive.this, MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | 
+                      Intent.FLAG_ACTIVITY_CLEAR_TASK | 
+                      Intent.FLAG_ACTIVITY_NEW_TASK);
+        startActivity(intent);
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
@@ -2,8 +2,24 @@ package com.example.wastetoworth;
 
 import android.content.Context;
 import android.location.Location;
+import com.example.wastetoworth.data.ImpactStats;
+import com.example.wastetoworth.recommendation.CategoryDictionary;
+import com.example.wastetoworth.recommendation.DonationScorer;
+import com.example.wastetoworth.recommendation.LiveRankedSet;
+import com.example.wastetoworth.recommendation.RankedSetDiff;
+import com.example.wastetoworth.recommendation.ScoringCandidate;
+import com.example.wastetoworth.util.GeoHash;
+import com.example.wastetoworth.util.TopKSelector;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
@@ -18,13 +34,25 @@ import java.util.Map;
  */
 public class SmartDonationRecommender {
     
+    /** Candidates further than this from the user are not read at all */
+    private static final double DEFAULT_SEARCH_RADIUS_KM = 25.0;
+    
+    /** Number of recommendations delivered per page */
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    
+    /** Best-scoring recommendations kept for "show more" paging */
+    private static final int MAX_RETAINED_RECOMMENDATIONS = 50;
+    
     private Context context;
     private FirebaseFirestore db;
+    private final DonationScorer scorer;
+    private TopKSelector<Recommendation> lastResults;
     
     /**
      * Donation recommendation result
      */
     public static class Recommendation {
+        public String documentId;
         public String title;
         public String description;
         public String ngoName;
@@ -53,6 +81,18 @@ public class SmartDonationRecommender {
         void onError(String error);
     }
     
+    /**
+     * Callback interface for live recommendation subscriptions
+     */
+    public interface LiveRecommendationCallback {
+        /**
+         * Called with the changes to the ranked recommendations since the previous call.
+         * The first call adds the initial recommendations.
+         */
+        void onRecommendationsChanged(RankedSetDiff<Recommendation> diff);
+        void onError(String error);
+    }
+    
     /**
      * Constructor
      * @param context Application context
@@ -60,6 +100,7 @@ public class SmartDonationRecommender {
     public SmartDonationRecommender(Context context) {
         this.context = context;
         this.db = FirebaseFirestore.getInstance();
+        this.scorer = new DonationScorer(new CategoryDictionary());
     }
     
     /**
@@ -71,45 +112,49 @@ public class SmartDonationRecommender {
      */
     public void getRecommendationsForDonor(Location userLocation, String foodCategory, 
                                           int quantity, RecommendationCallback callback) {
-        List<Recommendation> recommendations = new ArrayList<>();
+        TopKSelector<Recommendation> ranked = newSelector();
+        int foodCategoryId = scorer.getCategories().intern(foodCategory);
         
-        // Fetch urgent requests from Firestore
-        db.collection("urgentRequests")
-                .whereEqualTo("status", "active")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
+        // Fetch urgent requests near the donor from Firestore
+        Query activeRequests = db.collection("urgentRequests")
+                .whereEqualTo("status", "active");
+        
+        fetchCandidates(activeRequests, userLocation, DEFAULT_SEARCH_RADIUS_KM)
+                .addOnSuccessListener(documents -> {
+                    for (DocumentSnapshot document : documents) {
                         try {
                             String title = document.getString("title");
                             String description = document.getString("description");
                             String ngoName = document.getString("ngoName");
-                            String location = document.getString("location");
+                            String location = getLocationLabel(document);
                             
                             // Calculate distance if location data is available
                             double distance = 0;
-                            if (userLocation != null && document.contains("latitude") && document.contains("longitude")) {
-                                double lat = document.getDouble("latitude");
-                                double lng = document.getDouble("longitude");
+                            double[] coordinates = getCoordinates(document);
+                            if (userLocation != null && coordinates != null) {
                                 distance = calculateDistance(userLocation.getLatitude(), 
-                                                           userLocation.getLongitude(), lat, lng);
+                                                           userLocation.getLongitude(), coordinates[0], coordinates[1]);
                             }
                             
+                            ScoringCandidate candidate = toCandidate(document, "category", distance);
+                            
                             // Calculate priority based on urgency and match
-                            int priority = calculatePriority(document, foodCategory, distance);
+                            int priority = scorer.priority(candidate, foodCategoryId);
                             
                             Recommendation rec = new Recommendation(title, description, ngoName, 
                                                                   location, distance, priority);
+                            rec.documentId = document.getId();
                             rec.category = foodCategory;
-                            rec.matchScore = calculateMatchScore(document, foodCategory, quantity, distance);
+                            rec.matchScore = scorer.matchScore(candidate, foodCategoryId, quantity);
                             
-                            recommendations.add(rec);
+                            ranked.offer(rec);
                         } catch (Exception e) {
                             // Skip invalid documents
                         }
                     }
                     
-                    // Sort by match score
-                    recommendations.sort((r1, r2) -> Double.compare(r2.matchScore, r1.matchScore));
+                    lastResults = ranked;
+                    List<Recommendation> recommendations = ranked.nextPage(DEFAULT_PAGE_SIZE);
                     
                     // Add general recommendations if list is small
                     if (recommendations.size() < 3) {
@@ -129,193 +174,269 @@ public class SmartDonationRecommender {
      */
     public void getRecommendationsForReceiver(Location ngoLocation, List<String> neededCategories,
                                              RecommendationCallback callback) {
-        List<Recommendation> recommendations = new ArrayList<>();
+        TopKSelector<Recommendation> ranked = newSelector();
+        int[] neededCategoryIds = scorer.getCategories().internAll(neededCategories);
+        
+        // Fetch available donations near the NGO
+        Query availableDonations = db.collection("donations")
+                .whereEqualTo("status", "available");
         
-        // Fetch available donations
-        db.collection("donations")
-                .whereEqualTo("status", "available")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
+        fetchCandidates(availableDonations, ngoLocation, DEFAULT_SEARCH_RADIUS_KM)
+                .addOnSuccessListener(documents -> {
+                    long now = System.currentTimeMillis();
+                    for (DocumentSnapshot document : documents) {
                         try {
-                            String foodType = document.getString("foodType");
-                            String donorName = document.getString("donorName");
-                            String location = document.getString("location");
-                            
-                            // Check if food category matches needs
-                            boolean matches = false;
-                            for (String category : neededCategories) {
-                                if (foodType != null && foodType.toLowerCase().contains(category.toLowerCase())) {
-                                    matches = true;
-                                    break;
-                                }
-                            }
-                            
-                            if (matches) {
-                                double distance = 0;
-                                if (ngoLocation != null && document.contains("latitude") && document.contains("longitude")) {
-                                    double lat = document.getDouble("latitude");
-                                    double lng = document.getDouble("longitude");
-                                    distance = calculateDistance(ngoLocation.getLatitude(),
-                                                               ngoLocation.getLongitude(), lat, lng);
-                                }
-                                
-                                Recommendation rec = new Recommendation(
-                                    "Available: " + foodType,
-                                    "From " + donorName,
-                                    donorName,
-                                    location,
-                                    distance,
-                                    1
-                                );
-                                rec.category = foodType;
-                                rec.matchScore = calculateReceiverMatchScore(document, neededCategories, distance);
-                                
-                                recommendations.add(rec);
+                            Recommendation rec = toReceiverRecommendation(document, ngoLocation,
+                                                                          neededCategoryIds, now);
+                            if (rec != null) {
+                                ranked.offer(rec);
                             }
                         } catch (Exception e) {
                             // Skip invalid documents
                         }
                     }
                     
-                    // Sort by match score
-                    recommendations.sort((r1, r2) -> Double.compare(r2.matchScore, r1.matchScore));
-                    
-                    callback.onRecommendationsReady(recommendations);
+                    lastResults = ranked;
+                    callback.onRecommendationsReady(ranked.nextPage(DEFAULT_PAGE_SIZE));
                 })
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
     
     /**
-     * Calculate distance between two coordinates in kilometers
+     * Subscribe to live recommendations for receivers/NGOs.
+     * Only documents reported as added, modified or removed by the snapshot listeners
+     * are rescored, and the callback receives the resulting diff of the top results.
+     * @param ngoLocation NGO location
+     * @param neededCategories Categories of food needed
+     * @param limit Number of top recommendations to keep up to date
+     * @param callback Callback for diffs
+     * @return Registration to remove when the dashboard is closed
      */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the earth in km
+    public ListenerRegistration subscribeForReceiver(Location ngoLocation, List<String> neededCategories,
+                                                     int limit, LiveRecommendationCallback callback) {
+        int[] neededCategoryIds = scorer.getCategories().internAll(neededCategories);
+        LiveRankedSet<Recommendation> ranked = new LiveRankedSet<>(limit);
         
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        Query availableDonations = db.collection("donations")
+                .whereEqualTo("status", "available");
         
-        return R * c;
+        List<Query> queries = new ArrayList<>();
+        if (ngoLocation == null) {
+            queries.add(availableDonations);
+        } else {
+            for (String[] bound : GeoHash.queryBounds(ngoLocation.getLatitude(),
+                    ngoLocation.getLongitude(), DEFAULT_SEARCH_RADIUS_KM)) {
+                queries.add(availableDonations
+                        .orderBy(GeoHash.FIELD_GEOHASH)
+                        .startAt(bound[0])
+                        .endAt(bound[1]));
+            }
+        }
+        
+        List<ListenerRegistration> registrations = new ArrayList<>();
+        for (Query query : queries) {
+            registrations.add(query.addSnapshotListener((snapshots, e) -> {
+                if (e != null) {
+                    callback.onError(e.getMessage());
+                    return;
+                }
+                if (snapshots == null) {
+                    return;
+                }
+                
+                long now = System.currentTimeMillis();
+                for (DocumentChange change : snapshots.getDocumentChanges()) {
+                    DocumentSnapshot document = change.getDocument();
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        ranked.remove(document.getId());
+                        continue;
+                    }
+                    
+                    Recommendation rec = null;
+                    try {
+                        rec = toReceiverRecommendation(document, ngoLocation, neededCategoryIds, now);
+                    } catch (Exception ex) {
+                        // Treat invalid documents as not matching
+                    }
+                    if (rec != null && (ngoLocation == null || rec.distance <= DEFAULT_SEARCH_RADIUS_KM)) {
+                        ranked.put(document.getId(), rec, rec.matchScore);
+                    } else {
+                        ranked.remove(document.getId());
+                    }
+                }
+                
+                RankedSetDiff<Recommendation> diff = ranked.commit();
+                if (!diff.isEmpty()) {
+                    callback.onRecommendationsChanged(diff);
+                }
+            }));
+        }
+        
+        return () -> {
+            for (ListenerRegistration registration : registrations) {
+                registration.remove();
+            }
+        };
     }
     
     /**
-     * Calculate priority score for a request
+     * Build a receiver recommendation from an available donation
+     * @return The scored recommendation, or null if the donation matches no needed category
      */
-    private int calculatePriority(QueryDocumentSnapshot document, String foodCategory, double distance) {
-        int priority = 1;
-        
-        // Higher priority for urgent requests
-        if (document.contains("urgent") && document.getBoolean("urgent")) {
-            priority = 3;
-        }
+    private Recommendation toReceiverRecommendation(DocumentSnapshot document, Location ngoLocation,
+                                                    int[] neededCategoryIds, long nowMillis) {
+        String foodType = document.getString("foodType");
+        String donorName = document.getString("donorName");
+        String location = getLocationLabel(document);
+        ScoringCandidate candidate = toCandidate(document, "foodType", 0);
         
-        // Adjust based on distance
-        if (distance < 5) {
-            priority++;
+        // Check if food category matches needs
+        if (!scorer.matchesAny(candidate, neededCategoryIds)) {
+            return null;
         }
         
-        // Adjust based on category match
-        String requestedCategory = document.getString("category");
-        if (requestedCategory != null && requestedCategory.equalsIgnoreCase(foodCategory)) {
-            priority++;
+        double distance = 0;
+        double[] coordinates = getCoordinates(document);
+        if (ngoLocation != null && coordinates != null) {
+            distance = calculateDistance(ngoLocation.getLatitude(),
+                                       ngoLocation.getLongitude(), coordinates[0], coordinates[1]);
         }
+        candidate.distanceKm = distance;
         
-        return Math.min(priority, 3);
+        Recommendation rec = new Recommendation(
+            "Available: " + foodType,
+            "From " + donorName,
+            donorName,
+            location,
+            distance,
+            1
+        );
+        rec.documentId = document.getId();
+        rec.category = foodType;
+        rec.matchScore = scorer.receiverMatchScore(candidate, neededCategoryIds, nowMillis);
+        return rec;
     }
     
     /**
-     * Calculate match score for donor recommendations
+     * Get the next page of the most recent donor or receiver recommendations
+     * without querying or rescoring again
+     * @param callback Callback for results, receives an empty list when exhausted
      */
-    private double calculateMatchScore(QueryDocumentSnapshot document, String foodCategory, 
-                                      int quantity, double distance) {
-        double score = 100.0;
-        
-        // Category match (40 points)
-        String requestedCategory = document.getString("category");
-        if (requestedCategory != null && requestedCategory.equalsIgnoreCase(foodCategory)) {
-            score += 40;
-        } else if (requestedCategory != null && requestedCategory.toLowerCase().contains(foodCategory.toLowerCase())) {
-            score += 20;
+    public void getMoreRecommendations(RecommendationCallback callback) {
+        if (lastResults == null) {
+            callback.onError("No recommendations loaded yet");
+            return;
         }
-        
-        // Distance factor (30 points)
-        if (distance < 2) {
-            score += 30;
-        } else if (distance < 5) {
-            score += 20;
-        } else if (distance < 10) {
-            score += 10;
+        callback.onRecommendationsReady(lastResults.nextPage(DEFAULT_PAGE_SIZE));
+    }
+    
+    /**
+     * @return true if {@link #getMoreRecommendations} has more results to deliver
+     */
+    public boolean hasMoreRecommendations() {
+        return lastResults != null && lastResults.hasMore();
+    }
+    
+    private TopKSelector<Recommendation> newSelector() {
+        return new TopKSelector<>(MAX_RETAINED_RECOMMENDATIONS,
+                (r1, r2) -> Double.compare(r1.matchScore, r2.matchScore));
+    }
+    
+    /**
+     * Fetch candidate documents for a query, restricted to a radius around the center.
+     * With a center, one geohash range query is issued per covering cell and the results
+     * are trimmed to the exact radius; without one, the whole query is read.
+     */
+    private Task<List<DocumentSnapshot>> fetchCandidates(Query baseQuery, Location center, double radiusKm) {
+        if (center == null) {
+            return baseQuery.get().continueWith(task -> task.getResult().getDocuments());
         }
         
-        // Urgency factor (20 points)
-        if (document.contains("urgent") && document.getBoolean("urgent")) {
-            score += 20;
+        List<Task<QuerySnapshot>> cellQueries = new ArrayList<>();
+        for (String[] bound : GeoHash.queryBounds(center.getLatitude(), center.getLongitude(), radiusKm)) {
+            cellQueries.add(baseQuery
+                    .orderBy(GeoHash.FIELD_GEOHASH)
+                    .startAt(bound[0])
+                    .endAt(bound[1])
+                    .get());
         }
         
-        // Quantity match (10 points)
-        if (document.contains("requiredQuantity")) {
-            try {
-                int required = document.getLong("requiredQuantity").intValue();
-                if (quantity >= required) {
-                    score += 10;
-                } else {
-                    score += 5;
+        return Tasks.whenAllSuccess(cellQueries).continueWith(task -> {
+            List<DocumentSnapshot> inRange = new ArrayList<>();
+            for (Object result : task.getResult()) {
+                for (DocumentSnapshot document : ((QuerySnapshot) result).getDocuments()) {
+                    double[] coordinates = getCoordinates(document);
+                    if (coordinates != null && calculateDistance(center.getLatitude(),
+                            center.getLongitude(), coordinates[0], coordinates[1]) <= radiusKm) {
+                        inRange.add(document);
+                    }
                 }
-            } catch (Exception e) {
-                // Ignore
             }
+            return inRange;
+        });
+    }
+    
+    /**
+     * Read a document's coordinates from latitude/longitude fields or a GeoPoint location
+     * @return {latitude, longitude} or null if the document has no coordinates
+     */
+    private double[] getCoordinates(DocumentSnapshot document) {
+        Double lat = document.getDouble("latitude");
+        Double lng = document.getDouble("longitude");
+        if (lat != null && lng != null) {
+            return new double[]{lat, lng};
         }
-        
-        return score;
+        Object location = document.get("location");
+        if (location instanceof GeoPoint) {
+            GeoPoint geoPoint = (GeoPoint) location;
+            return new double[]{geoPoint.getLatitude(), geoPoint.getLongitude()};
+        }
+        return null;
     }
     
     /**
-     * Calculate match score for receiver recommendations
+     * Read a displayable location, which may be stored as a String or a GeoPoint
      */
-    private double calculateReceiverMatchScore(QueryDocumentSnapshot document, 
-                                              List<String> neededCategories, double distance) {
-        double score = 100.0;
-        
-        // Category match
-        String foodType = document.getString("foodType");
-        for (String category : neededCategories) {
-            if (foodType != null && foodType.toLowerCase().contains(category.toLowerCase())) {
-                score += 30;
-                break;
-            }
+    private String getLocationLabel(DocumentSnapshot document) {
+        Object location = document.get("location");
+        if (location instanceof String) {
+            return (String) location;
+        } else if (location instanceof GeoPoint) {
+            GeoPoint geoPoint = (GeoPoint) location;
+            return geoPoint.getLatitude() + "," + geoPoint.getLongitude();
         }
+        return null;
+    }
+    
+    /**
+     * Calculate distance between two coordinates in kilometers
+     */
+    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        return GeoHash.distanceKm(lat1, lon1, lat2, lon2);
+    }
+    
+    /**
+     * Flatten the fields used for scoring into a candidate record
+     * @param categoryField Field holding the document's category
+     */
+    private ScoringCandidate toCandidate(DocumentSnapshot document, String categoryField, double distance) {
+        ScoringCandidate candidate = new ScoringCandidate();
+        candidate.categoryId = scorer.getCategories().intern(document.getString(categoryField));
+        candidate.urgent = Boolean.TRUE.equals(document.getBoolean("urgent"));
+        candidate.distanceKm = distance;
         
-        // Distance factor
-        if (distance < 2) {
-            score += 25;
-        } else if (distance < 5) {
-            score += 15;
-        } else if (distance < 10) {
-            score += 5;
+        Object required = document.get("requiredQuantity");
+        if (required instanceof Number) {
+            candidate.requiredQuantity = ((Number) required).intValue();
         }
         
-        // Freshness/time factor
-        if (document.contains("timestamp")) {
-            try {
-                long timestamp = document.getLong("timestamp");
-                long currentTime = System.currentTimeMillis();
-                long hoursSince = (currentTime - timestamp) / (1000 * 60 * 60);
-                
-                if (hoursSince < 2) {
-                    score += 20; // Very fresh
-                } else if (hoursSince < 6) {
-                    score += 10;
-                }
-            } catch (Exception e) {
-                // Ignore
-            }
+        Object timestamp = document.get("timestamp");
+        if (timestamp instanceof Number) {
+            candidate.timestampMillis = ((Number) timestamp).longValue();
+        } else if (timestamp instanceof Timestamp) {
+            candidate.timestampMillis = ((Timestamp) timestamp).toDate().getTime();
         }
-        
-        return score;
+        return candidate;
     }
     
     /**
@@ -381,10 +502,16 @@ public class SmartDonationRecommender {
      * @return Impact message
      */
     public String getImpactMessage(int totalDonations) {
-        int mealsFed = totalDonations * 3; // Estimate 3 meals per donation
-        int co2Saved = totalDonations * 2; // Estimate 2kg CO2 saved per donation
-        
+        return getImpactMessage(new ImpactStats(totalDonations, 0));
+    }
+    
+    /**
+     * Get impact statistics for motivation
+     * @param stats Cached totals from {@link com.example.wastetoworth.data.ImpactStatsRepository}
+     * @return Impact message
+     */
+    public String getImpactMessage(ImpactStats stats) {
         return String.format("You've helped feed approximately %d meals and saved %d kg of CO2 emissions! Keep making a difference!", 
-                           mealsFed, co2Saved);
+                           stats.getMealsFed(), stats.getCo2SavedKg());
     }
 }
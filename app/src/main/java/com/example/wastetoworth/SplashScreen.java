@@ -6,15 +6,20 @@ import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.firebase.auth.FirebaseAuth;
 public class SplashScreen extends AppCompatActivity {
     private static final String TAG = "SplashScreen";
-    private static final long SPLASH_DELAY = 2000; // 2 seconds
+    // Leave the splash even if initialization hangs
+    private static final long MAX_SPLASH_DELAY = 5000; // 5 seconds
     private static final String PREFS_NAME = "WasteToWorthPrefs";
     private static final String KEY_FIRST_LAUNCH = "first_launch";
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean leaving = false;
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         try {
@@ -29,13 +34,26 @@ public class SplashScreen extends AppCompatActivity {
             } catch (PackageManager.NameNotFoundException e) {
                 Log.e(TAG, "Package name not found", e);
             }
-            // Delay for splash screen
-            new Handler().postDelayed(this::startLandingPage, SPLASH_DELAY);
+            // Show the splash until initialization finishes
+            long shownAt = SystemClock.elapsedRealtime();
+            handler.postDelayed(this::leaveSplash, MAX_SPLASH_DELAY);
+            ((WasteToWorthApplication) getApplication()).whenStartupReady(() -> {
+                Log.d(TAG, "Startup ready after " + (SystemClock.elapsedRealtime() - shownAt) + "ms of splash");
+                leaveSplash();
+            });
         } catch (Exception e) {
             Log.e(TAG, "Fatal error in SplashScreen.onCreate: " + Log.getStackTraceString(e));
             showErrorAndExit("Fatal error during app initialization");
         }
     }
+    private void leaveSplash() {
+        if (leaving || isFinishing() || isDestroyed()) {
+            return;
+        }
+        leaving = true;
+        handler.removeCallbacksAndMessages(null);
+        startLandingPage();
+    }
     private void startLandingPage() {
         try {
             Log.d(TAG, "Starting appropriate activity based on auth status");
@@ -74,6 +92,11 @@ public class SplashScreen extends AppCompatActivity {
             showErrorAndExit("Cannot start the application");
         }
     }
+    @Override
+    protected void onDestroy() {
+        handler.removeCallbacksAndMessages(null);
+        super.onDestroy();
+    }
     private void showErrorAndExit(String message) {
         try {
             Toast.makeText(this, message + " (Check logs for details)", Toast.LENGTH_LONG).show();
@@ -4,8 +4,6 @@ import android.Manifest;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
@@ -40,16 +38,26 @@ import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.Timestamp;
 import android.content.Intent;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 import com.example.wastetoworth.DonationModel;
 import com.example.wastetoworth.DonationAdapter;
+import com.example.wastetoworth.data.DonationMapper;
+import com.example.wastetoworth.data.DonationRepository;
+import com.example.wastetoworth.data.DonationSummaries;
+import com.example.wastetoworth.data.GeocodingService;
+import com.example.wastetoworth.data.UrgentRequests;
+import com.example.wastetoworth.data.SnapshotHub;
+import com.example.wastetoworth.data.claim.ClaimRequest;
+import com.example.wastetoworth.data.claim.ClaimService;
+import com.example.wastetoworth.data.outbox.OutboxEntry;
+import com.example.wastetoworth.data.outbox.WriteOutbox;
+import com.example.wastetoworth.util.GeoHash;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.GeoPoint;
 
@@ -63,6 +71,7 @@ public class UrgentRequestActivity extends AppCompatActivity {
     private Button buttonUrgentRequest;
     private FirebaseAuth auth;
     private List<DonationModel> urgentRequestList;
+    private final DonationMapper donationMapper = DonationMapper.forCollection("donations");
 
     private AlertDialog urgentDialog;
     private FusedLocationProviderClient fusedLocationClient;
@@ -90,7 +99,7 @@ public class UrgentRequestActivity extends AppCompatActivity {
         // Setup RecyclerView
         donationList = new ArrayList<>();
         urgentRequestList = new ArrayList<>();
-        adapter = new DonationAdapter(this, donationList, donation -> {
+        adapter = new DonationAdapter(this, donation -> {
             Toast.makeText(this, "Selected: " + (donation.getFoodName() != null ? donation.getFoodName() : donation.getName()), Toast.LENGTH_SHORT).show();
         });
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
@@ -111,19 +120,39 @@ public class UrgentRequestActivity extends AppCompatActivity {
             return;
         }
 
-        db.collection("donations")
-                .document(donation.getDocumentId())
-                .update("isReceived", true)
-                .addOnSuccessListener(aVoid -> {
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            Toast.makeText(this, "Please login to receive donations", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(ClaimRequest.FIELD_RECEIVED, true);
+        updates.put("receivedTimestamp", Timestamp.now());
+        ClaimRequest claim = ClaimRequest.receiver("donations", donation.getDocumentId(),
+                FirebaseAuth.getInstance().getCurrentUser().getUid(), updates);
+        ClaimService.getInstance().claim(claim, result -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            switch (result.getOutcome()) {
+                case WON:
                     Toast.makeText(this, "Donation marked as received!", Toast.LENGTH_SHORT).show();
-                    donationList.remove(donation);
-                    adapter.notifyDataSetChanged();
-                    updateEmptyState();
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("UrgentRequestActivity", "Error marking as received: " + e.getMessage(), e);
-                    Toast.makeText(this, "Failed to mark as received: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+                    break;
+                case LOST_TO_OTHER:
+                    Toast.makeText(this, "Someone else already received this donation", Toast.LENGTH_SHORT).show();
+                    break;
+                case STALE:
+                    Toast.makeText(this, "This donation is no longer available", Toast.LENGTH_SHORT).show();
+                    break;
+                default:
+                    Log.e("UrgentRequestActivity", "Error marking as received: " + result.getError());
+                    Toast.makeText(this, "Failed to mark as received: " + result.getError(), Toast.LENGTH_SHORT).show();
+                    return;
+            }
+            donationList.remove(donation);
+            adapter.submitList(donationList);
+            updateEmptyState();
+        });
     }
 
     private void updateEmptyState() {
@@ -170,11 +199,8 @@ public class UrgentRequestActivity extends AppCompatActivity {
             donationsListener.remove();
         }
         
-        donationsListener = db.collection("donations")
-                .whereEqualTo("isReceived", false)
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .limit(50)
-                .addSnapshotListener((queryDocumentSnapshots, e) -> {
+        Query donations = DonationRepository.recentDonations(db);
+        donationsListener = SnapshotHub.getInstance().listen(donations, (queryDocumentSnapshots, e) -> {
                     if (e != null) {
                         Log.e("UrgentRequestActivity", "Error loading donations: " + e.getMessage(), e);
                         Toast.makeText(this, "Error loading donations: " + e.getMessage(),
@@ -183,19 +209,19 @@ public class UrgentRequestActivity extends AppCompatActivity {
                     }
                     
                     if (queryDocumentSnapshots != null) {
-                        List<DonationModel> newDonations = new ArrayList<>();
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            try {
-                                DonationModel donation = createDonationFromDocument(document);
-                                if (donation != null) {
-                                    newDonations.add(donation);
+                        donationMapper.mapAllAsync(queryDocumentSnapshots.getDocuments(), mapped -> {
+                            if (isFinishing() || isDestroyed()) return;
+                            List<DonationModel> newDonations = new ArrayList<>();
+                            for (DonationModel donation : mapped) {
+                                if (newDonations.size() == DonationRepository.URGENT_SCREEN_DONATIONS) {
+                                    break;
+                                }
+                                if (!donation.isReceived()) {
+                                    newDonations.add(applyDisplayDefaults(donation));
                                 }
-                            } catch (Exception ex) {
-                                Log.e("UrgentRequestActivity", "Error processing document: " + ex.getMessage(), ex);
                             }
-                        }
-                        
-                        mergeDonationsAndUrgentRequests(newDonations);
+                            mergeDonationsAndUrgentRequests(newDonations);
+                        });
                     }
                 });
     }
@@ -205,9 +231,9 @@ public class UrgentRequestActivity extends AppCompatActivity {
             urgentRequestsListener.remove();
         }
         
-        urgentRequestsListener = db.collection("urgent_requests")
-                .whereEqualTo("status", "pending")
-                .addSnapshotListener((queryDocumentSnapshots, e) -> {
+        Query pending = db.collection(UrgentRequests.COLLECTION)
+                .whereEqualTo(UrgentRequests.FIELD_STATUS, UrgentRequests.STATUS_PENDING);
+        urgentRequestsListener = SnapshotHub.getInstance().listen(pending, (queryDocumentSnapshots, e) -> {
                     if (e != null) {
                         Log.e("UrgentRequestActivity", "Error loading urgent requests: " + e.getMessage(), e);
                         return;
@@ -231,75 +257,13 @@ public class UrgentRequestActivity extends AppCompatActivity {
                 });
     }
     
-    private DonationModel createDonationFromDocument(QueryDocumentSnapshot document) {
-        try {
-            DonationModel donation = new DonationModel();
-            donation.setDocumentId(document.getId());
-            
-            String foodName = document.getString("foodName");
-            String food = document.getString("food");
-            String foodType = document.getString("foodType");
-            String category = document.getString("category");
-            
-            String resolvedName = foodName;
-            if (resolvedName == null || resolvedName.trim().isEmpty()) {
-                if (food != null && !food.trim().isEmpty()) resolvedName = food;
-                else if (foodType != null && !foodType.trim().isEmpty()) resolvedName = foodType;
-                else if (category != null && !category.trim().isEmpty()) resolvedName = category;
-                else resolvedName = "Food Item";
-            }
-            donation.setFoodName(resolvedName);
-
-            donation.setDescription(document.getString("description") != null ? document.getString("description") : "");
-
-            String quantity = document.getString("quantity");
-            if (quantity == null) {
-                Long qLong = document.getLong("quantity");
-                if (qLong != null) quantity = String.valueOf(qLong);
-            }
-            donation.setQuantity(quantity != null ? quantity : "");
-            
-            String donorName = document.getString("donorName");
-            String name = document.getString("name");
-            if (donorName == null && name != null) donorName = name;
-            donation.setDonorName(donorName != null ? donorName : "Anonymous");
-            
-            String donorId = document.getString("donorId");
-            String userid = document.getString("userid");
-            if (donorId == null && userid != null) donorId = userid;
-            donation.setDonorId(donorId != null ? donorId : "unknown");
-            
-            // Location
-            String locationStr = document.getString("location");
-            if (locationStr == null) {
-                Object locationObj = document.get("location");
-                if (locationObj instanceof GeoPoint) {
-                    GeoPoint gp = (GeoPoint) locationObj;
-                    locationStr = gp.getLatitude() + "," + gp.getLongitude();
-                }
-            }
-            donation.setLocation(locationStr != null ? locationStr : "");
-            donation.setAddress(document.getString("address") != null ? document.getString("address") : locationStr);
-            donation.setPhone(document.getString("phone") != null ? document.getString("phone") : "");
-            donation.setCategory(document.getString("category") != null ? document.getString("category") : "Food");
-            donation.setType(document.getString("type") != null ? document.getString("type") : "food");
-            
-            Boolean isReceived = document.getBoolean("isReceived");
-            donation.setReceived(isReceived != null ? isReceived : false);
-            
-            Timestamp ts = document.getTimestamp("timestamp");
-            if (ts == null) {
-                Long millis = document.getLong("timestamp");
-                if (millis != null) ts = new Timestamp(new Date(millis));
-            }
-            if (ts != null) donation.setTimestamp(ts);
-            
-            return donation;
-            
-        } catch (Exception e) {
-            Log.e("UrgentRequestActivity", "Error creating donation from document: " + e.getMessage(), e);
-            return null;
-        }
+    private DonationModel applyDisplayDefaults(DonationModel donation) {
+        if (donation.getDonorName() == null) donation.setDonorName("Anonymous");
+        if (donation.getDonorId() == null) donation.setDonorId("unknown");
+        if (donation.getLocation() == null) donation.setLocation("");
+        if (donation.getPhone() == null) donation.setPhone("");
+        if (donation.getCategory() == null) donation.setCategory("Food");
+        return donation;
     }
 
     private DonationModel createDonationFromUrgentRequest(QueryDocumentSnapshot document) {
@@ -380,12 +344,12 @@ public class UrgentRequestActivity extends AppCompatActivity {
                 return d2.getTimestamp().compareTo(d1.getTimestamp());
             });
         }
-        adapter.notifyDataSetChanged();
+        adapter.submitList(donationList);
         updateEmptyState();
     }
     
     private void updateDonationList() {
-        adapter.notifyDataSetChanged();
+        adapter.submitList(donationList);
         updateEmptyState();
     }
 
@@ -429,21 +393,16 @@ public class UrgentRequestActivity extends AppCompatActivity {
     }
 
     private void getAddressFromLocation(Location location) {
-        Geocoder geocoder = new Geocoder(this, Locale.getDefault());
-        try {
-            List<Address> addresses = geocoder.getFromLocation(location.getLatitude(), location.getLongitude(), 1);
-            if (addresses != null && !addresses.isEmpty()) {
-                Address address = addresses.get(0);
-                currentLocationAddress = address.getAddressLine(0);
-                isUsingCurrentLocation = true;
-                showUrgentRequestDialog();
+        GeocodingService.getInstance(this).reverseGeocode(location.getLatitude(), location.getLongitude(), addressLine -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (addressLine != null) {
+                currentLocationAddress = addressLine;
+            } else {
+                Toast.makeText(this, "Unable to get address", Toast.LENGTH_SHORT).show();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            Toast.makeText(this, "Unable to get address", Toast.LENGTH_SHORT).show();
             isUsingCurrentLocation = true;
             showUrgentRequestDialog();
-        }
+        });
     }
 
     private void showUrgentRequestDialog() {
@@ -519,55 +478,55 @@ public class UrgentRequestActivity extends AppCompatActivity {
         urgentRequest.put("address", location);
         
         if (isUsingCurrentLocation) {
-            urgentRequest.put("latitude", currentLocationLat);
-            urgentRequest.put("longitude", currentLocationLng);
+            GeoHash.putPosition(urgentRequest, currentLocationLat, currentLocationLng);
+            enqueueUrgentRequest(urgentRequest);
+        } else {
+            // Typed addresses are geocoded now, since the map only finds requests by geohash
+            GeocodingService.getInstance(this).geocode(location, latLng -> {
+                if (latLng != null) {
+                    GeoHash.putPosition(urgentRequest, latLng.latitude, latLng.longitude);
+                }
+                enqueueUrgentRequest(urgentRequest);
+            });
         }
         
-        db.collection("urgent_requests")
-            .add(urgentRequest)
-            .addOnSuccessListener(documentReference -> {
-                Toast.makeText(this, "Urgent request submitted successfully!", Toast.LENGTH_SHORT).show();
-                createDonationRequestFromUrgent(documentReference.getId(), urgentRequest);
-                
-                isUsingCurrentLocation = false;
-                currentLocationLat = 0.0;
-                currentLocationLng = 0.0;
-                currentLocationAddress = null;
-            })
-            .addOnFailureListener(e -> {
-                Toast.makeText(this, "Failed to submit urgent request: " + e.getMessage(), 
-                    Toast.LENGTH_SHORT).show();
-            });
+        isUsingCurrentLocation = false;
+        currentLocationLat = 0.0;
+        currentLocationLng = 0.0;
+        currentLocationAddress = null;
     }
     
-    private void createDonationRequestFromUrgent(String documentId, Map<String, Object> urgentRequest) {
-        Map<String, Object> donationRequest = new HashMap<>();
-        donationRequest.put("foodName", "Urgent Request - " + urgentRequest.get("requesterName"));
-        donationRequest.put("type", "urgent_request");
-        donationRequest.put("description", "URGENT REQUEST from " + urgentRequest.get("requesterName") + " - " + urgentRequest.get("quantity") + " people need food assistance");
-        donationRequest.put("quantity", urgentRequest.get("quantity"));
-        donationRequest.put("category", "Urgent");
-        donationRequest.put("donorName", urgentRequest.get("requesterName"));
-        donationRequest.put("donorId", urgentRequest.get("requesterId"));
-        donationRequest.put("donorEmail", urgentRequest.get("requesterEmail"));
-        donationRequest.put("address", urgentRequest.get("address"));
-        donationRequest.put("location", urgentRequest.get("address"));
-        donationRequest.put("timestamp", urgentRequest.get("timestamp"));
-        donationRequest.put("isReceived", false);
-        donationRequest.put("isUrgentRequest", true);
-        donationRequest.put("urgentRequestId", documentId);
-        donationRequest.put("phone", urgentRequest.get("requesterPhone"));
+    private void enqueueUrgentRequest(Map<String, Object> urgentRequest) {
+        // Both IDs are generated up front, and the request and its feed entry are created
+        // in one batch, so neither can exist without the other
+        WriteOutbox outbox = WriteOutbox.getInstance(this);
+        String requestId = outbox.newDocumentId(UrgentRequests.COLLECTION);
+        String donationId = outbox.newDocumentId("donations");
+        urgentRequest.put(UrgentRequests.FIELD_DONATION_ID, donationId);
+        Map<String, Object> donation = UrgentRequests.toDonation(urgentRequest, requestId);
+        List<OutboxEntry.LinkedDocument> linked = Arrays.asList(
+                new OutboxEntry.LinkedDocument("donations", donationId, donation),
+                DonationSummaries.linkedTo(donationId, donation));
         
-        db.collection("donations")
-            .add(donationRequest)
-            .addOnSuccessListener(donationDocRef -> {
-                db.collection("urgent_requests")
-                    .document(documentId)
-                    .update("donationId", donationDocRef.getId());
-            })
-            .addOnFailureListener(e -> {
-                android.util.Log.e("UrgentRequestActivity", "Failed to create donation request: " + e.getMessage());
-            });
+        outbox.enqueue(UrgentRequests.COLLECTION, requestId, urgentRequest, linked,
+                new WriteOutbox.WriteListener() {
+            @Override
+            public void onSent(OutboxEntry entry) {
+                Toast.makeText(UrgentRequestActivity.this, "Urgent request submitted successfully!", Toast.LENGTH_SHORT).show();
+            }
+            
+            @Override
+            public void onDeferred(OutboxEntry entry) {
+                Toast.makeText(UrgentRequestActivity.this,
+                    "Urgent request saved. It will be sent automatically when you're back online.", Toast.LENGTH_LONG).show();
+            }
+            
+            @Override
+            public void onRejected(OutboxEntry entry) {
+                Toast.makeText(UrgentRequestActivity.this, "Failed to submit urgent request: " + entry.getLastError(), 
+                    Toast.LENGTH_SHORT).show();
+            }
+        });
     }
     
     @Override
@@ -23,17 +23,20 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
+import com.example.wastetoworth.data.DonationMapper;
+import com.example.wastetoworth.data.DonationRepository;
+import com.example.wastetoworth.data.SnapshotHub;
+import com.example.wastetoworth.data.cache.FirestoreCacheManager;
+import com.example.wastetoworth.data.claim.ClaimRequest;
+import com.example.wastetoworth.data.claim.ClaimService;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.GeoPoint;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.Source;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
-import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
@@ -41,7 +44,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import android.text.TextUtils;
 
 public class VolunteerActivity extends AppCompatActivity implements VolunteerDeliveryAdapter.OnDeliveryActionListener {
     private static final String TAG = "VolunteerActivity";
@@ -55,6 +57,7 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
     private FirebaseAuth auth;
     private NetworkCallback networkCallback;
     private ListenerRegistration donationListener;
+    private final DonationMapper donationMapper = DonationMapper.forCollection("donations");
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -98,7 +101,7 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
 
     private void setupRecyclerView() {
         availableDonations = new ArrayList<>();
-        adapter = new VolunteerDeliveryAdapter(this, availableDonations, this);
+        adapter = new VolunteerDeliveryAdapter(this, this);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
     }
@@ -128,20 +131,17 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
     private void loadCachedDonations() {
         progressBar.setVisibility(View.VISIBLE);
         emptyView.setVisibility(View.GONE);
-        db.collection("donations")
-                .orderBy("timestamp", Query.Direction.DESCENDING)
+        DonationRepository.recentDonations(db)
                 .get(Source.CACHE)
                 .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<DonationModel> donations = new ArrayList<>();
-                    for (DocumentSnapshot document : queryDocumentSnapshots) {
-                        DonationModel donation = createDonationFromDocument(document);
-                        if (donation != null) {
-                            donations.add(donation);
-                        }
-                    }
-                    handleDonationsResponse(filterForVolunteer(donations), true);
+                    FirestoreCacheManager.getMetrics().recordCacheLookup(!queryDocumentSnapshots.isEmpty());
+                    donationMapper.mapAllAsync(queryDocumentSnapshots.getDocuments(), donations -> {
+                        if (isFinishing() || isDestroyed()) return;
+                        handleDonationsResponse(filterForVolunteer(donations), true);
+                    });
                 })
                 .addOnFailureListener(e -> {
+                    FirestoreCacheManager.getMetrics().recordCacheLookup(false);
                     progressBar.setVisibility(View.GONE);
                     Log.e(TAG, "Error loading cached donations", e);
                     Toast.makeText(VolunteerActivity.this, "Error loading cached data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
@@ -159,9 +159,8 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
             donationListener.remove();
         }
 
-        donationListener = db.collection("donations")
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .addSnapshotListener((queryDocumentSnapshots, e) -> {
+        Query donations = DonationRepository.recentDonations(db);
+        donationListener = SnapshotHub.getInstance().listen(donations, (queryDocumentSnapshots, e) -> {
                     swipeRefresh.setRefreshing(false);
                     progressBar.setVisibility(View.GONE);
 
@@ -171,22 +170,14 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
                         return;
                     }
 
-                    List<DonationModel> donations = new ArrayList<>();
-                    if (queryDocumentSnapshots != null) {
-                        for (DocumentSnapshot document : queryDocumentSnapshots) {
-                            DonationModel donation = createDonationFromDocument(document);
-                            if (donation != null) {
-                                String foodName = document.getString("foodName");
-                                if (TextUtils.isEmpty(foodName)) foodName = document.getString("name");
-                                if (TextUtils.isEmpty(foodName)) foodName = document.getString("foodType");
-                                if (TextUtils.isEmpty(foodName)) foodName = "Unknown Food";
-                                donation.setFoodName(foodName);
-                                donations.add(donation);
-                            }
-                        }
+                    if (queryDocumentSnapshots == null) {
+                        handleDonationsResponse(new ArrayList<>(), false);
+                        return;
                     }
-
-                    handleDonationsResponse(filterForVolunteer(donations), false);
+                    donationMapper.mapAllAsync(queryDocumentSnapshots.getDocuments(), donations -> {
+                        if (isFinishing() || isDestroyed()) return;
+                        handleDonationsResponse(filterForVolunteer(donations), false);
+                    });
                 });
     }
 
@@ -213,7 +204,7 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
         if (donations != null && !donations.isEmpty()) {
             availableDonations.clear();
             availableDonations.addAll(donations);
-            adapter.notifyDataSetChanged();
+            adapter.submitList(availableDonations);
             emptyView.setVisibility(View.GONE);
         } else {
             String errorMsg = isFromCache ? "No cached data available" : "No donations available for delivery";
@@ -236,21 +227,37 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
         }
         Map<String, Object> updates = new HashMap<>();
         updates.put("isVolunteerAssigned", true);
-        updates.put("volunteerId", auth.getCurrentUser().getUid());
         updates.put("volunteerName", auth.getCurrentUser().getDisplayName() != null ? auth.getCurrentUser().getDisplayName() : "Volunteer");
         updates.put("deliveryStatus", "accepted");
-        db.collection("donations").document(donation.getDocumentId())
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
+        ClaimRequest claim = ClaimRequest.volunteer("donations", donation.getDocumentId(),
+                auth.getCurrentUser().getUid(), updates);
+        ClaimService.getInstance().claim(claim, result -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            switch (result.getOutcome()) {
+                case WON:
                     Toast.makeText(this, "Delivery accepted! Navigate to pickup location.", Toast.LENGTH_LONG).show();
                     availableDonations.remove(donation);
-                    adapter.notifyDataSetChanged();
+                    adapter.submitList(availableDonations);
                     navigateToLocation(donation.getLocation(), "Pickup Location");
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error accepting delivery: ", e);
-                    Toast.makeText(this, "Error accepting delivery: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+                    break;
+                case LOST_TO_OTHER:
+                    Toast.makeText(this, "Another volunteer already accepted this delivery", Toast.LENGTH_SHORT).show();
+                    availableDonations.remove(donation);
+                    adapter.submitList(availableDonations);
+                    break;
+                case STALE:
+                    Toast.makeText(this, "This donation is no longer available", Toast.LENGTH_SHORT).show();
+                    availableDonations.remove(donation);
+                    adapter.submitList(availableDonations);
+                    break;
+                default:
+                    Log.e(TAG, "Error accepting delivery: " + result.getError());
+                    Toast.makeText(this, "Error accepting delivery: " + result.getError(), Toast.LENGTH_SHORT).show();
+                    break;
+            }
+        });
     }
 
     @Override
@@ -380,52 +387,4 @@ public class VolunteerActivity extends AppCompatActivity implements VolunteerDel
         }
         super.onDestroy();
     }
-
-    private DonationModel createDonationFromDocument(DocumentSnapshot document) {
-        try {
-            DonationModel donation = new DonationModel();
-            donation.setDocumentId(document.getId());
-
-            String fn = document.getString("foodName");
-            String nn = document.getString("name");
-            String ft = document.getString("foodType");
-            String display = !TextUtils.isEmpty(fn) ? fn : (!TextUtils.isEmpty(nn) ? nn : (!TextUtils.isEmpty(ft) ? ft : "Donation"));
-            donation.setFoodName(display);
-
-            Object q = document.get("quantity");
-            donation.setQuantity(q instanceof String ? (String) q : (q instanceof Number ? String.valueOf(q) : ""));
-            donation.setPhone(document.getString("phoneNumber"));
-
-            Object tsObj = document.get("timestamp");
-            if (tsObj instanceof Timestamp) donation.setTimestamp((Timestamp) tsObj);
-            else if (tsObj instanceof Number) donation.setTimestamp(new Timestamp(new java.util.Date(((Number) tsObj).longValue())));
-
-            Boolean rec = document.getBoolean("isReceived");
-            if (rec != null) donation.setReceived(rec);
-            Boolean va = document.getBoolean("isVolunteerAssigned");
-            if (va != null) donation.setVolunteerAssigned(va);
-
-            Object locationObj = document.get("location");
-            String locationStr = null;
-            if (locationObj instanceof GeoPoint) {
-                GeoPoint geo = (GeoPoint) locationObj;
-                locationStr = geo.getLatitude() + "," + geo.getLongitude();
-            } else if (locationObj instanceof String) {
-                locationStr = (String) locationObj;
-            }
-            if (locationStr != null && !locationStr.isEmpty()) {
-                donation.setLocation(locationStr);
-                donation.setAddress(locationStr);
-            }
-
-            donation.setVolunteerId(document.getString("volunteerId"));
-            donation.setVolunteerName(document.getString("volunteerName"));
-            donation.setDeliveryStatus(document.getString("deliveryStatus"));
-
-            return donation;
-        } catch (Exception e) {
-            Log.e(TAG, "Error creating donation from document: " + document.getId(), e);
-            return null;
-        }
-    }
 }
@@ -10,21 +10,29 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
-public class VolunteerDeliveryAdapter extends RecyclerView.Adapter<VolunteerDeliveryAdapter.DeliveryViewHolder> {
+import java.util.Objects;
+public class VolunteerDeliveryAdapter extends KeyedDiffAdapter<DonationModel, VolunteerDeliveryAdapter.DeliveryViewHolder> {
     private Context context;
-    private List<DonationModel> donations;
     private OnDeliveryActionListener listener;
     public interface OnDeliveryActionListener {
         void onAcceptDelivery(DonationModel donation);
         void onViewLocation(DonationModel donation);
     }
-    public VolunteerDeliveryAdapter(Context context, List<DonationModel> donations, OnDeliveryActionListener listener) {
+    public VolunteerDeliveryAdapter(Context context, OnDeliveryActionListener listener) {
         this.context = context;
-        this.donations = donations;
         this.listener = listener;
     }
+    @Override
+    protected String getItemKey(@NonNull DonationModel donation) {
+        return donation.getDocumentId();
+    }
+    @Override
+    protected int getContentHash(@NonNull DonationModel donation) {
+        return Objects.hash(donation.getFoodName(), donation.getType(), donation.getDescription(),
+                donation.getQuantity(), donation.getDonorName(), donation.getAddress(),
+                donation.getTimestamp(), donation.getPhone());
+    }
     @NonNull
     @Override
     public DeliveryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -33,7 +41,7 @@ public class VolunteerDeliveryAdapter extends RecyclerView.Adapter<VolunteerDeli
     }
     @Override
     public void onBindViewHolder(@NonNull DeliveryViewHolder holder, int position) {
-        DonationModel donation = donations.get(position);
+        DonationModel donation = getItem(position);
         // Set donation details
         holder.tvFoodName.setText(donation.getFoodName() != null ? donation.getFoodName() : "Food Item");
         holder.tvFoodType.setText(donation.getType() != null ? donation.getType() : "Food");
@@ -77,10 +85,6 @@ public class VolunteerDeliveryAdapter extends RecyclerView.Adapter<VolunteerDeli
             }
         });
     }
-    @Override
-    public int getItemCount() {
-        return donations.size();
-    }
     private String getTimeAgo(Date timestamp) {
         long now = System.currentTimeMillis();
         long time = timestamp.getTime();
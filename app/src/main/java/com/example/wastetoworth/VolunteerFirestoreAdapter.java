@@ -8,15 +8,24 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.wastetoworth.R;
 import java.util.List;
-public class VolunteerFirestoreAdapter extends RecyclerView.Adapter<VolunteerFirestoreAdapter.UserViewHolder> {
+import java.util.Objects;
+public class VolunteerFirestoreAdapter extends KeyedDiffAdapter<User, VolunteerFirestoreAdapter.UserViewHolder> {
     public interface OnUserSelectedListener {
         void onUserSelected(User user);
     }
-    private List<User> userList;
     private OnUserSelectedListener listener;
     public VolunteerFirestoreAdapter(List<User> userList, OnUserSelectedListener listener) {
-        this.userList = userList;
         this.listener = listener;
+        submitList(userList);
+    }
+    @Override
+    protected String getItemKey(@NonNull User user) {
+        // Users carry no document ID; the name and type identify a row
+        return user.getName() + "|" + user.getType();
+    }
+    @Override
+    protected int getContentHash(@NonNull User user) {
+        return Objects.hash(user.getName(), user.getType(), user.getLocation());
     }
     @NonNull
     @Override
@@ -27,7 +36,7 @@ public class VolunteerFirestoreAdapter extends RecyclerView.Adapter<VolunteerFir
     }
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = userList.get(position);
+        User user = getItem(position);
         holder.txtUserName.setText(user.getName());
         holder.txtUserType.setText(user.getType());
         holder.txtUserLocation.setText(user.getLocation());
@@ -37,13 +46,8 @@ public class VolunteerFirestoreAdapter extends RecyclerView.Adapter<VolunteerFir
             }
         });
     }
-    @Override
-    public int getItemCount() {
-        return userList != null ? userList.size() : 0;
-    }
     public void updateList(List<User> newList) {
-        userList = newList;
-        notifyDataSetChanged();
+        submitList(newList);
     }
     public static class UserViewHolder extends RecyclerView.ViewHolder {
         TextView txtUserName, txtUserType, txtUserLocation;
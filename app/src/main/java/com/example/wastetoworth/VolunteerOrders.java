@@ -28,7 +28,7 @@ public class VolunteerOrders extends AppCompatActivity {
         // Initialize empty list
         orderList = new ArrayList<>();
         // Set up the adapter with click listeners
-        adapter = new VolunteerOrdersAdapter(orderList, new VolunteerOrdersAdapter.OnOrderActionListener() {
+        adapter = new VolunteerOrdersAdapter(new VolunteerOrdersAdapter.OnOrderActionListener() {
             @Override
             public void onVolunteer(DonationModel donation) {
                 // Handle volunteer action
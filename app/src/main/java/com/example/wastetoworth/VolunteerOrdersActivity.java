@@ -1,6 +1,5 @@
 package com.example.wastetoworth;
 
-import com.google.firebase.firestore.DocumentSnapshot;
 import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
@@ -10,35 +9,54 @@ import android.view.View;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.wastetoworth.R;
+import com.example.wastetoworth.data.DonationMapper;
+import com.example.wastetoworth.data.DonationRepository;
+import com.example.wastetoworth.data.DonationSummaries;
+import com.example.wastetoworth.data.SnapshotHub;
+import com.example.wastetoworth.data.claim.ClaimEngine;
+import com.example.wastetoworth.data.claim.ClaimRequest;
+import com.example.wastetoworth.data.claim.ClaimService;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 public class VolunteerOrdersActivity extends AppCompatActivity {
     private RecyclerView recyclerView;
     private ProgressBar progressBar;
     private VolunteerOrdersAdapter adapter;
     private List<DonationModel> donationList;
     private FirebaseFirestore db;
+    private DonationRepository donationRepository;
     private ListenerRegistration orderListener;
+    private final DonationMapper summaryMapper = DonationMapper.forCollection(DonationSummaries.COLLECTION);
+    private final DonationMapper donationMapper = DonationMapper.forCollection(DonationSummaries.SOURCE_COLLECTION);
+    /** The summary backfill is started at most once per process */
+    private static boolean summaryBackfillStarted = false;
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_volunteer_orders);
         // Initialize Firebase
         db = FirebaseFirestore.getInstance();
+        donationRepository = new DonationRepository(this);
         // Initialize views
         recyclerView = findViewById(R.id.recyclerViewOrders);
         progressBar = findViewById(R.id.progress_bar);
         // Setup RecyclerView
         donationList = new ArrayList<>();
-        adapter = new VolunteerOrdersAdapter(donationList, new VolunteerOrdersAdapter.OnOrderActionListener() {
+        adapter = new VolunteerOrdersAdapter(new VolunteerOrdersAdapter.OnOrderActionListener() {
             @Override
             public void onVolunteer(DonationModel donation) {
                 // Handle volunteer action
@@ -49,6 +67,10 @@ public class VolunteerOrdersActivity extends AppCompatActivity {
                 // Handle status update
                 updateDonationStatus(donation);
             }
+            @Override
+            public void onOpen(DonationModel donation) {
+                showDonationDetails(donation);
+            }
         });
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
@@ -72,10 +94,28 @@ public class VolunteerOrdersActivity extends AppCompatActivity {
         
         progressBar.setVisibility(View.VISIBLE);
 
-        orderListener = db.collection("donations")
+        donationRepository.checkSummariesBackfilled(backfilled -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            if (!backfilled) {
+                backfillSummaries();
+            }
+            listenToOrders(backfilled);
+        });
+    }
+
+    /**
+     * Lists the newest open orders. Summaries carry only what the list shows, and details are
+     * loaded when an order is opened; until older donations have summaries too, the list
+     * reads the donations themselves so none of them is missing.
+     */
+    private void listenToOrders(boolean fromSummaries) {
+        DonationMapper mapper = fromSummaries ? summaryMapper : donationMapper;
+        Query orders = db.collection(fromSummaries ? DonationSummaries.COLLECTION : DonationSummaries.SOURCE_COLLECTION)
                 .orderBy("timestamp", Query.Direction.DESCENDING)
-                .limit(50) // Limit results for better performance
-                .addSnapshotListener((value, error) -> {
+                .limit(50); // Limit results for better performance
+        orderListener = SnapshotHub.getInstance().listen(orders, (value, error) -> {
                     progressBar.setVisibility(View.GONE);
                     if (error != null) {
                         Log.e("VolunteerOrdersActivity", "Error loading orders: " + error.getMessage(), error);
@@ -85,45 +125,84 @@ public class VolunteerOrdersActivity extends AppCompatActivity {
                     }
                     if (value != null) {
                         donationList.clear();
-                        for (DocumentSnapshot doc : value.getDocuments()) {
-                            DonationModel donation = doc.toObject(DonationModel.class);
-                            if (donation != null && !donation.isReceived()) {
-                                donation.setDocumentId(doc.getId());
+                        for (DonationModel donation : mapper.mapAll(value.getDocuments())) {
+                            if (!donation.isReceived()) {
                                 donationList.add(donation);
                             }
                         }
-                        adapter.notifyDataSetChanged();
+                        adapter.submitList(donationList);
                     } else {
                         donationList.clear();
-                        adapter.notifyDataSetChanged();
+                        adapter.submitList(donationList);
                         Toast.makeText(this, "No orders found", Toast.LENGTH_SHORT).show();
                     }
                 });
     }
+    private void backfillSummaries() {
+        if (summaryBackfillStarted) {
+            return;
+        }
+        summaryBackfillStarted = true;
+        donationRepository.backfillSummaries(DonationRepository.SUMMARY_BACKFILL_LIMIT,
+                new DonationRepository.BulkDonationCallback() {
+            @Override
+            public void onBatchCommitted(DonationRepository.BatchResult result) {
+            }
+
+            @Override
+            public void onBatchFailed(DonationRepository.BatchResult result) {
+                Log.w("VolunteerOrdersActivity", "Donation summary backfill failed: " + result.getError());
+            }
+
+            @Override
+            public void onComplete(int committedCount, int failedCount) {
+                if (failedCount > 0) {
+                    // Tried again the next time the list is opened in a new process
+                    summaryBackfillStarted = false;
+                }
+            }
+        });
+    }
+
     private void handleVolunteerAction(DonationModel donation) {
         if (!isNetworkAvailable()) {
             Toast.makeText(this, "No internet connection.", Toast.LENGTH_SHORT).show();
             return;
         }
-        // Update donation with volunteer info
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            Toast.makeText(this, "Please login to volunteer", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        // Claim the donation so that only one volunteer takes each order
         String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
         String userEmail = FirebaseAuth.getInstance().getCurrentUser().getEmail();
-        
-        db.collection("donations").document(donation.getDonationId())
-                .update(
-                        "volunteerId", userId,
-                        "volunteerEmail", userEmail != null ? userEmail : "",
-                        "volunteerStatus", "volunteered"
-                )
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(this, "You've volunteered for this order!", 
-                            Toast.LENGTH_SHORT).show();
-                    // Listener will update UI automatically
-                })
-                .addOnFailureListener(e -> 
-                    Toast.makeText(this, "Error: " + e.getMessage(), 
-                            Toast.LENGTH_SHORT).show()
-                );
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("volunteerEmail", userEmail != null ? userEmail : "");
+        updates.put("volunteerStatus", "volunteered");
+
+        ClaimService.getInstance().claim(
+                ClaimRequest.volunteer("donations", donation.getDonationId(), userId, updates),
+                result -> {
+                    // The listener updates the list in every case
+                    switch (result.getOutcome()) {
+                        case WON:
+                            Toast.makeText(this, "You've volunteered for this order!",
+                                    Toast.LENGTH_SHORT).show();
+                            break;
+                        case LOST_TO_OTHER:
+                            Toast.makeText(this, "Another volunteer already took this order",
+                                    Toast.LENGTH_SHORT).show();
+                            break;
+                        case STALE:
+                            Toast.makeText(this, "This order is no longer available",
+                                    Toast.LENGTH_SHORT).show();
+                            break;
+                        default:
+                            Toast.makeText(this, "Error: " + result.getError(),
+                                    Toast.LENGTH_SHORT).show();
+                            break;
+                    }
+                });
     }
     
     private void updateDonationStatus(DonationModel donation) {
@@ -131,12 +210,18 @@ public class VolunteerOrdersActivity extends AppCompatActivity {
             Toast.makeText(this, "No internet connection.", Toast.LENGTH_SHORT).show();
             return;
         }
-        // Update donation status to mark as received
-        db.collection("donations").document(donation.getDonationId())
-                .update(
-                        "isReceived", true,
-                        "volunteerStatus", "completed"
-                )
+        // Update donation status to mark as received, together with its summary
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("isReceived", true);
+        updates.put("volunteerStatus", "completed");
+        Map<String, Object> summary = DonationSummaries.project(updates);
+        // Closing the donation must fail any claim that read it open
+        updates.put(ClaimEngine.FIELD_VERSION, FieldValue.increment(1));
+        WriteBatch batch = db.batch();
+        batch.update(db.collection("donations").document(donation.getDonationId()), updates);
+        batch.set(db.collection(DonationSummaries.COLLECTION).document(donation.getDonationId()),
+                summary, SetOptions.merge());
+        batch.commit()
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Order marked as completed!", 
                             Toast.LENGTH_SHORT).show();
@@ -148,6 +233,36 @@ public class VolunteerOrdersActivity extends AppCompatActivity {
                 );
     }
 
+    private void showDonationDetails(DonationModel summary) {
+        donationRepository.loadDonation(summary.getDonationId(), new DonationRepository.DonationDetailsCallback() {
+            @Override
+            public void onLoaded(DonationModel donation) {
+                if (isFinishing() || isDestroyed()) return;
+                StringBuilder details = new StringBuilder();
+                details.append("Quantity: ").append(donation.getQuantity() != null ? donation.getQuantity() : "N/A");
+                if (donation.getDescription() != null && !donation.getDescription().isEmpty()) {
+                    details.append("\n\n").append(donation.getDescription());
+                }
+                details.append("\n\nDonor: ").append(donation.getDonorName() != null ? donation.getDonorName() : "Anonymous");
+                if (donation.getPhone() != null && !donation.getPhone().isEmpty()) {
+                    details.append("\nPhone: ").append(donation.getPhone());
+                }
+                details.append("\nAddress: ").append(donation.getAddress() != null ? donation.getAddress() : "Not specified");
+                new AlertDialog.Builder(VolunteerOrdersActivity.this)
+                        .setTitle(donation.getFoodName() != null ? donation.getFoodName() : "Food Donation")
+                        .setMessage(details)
+                        .setPositiveButton("OK", null)
+                        .show();
+            }
+
+            @Override
+            public void onError(String error) {
+                if (isFinishing() || isDestroyed()) return;
+                Toast.makeText(VolunteerOrdersActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
     private boolean isNetworkAvailable() {
         ConnectivityManager connectivityManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
         NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
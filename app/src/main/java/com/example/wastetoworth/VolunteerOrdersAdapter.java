@@ -12,18 +12,37 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.wastetoworth.R;
 import java.util.List;
-public class VolunteerOrdersAdapter extends RecyclerView.Adapter<VolunteerOrdersAdapter.OrderViewHolder> {
+import java.util.Objects;
+public class VolunteerOrdersAdapter extends KeyedDiffAdapter<DonationModel, VolunteerOrdersAdapter.OrderViewHolder> {
     public interface OnOrderActionListener {
         void onVolunteer(DonationModel donation);
         void onUpdateStatus(DonationModel donation);
+        /** Called when an order is tapped, to show its details */
+        default void onOpen(DonationModel donation) {
+        }
     }
-    private List<DonationModel> donationList;
     private OnOrderActionListener listener;
     private Context context;
-    public VolunteerOrdersAdapter(List<DonationModel> donationList, OnOrderActionListener listener) {
-        this.donationList = donationList;
+    public VolunteerOrdersAdapter(OnOrderActionListener listener) {
         this.listener = listener;
     }
+    @Override
+    protected String getItemKey(@NonNull DonationModel donation) {
+        return donation.getDocumentId();
+    }
+    /**
+     * Covers every field a summary carries, not only the shown ones: the click listeners hand
+     * the bound model to the actions, so a row must be rebound whenever any of it changes.
+     */
+    @Override
+    protected int getContentHash(@NonNull DonationModel donation) {
+        return Objects.hash(donation.getFoodName(), donation.getName(), donation.getType(),
+                donation.getCategory(), donation.getQuantity(), donation.getAddress(),
+                donation.getLocation(), donation.getTimestamp(), donation.getStatus(),
+                donation.getDeliveryStatus(), donation.isUrgent(), donation.getDonorId(),
+                donation.isReceived(), donation.getReceiverId(), donation.isVolunteerAssigned(),
+                donation.getVolunteerId());
+    }
     @NonNull
     @Override
     public OrderViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -34,7 +53,7 @@ public class VolunteerOrdersAdapter extends RecyclerView.Adapter<VolunteerOrders
     }
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        DonationModel donation = donationList.get(position);
+        DonationModel donation = getItem(position);
         
         // Set basic donation information
         String foodInfo = String.format("%s - %s", 
@@ -56,6 +75,12 @@ public class VolunteerOrdersAdapter extends RecyclerView.Adapter<VolunteerOrders
             status = "Available";
         }
         holder.txtOrderStatus.setText(String.format("Status: %s", status));
+
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onOpen(donation);
+            }
+        });
         
         // Set volunteer button state based on status
         if ("completed".equalsIgnoreCase(status) || "delivered".equalsIgnoreCase(status)) {
@@ -81,13 +106,8 @@ public class VolunteerOrdersAdapter extends RecyclerView.Adapter<VolunteerOrders
             });
         }
     }
-    @Override
-    public int getItemCount() {
-        return donationList != null ? donationList.size() : 0;
-    }
     public void updateList(List<DonationModel> newList) {
-        donationList = newList;
-        notifyDataSetChanged();
+        submitList(newList);
     }
     public static class OrderViewHolder extends RecyclerView.ViewHolder {
         TextView txtOrderName, txtOrderAddress, txtOrderStatus;
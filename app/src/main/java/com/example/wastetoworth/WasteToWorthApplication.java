@@ -3,12 +3,26 @@ package com.example.wastetoworth;
 import android.app.Application;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
 import android.util.Log;
 
+import com.example.wastetoworth.data.ImpactStatsRepository;
+import com.example.wastetoworth.data.cache.FirestoreCacheManager;
+import com.example.wastetoworth.data.outbox.WriteOutbox;
+import com.example.wastetoworth.data.prefetch.NearbyPrefetchWorker;
+import com.example.wastetoworth.startup.StartupOrchestrator;
 import com.google.android.gms.common.GoogleApiAvailability;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FirebaseFirestoreSettings;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import timber.log.Timber;
 
@@ -19,26 +33,101 @@ import timber.log.Timber;
 public class WasteToWorthApplication extends Application {
     
     private static final String TAG = "WasteToWorthApplication";
+    private static final int STARTUP_THREADS = 2;
+    
+    private StartupOrchestrator startup;
     
     @Override
     public void onCreate() {
         super.onCreate();
         
-        // Initialize logging
-        initializeLogging();
-        
-        // Check Google Play Services availability
-        checkGooglePlayServices();
-        
-        // Initialize Firebase with optimized settings
-        initializeFirebase();
-        
-        Log.d(TAG, "Application initialized successfully");
+        // Critical steps gate the splash screen; the rest finish in the background.
+        // The system properties and Play Services fallbacks are cheap and run inline on the
+        // main thread, so Firestore is configured after them and still within onCreate,
+        // before any activity or worker can use it
+        startup = new StartupOrchestrator(mainThreadExecutor(), startupExecutor());
+        startup.add("logging", StartupOrchestrator.Where.MAIN, true, traced("logging", this::initializeLogging))
+                .add("system-properties", StartupOrchestrator.Where.MAIN, true,
+                        traced("system-properties", this::configureSystemLogging))
+                .add("play-services", StartupOrchestrator.Where.MAIN, true,
+                        traced("play-services", this::checkGooglePlayServices), "system-properties")
+                .add("firebase", StartupOrchestrator.Where.MAIN, true, traced("firebase", this::initializeFirebase),
+                        "system-properties", "play-services")
+                // Load and warm up the on-device freshness model in the background
+                .add("classifier", StartupOrchestrator.Where.BACKGROUND, false,
+                        traced("classifier", () -> FoodWasteClassifier.warmUp(this)), "firebase")
+                // Resume sending writes saved while offline, counting sent donations in the impact totals
+                .add("write-outbox", StartupOrchestrator.Where.BACKGROUND, false,
+                        traced("write-outbox", () -> WriteOutbox.getInstance(this)
+                                .addSentListener(ImpactStatsRepository.getInstance(this)::recordSent)), "firebase")
+                // Keep nearby donations cached for the volunteer screens
+                .add("prefetch", StartupOrchestrator.Where.BACKGROUND, false,
+                        traced("prefetch", () -> NearbyPrefetchWorker.schedule(this)), "firebase");
+        startup.setListener(new StartupOrchestrator.Listener() {
+            @Override
+            public void onStepFinished(StartupOrchestrator.StepTiming timing) {
+                if (timing.isFailed()) {
+                    Log.e(TAG, "Startup step failed: " + timing, timing.getError());
+                } else {
+                    Log.d(TAG, "Startup step: " + timing);
+                }
+            }
+            
+            @Override
+            public void onReady(long elapsedNanos) {
+                Log.i(TAG, String.format(Locale.US, "Startup ready after %.1fms", elapsedNanos / 1e6));
+            }
+            
+            @Override
+            public void onFinished(long elapsedNanos, List<StartupOrchestrator.StepTiming> timings) {
+                Log.i(TAG, String.format(Locale.US, "Application initialized in %.1fms", elapsedNanos / 1e6));
+            }
+        });
+        startup.start();
+    }
+    
+    /**
+     * Runs an action on the main thread once the critical startup steps have finished.
+     */
+    public void whenStartupReady(Runnable action) {
+        startup.whenReady(action);
+    }
+    
+    /** Runs tasks directly when already on the main thread, so critical steps finish within onCreate */
+    private static Executor mainThreadExecutor() {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        return command -> {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                command.run();
+            } else {
+                mainHandler.post(command);
+            }
+        };
+    }
+    
+    /** Threads time out once startup is done */
+    private static Executor startupExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(STARTUP_THREADS, STARTUP_THREADS,
+                10, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /** Marks a step in system traces, so cold-start traces show each one */
+    private static Runnable traced(String name, Runnable step) {
+        return () -> {
+            Trace.beginSection("startup:" + name);
+            try {
+                step.run();
+            } finally {
+                Trace.endSection();
+            }
+        };
     }
     
     /**
      * Initialize logging configuration
-     * Prevents Flogger spam and configures Timber
+     * Configures Timber
      */
     private void initializeLogging() {
         // Plant Timber for debug builds only
@@ -54,9 +143,6 @@ public class WasteToWorthApplication extends Application {
             });
             Timber.d("Timber logging initialized for debug build");
         }
-        
-        // Configure system logging to reduce spam
-        configureSystemLogging();
     }
     
     /**
@@ -112,14 +198,8 @@ public class WasteToWorthApplication extends Application {
             // Initialize Firebase App
             FirebaseApp.initializeApp(this);
             
-            // Configure Firestore settings with offline persistence
-            FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
-                    .setPersistenceEnabled(true)
-                    .setCacheSizeBytes(FirebaseFirestoreSettings.CACHE_SIZE_UNLIMITED)
-                    .build();
-            
-            // Apply settings to default Firestore instance
-            FirebaseFirestore.getInstance().setFirestoreSettings(settings);
+            // Offline persistence with a disk cache bounded for this device
+            FirestoreCacheManager.getInstance(this).configure(FirebaseFirestore.getInstance());
             
             Timber.d("Firebase initialized with optimized settings");
             
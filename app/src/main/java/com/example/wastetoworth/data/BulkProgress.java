@@ -0,0 +1,61 @@
+package com.example.wastetoworth.data;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress of a bulk write split into batches: reports each batch as it finishes, then
+ * reports completion with the totals once no batch is pending. Batches finish on the main
+ * thread, so it needs no locking.
+ */
+final class BulkProgress {
+    private final DonationRepository.BulkDonationCallback callback;
+    private int pendingBatches;
+    private int committed;
+    private int failed;
+
+    /**
+     * @param batchCount Number of batches that will finish; at least one
+     */
+    BulkProgress(int batchCount, DonationRepository.BulkDonationCallback callback) {
+        if (batchCount < 1) {
+            throw new IllegalArgumentException("A bulk write needs a batch");
+        }
+        this.pendingBatches = batchCount;
+        this.callback = callback;
+    }
+
+    /**
+     * Splits items into consecutive chunks of at most {@code size}, the last one possibly
+     * shorter. The chunks are views of the list.
+     */
+    static <T> List<List<T>> chunk(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>((items.size() + size - 1) / size);
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Reports a finished batch, and completion if it was the last one pending.
+     * @param ids   IDs of the donations in the batch, all written or none
+     * @param error Why the batch failed, or null if it was committed
+     */
+    void batchFinished(int index, List<String> ids, long latencyMillis, @Nullable String error) {
+        List<String> batchIds = Collections.unmodifiableList(ids);
+        if (error == null) {
+            committed += batchIds.size();
+            callback.onBatchCommitted(new DonationRepository.BatchResult(index, batchIds, latencyMillis, null));
+        } else {
+            failed += batchIds.size();
+            callback.onBatchFailed(new DonationRepository.BatchResult(index, batchIds, latencyMillis, error));
+        }
+        if (--pendingBatches == 0) {
+            callback.onComplete(committed, failed);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.wastetoworth.data;
+
+import com.example.wastetoworth.DonationModel;
+import com.example.wastetoworth.data.cache.FirestoreCacheManager;
+import com.example.wastetoworth.util.KWayMerge;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loads a feed merged from several Firestore queries, one page at a time.
+ *
+ * Every source query must be ordered by timestamp, newest first. Sources whose buffered
+ * items have run out are fetched concurrently with a limit and a startAfter cursor, mapped
+ * on the mapping executor and joined with {@link Tasks#whenAllSuccess}; the buffers are then
+ * combined with a k-way merge, so no page is ever re-sorted.
+ *
+ * Callbacks are delivered on the main thread; the loader must be used from the main thread.
+ */
+public class DonationFeedLoader {
+    public static final int PAGE_SIZE = 20;
+
+    /** Newest first, donations without a timestamp last */
+    private static final Comparator<DonationModel> NEWEST_FIRST = (o1, o2) -> {
+        if (o1.getTimestamp() == null && o2.getTimestamp() == null) return 0;
+        if (o1.getTimestamp() == null) return 1;
+        if (o2.getTimestamp() == null) return -1;
+        return o2.getTimestamp().compareTo(o1.getTimestamp());
+    };
+
+    /**
+     * Maps a fetched page of a source. Runs on a background thread.
+     */
+    public interface DocumentsMapper {
+        List<DonationModel> map(List<DocumentSnapshot> documents);
+    }
+
+    /**
+     * Interface for callbacks from page loading.
+     */
+    public interface FeedCallback {
+        void onPageLoaded(List<DonationModel> page, boolean hasMore);
+        void onError(String error);
+    }
+
+    private final List<Source> sources = new ArrayList<>();
+    private boolean loading = false;
+    private int generation = 0;
+
+    /**
+     * Adds a source to the feed.
+     * @param query  Query ordered by timestamp descending, without a limit
+     * @param mapper Maps the source's documents
+     */
+    public DonationFeedLoader addSource(Query query, DocumentsMapper mapper) {
+        sources.add(new Source(query, mapper));
+        return this;
+    }
+
+    /**
+     * Drops all buffered items and cursors so the next page starts from the top.
+     * Pages still in flight are discarded when they arrive.
+     */
+    public void reset() {
+        generation++;
+        loading = false;
+        for (Source source : sources) {
+            source.buffer.clear();
+            source.cursor = null;
+            source.exhausted = false;
+        }
+    }
+
+    /**
+     * Loads the next page of up to {@link #PAGE_SIZE} items.
+     * Ignored while a page is loading or once every source is exhausted.
+     */
+    public void loadNextPage(FeedCallback callback) {
+        if (loading || !hasMore()) {
+            return;
+        }
+        loading = true;
+        fillPage(new ArrayList<>(), generation, callback);
+    }
+
+    public boolean hasMore() {
+        for (Source source : sources) {
+            if (!source.buffer.isEmpty() || !source.exhausted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    private void fillPage(List<DonationModel> page, int requestGeneration, FeedCallback callback) {
+        List<Task<Fetched>> fetches = new ArrayList<>();
+        for (Source source : sources) {
+            if (source.buffer.isEmpty() && !source.exhausted) {
+                fetches.add(source.fetch());
+            }
+        }
+
+        Tasks.<Fetched>whenAllSuccess(fetches)
+                .addOnSuccessListener(results -> {
+                    if (requestGeneration != generation) return;
+                    for (Fetched fetched : results) {
+                        fetched.apply();
+                    }
+
+                    List<ArrayDeque<DonationModel>> buffers = new ArrayList<>(sources.size());
+                    boolean[] exhausted = new boolean[sources.size()];
+                    for (int i = 0; i < sources.size(); i++) {
+                        buffers.add(sources.get(i).buffer);
+                        exhausted[i] = sources.get(i).exhausted;
+                    }
+                    page.addAll(KWayMerge.take(buffers, exhausted, NEWEST_FIRST, PAGE_SIZE - page.size()));
+
+                    // A source ran dry mid-merge; fetch it and keep filling the page
+                    if (page.size() < PAGE_SIZE && hasMore()) {
+                        fillPage(page, requestGeneration, callback);
+                        return;
+                    }
+                    loading = false;
+                    callback.onPageLoaded(page, hasMore());
+                })
+                .addOnFailureListener(e -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    callback.onError(e.getMessage());
+                });
+    }
+
+    private static final class Source {
+        final Query query;
+        final DocumentsMapper mapper;
+        final ArrayDeque<DonationModel> buffer = new ArrayDeque<>();
+        DocumentSnapshot cursor;
+        boolean exhausted = false;
+
+        Source(Query query, DocumentsMapper mapper) {
+            this.query = query;
+            this.mapper = mapper;
+        }
+
+        Task<Fetched> fetch() {
+            Query page = cursor != null ? query.startAfter(cursor) : query;
+            return page.limit(PAGE_SIZE)
+                    .get()
+                    .continueWith(DonationMapper.getExecutor(), task -> {
+                        List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                        FirestoreCacheManager.getMetrics().recordResult(task.getResult().getMetadata().isFromCache());
+                        return new Fetched(this, documents, mapper.map(documents));
+                    });
+        }
+    }
+
+    /** A fetched page, applied to its source on the main thread */
+    private static final class Fetched {
+        final Source source;
+        final List<DocumentSnapshot> documents;
+        final List<DonationModel> donations;
+
+        Fetched(Source source, List<DocumentSnapshot> documents, List<DonationModel> donations) {
+            this.source = source;
+            this.documents = documents;
+            this.donations = donations;
+        }
+
+        void apply() {
+            source.buffer.addAll(donations);
+            if (!documents.isEmpty()) {
+                source.cursor = documents.get(documents.size() - 1);
+            }
+            source.exhausted = documents.size() < PAGE_SIZE;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.wastetoworth.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.DonationModel;
+import com.example.wastetoworth.data.cache.FirestoreCacheManager;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Filter;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pages through a donor's donation history, newest first.
+ *
+ * The donor filter runs on the server (donorId or the legacy userId field, ordered by timestamp),
+ * and later pages are fetched with startAfter cursors. The first page is kept live with a
+ * snapshot listener; older pages are fetched once. Loaded pages stay cached for the process,
+ * so reopening the history screen shows them immediately and only the first page listener
+ * is re-attached, which Firestore resumes from its local cache with just the changed documents.
+ *
+ * Documents are mapped off the main thread, in arrival order. Callbacks are delivered on the
+ * main thread; the pager must be used from the main thread.
+ */
+public class DonationHistoryPager {
+    public static final int PAGE_SIZE = 20;
+    private static final String COLLECTION_DONATIONS = "donations";
+
+    /**
+     * Interface for callbacks from history loading.
+     */
+    public interface HistoryCallback {
+        void onHistoryLoaded(List<DonationModel> donations, boolean hasMore);
+        void onError(String error);
+    }
+
+    private static DonationHistoryPager cached;
+
+    private final String donorId;
+    private final FirebaseFirestore firestore;
+    private final DonationMapper mapper = DonationMapper.forCollection(COLLECTION_DONATIONS);
+    private final List<DonationModel> firstPage = new ArrayList<>();
+    /** Stored timestamp values of the first page by document ID, as Firestore sorted them */
+    private final Map<String, Object> firstPageTimestamps = new HashMap<>();
+    private final List<DonationModel> olderPages = new ArrayList<>();
+    private DocumentSnapshot firstPageEnd;
+    private DocumentSnapshot olderPagesEnd;
+    private boolean firstPageLoaded = false;
+    private boolean endReached = false;
+    private boolean loading = false;
+    private ListenerRegistration firstPageListener;
+    private HistoryCallback callback;
+
+    private DonationHistoryPager(String donorId, FirebaseFirestore firestore) {
+        this.donorId = donorId;
+        this.firestore = firestore;
+    }
+
+    /**
+     * Returns the cached pager for a donor. Only the most recent donor's pages are kept.
+     */
+    public static synchronized DonationHistoryPager forDonor(String donorId) {
+        if (cached == null || !cached.donorId.equals(donorId)) {
+            if (cached != null) {
+                cached.stop();
+            }
+            cached = new DonationHistoryPager(donorId, FirebaseFirestore.getInstance());
+        }
+        return cached;
+    }
+
+    /**
+     * Delivers any cached pages and starts listening to the first page.
+     * @param callback Callback for loaded pages and errors
+     */
+    public void start(HistoryCallback callback) {
+        this.callback = callback;
+        if (firstPageLoaded) {
+            deliver();
+        }
+        if (firstPageListener != null) {
+            return;
+        }
+        firstPageListener = SnapshotHub.getInstance().listen(donorQuery().limit(PAGE_SIZE), (snapshots, e) -> {
+                    if (e != null) {
+                        if (this.callback != null) {
+                            this.callback.onError(e.getMessage());
+                        }
+                        return;
+                    }
+                    if (snapshots != null) {
+                        mapper.mapAllAsync(snapshots.getDocuments(), page -> {
+                            applyFirstPage(snapshots, page);
+                            deliver();
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Stops listening and detaches the callback. Loaded pages stay cached.
+     */
+    public void stop() {
+        callback = null;
+        if (firstPageListener != null) {
+            firstPageListener.remove();
+            firstPageListener = null;
+        }
+    }
+
+    /**
+     * Fetches the page after the last loaded one. Ignored while a page is loading,
+     * before the first page has arrived, or once the end of the history is reached.
+     */
+    public void loadNextPage() {
+        if (loading || endReached || !firstPageLoaded) {
+            return;
+        }
+        DocumentSnapshot cursor = olderPagesEnd != null ? olderPagesEnd : firstPageEnd;
+        if (cursor == null) {
+            return;
+        }
+        loading = true;
+        donorQuery()
+                .startAfter(cursor)
+                .limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(snapshots -> {
+                    FirestoreCacheManager.getMetrics().recordResult(snapshots.getMetadata().isFromCache());
+                    List<DocumentSnapshot> documents = snapshots.getDocuments();
+                    // Stays loading until mapped, so the same page is not requested twice
+                    mapper.mapAllAsync(documents, page -> {
+                        loading = false;
+                        olderPages.addAll(page);
+                        if (!documents.isEmpty()) {
+                            olderPagesEnd = documents.get(documents.size() - 1);
+                        }
+                        endReached = documents.size() < PAGE_SIZE;
+                        deliver();
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    loading = false;
+                    if (callback != null) {
+                        callback.onError(e.getMessage());
+                    }
+                });
+    }
+
+    public boolean hasMore() {
+        return !endReached;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    private Query donorQuery() {
+        return firestore.collection(COLLECTION_DONATIONS)
+                .where(Filter.or(
+                        Filter.equalTo("donorId", donorId),
+                        Filter.equalTo("userId", donorId)))
+                .orderBy("timestamp", Query.Direction.DESCENDING);
+    }
+
+    private void applyFirstPage(QuerySnapshot snapshots, List<DonationModel> page) {
+        List<DocumentSnapshot> documents = snapshots.getDocuments();
+        DocumentSnapshot pageEnd = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+        Object pageEndTimestamp = pageEnd != null ? pageEnd.get("timestamp") : null;
+        Set<String> pageIds = new HashSet<>();
+        for (DonationModel donation : page) {
+            pageIds.add(donation.getDocumentId());
+        }
+        Set<String> removedIds = new HashSet<>();
+        for (DocumentChange change : snapshots.getDocumentChanges()) {
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                removedIds.add(change.getDocument().getId());
+            }
+        }
+
+        // A document that left a full page and sorts after its new last document was pushed
+        // out by newer donations, so it moves to the head of the older pages. Anything else
+        // that left was deleted or stopped matching the donor, and is dropped.
+        boolean full = page.size() >= PAGE_SIZE;
+        List<DonationModel> pushedOut = new ArrayList<>();
+        if (full) {
+            for (DonationModel donation : firstPage) {
+                String id = donation.getDocumentId();
+                if (!pageIds.contains(id)
+                        && sortsAfter(id, firstPageTimestamps.get(id), pageEnd.getId(), pageEndTimestamp)) {
+                    pushedOut.add(donation);
+                }
+            }
+        }
+        olderPages.removeIf(donation -> pageIds.contains(donation.getDocumentId())
+                || removedIds.contains(donation.getDocumentId()));
+        olderPages.addAll(0, pushedOut);
+
+        firstPage.clear();
+        firstPage.addAll(page);
+        firstPageTimestamps.clear();
+        for (DocumentSnapshot document : documents) {
+            firstPageTimestamps.put(document.getId(), document.get("timestamp"));
+        }
+        firstPageEnd = pageEnd;
+        if (olderPagesEnd == null) {
+            endReached = !full;
+        }
+        firstPageLoaded = true;
+    }
+
+    /**
+     * Whether one document comes after another in the history order: newest first, with
+     * equal timestamps ordered by document ID as Firestore does for the last orderBy.
+     * @param timestamp Stored timestamp value of the document, or null if unknown
+     */
+    private static boolean sortsAfter(String id, @Nullable Object timestamp, String otherId,
+                                      @Nullable Object otherTimestamp) {
+        if (timestamp == null || otherTimestamp == null) {
+            return false;
+        }
+        int order = compareNewestFirst(timestamp, otherTimestamp);
+        return order > 0 || (order == 0 && id.compareTo(otherId) < 0);
+    }
+
+    /**
+     * Compares stored timestamp values in the order of the history query. Donations store
+     * either a Timestamp or epoch milliseconds, and Firestore orders values by type before
+     * value, numbers below timestamps, so newest first every Timestamp precedes every number.
+     * @return Negative if the first value comes first
+     */
+    private static int compareNewestFirst(Object a, Object b) {
+        int byType = Integer.compare(typeOrder(b), typeOrder(a));
+        if (byType != 0) {
+            return byType;
+        }
+        if (a instanceof Number) {
+            return Double.compare(((Number) b).doubleValue(), ((Number) a).doubleValue());
+        }
+        if (a instanceof Timestamp) {
+            return ((Timestamp) b).compareTo((Timestamp) a);
+        }
+        if (a instanceof String) {
+            return ((String) b).compareTo((String) a);
+        }
+        return 0;
+    }
+
+    /** Rank of a value's type in Firestore's ordering, for the types a timestamp field holds */
+    private static int typeOrder(Object value) {
+        if (value instanceof Boolean) {
+            return 1;
+        } else if (value instanceof Number) {
+            return 2;
+        } else if (value instanceof Timestamp) {
+            return 3;
+        } else if (value instanceof String) {
+            return 4;
+        }
+        return 5;
+    }
+
+    private void deliver() {
+        if (callback == null) {
+            return;
+        }
+        Map<String, DonationModel> merged = new LinkedHashMap<>();
+        for (DonationModel donation : firstPage) {
+            merged.put(donation.getDocumentId(), donation);
+        }
+        for (DonationModel donation : olderPages) {
+            if (!merged.containsKey(donation.getDocumentId())) {
+                merged.put(donation.getDocumentId(), donation);
+            }
+        }
+        callback.onHistoryLoaded(new ArrayList<>(merged.values()), !endReached);
+    }
+}
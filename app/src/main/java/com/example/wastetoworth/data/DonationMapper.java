@@ -0,0 +1,294 @@
+package com.example.wastetoworth.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.wastetoworth.DonationModel;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Maps Firestore donation documents to {@link DonationModel}.
+ *
+ * Donation documents have been written with several schemas over time (itemName vs foodName,
+ * donorId vs userId, GeoPoint vs String locations, Timestamp vs millisecond timestamps).
+ * Each logical field is resolved through a {@link FieldResolver} in a fixed priority order,
+ * so a document carrying several variants always shows the same one. Values whose stored type
+ * varies go through a {@link ValueConverter} that checks the last seen type first.
+ */
+public class DonationMapper {
+
+    /**
+     * Reads a raw field value from a document.
+     */
+    public interface FieldReader {
+        Object get(String field);
+    }
+
+    /**
+     * Interface for callbacks from asynchronous mapping.
+     */
+    public interface MappingCallback {
+        void onMapped(List<DonationModel> donations);
+    }
+
+    private static final String DEFAULT_NAME = "Donation";
+    private static final Map<String, DonationMapper> MAPPERS = new HashMap<>();
+    private static final ExecutorService MAPPING_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static Handler mainHandler;
+
+    private final FieldResolver name = new FieldResolver("itemName", "foodName", "food", "name", "foodType", "category");
+    private final FieldResolver donorName = new FieldResolver("donorName");
+    private final FieldResolver donorId = new FieldResolver("donorId", "userId", "userid");
+    private final FieldResolver phone = new FieldResolver("phone", "donorPhone", "phoneNumber");
+    private final FieldResolver volunteerAssigned = new FieldResolver("isVolunteerAssigned", "volunteerAssigned");
+    private final ValueConverter location = new ValueConverter();
+    private final ValueConverter timestamp = new ValueConverter();
+    private final ValueConverter quantity = new ValueConverter();
+
+    /**
+     * Returns the shared mapper for a collection, so resolved schema variants
+     * are reused across screens.
+     */
+    public static synchronized DonationMapper forCollection(String collection) {
+        DonationMapper mapper = MAPPERS.get(collection);
+        if (mapper == null) {
+            mapper = new DonationMapper();
+            MAPPERS.put(collection, mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * Maps a Firestore document.
+     * @return The mapped donation, or null if the document could not be read
+     */
+    public DonationModel map(DocumentSnapshot document) {
+        return map(document.getId(), document::get);
+    }
+
+    /**
+     * Maps a document given its ID and a field reader.
+     * @return The mapped donation, or null if the document could not be read
+     */
+    public DonationModel map(String documentId, FieldReader fields) {
+        try {
+            DonationModel donation = new DonationModel();
+            donation.setDocumentId(documentId);
+
+            String resolvedName = name.resolveString(fields);
+            if (resolvedName == null) resolvedName = DEFAULT_NAME;
+            donation.setName(resolvedName);
+            donation.setFoodName(resolvedName);
+            donation.setDescription(orEmpty(asString(fields.get("description"))));
+            donation.setQuantity(orEmpty(quantity.toQuantity(fields.get("quantity"))));
+
+            String type = asString(fields.get("type"));
+            donation.setType(type == null || type.isEmpty() ? "food" : type);
+            donation.setCategory(asString(fields.get("category")));
+            donation.setStatus(asString(fields.get("status")));
+
+            donation.setDonorName(donorName.resolveString(fields));
+            donation.setDonorId(donorId.resolveString(fields));
+            donation.setPhone(phone.resolveString(fields));
+            donation.setImageUrl(asString(fields.get("imageUrl")));
+
+            String locationStr = location.toLocationString(fields.get("location"));
+            String address = asString(fields.get("address"));
+            if (locationStr != null && !locationStr.isEmpty()) donation.setLocation(locationStr);
+            donation.setAddress(address != null && !address.isEmpty() ? address : orEmpty(locationStr));
+
+            donation.setTimestamp(timestamp.toTimestamp(fields.get("timestamp")));
+
+            donation.setReceived(Boolean.TRUE.equals(fields.get("isReceived")));
+            donation.setReceiverId(asString(fields.get("receiverId")));
+            donation.setVolunteerAssigned(Boolean.TRUE.equals(volunteerAssigned.resolve(fields)));
+            donation.setVolunteerId(asString(fields.get("volunteerId")));
+            donation.setVolunteerName(asString(fields.get("volunteerName")));
+            donation.setDeliveryStatus(asString(fields.get("deliveryStatus")));
+
+            donation.setClothesType(asString(fields.get("clothesType")));
+            donation.setClothesSize(asString(fields.get("clothesSize")));
+            donation.setClothesGender(asString(fields.get("clothesGender")));
+            donation.setUrgent(Boolean.TRUE.equals(fields.get("urgent")));
+            donation.setUrgentReason(asString(fields.get("urgentReason")));
+            return donation;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Maps documents synchronously, skipping any that cannot be read.
+     */
+    public List<DonationModel> mapAll(List<? extends DocumentSnapshot> documents) {
+        List<DonationModel> donations = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            DonationModel donation = map(document);
+            if (donation != null) {
+                donations.add(donation);
+            }
+        }
+        return donations;
+    }
+
+    /**
+     * Maps a batch of documents on a background thread and delivers the result on the main thread.
+     * Batches are mapped in submission order.
+     */
+    public void mapAllAsync(List<? extends DocumentSnapshot> documents, MappingCallback callback) {
+        List<DocumentSnapshot> batch = new ArrayList<>(documents);
+        Handler handler = getMainHandler();
+        MAPPING_EXECUTOR.execute(() -> {
+            List<DonationModel> donations = mapAll(batch);
+            handler.post(() -> callback.onMapped(donations));
+        });
+    }
+
+    /**
+     * Executor that mapping runs on, for callers chaining mapping onto Task continuations.
+     */
+    public static Executor getExecutor() {
+        return MAPPING_EXECUTOR;
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Resolves a logical field stored under one of several names. Names are always tried
+     * in the declared priority order, so the result depends only on the document: a later
+     * name is used only when every earlier one is absent or empty.
+     */
+    static final class FieldResolver {
+        private final String[] fields;
+
+        FieldResolver(String... fields) {
+            this.fields = fields;
+        }
+
+        Object resolve(FieldReader reader) {
+            for (String field : fields) {
+                Object value = reader.get(field);
+                if (isPresent(value)) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        String resolveString(FieldReader reader) {
+            Object value = resolve(reader);
+            return value instanceof String ? (String) value : null;
+        }
+
+        private static boolean isPresent(Object value) {
+            return value != null && !(value instanceof String && ((String) value).isEmpty());
+        }
+    }
+
+    /**
+     * Converts values whose stored type varies between documents. The last seen
+     * type is checked first with an exact class comparison before the general dispatch.
+     */
+    static final class ValueConverter {
+        private static final int KIND_OTHER = 0;
+        private static final int KIND_STRING = 1;
+        private static final int KIND_NUMBER = 2;
+        private static final int KIND_GEOPOINT = 3;
+        private static final int KIND_TIMESTAMP = 4;
+
+        /** Last seen value class and its kind, replaced as a unit */
+        private static final class HotType {
+            final Class<?> type;
+            final int kind;
+
+            HotType(Class<?> type, int kind) {
+                this.type = type;
+                this.kind = kind;
+            }
+        }
+
+        private volatile HotType hot = new HotType(Void.class, KIND_OTHER);
+
+        String toLocationString(Object value) {
+            switch (kindOf(value)) {
+                case KIND_STRING:
+                    return (String) value;
+                case KIND_GEOPOINT:
+                    GeoPoint geoPoint = (GeoPoint) value;
+                    return geoPoint.getLatitude() + "," + geoPoint.getLongitude();
+                default:
+                    return null;
+            }
+        }
+
+        Timestamp toTimestamp(Object value) {
+            switch (kindOf(value)) {
+                case KIND_TIMESTAMP:
+                    return (Timestamp) value;
+                case KIND_NUMBER:
+                    return new Timestamp(new Date(((Number) value).longValue()));
+                default:
+                    return null;
+            }
+        }
+
+        String toQuantity(Object value) {
+            switch (kindOf(value)) {
+                case KIND_STRING:
+                    return (String) value;
+                case KIND_NUMBER:
+                    return String.valueOf(value);
+                default:
+                    return null;
+            }
+        }
+
+        private int kindOf(Object value) {
+            if (value == null) {
+                return KIND_OTHER;
+            }
+            HotType cached = hot;
+            if (value.getClass() == cached.type) {
+                return cached.kind;
+            }
+            int kind;
+            if (value instanceof String) {
+                kind = KIND_STRING;
+            } else if (value instanceof Number) {
+                kind = KIND_NUMBER;
+            } else if (value instanceof GeoPoint) {
+                kind = KIND_GEOPOINT;
+            } else if (value instanceof Timestamp) {
+                kind = KIND_TIMESTAMP;
+            } else {
+                kind = KIND_OTHER;
+            }
+            hot = new HotType(value.getClass(), kind);
+            return kind;
+        }
+    }
+}
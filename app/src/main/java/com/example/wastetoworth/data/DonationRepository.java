@@ -1,27 +1,52 @@
 package com.example.wastetoworth.data;
 
+import android.content.Context;
+
+import com.example.wastetoworth.DonationModel;
+import com.example.wastetoworth.data.claim.ClaimEngine;
 import com.example.wastetoworth.data.model.Donation;
-import com.google.android.gms.tasks.OnCompleteListener;
+import com.example.wastetoworth.data.outbox.OutboxEntry;
+import com.example.wastetoworth.data.outbox.WriteOutbox;
+import com.example.wastetoworth.util.GeoHash;
 import com.google.android.gms.tasks.Task;
-import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import androidx.annotation.NonNull;
-
 /**
  * Repository for handling donation data operations.
  */
 public class DonationRepository {
-    private static final String COLLECTION_DONATIONS = "donations";
+    private static final String COLLECTION_DONATIONS = DonationSummaries.SOURCE_COLLECTION;
+    /** Firestore's limit on writes in one batch */
+    public static final int MAX_BATCH_WRITES = 500;
+    /** Each donation takes two writes, itself and its summary */
+    public static final int MAX_BATCH_DONATIONS = MAX_BATCH_WRITES / 2;
+    /** Open donations listed next to urgent requests */
+    public static final int URGENT_SCREEN_DONATIONS = 50;
+    /** Newest donations given summaries by the backfill; older ones are past any list */
+    public static final int SUMMARY_BACKFILL_LIMIT = 1000;
+    private static final String COLLECTION_META = "app_meta";
+    private static final String FIELD_SUMMARIES_BACKFILLED = "backfilled";
+    /** Donations per backfill transaction, kept small so contention retries little work */
+    private static final int BACKFILL_CHUNK_DONATIONS = 50;
     private final FirebaseFirestore firestore;
+    private final WriteOutbox outbox;
     
-    public DonationRepository() {
+    public DonationRepository(Context context) {
         this.firestore = FirebaseFirestore.getInstance();
+        this.outbox = WriteOutbox.getInstance(context);
     }
     
     /**
@@ -30,42 +55,168 @@ public class DonationRepository {
     public interface DonationCallback {
         void onSuccess(String donationId);
         void onError(String error);
+
+        /**
+         * Called instead of onSuccess when the donation could not be sent yet. It is saved
+         * on the device and will be sent automatically once connectivity returns.
+         */
+        default void onQueued(String donationId) {
+            onSuccess(donationId);
+        }
     }
     
     /**
-     * Submits a new donation to Firestore.
-     * @param donation The donation to submit
+     * Interface for callbacks from loading a whole donation.
+     */
+    public interface DonationDetailsCallback {
+        void onLoaded(DonationModel donation);
+        void onError(String error);
+    }
+
+    /**
+     * Interface for callbacks from checking whether summaries are complete.
+     */
+    public interface SummaryStateCallback {
+        void onChecked(boolean backfilled);
+    }
+
+    /**
+     * Outcome of one batch of a bulk submission.
+     */
+    public static class BatchResult {
+        private final int batchIndex;
+        private final List<String> donationIds;
+        private final long latencyMillis;
+        private final String error;
+
+        BatchResult(int batchIndex, List<String> donationIds, long latencyMillis, String error) {
+            this.batchIndex = batchIndex;
+            this.donationIds = donationIds;
+            this.latencyMillis = latencyMillis;
+            this.error = error;
+        }
+
+        /** @return Position of the batch in the submission, from 0 */
+        public int getBatchIndex() {
+            return batchIndex;
+        }
+
+        /** @return IDs of the donations in the batch, all written or none */
+        public List<String> getDonationIds() {
+            return donationIds;
+        }
+
+        /** @return Time from committing the batch until the server answered */
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /** @return Why the batch failed, or null if it was committed */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isCommitted() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Interface for callbacks from bulk donation submissions. Each batch is reported
+     * once, then onComplete is called.
+     */
+    public interface BulkDonationCallback {
+        void onBatchCommitted(BatchResult result);
+        void onBatchFailed(BatchResult result);
+        void onComplete(int committedCount, int failedCount);
+    }
+
+    /**
+     * Query of all donations, newest first, shared by the screens listing open donations.
+     * Building it in one place keeps those queries equal, so {@link SnapshotHub} serves them
+     * from a single listener; each screen filters and trims what it shows on the device. It
+     * neither filters on isReceived, which most donations only get once received, nor has a
+     * limit, which would hide older donations that are still open.
+     */
+    public static Query recentDonations(FirebaseFirestore firestore) {
+        return firestore.collection(COLLECTION_DONATIONS)
+                .orderBy("timestamp", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * Submits a new donation through the write outbox, so it survives losing
+     * connectivity or the app being killed before it reaches Firestore.
+     * @param donation The donation to submit; its ID is set if it has none
      * @param callback Callback for handling the result
      */
     public void submitDonation(Donation donation, DonationCallback callback) {
-        CollectionReference donationsRef = firestore.collection(COLLECTION_DONATIONS);
-        
-        // Convert donation to map
-        Map<String, Object> donationMap = donation.toMap();
-        
-        // Add the donation to Firestore
-        donationsRef.add(donationMap)
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        DocumentReference document = task.getResult();
-                        if (document != null) {
-                            // Update the donation with the generated ID
-                            donation.setId(document.getId());
-                            document.set(donation.toMap())
-                                    .addOnSuccessListener(aVoid -> callback.onSuccess(document.getId()))
-                                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
-                        } else {
-                            callback.onError("Failed to create donation document");
-                        }
-                    } else {
-                        callback.onError(task.getException() != null ? 
-                                task.getException().getMessage() : "Unknown error occurred");
-                    }
-                });
+        if (donation.getId() == null || donation.getId().isEmpty()) {
+            donation.setId(outbox.newDocumentId(COLLECTION_DONATIONS));
+        }
+        Map<String, Object> fields = donation.toMap();
+        outbox.enqueue(COLLECTION_DONATIONS, donation.getId(), fields,
+                Collections.singletonList(DonationSummaries.linkedTo(donation.getId(), fields)),
+                new WriteOutbox.WriteListener() {
+            @Override
+            public void onSent(OutboxEntry entry) {
+                callback.onSuccess(entry.getDocumentId());
+            }
+
+            @Override
+            public void onDeferred(OutboxEntry entry) {
+                callback.onQueued(entry.getDocumentId());
+            }
+
+            @Override
+            public void onRejected(OutboxEntry entry) {
+                callback.onError(entry.getLastError() != null ? entry.getLastError() : "Donation was rejected");
+            }
+        });
+    }
+    
+    /**
+     * Submits many donations at once, for donors posting a whole stock of surplus food.
+     * Donations are written with their summaries in batches of at most
+     * {@link #MAX_BATCH_DONATIONS}, each a single round trip that either writes all of its
+     * donations or none of them. Batches are
+     * committed together and reported individually, so a failed batch can be resubmitted
+     * on its own. Donations without an ID are given one before anything is sent.
+     *
+     * Unlike {@link #submitDonation(Donation, DonationCallback)} this does not go through
+     * the outbox; offline batches are held by Firestore and only reported once sent.
+     *
+     * @param donations The donations to submit
+     * @param callback Callback for handling the result of each batch
+     */
+    public void submitDonations(List<Donation> donations, BulkDonationCallback callback) {
+        if (donations.isEmpty()) {
+            callback.onComplete(0, 0);
+            return;
+        }
+        List<List<Donation>> chunks = BulkProgress.chunk(donations, MAX_BATCH_DONATIONS);
+        BulkProgress progress = new BulkProgress(chunks.size(), callback);
+        for (int batchIndex = 0; batchIndex < chunks.size(); batchIndex++) {
+            List<Donation> chunk = chunks.get(batchIndex);
+            WriteBatch batch = firestore.batch();
+            List<String> ids = new ArrayList<>(chunk.size());
+            for (Donation donation : chunk) {
+                DocumentReference document = donation.getId() == null || donation.getId().isEmpty()
+                        ? firestore.collection(COLLECTION_DONATIONS).document()
+                        : firestore.collection(COLLECTION_DONATIONS).document(donation.getId());
+                donation.setId(document.getId());
+                Map<String, Object> fields = donation.toMap();
+                batch.set(document, fields);
+                batch.set(summaryOf(document.getId()), DonationSummaries.project(fields));
+                ids.add(document.getId());
+            }
+            commitAndReport(batch.commit(), System.nanoTime(), batchIndex, ids, progress);
+        }
     }
     
     /**
-     * Updates an existing donation in Firestore.
+     * Updates an existing donation in Firestore. The donor's fields are merged, so claim
+     * fields set by volunteers and receivers are kept, and the claim version is incremented
+     * so that claims decided on the old fields are decided again.
      * @param donation The donation with updated fields
      * @param callback Callback for handling the result
      */
@@ -75,9 +226,18 @@ public class DonationRepository {
             return;
         }
         
-        firestore.collection(COLLECTION_DONATIONS)
-                .document(donation.getId())
-                .set(donation.toMap())
+        Map<String, Object> fields = donation.toMap();
+        if (!fields.containsKey(GeoHash.FIELD_GEOHASH)) {
+            // Merging would otherwise keep the geohash of a location that was removed
+            fields.put(GeoHash.FIELD_GEOHASH, FieldValue.delete());
+        }
+        Map<String, Object> versioned = new HashMap<>(fields);
+        versioned.put(ClaimEngine.FIELD_VERSION, FieldValue.increment(1));
+        WriteBatch batch = firestore.batch();
+        batch.set(firestore.collection(COLLECTION_DONATIONS).document(donation.getId()), versioned,
+                SetOptions.merge());
+        batch.set(summaryOf(donation.getId()), DonationSummaries.project(fields), SetOptions.merge());
+        batch.commit()
                 .addOnSuccessListener(aVoid -> callback.onSuccess(donation.getId()))
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
@@ -88,10 +248,158 @@ public class DonationRepository {
      * @param callback Callback for handling the result
      */
     public void deleteDonation(String donationId, DonationCallback callback) {
+        WriteBatch batch = firestore.batch();
+        batch.delete(firestore.collection(COLLECTION_DONATIONS).document(donationId));
+        batch.delete(summaryOf(donationId));
+        batch.commit()
+                .addOnSuccessListener(aVoid -> callback.onSuccess(donationId))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * Loads a whole donation, for showing the details of one picked from a list of
+     * summaries.
+     * @param donationId The ID of the donation to load
+     * @param callback Callback for handling the result
+     */
+    public void loadDonation(String donationId, DonationDetailsCallback callback) {
         firestore.collection(COLLECTION_DONATIONS)
                 .document(donationId)
-                .delete()
-                .addOnSuccessListener(aVoid -> callback.onSuccess(donationId))
+                .get()
+                .addOnSuccessListener(document -> {
+                    DonationModel donation = document.exists()
+                            ? DonationMapper.forCollection(COLLECTION_DONATIONS).map(document)
+                            : null;
+                    if (donation != null) {
+                        callback.onLoaded(donation);
+                    } else {
+                        callback.onError("Donation no longer exists");
+                    }
+                })
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
+
+    /**
+     * Checks whether donations written before summaries were maintained have been given
+     * one, as recorded by a completed {@link #backfillSummaries}. Reports false if it
+     * cannot tell, so callers fall back to reading donations.
+     */
+    public void checkSummariesBackfilled(SummaryStateCallback callback) {
+        summaryMarker().get().addOnCompleteListener(task -> callback.onChecked(task.isSuccessful()
+                && Boolean.TRUE.equals(task.getResult().getBoolean(FIELD_SUMMARIES_BACKFILLED))));
+    }
+
+    /**
+     * Gives summaries to donations written before summaries were maintained, for screens
+     * listing summaries to run while {@link #checkSummariesBackfilled} reports false. Once
+     * every chunk has been committed it records that the summaries are complete, so it runs
+     * until the first complete pass rather than on every install. It writes only summaries,
+     * which anyone claiming a donation may already write.
+     *
+     * Each chunk of donations is handled in a transaction that re-reads every donation and
+     * its summary. A summary is written when it is missing or lacks a timestamp, which is
+     * what a claim merged into a donation without a summary leaves behind; complete ones are
+     * left alone, since every writer keeps them current. Summaries are merged from the
+     * donation as it is now, so a claim landing meanwhile makes the transaction retry rather
+     * than being overwritten, and concurrent runs are harmless. Each chunk is reported like
+     * a batch of a bulk submission.
+     * @param limit How many of the newest donations to summarise
+     * @param callback Callback for handling the result of each chunk
+     */
+    public void backfillSummaries(int limit, BulkDonationCallback callback) {
+        firestore.collection(COLLECTION_DONATIONS)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(limit)
+                .get(Source.SERVER)
+                .addOnSuccessListener(snapshots -> {
+                    List<DocumentSnapshot> documents = snapshots.getDocuments();
+                    BulkDonationCallback marking = markingBackfilled(callback);
+                    if (documents.isEmpty()) {
+                        marking.onComplete(0, 0);
+                        return;
+                    }
+                    List<List<DocumentSnapshot>> chunks = BulkProgress.chunk(documents, BACKFILL_CHUNK_DONATIONS);
+                    BulkProgress progress = new BulkProgress(chunks.size(), marking);
+                    for (int batchIndex = 0; batchIndex < chunks.size(); batchIndex++) {
+                        List<String> ids = new ArrayList<>();
+                        for (DocumentSnapshot document : chunks.get(batchIndex)) {
+                            ids.add(document.getId());
+                        }
+                        long start = System.nanoTime();
+                        Task<Void> commit = firestore.runTransaction(transaction -> {
+                            // Every read has to come before the first write
+                            List<DocumentSnapshot> summaries = new ArrayList<>(ids.size());
+                            List<DocumentSnapshot> donations = new ArrayList<>(ids.size());
+                            for (String id : ids) {
+                                summaries.add(transaction.get(summaryOf(id)));
+                                donations.add(transaction.get(firestore.collection(COLLECTION_DONATIONS).document(id)));
+                            }
+                            for (int i = 0; i < ids.size(); i++) {
+                                Map<String, Object> fields = donations.get(i).getData();
+                                // A claim on a donation without a summary merges a partial one
+                                if (fields != null && summaries.get(i).get("timestamp") == null) {
+                                    transaction.set(summaryOf(ids.get(i)), DonationSummaries.project(fields),
+                                            SetOptions.merge());
+                                }
+                            }
+                            return null;
+                        });
+                        commitAndReport(commit, start, batchIndex, ids, progress);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    // Nothing was read, so report the whole backfill as one failed batch
+                    callback.onBatchFailed(new BatchResult(0, Collections.<String>emptyList(), 0,
+                            e.getMessage() != null ? e.getMessage() : "Donations could not be read"));
+                    callback.onComplete(0, 0);
+                });
+    }
+
+    /**
+     * Reports one batch of a bulk write to its progress once it is committed or has failed.
+     * Completion listeners run on the main thread, like every other batch of the write.
+     * @param commit The batch or transaction being committed
+     * @param start When the commit was started, from {@link System#nanoTime()}
+     */
+    private static void commitAndReport(Task<?> commit, long start, int index, List<String> ids,
+                                        BulkProgress progress) {
+        commit.addOnCompleteListener(task -> {
+            long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+            Exception e = task.getException();
+            progress.batchFinished(index, ids, latencyMillis, task.isSuccessful() ? null
+                    : e != null && e.getMessage() != null ? e.getMessage() : "Batch was not committed");
+        });
+    }
+
+    /** Passes results on, recording the summaries as complete once no chunk has failed */
+    private BulkDonationCallback markingBackfilled(BulkDonationCallback callback) {
+        return new BulkDonationCallback() {
+            @Override
+            public void onBatchCommitted(BatchResult result) {
+                callback.onBatchCommitted(result);
+            }
+
+            @Override
+            public void onBatchFailed(BatchResult result) {
+                callback.onBatchFailed(result);
+            }
+
+            @Override
+            public void onComplete(int committedCount, int failedCount) {
+                if (failedCount == 0) {
+                    summaryMarker().set(Collections.singletonMap(FIELD_SUMMARIES_BACKFILLED, true),
+                            SetOptions.merge());
+                }
+                callback.onComplete(committedCount, failedCount);
+            }
+        };
+    }
+
+    private DocumentReference summaryMarker() {
+        return firestore.collection(COLLECTION_META).document(DonationSummaries.COLLECTION);
+    }
+
+    private DocumentReference summaryOf(String donationId) {
+        return firestore.collection(DonationSummaries.COLLECTION).document(donationId);
+    }
 }
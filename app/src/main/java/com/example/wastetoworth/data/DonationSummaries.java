@@ -0,0 +1,56 @@
+package com.example.wastetoworth.data;
+
+import com.example.wastetoworth.data.outbox.OutboxEntry;
+import com.example.wastetoworth.util.GeoHash;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Schema of donation summaries: a projection of each donation onto the fields that list
+ * screens show, stored under the same document ID in its own collection.
+ *
+ * Client SDKs cannot ask Firestore for a subset of a document's fields, so list screens
+ * read summaries and load the full donation only when one is opened. Every write to a
+ * donation must write its summary in the same batch or transaction.
+ */
+public final class DonationSummaries {
+    public static final String COLLECTION = "donation_summaries";
+    public static final String SOURCE_COLLECTION = "donations";
+
+    /** Fields kept in a summary, including every name variant read by {@link DonationMapper} */
+    static final Set<String> FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "itemName", "foodName", "food", "name", "foodType", "category", "type",
+            "quantity", "address", "location", "latitude", "longitude", GeoHash.FIELD_GEOHASH,
+            "timestamp", "status", "deliveryStatus", "volunteerStatus", "urgent",
+            "donorId", "isReceived", "receiverId",
+            "isVolunteerAssigned", "volunteerAssigned", "volunteerId")));
+
+    private DonationSummaries() {
+    }
+
+    /**
+     * Projects donation fields onto the summary fields. Works on partial updates too, since
+     * only the fields present are copied.
+     */
+    public static Map<String, Object> project(Map<String, Object> donation) {
+        Map<String, Object> summary = new HashMap<>();
+        for (Map.Entry<String, Object> field : donation.entrySet()) {
+            if (FIELDS.contains(field.getKey())) {
+                summary.put(field.getKey(), field.getValue());
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * @return The summary of a new donation, to be created in the same outbox batch
+     */
+    public static OutboxEntry.LinkedDocument linkedTo(String donationId, Map<String, Object> donation) {
+        return new OutboxEntry.LinkedDocument(COLLECTION, donationId, project(donation));
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.wastetoworth.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.location.Address;
+import android.location.Geocoder;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.util.LruTtlCache;
+import com.google.android.gms.maps.model.LatLng;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caching front for the platform {@link Geocoder}.
+ *
+ * Forward lookups are keyed by normalised address and reverse lookups by latitude/longitude
+ * rounded to about 11m. Both caches are LRU with a time to live, include negative results,
+ * and are persisted to SharedPreferences. Misses are resolved on a small background pool;
+ * concurrent requests for the same key share one lookup, and batches are resolved in one task.
+ *
+ * Public methods must be called from the main thread; callbacks are delivered on the main thread.
+ */
+public class GeocodingService {
+    private static final String TAG = "GeocodingService";
+    private static final String PREFS_NAME = "geocoding_cache";
+    private static final String PREF_FORWARD = "forward";
+    private static final String PREF_REVERSE = "reverse";
+    private static final int MAX_ENTRIES = 500;
+    private static final long TTL_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final long PERSIST_DELAY_MS = 2000;
+    private static final int WORKER_THREADS = 2;
+    /** Cached value recording that a lookup found nothing */
+    private static final String NOT_FOUND = "";
+
+    /**
+     * Interface for callbacks from forward geocoding.
+     */
+    public interface ForwardCallback {
+        void onResult(@Nullable LatLng latLng);
+    }
+
+    /**
+     * Interface for callbacks from batch forward geocoding.
+     */
+    public interface BatchCallback {
+        /** @param results Resolved coordinates by the requested address; unresolved addresses are absent */
+        void onResults(Map<String, LatLng> results);
+    }
+
+    /**
+     * Interface for callbacks from reverse geocoding.
+     */
+    public interface ReverseCallback {
+        void onResult(@Nullable String addressLine);
+    }
+
+    private static GeocodingService instance;
+
+    private final Context appContext;
+    private final Geocoder geocoder;
+    private final ExecutorService executor = Executors.newFixedThreadPool(WORKER_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruTtlCache<String, String> forwardCache = new LruTtlCache<>(MAX_ENTRIES, TTL_MILLIS);
+    private final LruTtlCache<String, String> reverseCache = new LruTtlCache<>(MAX_ENTRIES, TTL_MILLIS);
+    private final Map<String, List<ForwardCallback>> forwardInFlight = new HashMap<>();
+    private final Map<String, List<ReverseCallback>> reverseInFlight = new HashMap<>();
+    private final AtomicBoolean persistScheduled = new AtomicBoolean(false);
+    private final Object loadLock = new Object();
+    private boolean loaded = false;
+
+    private GeocodingService(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.geocoder = new Geocoder(appContext, Locale.getDefault());
+        executor.execute(this::ensureLoaded);
+    }
+
+    public static synchronized GeocodingService getInstance(Context context) {
+        if (instance == null) {
+            instance = new GeocodingService(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Parses a "lat,lng" string.
+     * @return The coordinates, or null if the value is not a valid coordinate pair
+     */
+    @Nullable
+    public static LatLng parseLatLng(@Nullable String value) {
+        if (value == null || !value.contains(",")) return null;
+        try {
+            String[] parts = value.split(",");
+            double lat = Double.parseDouble(parts[0].trim());
+            double lng = Double.parseDouble(parts[1].trim());
+            if (Math.abs(lat) <= 90 && Math.abs(lng) <= 180) return new LatLng(lat, lng);
+        } catch (RuntimeException ignored) {
+            // Not a coordinate pair
+        }
+        return null;
+    }
+
+    /**
+     * Resolves an address or "lat,lng" string to coordinates.
+     */
+    public void geocode(@Nullable String address, ForwardCallback callback) {
+        LatLng parsed = parseLatLng(address);
+        String key = normaliseAddress(address);
+        if (parsed != null || key.isEmpty()) {
+            callback.onResult(parsed);
+            return;
+        }
+        String cached = forwardCache.get(key);
+        if (cached != null) {
+            callback.onResult(parseLatLng(cached));
+            return;
+        }
+        if (addForwardWaiter(key, callback)) {
+            List<String> keys = new ArrayList<>(1);
+            keys.add(key);
+            executor.execute(() -> resolveForward(keys));
+        }
+    }
+
+    /**
+     * Resolves many addresses with one background task. Cached and coordinate-pair
+     * values are answered without touching the geocoder.
+     */
+    public void geocodeAll(Collection<String> addresses, BatchCallback callback) {
+        Map<String, LatLng> results = new HashMap<>();
+        Map<String, List<String>> pendingByKey = new HashMap<>();
+        for (String address : new LinkedHashSet<>(addresses)) {
+            LatLng parsed = parseLatLng(address);
+            String key = normaliseAddress(address);
+            if (parsed != null) {
+                results.put(address, parsed);
+            } else if (!key.isEmpty()) {
+                String cached = forwardCache.get(key);
+                if (cached != null) {
+                    LatLng latLng = parseLatLng(cached);
+                    if (latLng != null) results.put(address, latLng);
+                } else {
+                    List<String> sameKey = pendingByKey.get(key);
+                    if (sameKey == null) {
+                        sameKey = new ArrayList<>(1);
+                        pendingByKey.put(key, sameKey);
+                    }
+                    sameKey.add(address);
+                }
+            }
+        }
+        if (pendingByKey.isEmpty()) {
+            callback.onResults(results);
+            return;
+        }
+
+        int[] remaining = {pendingByKey.size()};
+        List<String> toResolve = new ArrayList<>();
+        for (Map.Entry<String, List<String>> pending : pendingByKey.entrySet()) {
+            List<String> requested = pending.getValue();
+            boolean first = addForwardWaiter(pending.getKey(), latLng -> {
+                if (latLng != null) {
+                    for (String address : requested) results.put(address, latLng);
+                }
+                if (--remaining[0] == 0) callback.onResults(results);
+            });
+            if (first) toResolve.add(pending.getKey());
+        }
+        if (!toResolve.isEmpty()) {
+            executor.execute(() -> resolveForward(toResolve));
+        }
+    }
+
+    /**
+     * Resolves coordinates to the first address line.
+     */
+    public void reverseGeocode(double latitude, double longitude, ReverseCallback callback) {
+        String key = reverseKey(latitude, longitude);
+        String cached = reverseCache.get(key);
+        if (cached != null) {
+            callback.onResult(cached.isEmpty() ? null : cached);
+            return;
+        }
+        List<ReverseCallback> waiters = reverseInFlight.get(key);
+        if (waiters != null) {
+            waiters.add(callback);
+            return;
+        }
+        waiters = new ArrayList<>(1);
+        waiters.add(callback);
+        reverseInFlight.put(key, waiters);
+        executor.execute(() -> {
+            ensureLoaded();
+            String line = reverseCache.get(key);
+            if (line == null) {
+                line = lookupAddressLine(latitude, longitude);
+                if (line != null) {
+                    reverseCache.put(key, line);
+                    schedulePersist();
+                }
+            }
+            String result = line == null || line.isEmpty() ? null : line;
+            mainHandler.post(() -> {
+                List<ReverseCallback> done = reverseInFlight.remove(key);
+                if (done == null) return;
+                for (ReverseCallback waiter : done) waiter.onResult(result);
+            });
+        });
+    }
+
+    static String normaliseAddress(@Nullable String address) {
+        if (address == null) return "";
+        String trimmed = address.trim();
+        if (trimmed.equals(".")) return "";
+        return trimmed.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    static String reverseKey(double latitude, double longitude) {
+        return String.format(Locale.ROOT, "%.4f,%.4f", latitude, longitude);
+    }
+
+    /**
+     * @return true if this is the first waiter for the key and a lookup must be started
+     */
+    private boolean addForwardWaiter(String key, ForwardCallback callback) {
+        List<ForwardCallback> waiters = forwardInFlight.get(key);
+        if (waiters != null) {
+            waiters.add(callback);
+            return false;
+        }
+        waiters = new ArrayList<>(1);
+        waiters.add(callback);
+        forwardInFlight.put(key, waiters);
+        return true;
+    }
+
+    /** Runs on the executor */
+    private void resolveForward(List<String> keys) {
+        ensureLoaded();
+        Map<String, String> resolved = new HashMap<>(keys.size());
+        boolean changed = false;
+        for (String key : keys) {
+            String value = forwardCache.get(key);
+            if (value == null) {
+                value = lookupLatLng(key);
+                if (value != null) {
+                    forwardCache.put(key, value);
+                    changed = true;
+                }
+            }
+            resolved.put(key, value);
+        }
+        if (changed) schedulePersist();
+        mainHandler.post(() -> {
+            for (Map.Entry<String, String> entry : resolved.entrySet()) {
+                List<ForwardCallback> done = forwardInFlight.remove(entry.getKey());
+                if (done == null) continue;
+                LatLng latLng = entry.getValue() != null ? parseLatLng(entry.getValue()) : null;
+                for (ForwardCallback waiter : done) waiter.onResult(latLng);
+            }
+        });
+    }
+
+    /**
+     * @return "lat,lng", {@link #NOT_FOUND}, or null if the geocoder failed and nothing should be cached
+     */
+    @Nullable
+    private String lookupLatLng(String address) {
+        if (!Geocoder.isPresent()) return null;
+        try {
+            List<Address> results = geocoder.getFromLocationName(address, 1);
+            if (results == null || results.isEmpty()) return NOT_FOUND;
+            Address a = results.get(0);
+            return a.getLatitude() + "," + a.getLongitude();
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Geocoding failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private String lookupAddressLine(double latitude, double longitude) {
+        if (!Geocoder.isPresent()) return null;
+        try {
+            List<Address> results = geocoder.getFromLocation(latitude, longitude, 1);
+            if (results == null || results.isEmpty()) return NOT_FOUND;
+            String line = results.get(0).getAddressLine(0);
+            return line != null ? line : NOT_FOUND;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Reverse geocoding failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the caches to storage now rather than after the usual delay, for background
+     * jobs that may be stopped as soon as they return. May be called from any thread.
+     */
+    public void flush() {
+        executor.execute(this::persist);
+    }
+
+    private void ensureLoaded() {
+        synchronized (loadLock) {
+            if (loaded) return;
+            loaded = true;
+            SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            restore(forwardCache, prefs.getString(PREF_FORWARD, null));
+            restore(reverseCache, prefs.getString(PREF_REVERSE, null));
+        }
+    }
+
+    private void schedulePersist() {
+        if (persistScheduled.compareAndSet(false, true)) {
+            mainHandler.postDelayed(() -> executor.execute(this::persist), PERSIST_DELAY_MS);
+        }
+    }
+
+    /** Runs on the executor */
+    private void persist() {
+        persistScheduled.set(false);
+        appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putString(PREF_FORWARD, serialise(forwardCache))
+                .putString(PREF_REVERSE, serialise(reverseCache))
+                .apply();
+    }
+
+    private static String serialise(LruTtlCache<String, String> cache) {
+        JSONArray array = new JSONArray();
+        cache.forEach((key, value, storedAt) -> {
+            JSONArray entry = new JSONArray();
+            entry.put(key);
+            entry.put(value);
+            entry.put(storedAt);
+            array.put(entry);
+        });
+        return array.toString();
+    }
+
+    private static void restore(LruTtlCache<String, String> cache, @Nullable String json) {
+        if (json == null) return;
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                JSONArray entry = array.getJSONArray(i);
+                cache.restore(entry.getString(0), entry.getString(1), entry.getLong(2));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Discarding unreadable geocoding cache: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.wastetoworth.data;
+
+/**
+ * A donor's impact totals, as aggregated by the server at one point in time.
+ *
+ * Meals and CO2 are estimated from the donation count. Instances are immutable; local
+ * donations are added with {@link #withDonation()} until the next aggregation.
+ */
+public final class ImpactStats {
+    /** Estimated meals provided per donation */
+    public static final int MEALS_PER_DONATION = 3;
+    /** Estimated kilograms of CO2 saved per donation */
+    public static final int CO2_KG_PER_DONATION = 2;
+
+    private final long donationCount;
+    private final long fetchedAt;
+
+    /**
+     * @param fetchedAt Time the server aggregated the totals
+     */
+    public ImpactStats(long donationCount, long fetchedAt) {
+        this.donationCount = donationCount;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public long getDonationCount() {
+        return donationCount;
+    }
+
+    public long getMealsFed() {
+        return donationCount * MEALS_PER_DONATION;
+    }
+
+    public long getCo2SavedKg() {
+        return donationCount * CO2_KG_PER_DONATION;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /** @return Whether the totals were aggregated less than ttlMillis before now */
+    public boolean isFresh(long now, long ttlMillis) {
+        return now - fetchedAt < ttlMillis && now >= fetchedAt;
+    }
+
+    /**
+     * @return These totals plus one donation; the aggregation time is kept, so the
+     * estimate is still replaced by the server's totals when it expires
+     */
+    public ImpactStats withDonation() {
+        return new ImpactStats(donationCount + 1, fetchedAt);
+    }
+}
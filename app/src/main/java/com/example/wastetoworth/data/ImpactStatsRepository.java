@@ -0,0 +1,178 @@
+package com.example.wastetoworth.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.data.outbox.OutboxEntry;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Impact statistics of donors, from server-side aggregation instead of downloading
+ * every donation.
+ *
+ * Totals come from one count() aggregation query, billed by index entries scanned rather
+ * than by document. They are cached in memory and in SharedPreferences with a time to
+ * live; donations the write outbox sends in the meantime are added to the cached totals,
+ * so the home screen is correct without aggregating again.
+ *
+ * Public methods must be called from the main thread; callbacks are delivered on the main thread.
+ */
+public class ImpactStatsRepository {
+    private static final String TAG = "ImpactStatsRepository";
+    private static final String PREFS_NAME = "impact_stats";
+    private static final String COLLECTION_DONATIONS = "donations";
+    private static final String FIELD_DONOR_ID = "donorId";
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    /**
+     * Interface for callbacks with impact statistics.
+     */
+    public interface StatsCallback {
+        void onStats(ImpactStats stats);
+    }
+
+    private static ImpactStatsRepository instance;
+
+    private final SharedPreferences prefs;
+    private final FirebaseFirestore firestore;
+    private final Map<String, ImpactStats> cache = new HashMap<>();
+    // Callbacks waiting for an aggregation in flight, by user
+    private final Map<String, List<StatsCallback>> waiting = new HashMap<>();
+
+    private ImpactStatsRepository(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.firestore = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized ImpactStatsRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImpactStatsRepository(context);
+        }
+        return instance;
+    }
+
+    /**
+     * @return The cached totals of a user, possibly expired, or null if none are cached
+     */
+    @Nullable
+    public ImpactStats getCached(String userId) {
+        ImpactStats stats = cache.get(userId);
+        if (stats == null) {
+            stats = restore(userId);
+            if (stats != null) {
+                cache.put(userId, stats);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Delivers the user's totals. Cached totals are delivered at once; if they have
+     * expired, or none are cached, the server aggregates them and the callback is
+     * called again with the result.
+     */
+    public void load(String userId, StatsCallback callback) {
+        ImpactStats cached = getCached(userId);
+        if (cached != null) {
+            callback.onStats(cached);
+            if (cached.isFresh(System.currentTimeMillis(), TTL_MILLIS)) {
+                return;
+            }
+        }
+        List<StatsCallback> callbacks = waiting.get(userId);
+        if (callbacks != null) {
+            callbacks.add(callback);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        waiting.put(userId, callbacks);
+        Query donations = firestore.collection(COLLECTION_DONATIONS)
+                .whereEqualTo(FIELD_DONOR_ID, userId);
+        donations.count()
+                .get(AggregateSource.SERVER)
+                .addOnCompleteListener(task -> {
+                    List<StatsCallback> done = waiting.remove(userId);
+                    if (!task.isSuccessful()) {
+                        // Keep showing the cached totals
+                        Log.w(TAG, "Cannot aggregate impact of " + userId, task.getException());
+                        return;
+                    }
+                    AggregateQuerySnapshot snapshot = task.getResult();
+                    ImpactStats stats = new ImpactStats(snapshot.getCount(), System.currentTimeMillis());
+                    store(userId, stats);
+                    if (done != null) {
+                        for (StatsCallback waiter : done) {
+                            waiter.onStats(stats);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Adds a donation the write outbox has just sent to its donor's cached totals; other
+     * writes are ignored. Listens to the outbox from startup, so donations deferred while
+     * offline are counted whenever they are sent.
+     */
+    public void recordSent(OutboxEntry entry) {
+        if (!COLLECTION_DONATIONS.equals(entry.getCollection())) {
+            return;
+        }
+        Object donorId = entry.getFields().get(FIELD_DONOR_ID);
+        if (!(donorId instanceof String) || ((String) donorId).isEmpty()) {
+            return;
+        }
+        ImpactStats cached = getCached((String) donorId);
+        if (cached == null) {
+            // Nothing to add to; the next load aggregates from scratch
+            return;
+        }
+        store((String) donorId, cached.withDonation());
+    }
+
+    private void store(String userId, ImpactStats stats) {
+        cache.put(userId, stats);
+        try {
+            JSONArray json = new JSONArray()
+                    .put(stats.getDonationCount())
+                    .put(stats.getFetchedAt());
+            prefs.edit().putString(userId, json.toString()).apply();
+        } catch (JSONException e) {
+            Log.e(TAG, "Cannot save impact of " + userId, e);
+        }
+    }
+
+    @Nullable
+    private ImpactStats restore(String userId) {
+        String saved = prefs.getString(userId, null);
+        if (saved == null) {
+            return null;
+        }
+        try {
+            JSONArray json = new JSONArray(saved);
+            if (json.length() != 2) {
+                // Saved by a version that also kept a quantity total; aggregated again
+                return null;
+            }
+            return new ImpactStats(json.getLong(0), json.getLong(1));
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable impact of " + userId, e);
+            return null;
+        }
+    }
+}
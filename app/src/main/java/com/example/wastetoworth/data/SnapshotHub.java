@@ -0,0 +1,189 @@
+package com.example.wastetoworth.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import com.example.wastetoworth.data.cache.FirestoreCacheManager;
+import com.example.wastetoworth.util.Backoff;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application-wide registry of shared snapshot listeners, one per query.
+ *
+ * Screens that show the same query share a single Firestore listener through a LiveData
+ * stream; equal queries are recognised by {@link Query#equals(Object)}, so screens that
+ * want to share must build the same query, filtering further on the device. The listener
+ * is attached when the stream gains its first active observer, and kept for
+ * {@link #LINGER_MS} after the last one leaves, so moving between screens is served the
+ * latest snapshot from memory instead of attaching a new listener.
+ *
+ * Firestore stops a listener after an error. The error is delivered to the current
+ * observers and then cleared, and the listener is re-attached after a backoff for as long
+ * as the stream is observed.
+ *
+ * Must be used from the main thread.
+ */
+public class SnapshotHub {
+    static final long LINGER_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long RETRY_BASE_MS = TimeUnit.SECONDS.toMillis(1);
+    private static final long RETRY_MAX_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Latest state of a query: a snapshot, the error that stopped the listener, or neither
+     * while the listener is re-attached after an error.
+     */
+    public static final class QueryResult {
+        static final QueryResult RETRYING = new QueryResult(null, null);
+
+        @Nullable
+        private final QuerySnapshot snapshot;
+        @Nullable
+        private final FirebaseFirestoreException error;
+
+        QueryResult(@Nullable QuerySnapshot snapshot, @Nullable FirebaseFirestoreException error) {
+            this.snapshot = snapshot;
+            this.error = error;
+        }
+
+        @Nullable
+        public QuerySnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        @Nullable
+        public FirebaseFirestoreException getError() {
+            return error;
+        }
+
+        /** @return Whether there is neither a snapshot nor an error */
+        public boolean isRetrying() {
+            return snapshot == null && error == null;
+        }
+    }
+
+    private static SnapshotHub instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Backoff backoff = new Backoff(RETRY_BASE_MS, RETRY_MAX_MS, new Random());
+    private final Map<Query, SharedQuery> queries = new HashMap<>();
+
+    private SnapshotHub() {
+    }
+
+    public static synchronized SnapshotHub getInstance() {
+        if (instance == null) {
+            instance = new SnapshotHub();
+        }
+        return instance;
+    }
+
+    /**
+     * @return The shared stream of a query's snapshots. A new observer first receives the
+     * latest snapshot, if there is one.
+     */
+    public LiveData<QueryResult> query(Query query) {
+        SharedQuery shared = queries.get(query);
+        if (shared == null) {
+            shared = new SharedQuery(query);
+            queries.put(query, shared);
+        }
+        return shared;
+    }
+
+    /**
+     * Drop-in for {@link Query#addSnapshotListener(EventListener)} that goes through the
+     * shared stream. Removing the returned registration detaches only this listener. Unlike a
+     * plain Firestore listener, it receives snapshots again once the query recovers from an error.
+     */
+    public ListenerRegistration listen(Query query, EventListener<QuerySnapshot> listener) {
+        LiveData<QueryResult> stream = query(query);
+        Observer<QueryResult> observer = result -> {
+            if (!result.isRetrying()) {
+                listener.onEvent(result.getSnapshot(), result.getError());
+            }
+        };
+        stream.observeForever(observer);
+        return () -> stream.removeObserver(observer);
+    }
+
+    /** @return Number of queries with a shared stream, listening or lingering */
+    int size() {
+        return queries.size();
+    }
+
+    private final class SharedQuery extends LiveData<QueryResult> {
+        private final Query query;
+        private final Runnable release = this::release;
+        private final Runnable retry = this::attach;
+        private ListenerRegistration registration;
+        /** Errors since the last snapshot */
+        private int failures;
+
+        SharedQuery(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        protected void onActive() {
+            mainHandler.removeCallbacks(release);
+            if (!queries.containsKey(query)) {
+                // Observed again through a reference kept after it was released
+                queries.put(query, this);
+            }
+            mainHandler.removeCallbacks(retry);
+            attach();
+        }
+
+        private void attach() {
+            if (registration != null || !hasActiveObservers()) {
+                return;
+            }
+            registration = query.addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    registration.remove();
+                    registration = null;
+                    setValue(new QueryResult(null, error));
+                    // Observers joining before the retry must not be handed the old error
+                    setValue(QueryResult.RETRYING);
+                    mainHandler.postDelayed(retry, backoff.delayMillis(++failures));
+                } else if (snapshot != null) {
+                    failures = 0;
+                    FirestoreCacheManager.getMetrics().recordResult(snapshot.getMetadata().isFromCache());
+                    setValue(new QueryResult(snapshot, null));
+                }
+            });
+        }
+
+        @Override
+        protected void onInactive() {
+            mainHandler.postDelayed(release, LINGER_MS);
+        }
+
+        private void release() {
+            if (hasActiveObservers()) {
+                return;
+            }
+            mainHandler.removeCallbacks(retry);
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+            if (queries.get(query) == this) {
+                queries.remove(query);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.wastetoworth.data;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates donation feed entries for pending urgent requests that have none yet, such as
+ * requests submitted before entries were created with them, for coordinators clearing a
+ * backlog.
+ *
+ * Requests are converted in transactions of up to {@link #REQUESTS_PER_TRANSACTION}. Each
+ * transaction creates the donation entries and their summaries and links them from their
+ * requests together, and re-reads the requests first, so a request converted concurrently
+ * by another coordinator is skipped rather than listed twice.
+ */
+public class UrgentRequestConverter {
+    private static final String TAG = "UrgentRequestConverter";
+    private static final String COLLECTION_DONATIONS = DonationSummaries.SOURCE_COLLECTION;
+    /** Three writes per request, within Firestore's 500 writes per transaction */
+    static final int REQUESTS_PER_TRANSACTION = DonationRepository.MAX_BATCH_WRITES / 3;
+
+    private final FirebaseFirestore firestore;
+
+    public UrgentRequestConverter(FirebaseFirestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /**
+     * Converts up to {@code limit} pending urgent requests. Each transaction is reported
+     * as one batch with the IDs of the donation entries it created, or, if it failed, of
+     * the requests it would have converted. No screen offers this yet; it is meant for
+     * coordinator tooling.
+     */
+    public void convertPending(int limit, DonationRepository.BulkDonationCallback callback) {
+        findConvertible(null, limit, new ArrayList<>(), 0, callback);
+    }
+
+    /**
+     * Pages through pending requests until {@code limit} of them need a donation entry or
+     * none are left. Converted requests stay pending until fulfilled, and Firestore cannot
+     * query for a missing field, so they are skipped on the device.
+     * @param after Last request of the previous page, or null for the first page
+     */
+    private void findConvertible(DocumentSnapshot after, int limit, List<DocumentReference> found, int scanned,
+                                 DonationRepository.BulkDonationCallback callback) {
+        Query page = firestore.collection(UrgentRequests.COLLECTION)
+                .whereEqualTo(UrgentRequests.FIELD_STATUS, UrgentRequests.STATUS_PENDING)
+                .orderBy(FieldPath.documentId())
+                .limit(limit);
+        if (after != null) {
+            page = page.startAfter(after);
+        }
+        page.get(Source.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    for (DocumentSnapshot document : documents) {
+                        Map<String, Object> data = document.getData();
+                        if (found.size() < limit && data != null && UrgentRequests.needsDonation(data)) {
+                            found.add(document.getReference());
+                        }
+                    }
+                    int total = scanned + documents.size();
+                    if (found.size() < limit && documents.size() == limit) {
+                        findConvertible(documents.get(documents.size() - 1), limit, found, total, callback);
+                        return;
+                    }
+                    Log.d(TAG, found.size() + " of " + total + " pending requests need a donation entry");
+                    convert(found, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Cannot list pending urgent requests", e);
+                    new BulkProgress(1, callback).batchFinished(0, Collections.<String>emptyList(), 0,
+                            e.getMessage() != null ? e.getMessage() : "Cannot list pending urgent requests");
+                });
+    }
+
+    private void convert(List<DocumentReference> requests, DonationRepository.BulkDonationCallback callback) {
+        if (requests.isEmpty()) {
+            callback.onComplete(0, 0);
+            return;
+        }
+        List<List<DocumentReference>> chunks = BulkProgress.chunk(requests, REQUESTS_PER_TRANSACTION);
+        BulkProgress progress = new BulkProgress(chunks.size(), callback);
+        for (int chunkIndex = 0; chunkIndex < chunks.size(); chunkIndex++) {
+            List<DocumentReference> chunk = chunks.get(chunkIndex);
+            int index = chunkIndex;
+            long start = System.nanoTime();
+            firestore.runTransaction(transaction -> {
+                // Transactions must read everything before writing anything
+                List<DocumentSnapshot> current = new ArrayList<>(chunk.size());
+                for (DocumentReference request : chunk) {
+                    current.add(transaction.get(request));
+                }
+                List<String> donationIds = new ArrayList<>();
+                for (DocumentSnapshot request : current) {
+                    Map<String, Object> data = request.getData();
+                    if (data == null || !UrgentRequests.needsDonation(data)) {
+                        continue;
+                    }
+                    DocumentReference donation = firestore.collection(COLLECTION_DONATIONS).document();
+                    Map<String, Object> fields = UrgentRequests.toDonation(data, request.getId());
+                    transaction.set(donation, fields);
+                    transaction.set(firestore.collection(DonationSummaries.COLLECTION).document(donation.getId()),
+                            DonationSummaries.project(fields));
+                    transaction.update(request.getReference(), UrgentRequests.FIELD_DONATION_ID, donation.getId());
+                    donationIds.add(donation.getId());
+                }
+                return donationIds;
+            }).addOnCompleteListener(task -> {
+                long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+                if (task.isSuccessful()) {
+                    progress.batchFinished(index, task.getResult(), latencyMillis, null);
+                } else {
+                    // No donation was created, so the failed batch lists the requests left unconverted
+                    List<String> requestIds = new ArrayList<>(chunk.size());
+                    for (DocumentReference request : chunk) {
+                        requestIds.add(request.getId());
+                    }
+                    Exception e = task.getException();
+                    progress.batchFinished(index, requestIds, latencyMillis,
+                            e != null && e.getMessage() != null ? e.getMessage() : "Conversion failed");
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.wastetoworth.data;
+
+import com.example.wastetoworth.util.GeoHash;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Schema of urgent request documents and the donation entry each one is listed as in the
+ * donation feed.
+ */
+public final class UrgentRequests {
+    public static final String COLLECTION = "urgent_requests";
+    public static final String FIELD_STATUS = "status";
+    public static final String FIELD_DONATION_ID = "donationId";
+    public static final String STATUS_PENDING = "pending";
+
+    private UrgentRequests() {
+    }
+
+    /**
+     * @return Whether a request is still pending and has no donation entry yet
+     */
+    public static boolean needsDonation(Map<String, Object> urgentRequest) {
+        Object donationId = urgentRequest.get(FIELD_DONATION_ID);
+        return STATUS_PENDING.equals(urgentRequest.get(FIELD_STATUS))
+                && !(donationId instanceof String && !((String) donationId).isEmpty());
+    }
+
+    /**
+     * Builds the donation feed entry for an urgent request.
+     * @param requestId ID of the urgent request document
+     */
+    public static Map<String, Object> toDonation(Map<String, Object> urgentRequest, String requestId) {
+        Map<String, Object> donationRequest = new HashMap<>();
+        donationRequest.put("foodName", "Urgent Request - " + urgentRequest.get("requesterName"));
+        donationRequest.put("type", "urgent_request");
+        donationRequest.put("description", "URGENT REQUEST from " + urgentRequest.get("requesterName") + " - " + urgentRequest.get("quantity") + " people need food assistance");
+        donationRequest.put("quantity", urgentRequest.get("quantity"));
+        donationRequest.put("category", "Urgent");
+        donationRequest.put("donorName", urgentRequest.get("requesterName"));
+        donationRequest.put("donorId", urgentRequest.get("requesterId"));
+        donationRequest.put("donorEmail", urgentRequest.get("requesterEmail"));
+        donationRequest.put("address", urgentRequest.get("address"));
+        donationRequest.put("location", urgentRequest.get("address"));
+        donationRequest.put("timestamp", urgentRequest.get("timestamp"));
+        donationRequest.put("isReceived", false);
+        donationRequest.put("isUrgentRequest", true);
+        donationRequest.put("urgentRequestId", requestId);
+        donationRequest.put("phone", urgentRequest.get("requesterPhone"));
+        if (urgentRequest.containsKey(GeoHash.FIELD_GEOHASH)) {
+            donationRequest.put("latitude", urgentRequest.get("latitude"));
+            donationRequest.put("longitude", urgentRequest.get("longitude"));
+            donationRequest.put(GeoHash.FIELD_GEOHASH, urgentRequest.get(GeoHash.FIELD_GEOHASH));
+        }
+        return donationRequest;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.wastetoworth.data.cache;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often reads are served from the Firestore cache. Thread safe.
+ *
+ * Listener and get() results that came from the cache count as cache hits, results from
+ * the server as server reads. Explicit cache-only reads count as hits when they find
+ * documents and as misses when they find none.
+ */
+public final class CacheMetrics {
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong serverReads = new AtomicLong();
+    private final AtomicLong cacheSizeBytes = new AtomicLong(-1);
+
+    /**
+     * Records a query result.
+     * @param fromCache Whether the result was served from the cache
+     */
+    public void recordResult(boolean fromCache) {
+        (fromCache ? cacheHits : serverReads).incrementAndGet();
+    }
+
+    /**
+     * Records a cache-only read.
+     * @param found Whether the cache held what was asked for
+     */
+    public void recordCacheLookup(boolean found) {
+        (found ? cacheHits : cacheMisses).incrementAndGet();
+    }
+
+    public void recordCacheSize(long bytes) {
+        cacheSizeBytes.set(bytes);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(cacheHits.get(), cacheMisses.get(), serverReads.get(), cacheSizeBytes.get());
+    }
+
+    /**
+     * Counters at one point in time.
+     */
+    public static final class Snapshot {
+        private final long cacheHits;
+        private final long cacheMisses;
+        private final long serverReads;
+        private final long cacheSizeBytes;
+
+        Snapshot(long cacheHits, long cacheMisses, long serverReads, long cacheSizeBytes) {
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.serverReads = serverReads;
+            this.cacheSizeBytes = cacheSizeBytes;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+
+        public long getServerReads() {
+            return serverReads;
+        }
+
+        /** @return Size of the cache files when last measured, or -1 */
+        public long getCacheSizeBytes() {
+            return cacheSizeBytes;
+        }
+
+        /** @return Share of reads served from the cache, or 0 before any read */
+        public double getHitRate() {
+            long total = cacheHits + cacheMisses + serverReads;
+            return total == 0 ? 0 : (double) cacheHits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d hits, %d misses, %d server reads (%.0f%% from cache), %s on disk",
+                    cacheHits, cacheMisses, serverReads, getHitRate() * 100,
+                    cacheSizeBytes < 0 ? "unknown" : (cacheSizeBytes / 1024) + "KB");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.wastetoworth.data.cache;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Chooses how much disk the Firestore cache may use on a device.
+ *
+ * Firestore evicts cached documents that no active query needs, least recently used
+ * first, once the cache grows past its size limit; an unlimited cache is never pruned.
+ * Devices with little memory or storage get a small limit, which also keeps the cache
+ * quick to open and query offline.
+ */
+public final class CachePolicy {
+    private static final long MB = 1024 * 1024;
+    private static final long GB = 1024 * MB;
+
+    /**
+     * Cache size limits.
+     */
+    public enum Tier {
+        SMALL(20 * MB),
+        MEDIUM(50 * MB),
+        LARGE(100 * MB);
+
+        private final long sizeBytes;
+
+        Tier(long sizeBytes) {
+            this.sizeBytes = sizeBytes;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        /** @return The tier with this name, or null */
+        @Nullable
+        public static Tier parse(@Nullable String name) {
+            if (name != null) {
+                for (Tier tier : values()) {
+                    if (tier.name().equalsIgnoreCase(name)) {
+                        return tier;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /** The cache never takes more than this share of free storage */
+    static final int MAX_STORAGE_PERCENT = 5;
+
+    private CachePolicy() {
+    }
+
+    /**
+     * @param lowRamDevice     Whether the system reports a low RAM device
+     * @param memoryClassMb    Heap limit of the app in megabytes
+     * @param freeStorageBytes Storage available to the app
+     * @param override         Tier configured by the user or for testing, or null
+     */
+    public static Tier choose(boolean lowRamDevice, int memoryClassMb, long freeStorageBytes,
+                              @Nullable Tier override) {
+        Tier tier;
+        if (override != null) {
+            tier = override;
+        } else if (lowRamDevice || memoryClassMb <= 128 || freeStorageBytes < GB) {
+            tier = Tier.SMALL;
+        } else if (memoryClassMb <= 256 || freeStorageBytes < 4 * GB) {
+            tier = Tier.MEDIUM;
+        } else {
+            tier = Tier.LARGE;
+        }
+        // Even a configured tier gives way when storage runs out
+        while (tier != Tier.SMALL && tier.getSizeBytes() > freeStorageBytes / 100 * MAX_STORAGE_PERCENT) {
+            tier = Tier.values()[tier.ordinal() - 1];
+        }
+        return tier;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.wastetoworth.data.cache;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StatFs;
+import android.util.Log;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the Firestore disk cache within a {@link CachePolicy} tier.
+ *
+ * The tier is chosen once per process, before Firestore starts, since the cache size
+ * cannot change afterwards. Firestore's garbage collector then prunes documents that no
+ * listener needs, such as completed donations, whenever the cache outgrows the tier. A
+ * periodic check measures the cache files and logs the {@link CacheMetrics}; if the device
+ * now qualifies for a smaller tier, for example because storage is running out, the
+ * smaller tier is saved and used from the next start.
+ */
+public class FirestoreCacheManager {
+    private static final String TAG = "FirestoreCacheManager";
+    private static final String PREFS_NAME = "firestore_cache";
+    /** Tier chosen by the last periodic check, so that startup need not inspect the device */
+    private static final String PREF_NEXT_TIER = "next_tier";
+    /** Tier set by the user or for testing, which replaces the automatic choice */
+    private static final String PREF_OVERRIDE_TIER = "override_tier";
+    private static final String CACHE_FILE_PREFIX = "firestore.";
+    private static final long CHECK_INTERVAL_MS = TimeUnit.HOURS.toMillis(6);
+    private static final long FIRST_CHECK_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final CacheMetrics METRICS = new CacheMetrics();
+    private static FirestoreCacheManager instance;
+
+    private final Context appContext;
+    private final SharedPreferences prefs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable checkTask = () -> executor.execute(this::check);
+    private CachePolicy.Tier tier;
+
+    private FirestoreCacheManager(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized FirestoreCacheManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new FirestoreCacheManager(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Applies the cache settings to Firestore and starts the periodic checks. Must be
+     * called before anything else uses Firestore.
+     */
+    public synchronized void configure(FirebaseFirestore firestore) {
+        CachePolicy.Tier saved = CachePolicy.Tier.parse(prefs.getString(PREF_NEXT_TIER, null));
+        tier = saved != null ? saved : chooseTier();
+        firestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(tier.getSizeBytes())
+                        .build())
+                .build());
+        Log.d(TAG, "Firestore cache limited to " + tier + " (" + tier.getSizeBytes() / (1024 * 1024) + "MB)");
+        mainHandler.postDelayed(checkTask, FIRST_CHECK_DELAY_MS);
+    }
+
+    /** @return Cache metrics of this process, which readers of Firestore report to */
+    public static CacheMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Replaces the automatic tier choice, from the next start. Null restores it.
+     */
+    public void setOverrideTier(CachePolicy.Tier override) {
+        prefs.edit()
+                .putString(PREF_OVERRIDE_TIER, override != null ? override.name() : null)
+                .remove(PREF_NEXT_TIER)
+                .apply();
+    }
+
+    private CachePolicy.Tier chooseTier() {
+        ActivityManager activityManager = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager == null || activityManager.isLowRamDevice();
+        int memoryClass = activityManager != null ? activityManager.getMemoryClass() : 0;
+        long freeStorage = new StatFs(appContext.getFilesDir().getAbsolutePath()).getAvailableBytes();
+        return CachePolicy.choose(lowRam, memoryClass, freeStorage,
+                CachePolicy.Tier.parse(prefs.getString(PREF_OVERRIDE_TIER, null)));
+    }
+
+    /** Runs on the executor */
+    private void check() {
+        try {
+            METRICS.recordCacheSize(measureCacheBytes());
+            CachePolicy.Tier current;
+            synchronized (this) {
+                current = tier;
+            }
+            CachePolicy.Tier next = chooseTier();
+            if (next != current) {
+                Log.i(TAG, "Firestore cache tier changes from " + current + " to " + next + " on next start");
+            }
+            prefs.edit().putString(PREF_NEXT_TIER, next.name()).apply();
+            Log.d(TAG, "Firestore cache: " + METRICS.snapshot());
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Cannot check Firestore cache", e);
+        } finally {
+            mainHandler.postDelayed(checkTask, CHECK_INTERVAL_MS);
+        }
+    }
+
+    /** @return Total size of Firestore's database files */
+    private long measureCacheBytes() {
+        File directory = appContext.getDatabasePath(CACHE_FILE_PREFIX).getParentFile();
+        File[] files = directory != null ? directory.listFiles() : null;
+        long total = 0;
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(CACHE_FILE_PREFIX)) {
+                    total += file.length();
+                }
+            }
+        }
+        return total;
+    }
+}
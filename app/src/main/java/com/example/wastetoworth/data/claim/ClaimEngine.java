@@ -0,0 +1,141 @@
+package com.example.wastetoworth.data.claim;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.data.claim.ClaimResult.Outcome;
+import com.example.wastetoworth.util.Backoff;
+
+import java.util.Map;
+
+/**
+ * Decides claims with optimistic concurrency, independent of Firestore and threading.
+ *
+ * Every claimed document carries a version number that each claim increments, as does
+ * every other write that changes the holder or closed fields. A claim reads the document,
+ * decides from the holder and closed fields whether it can be won, and writes only if the
+ * version is still the one it read and the decision still holds. If another writer got in
+ * between, the claim reads again and usually finds it lost; otherwise it retries after
+ * a jittered backoff, for a bounded number of rounds. Exactly one concurrent claimant
+ * can therefore win a document.
+ *
+ * Methods block, so they must not be called on the main thread.
+ */
+public class ClaimEngine {
+    /** Version field incremented by every claim and every write to holder or closed fields */
+    public static final String FIELD_VERSION = "claimVersion";
+    static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * Versioned document storage with compare-and-set.
+     */
+    public interface Store {
+        /** @return The document, or null if it does not exist */
+        @Nullable
+        Snapshot read(String collection, String documentId) throws Exception;
+
+        /**
+         * Applies the request's updates and increments the version, atomically, if the
+         * stored version still equals the expected one and {@link ClaimEngine#decide} finds
+         * the stored document free to take. Deciding again guards against writers that
+         * change the holder or closed fields without incrementing the version.
+         * @return False if the version changed, the document was taken or closed, or it is gone
+         */
+        boolean compareAndSet(ClaimRequest request, long expectedVersion) throws Exception;
+
+        /** @return Whether an attempt that threw this error may succeed if repeated */
+        boolean isRetryable(Exception error);
+    }
+
+    /**
+     * Fields of a document as read, with its version; 0 if it was never claimed.
+     */
+    public static final class Snapshot {
+        private final Map<String, Object> fields;
+        private final long version;
+
+        public Snapshot(Map<String, Object> fields, long version) {
+            this.fields = fields;
+            this.version = version;
+        }
+
+        @Nullable
+        public Object get(String field) {
+            return fields.get(field);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    private final Store store;
+    private final Backoff backoff;
+
+    public ClaimEngine(Store store, Backoff backoff) {
+        this.store = store;
+        this.backoff = backoff;
+    }
+
+    /**
+     * Tries to win a claim. Never throws; errors are reported as {@link Outcome#FAILED}.
+     */
+    public ClaimResult claim(ClaimRequest request) {
+        String lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                Snapshot snapshot = store.read(request.getCollection(), request.getDocumentId());
+                ClaimResult decided = decide(request, snapshot, attempt);
+                if (decided != null) {
+                    return decided;
+                }
+                if (store.compareAndSet(request, snapshot.getVersion())) {
+                    return new ClaimResult(Outcome.WON, request.getClaimantId(), null, attempt);
+                }
+                lastError = "Document changed during claim";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ClaimResult(Outcome.FAILED, null, "Interrupted", attempt);
+            } catch (Exception e) {
+                lastError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                if (!store.isRetryable(e)) {
+                    return new ClaimResult(Outcome.FAILED, null, lastError, attempt);
+                }
+            }
+            if (attempt < MAX_ATTEMPTS && !sleep(backoff.delayMillis(attempt))) {
+                return new ClaimResult(Outcome.FAILED, null, "Interrupted", attempt);
+            }
+        }
+        return new ClaimResult(Outcome.FAILED, null, lastError, MAX_ATTEMPTS);
+    }
+
+    /**
+     * @return The outcome if the snapshot already settles the claim, or null if it is
+     * free to take
+     */
+    @Nullable
+    static ClaimResult decide(ClaimRequest request, @Nullable Snapshot snapshot, int attempt) {
+        if (snapshot == null) {
+            return new ClaimResult(Outcome.STALE, null, null, attempt);
+        }
+        Object holder = snapshot.get(request.getHolderField());
+        if (holder instanceof String && !((String) holder).isEmpty()) {
+            return request.getClaimantId().equals(holder)
+                    ? new ClaimResult(Outcome.WON, (String) holder, null, attempt)
+                    : new ClaimResult(Outcome.LOST_TO_OTHER, (String) holder, null, attempt);
+        }
+        if (request.getClosedField() != null && Boolean.TRUE.equals(snapshot.get(request.getClosedField()))) {
+            return new ClaimResult(Outcome.STALE, null, null, attempt);
+        }
+        return null;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
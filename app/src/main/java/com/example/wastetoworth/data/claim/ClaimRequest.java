@@ -0,0 +1,94 @@
+package com.example.wastetoworth.data.claim;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A user's attempt to take exclusive hold of a document, such as a volunteer accepting a
+ * pickup or a receiver collecting a donation.
+ *
+ * The claim is held by whoever's ID is stored in the holder field. A document whose
+ * closed field is true can no longer be claimed by anyone.
+ */
+public final class ClaimRequest {
+    /** Volunteer who will deliver a donation */
+    public static final String FIELD_VOLUNTEER_ID = "volunteerId";
+    /** User who received a donation or fulfilled a request */
+    public static final String FIELD_RECEIVER_ID = "receiverId";
+    /** Set once a donation or request has been handed over */
+    public static final String FIELD_RECEIVED = "isReceived";
+
+    private final String collection;
+    private final String documentId;
+    private final String claimantId;
+    private final String holderField;
+    @Nullable
+    private final String closedField;
+    private final Map<String, Object> updates;
+
+    /**
+     * @param holderField Field that holds the claimant's ID once claimed
+     * @param closedField Boolean field that makes the document unclaimable, or null
+     * @param updates     Further fields written together with the claim; copied
+     */
+    public ClaimRequest(String collection, String documentId, String claimantId, String holderField,
+                        @Nullable String closedField, Map<String, Object> updates) {
+        if (claimantId == null || claimantId.isEmpty()) {
+            throw new IllegalArgumentException("A claim needs a claimant");
+        }
+        Map<String, Object> copy = new HashMap<>(updates);
+        copy.put(holderField, claimantId);
+        this.collection = collection;
+        this.documentId = documentId;
+        this.claimantId = claimantId;
+        this.holderField = holderField;
+        this.closedField = closedField;
+        this.updates = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * A volunteer taking on the delivery of a donation that has not been received yet.
+     */
+    public static ClaimRequest volunteer(String collection, String documentId, String volunteerId,
+                                         Map<String, Object> updates) {
+        return new ClaimRequest(collection, documentId, volunteerId, FIELD_VOLUNTEER_ID, FIELD_RECEIVED, updates);
+    }
+
+    /**
+     * A user receiving a donation, or fulfilling a request. The updates should set
+     * {@link #FIELD_RECEIVED}.
+     */
+    public static ClaimRequest receiver(String collection, String documentId, String receiverId,
+                                        Map<String, Object> updates) {
+        return new ClaimRequest(collection, documentId, receiverId, FIELD_RECEIVER_ID, FIELD_RECEIVED, updates);
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public String getClaimantId() {
+        return claimantId;
+    }
+
+    public String getHolderField() {
+        return holderField;
+    }
+
+    @Nullable
+    public String getClosedField() {
+        return closedField;
+    }
+
+    /** @return Fields to write when the claim is won, including the holder field */
+    public Map<String, Object> getUpdates() {
+        return updates;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.wastetoworth.data.claim;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Outcome of a {@link ClaimRequest}.
+ */
+public final class ClaimResult {
+
+    public enum Outcome {
+        /** The claimant holds the claim, either just taken or already theirs */
+        WON,
+        /** Someone else holds the claim */
+        LOST_TO_OTHER,
+        /** The document was deleted or closed since the claimant last saw it */
+        STALE,
+        /** The claim could not be decided, for example without connectivity */
+        FAILED
+    }
+
+    private final Outcome outcome;
+    @Nullable
+    private final String holderId;
+    @Nullable
+    private final String error;
+    private final int attempts;
+
+    ClaimResult(Outcome outcome, @Nullable String holderId, @Nullable String error, int attempts) {
+        this.outcome = outcome;
+        this.holderId = holderId;
+        this.error = error;
+        this.attempts = attempts;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /** @return Who holds the claim, if known */
+    @Nullable
+    public String getHolderId() {
+        return holderId;
+    }
+
+    /** @return Why the claim failed, for {@link Outcome#FAILED} */
+    @Nullable
+    public String getError() {
+        return error;
+    }
+
+    /** @return Number of compare-and-set rounds it took to decide the claim */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public boolean isWon() {
+        return outcome == Outcome.WON;
+    }
+
+    @Override
+    public String toString() {
+        return outcome + (holderId != null ? " (" + holderId + ")" : "") + (error != null ? ": " + error : "");
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.wastetoworth.data.claim;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.wastetoworth.util.Backoff;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Claims donations and requests so that at most one user wins each, in place of blind
+ * updates that let two volunteers accept the same pickup. See {@link ClaimEngine}.
+ */
+public class ClaimService {
+    private static final String TAG = "ClaimService";
+    private static final long RETRY_BASE_MS = 100;
+    private static final long RETRY_MAX_MS = 2000;
+
+    /**
+     * Receives the outcome of a claim on the main thread.
+     */
+    public interface ClaimCallback {
+        void onClaimResult(ClaimResult result);
+    }
+
+    private static ClaimService instance;
+
+    private final ClaimEngine engine;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ClaimService() {
+        this.engine = new ClaimEngine(new FirestoreClaimStore(FirebaseFirestore.getInstance()),
+                new Backoff(RETRY_BASE_MS, RETRY_MAX_MS, new Random()));
+    }
+
+    public static synchronized ClaimService getInstance() {
+        if (instance == null) {
+            instance = new ClaimService();
+        }
+        return instance;
+    }
+
+    public void claim(ClaimRequest request, ClaimCallback callback) {
+        executor.execute(() -> {
+            ClaimResult result = engine.claim(request);
+            Log.d(TAG, "Claim of " + request.getCollection() + "/" + request.getDocumentId() + ": " + result);
+            mainHandler.post(() -> callback.onClaimResult(result));
+        });
+    }
+}
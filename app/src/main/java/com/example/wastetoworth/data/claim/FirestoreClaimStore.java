@@ -0,0 +1,109 @@
+package com.example.wastetoworth.data.claim;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.data.DonationSummaries;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link ClaimEngine.Store} on Firestore. Reads go to the server, since a cached copy
+ * would hide other claimants, and each compare-and-set is a transaction that checks the
+ * version, and decides the claim again on the current fields, before updating. Claims on
+ * donations update their summaries in the same transaction. Blocks, so it must only be
+ * used off the main thread.
+ */
+public class FirestoreClaimStore implements ClaimEngine.Store {
+    private static final long TIMEOUT_MS = 10_000;
+
+    private final FirebaseFirestore firestore;
+
+    public FirestoreClaimStore(FirebaseFirestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @Nullable
+    @Override
+    public ClaimEngine.Snapshot read(String collection, String documentId) throws Exception {
+        DocumentSnapshot document = await(firestore.collection(collection).document(documentId).get(Source.SERVER));
+        if (!document.exists() || document.getData() == null) {
+            return null;
+        }
+        return new ClaimEngine.Snapshot(document.getData(), versionOf(document));
+    }
+
+    @Override
+    public boolean compareAndSet(ClaimRequest request, long expectedVersion) throws Exception {
+        String collection = request.getCollection();
+        String documentId = request.getDocumentId();
+        Map<String, Object> updates = request.getUpdates();
+        DocumentReference reference = firestore.collection(collection).document(documentId);
+        Boolean applied = await(firestore.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(reference);
+            if (!current.exists() || current.getData() == null || versionOf(current) != expectedVersion) {
+                return false;
+            }
+            ClaimEngine.Snapshot fields = new ClaimEngine.Snapshot(current.getData(), expectedVersion);
+            if (ClaimEngine.decide(request, fields, 0) != null) {
+                return false;
+            }
+            Map<String, Object> versioned = new HashMap<>(updates);
+            versioned.put(ClaimEngine.FIELD_VERSION, expectedVersion + 1);
+            transaction.update(reference, versioned);
+            if (DonationSummaries.SOURCE_COLLECTION.equals(collection)) {
+                Map<String, Object> summary = DonationSummaries.project(updates);
+                if (!summary.isEmpty()) {
+                    // Merged, since donations written before summaries existed have none
+                    transaction.set(firestore.collection(DonationSummaries.COLLECTION).document(documentId),
+                            summary, SetOptions.merge());
+                }
+            }
+            return true;
+        }));
+        return Boolean.TRUE.equals(applied);
+    }
+
+    @Override
+    public boolean isRetryable(Exception error) {
+        if (error instanceof TimeoutException) {
+            return true;
+        }
+        if (error instanceof FirebaseFirestoreException) {
+            switch (((FirebaseFirestoreException) error).getCode()) {
+                case ABORTED:
+                case UNAVAILABLE:
+                case DEADLINE_EXCEEDED:
+                case RESOURCE_EXHAUSTED:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    private static long versionOf(DocumentSnapshot document) {
+        Long version = document.getLong(ClaimEngine.FIELD_VERSION);
+        return version != null ? version : 0;
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        try {
+            return Tasks.await(task, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.wastetoworth.data.model;
 
+import com.example.wastetoworth.util.GeoHash;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.GeoPoint;
 
@@ -132,6 +133,9 @@ public class Donation {
         map.put("quantity", quantity);
         map.put("description", description);
         map.put("location", location);
+        if (location != null) {
+            map.put(GeoHash.FIELD_GEOHASH, GeoHash.encode(location.getLatitude(), location.getLongitude()));
+        }
         map.put("timestamp", timestamp);
         map.put("status", status);
         return map;
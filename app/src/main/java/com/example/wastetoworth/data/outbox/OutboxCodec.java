@@ -0,0 +1,177 @@
+package com.example.wastetoworth.data.outbox;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON {@link OutboxLog.Codec} that keeps Firestore field types.
+ *
+ * Plain JSON would turn every number into whatever type it happens to parse as, so numbers,
+ * timestamps, geo points, nested maps and the server timestamp sentinel are written as
+ * single-key objects tagged with their type.
+ */
+public class OutboxCodec implements OutboxLog.Codec {
+    private static final String TAG_INTEGER = "$int";
+    private static final String TAG_DOUBLE = "$double";
+    private static final String TAG_TIMESTAMP = "$timestamp";
+    private static final String TAG_GEO_POINT = "$geo";
+    private static final String TAG_MAP = "$map";
+    private static final String TAG_SERVER_TIMESTAMP = "$serverTimestamp";
+    private static final FieldValue SERVER_TIMESTAMP = FieldValue.serverTimestamp();
+
+    @Override
+    public String encode(OutboxEntry entry) throws IOException {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("collection", entry.getCollection());
+            json.put("documentId", entry.getDocumentId());
+            json.put("createdAt", entry.getCreatedAt());
+            json.put("status", entry.getStatus().name());
+            json.put("attempts", entry.getAttempts());
+            json.put("nextAttemptAt", entry.getNextAttemptAt());
+            if (entry.getLastError() != null) {
+                json.put("lastError", entry.getLastError());
+            }
+            json.put("fields", encodeMap(entry.getFields()));
+            if (!entry.getLinkedDocuments().isEmpty()) {
+                JSONArray linked = new JSONArray();
+                for (OutboxEntry.LinkedDocument document : entry.getLinkedDocuments()) {
+                    linked.put(new JSONObject()
+                            .put("collection", document.getCollection())
+                            .put("documentId", document.getDocumentId())
+                            .put("fields", encodeMap(document.getFields())));
+                }
+                json.put("linked", linked);
+            }
+            return json.toString();
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode " + entry.getKey(), e);
+        }
+    }
+
+    @Override
+    public OutboxEntry decode(String line) throws IOException {
+        try {
+            JSONObject json = new JSONObject(line);
+            List<OutboxEntry.LinkedDocument> linked = new ArrayList<>();
+            JSONArray linkedJson = json.optJSONArray("linked");
+            if (linkedJson != null) {
+                for (int i = 0; i < linkedJson.length(); i++) {
+                    JSONObject document = linkedJson.getJSONObject(i);
+                    linked.add(new OutboxEntry.LinkedDocument(document.getString("collection"),
+                            document.getString("documentId"), decodeMap(document.getJSONObject("fields"))));
+                }
+            }
+            return OutboxEntry.restore(
+                    json.getString("collection"),
+                    json.getString("documentId"),
+                    decodeMap(json.getJSONObject("fields")),
+                    linked,
+                    json.getLong("createdAt"),
+                    OutboxEntry.Status.valueOf(json.getString("status")),
+                    json.getInt("attempts"),
+                    json.getLong("nextAttemptAt"),
+                    json.has("lastError") ? json.getString("lastError") : null);
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new IOException("Cannot decode outbox entry", e);
+        }
+    }
+
+    private static JSONObject encodeMap(Map<String, Object> map) throws JSONException, IOException {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, Object> field : map.entrySet()) {
+            json.put(field.getKey(), encodeValue(field.getValue()));
+        }
+        return json;
+    }
+
+    private static Object encodeValue(Object value) throws JSONException, IOException {
+        if (value == null) {
+            return JSONObject.NULL;
+        } else if (value instanceof String || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return tagged(TAG_INTEGER, String.valueOf(((Number) value).longValue()));
+        } else if (value instanceof Double || value instanceof Float) {
+            return tagged(TAG_DOUBLE, String.valueOf(((Number) value).doubleValue()));
+        } else if (value instanceof Timestamp || value instanceof Date) {
+            Timestamp timestamp = value instanceof Date ? new Timestamp((Date) value) : (Timestamp) value;
+            return tagged(TAG_TIMESTAMP, new JSONArray().put(timestamp.getSeconds()).put(timestamp.getNanoseconds()));
+        } else if (value instanceof GeoPoint) {
+            GeoPoint point = (GeoPoint) value;
+            return tagged(TAG_GEO_POINT, new JSONArray().put(point.getLatitude()).put(point.getLongitude()));
+        } else if (value instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) value;
+            return tagged(TAG_MAP, encodeMap(map));
+        } else if (value instanceof List) {
+            JSONArray array = new JSONArray();
+            for (Object item : (List<?>) value) {
+                array.put(encodeValue(item));
+            }
+            return array;
+        } else if (SERVER_TIMESTAMP.equals(value)) {
+            return tagged(TAG_SERVER_TIMESTAMP, true);
+        }
+        throw new IOException("Unsupported field type " + value.getClass().getName());
+    }
+
+    private static JSONObject tagged(String tag, Object value) throws JSONException {
+        return new JSONObject().put(tag, value);
+    }
+
+    private static Map<String, Object> decodeMap(JSONObject json) throws JSONException {
+        Map<String, Object> map = new HashMap<>();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            map.put(key, decodeValue(json.get(key)));
+        }
+        return map;
+    }
+
+    private static Object decodeValue(Object json) throws JSONException {
+        if (json == JSONObject.NULL) {
+            return null;
+        } else if (json instanceof JSONArray) {
+            JSONArray array = (JSONArray) json;
+            List<Object> list = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                list.add(decodeValue(array.get(i)));
+            }
+            return list;
+        } else if (json instanceof JSONObject) {
+            JSONObject object = (JSONObject) json;
+            if (object.has(TAG_INTEGER)) {
+                return Long.parseLong(object.getString(TAG_INTEGER));
+            } else if (object.has(TAG_DOUBLE)) {
+                return Double.parseDouble(object.getString(TAG_DOUBLE));
+            } else if (object.has(TAG_TIMESTAMP)) {
+                JSONArray parts = object.getJSONArray(TAG_TIMESTAMP);
+                return new Timestamp(parts.getLong(0), parts.getInt(1));
+            } else if (object.has(TAG_GEO_POINT)) {
+                JSONArray parts = object.getJSONArray(TAG_GEO_POINT);
+                return new GeoPoint(parts.getDouble(0), parts.getDouble(1));
+            } else if (object.has(TAG_MAP)) {
+                return decodeMap(object.getJSONObject(TAG_MAP));
+            } else if (object.has(TAG_SERVER_TIMESTAMP)) {
+                return FieldValue.serverTimestamp();
+            }
+            throw new JSONException("Unknown field tag in " + object);
+        }
+        return json;
+    }
+}
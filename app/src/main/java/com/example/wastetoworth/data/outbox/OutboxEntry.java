@@ -0,0 +1,185 @@
+package com.example.wastetoworth.data.outbox;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One document write waiting in the outbox, together with its delivery state.
+ *
+ * Entries are immutable; every state change produces a new entry. The document ID is
+ * generated on the device, so the same write can be retried any number of times and
+ * still create exactly one document. An entry may carry linked documents that are created
+ * in the same atomic batch, so that either all of them exist or none do.
+ */
+public final class OutboxEntry {
+
+    /**
+     * Delivery state of an entry.
+     */
+    public enum Status {
+        /** Waiting to be sent, now or after a backoff delay */
+        PENDING,
+        /** Sent to the server, waiting for its answer */
+        SENDING,
+        /** Accepted by the server */
+        SENT,
+        /** Refused by the server; kept until retried or discarded by the user */
+        REJECTED
+    }
+
+    /**
+     * A further document created together with the entry's own.
+     */
+    public static final class LinkedDocument {
+        private final String collection;
+        private final String documentId;
+        private final Map<String, Object> fields;
+
+        /**
+         * @param fields Document fields; copied
+         */
+        public LinkedDocument(String collection, String documentId, Map<String, Object> fields) {
+            this.collection = collection;
+            this.documentId = documentId;
+            this.fields = Collections.unmodifiableMap(new HashMap<>(fields));
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public Map<String, Object> getFields() {
+            return fields;
+        }
+    }
+
+    private final String collection;
+    private final String documentId;
+    private final Map<String, Object> fields;
+    private final List<LinkedDocument> linked;
+    private final long createdAt;
+    private final Status status;
+    private final int attempts;
+    private final long nextAttemptAt;
+    @Nullable
+    private final String lastError;
+
+    private OutboxEntry(String collection, String documentId, Map<String, Object> fields,
+                        List<LinkedDocument> linked, long createdAt,
+                        Status status, int attempts, long nextAttemptAt, @Nullable String lastError) {
+        this.collection = collection;
+        this.documentId = documentId;
+        this.fields = fields;
+        this.linked = linked;
+        this.createdAt = createdAt;
+        this.status = status;
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = lastError;
+    }
+
+    /**
+     * Creates a pending entry that is due immediately.
+     * @param fields Document fields; copied
+     */
+    public static OutboxEntry create(String collection, String documentId, Map<String, Object> fields, long now) {
+        return create(collection, documentId, fields, Collections.<LinkedDocument>emptyList(), now);
+    }
+
+    /**
+     * Creates a pending entry that also creates the linked documents, atomically.
+     * @param fields Document fields; copied
+     */
+    public static OutboxEntry create(String collection, String documentId, Map<String, Object> fields,
+                                     List<LinkedDocument> linked, long now) {
+        return new OutboxEntry(collection, documentId, Collections.unmodifiableMap(new HashMap<>(fields)),
+                copyOf(linked), now, Status.PENDING, 0, now, null);
+    }
+
+    /**
+     * Recreates an entry read back from storage.
+     */
+    public static OutboxEntry restore(String collection, String documentId, Map<String, Object> fields,
+                                      List<LinkedDocument> linked, long createdAt, Status status,
+                                      int attempts, long nextAttemptAt, @Nullable String lastError) {
+        return new OutboxEntry(collection, documentId, Collections.unmodifiableMap(new HashMap<>(fields)),
+                copyOf(linked), createdAt, status, attempts, nextAttemptAt, lastError);
+    }
+
+    private static List<LinkedDocument> copyOf(List<LinkedDocument> linked) {
+        return linked.isEmpty() ? Collections.<LinkedDocument>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(linked));
+    }
+
+    /**
+     * @return Key identifying the target document, "collection/documentId"
+     */
+    public static String keyOf(String collection, String documentId) {
+        return collection + "/" + documentId;
+    }
+
+    public String getKey() {
+        return keyOf(collection, documentId);
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+
+    /** @return Documents created in the same batch as this one; usually none */
+    public List<LinkedDocument> getLinkedDocuments() {
+        return linked;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /** @return Number of failed delivery attempts */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /** @return Time before which a pending entry is not retried */
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    @Nullable
+    public String getLastError() {
+        return lastError;
+    }
+
+    OutboxEntry withStatus(Status newStatus) {
+        return new OutboxEntry(collection, documentId, fields, linked, createdAt, newStatus, attempts, nextAttemptAt, lastError);
+    }
+
+    OutboxEntry withFailure(Status newStatus, String error, long retryAt) {
+        return new OutboxEntry(collection, documentId, fields, linked, createdAt, newStatus, attempts + 1, retryAt, error);
+    }
+
+    OutboxEntry withNextAttemptAt(long retryAt) {
+        return new OutboxEntry(collection, documentId, fields, linked, createdAt, status, attempts, retryAt, lastError);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.wastetoworth.data.outbox;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file {@link OutboxQueue.Store}.
+ *
+ * Each change appends one line, either "P" and the encoded entry or "D" and a key, and is
+ * synced to disk before returning. Loading replays the lines, so the last record for a key
+ * wins; a line left incomplete by a crash is skipped. Once most lines are superseded the
+ * log is compacted by writing the live entries to a new file and renaming it over the old.
+ */
+public class OutboxLog implements OutboxQueue.Store {
+
+    /**
+     * Converts entries to and from single lines of text.
+     */
+    public interface Codec {
+        /** @return The encoded entry, which must not contain line breaks */
+        String encode(OutboxEntry entry) throws IOException;
+
+        OutboxEntry decode(String line) throws IOException;
+    }
+
+    private static final String PUT = "P\t";
+    private static final String DELETE = "D\t";
+    /** Never compact logs shorter than this */
+    private static final int MIN_COMPACT_RECORDS = 64;
+
+    private final File file;
+    private final Codec codec;
+    // Encoded live entries by key, for compaction
+    private final Map<String, String> live = new LinkedHashMap<>();
+    private int records = 0;
+    private int skippedRecords = 0;
+    private boolean loaded = false;
+    /** The file ends in an incomplete line, which the next record must not be appended to */
+    private boolean danglingLine = false;
+
+    public OutboxLog(File file, Codec codec) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    @Override
+    public synchronized List<OutboxEntry> load() throws IOException {
+        live.clear();
+        records = 0;
+        skippedRecords = 0;
+        Map<String, OutboxEntry> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                records++;
+                if (line.startsWith(PUT)) {
+                    String encoded = line.substring(PUT.length());
+                    try {
+                        OutboxEntry entry = codec.decode(encoded);
+                        entries.put(entry.getKey(), entry);
+                        live.put(entry.getKey(), encoded);
+                    } catch (IOException | RuntimeException e) {
+                        skippedRecords++;
+                    }
+                } else if (line.startsWith(DELETE)) {
+                    String key = line.substring(DELETE.length());
+                    entries.remove(key);
+                    live.remove(key);
+                } else {
+                    skippedRecords++;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing has been queued yet
+        }
+        danglingLine = false;
+        long length = file.length();
+        if (length > 0) {
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                in.seek(length - 1);
+                danglingLine = in.read() != '\n';
+            }
+        }
+        loaded = true;
+        return new ArrayList<>(entries.values());
+    }
+
+    @Override
+    public synchronized void write(OutboxEntry entry) throws IOException {
+        ensureLoaded();
+        String encoded = codec.encode(entry);
+        if (encoded.indexOf('\n') >= 0 || encoded.indexOf('\r') >= 0) {
+            throw new IOException("Encoded entry spans several lines");
+        }
+        append(PUT + encoded);
+        live.remove(entry.getKey());
+        live.put(entry.getKey(), encoded);
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized void delete(String key) throws IOException {
+        ensureLoaded();
+        if (live.remove(key) == null) {
+            return;
+        }
+        append(DELETE + key);
+        compactIfNeeded();
+    }
+
+    /** @return Lines in the log file, including superseded ones */
+    public synchronized int getRecordCount() {
+        return records;
+    }
+
+    /** @return Lines that could not be read by the last {@link #load()} */
+    public synchronized int getSkippedRecordCount() {
+        return skippedRecords;
+    }
+
+    /** Live entries are needed for compaction, so the log is always read before it is changed */
+    private void ensureLoaded() throws IOException {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    private void append(String line) throws IOException {
+        String record = (danglingLine ? "\n" : "") + line + "\n";
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(record.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        danglingLine = false;
+        records++;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (records < MIN_COMPACT_RECORDS || records < live.size() * 4) {
+            return;
+        }
+        File compacted = new File(file.getPath() + ".new");
+        try (FileOutputStream out = new FileOutputStream(compacted)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (String encoded : live.values()) {
+                writer.write(PUT);
+                writer.write(encoded);
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!compacted.renameTo(file)) {
+            compacted.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        records = live.size();
+        danglingLine = false;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.wastetoworth.data.outbox;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.data.outbox.OutboxEntry.Status;
+import com.example.wastetoworth.util.Backoff;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delivery state machine of the outbox, independent of Firestore and threading.
+ *
+ * Every change to an undelivered entry is written to the {@link Store} before the method
+ * returns, so after a crash the queue reloads exactly what had not been acknowledged.
+ * Entries that were in flight when the process died are retried. Sending is not recorded
+ * in storage, so any reloaded entry may already have reached the server; see
+ * {@link #mayHaveBeenSent(String)}. Entries are keyed by target document, which
+ * deduplicates repeated submissions of the same write.
+ */
+public class OutboxQueue {
+
+    /**
+     * Durable storage for undelivered entries.
+     */
+    public interface Store {
+        /** @return The latest version of every stored entry */
+        List<OutboxEntry> load() throws IOException;
+
+        /** Stores an entry, replacing any earlier version with the same key */
+        void write(OutboxEntry entry) throws IOException;
+
+        void delete(String key) throws IOException;
+    }
+
+    /** Delivered entries kept for status reporting */
+    private static final int MAX_RECENTLY_SENT = 20;
+
+    private final Store store;
+    private final Backoff backoff;
+    private final Map<String, OutboxEntry> entries = new LinkedHashMap<>();
+    private final ArrayDeque<OutboxEntry> recentlySent = new ArrayDeque<>();
+    /** Keys of entries read back from storage, which an earlier process may have sent */
+    private final Set<String> restored = new HashSet<>();
+
+    public OutboxQueue(Store store, Backoff backoff) {
+        this.store = store;
+        this.backoff = backoff;
+    }
+
+    /**
+     * Loads stored entries. Entries that were being sent become pending again.
+     */
+    public synchronized void load() throws IOException {
+        for (OutboxEntry entry : store.load()) {
+            if (entry.getStatus() == Status.SENDING) {
+                entry = entry.withStatus(Status.PENDING);
+            }
+            if (entry.getStatus() != Status.SENT) {
+                entries.put(entry.getKey(), entry);
+                restored.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Adds a new entry. If storing it fails, the entry is still queued for this process
+     * and the exception is rethrown so that the caller can report it.
+     *
+     * @return False if an entry for the same document is already queued or was just sent
+     */
+    public synchronized boolean enqueue(OutboxEntry entry) throws IOException {
+        if (get(entry.getKey()) != null) {
+            return false;
+        }
+        entries.put(entry.getKey(), entry);
+        store.write(entry);
+        return true;
+    }
+
+    /**
+     * @return The entry for a document, including recently sent ones, or null
+     */
+    @Nullable
+    public synchronized OutboxEntry get(String key) {
+        OutboxEntry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        for (OutboxEntry sent : recentlySent) {
+            if (sent.getKey().equals(key)) {
+                return sent;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether an entry may already be on the server: it failed before, possibly
+     * after the server applied it, or it was reloaded and an earlier process may have sent it
+     */
+    public synchronized boolean mayHaveBeenSent(String key) {
+        OutboxEntry entry = entries.get(key);
+        return entry != null && (entry.getAttempts() > 0 || restored.contains(key));
+    }
+
+    /**
+     * Marks every pending entry that is due as being sent.
+     * @return The entries to send, oldest first
+     */
+    public synchronized List<OutboxEntry> takeDue(long now) {
+        List<OutboxEntry> due = new ArrayList<>();
+        for (Map.Entry<String, OutboxEntry> slot : entries.entrySet()) {
+            OutboxEntry entry = slot.getValue();
+            if (entry.getStatus() == Status.PENDING && entry.getNextAttemptAt() <= now) {
+                OutboxEntry sending = entry.withStatus(Status.SENDING);
+                slot.setValue(sending);
+                due.add(sending);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Records that the server accepted an entry and drops it from storage.
+     * @return The sent entry, or null if it is no longer queued
+     */
+    @Nullable
+    public synchronized OutboxEntry markSent(String key) throws IOException {
+        OutboxEntry entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        restored.remove(key);
+        OutboxEntry sent = entry.withStatus(Status.SENT);
+        recentlySent.addLast(sent);
+        if (recentlySent.size() > MAX_RECENTLY_SENT) {
+            recentlySent.removeFirst();
+        }
+        store.delete(key);
+        return sent;
+    }
+
+    /**
+     * Records a failed attempt. A transient failure is retried after a backoff delay;
+     * a permanent one leaves the entry rejected until {@link #retry(String, long)}.
+     *
+     * @return The updated entry, or null if it is no longer queued
+     */
+    @Nullable
+    public synchronized OutboxEntry markFailed(String key, String error, boolean permanent, long now)
+            throws IOException {
+        OutboxEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        OutboxEntry failed = permanent
+                ? entry.withFailure(Status.REJECTED, error, Long.MAX_VALUE)
+                : entry.withFailure(Status.PENDING, error, now + backoff.delayMillis(entry.getAttempts() + 1));
+        entries.put(key, failed);
+        store.write(failed);
+        return failed;
+    }
+
+    /**
+     * Makes a rejected entry pending again, due immediately.
+     * @return False if there is no rejected entry for the key
+     */
+    public synchronized boolean retry(String key, long now) throws IOException {
+        OutboxEntry entry = entries.get(key);
+        if (entry == null || entry.getStatus() != Status.REJECTED) {
+            return false;
+        }
+        OutboxEntry pending = entry.withStatus(Status.PENDING).withNextAttemptAt(now);
+        entries.put(key, pending);
+        store.write(pending);
+        return true;
+    }
+
+    /**
+     * Drops a rejected entry for good.
+     * @return False if there is no rejected entry for the key
+     */
+    public synchronized boolean discard(String key) throws IOException {
+        OutboxEntry entry = entries.get(key);
+        if (entry == null || entry.getStatus() != Status.REJECTED) {
+            return false;
+        }
+        entries.remove(key);
+        restored.remove(key);
+        store.delete(key);
+        return true;
+    }
+
+    /**
+     * Cuts short every backoff delay, for when connectivity returns. Not persisted:
+     * a reloaded queue keeps the delays last written.
+     */
+    public synchronized void makePendingDue(long now) {
+        for (Map.Entry<String, OutboxEntry> slot : entries.entrySet()) {
+            OutboxEntry entry = slot.getValue();
+            if (entry.getStatus() == Status.PENDING && entry.getNextAttemptAt() > now) {
+                slot.setValue(entry.withNextAttemptAt(now));
+            }
+        }
+    }
+
+    /**
+     * @return Earliest time a pending entry is due, or Long.MAX_VALUE if none is pending
+     */
+    public synchronized long nextAttemptAt() {
+        long next = Long.MAX_VALUE;
+        for (OutboxEntry entry : entries.values()) {
+            if (entry.getStatus() == Status.PENDING) {
+                next = Math.min(next, entry.getNextAttemptAt());
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return Number of entries not yet delivered, including rejected ones
+     */
+    public synchronized int undeliveredCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return Queued and recently sent entries, oldest first
+     */
+    public synchronized List<OutboxEntry> snapshot() {
+        List<OutboxEntry> snapshot = new ArrayList<>(entries.size() + recentlySent.size());
+        snapshot.addAll(entries.values());
+        snapshot.addAll(recentlySent);
+        Collections.sort(snapshot, Comparator.comparingLong(OutboxEntry::getCreatedAt));
+        return Collections.unmodifiableList(snapshot);
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.wastetoworth.data.outbox;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.wastetoworth.util.Backoff;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable outbox for document creations, so that a donation or request submitted without
+ * coverage is never lost.
+ *
+ * A write is saved to an append-only log on the device before anything is sent, and
+ * stays there until the server accepts it. Failed sends are retried with exponential
+ * backoff, and immediately whenever the device regains connectivity. Document IDs are
+ * generated on the device, and a retry first checks whether an earlier attempt already
+ * created the document, so each write creates exactly one document.
+ *
+ * Public methods may be called from any thread, except {@link #getEntry(String, String)};
+ * listeners and LiveData updates are delivered on the main thread.
+ */
+public class WriteOutbox {
+    private static final String TAG = "WriteOutbox";
+    private static final String LOG_FILE = "write_outbox.log";
+    private static final long RETRY_BASE_MS = 2000;
+    private static final long RETRY_MAX_MS = TimeUnit.MINUTES.toMillis(15);
+    /** A listener still waiting after this long is told the write was deferred */
+    private static final long LISTENER_TIMEOUT_MS = 15_000;
+
+    /**
+     * Outcome of one enqueued write. Exactly one method is called.
+     */
+    public interface WriteListener {
+        /** The server accepted the write */
+        void onSent(OutboxEntry entry);
+
+        /** The write could not be sent yet; it is saved and will be sent automatically */
+        void onDeferred(OutboxEntry entry);
+
+        /** The server refused the write; it is kept until retried or discarded */
+        void onRejected(OutboxEntry entry);
+    }
+
+    /**
+     * Told about every write the server accepts, whoever enqueued it and in whichever
+     * session, including writes whose own listener was told they were deferred.
+     */
+    public interface SentListener {
+        void onSent(OutboxEntry entry);
+    }
+
+    private static WriteOutbox instance;
+
+    private final FirebaseFirestore firestore;
+    private final OutboxQueue queue;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<List<OutboxEntry>> entries =
+            new MutableLiveData<>(Collections.<OutboxEntry>emptyList());
+    // Only touched on the executor
+    private final Map<String, WriteListener> listeners = new HashMap<>();
+    private final List<SentListener> sentListeners = new CopyOnWriteArrayList<>();
+    private final Runnable flushTask = () -> execute(this::flush);
+    private volatile boolean online;
+
+    private WriteOutbox(Context context) {
+        Context appContext = context.getApplicationContext();
+        this.firestore = FirebaseFirestore.getInstance();
+        this.queue = new OutboxQueue(
+                new OutboxLog(new File(appContext.getFilesDir(), LOG_FILE), new OutboxCodec()),
+                new Backoff(RETRY_BASE_MS, RETRY_MAX_MS, new Random()));
+        execute(() -> {
+            try {
+                queue.load();
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot read outbox", e);
+            }
+            Log.d(TAG, queue.undeliveredCount() + " undelivered writes");
+            flush();
+        });
+        registerNetworkCallback(appContext);
+    }
+
+    public static synchronized WriteOutbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new WriteOutbox(context);
+        }
+        return instance;
+    }
+
+    /**
+     * @return A new document ID for the collection, generated on the device
+     */
+    public String newDocumentId(String collection) {
+        return firestore.collection(collection).document().getId();
+    }
+
+    /**
+     * Queues the creation of a document. Submitting the same document again while the
+     * first write is queued or just sent has no further effect.
+     *
+     * @param documentId ID from {@link #newDocumentId(String)}
+     * @param fields     Document fields; copied
+     * @param listener   Told about the outcome, or null
+     */
+    public void enqueue(String collection, String documentId, Map<String, Object> fields,
+                        @Nullable WriteListener listener) {
+        enqueue(collection, documentId, fields, Collections.<OutboxEntry.LinkedDocument>emptyList(), listener);
+    }
+
+    /**
+     * Queues the creation of a document together with linked documents, in one atomic
+     * batch: either all of them are created or none are.
+     *
+     * @param linked Further documents to create, with IDs from {@link #newDocumentId(String)}
+     */
+    public void enqueue(String collection, String documentId, Map<String, Object> fields,
+                        List<OutboxEntry.LinkedDocument> linked, @Nullable WriteListener listener) {
+        OutboxEntry entry = OutboxEntry.create(collection, documentId, fields, linked, System.currentTimeMillis());
+        execute(() -> {
+            OutboxEntry queued = entry;
+            try {
+                if (!queue.enqueue(entry)) {
+                    queued = queue.get(entry.getKey());
+                    Log.d(TAG, "Already queued: " + entry.getKey());
+                }
+            } catch (IOException e) {
+                // Still queued in memory, so it is sent unless the process dies first
+                Log.e(TAG, "Cannot save " + entry.getKey() + " to the outbox", e);
+            }
+            publish();
+            if (listener != null && queued != null) {
+                if (queued.getStatus() == OutboxEntry.Status.SENT
+                        || queued.getStatus() == OutboxEntry.Status.REJECTED) {
+                    notify(listener, queued);
+                } else if (!online || listeners.containsKey(queued.getKey())) {
+                    notifyDeferred(listener, queued);
+                } else {
+                    String key = queued.getKey();
+                    listeners.put(key, listener);
+                    mainHandler.postDelayed(() -> execute(() -> {
+                        WriteListener waiting = listeners.remove(key);
+                        OutboxEntry current = queue.get(key);
+                        if (waiting != null && current != null) {
+                            notifyDeferred(waiting, current);
+                        }
+                    }), LISTENER_TIMEOUT_MS);
+                }
+            }
+            flush();
+        });
+    }
+
+    /**
+     * Adds a listener for every write sent from now on. Add it before the first write can
+     * complete, such as right after {@link #getInstance(Context)}, to see writes left over
+     * from earlier sessions too.
+     */
+    public void addSentListener(SentListener listener) {
+        sentListeners.add(listener);
+    }
+
+    /**
+     * @return Undelivered and recently delivered writes, oldest first
+     */
+    public LiveData<List<OutboxEntry>> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Must be called on the main thread.
+     * @return The state of one write, or null while it is not in the outbox
+     */
+    public LiveData<OutboxEntry> getEntry(String collection, String documentId) {
+        String key = OutboxEntry.keyOf(collection, documentId);
+        MediatorLiveData<OutboxEntry> entry = new MediatorLiveData<>();
+        entry.addSource(entries, all -> {
+            OutboxEntry match = null;
+            for (OutboxEntry candidate : all) {
+                if (candidate.getKey().equals(key)) {
+                    match = candidate;
+                    break;
+                }
+            }
+            if (match != entry.getValue()) {
+                entry.setValue(match);
+            }
+        });
+        return entry;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    /**
+     * Sends a rejected write again, for example after the user fixed their account.
+     */
+    public void retry(String collection, String documentId) {
+        String key = OutboxEntry.keyOf(collection, documentId);
+        execute(() -> {
+            try {
+                if (queue.retry(key, System.currentTimeMillis())) {
+                    publish();
+                    flush();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot save retry of " + key, e);
+            }
+        });
+    }
+
+    /**
+     * Gives up on a rejected write.
+     */
+    public void discard(String collection, String documentId) {
+        String key = OutboxEntry.keyOf(collection, documentId);
+        execute(() -> {
+            try {
+                if (queue.discard(key)) {
+                    publish();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot discard " + key, e);
+            }
+        });
+    }
+
+    /** Sends every due entry and schedules the next retry. Runs on the executor */
+    private void flush() {
+        mainHandler.removeCallbacks(flushTask);
+        if (!online) {
+            return;
+        }
+        List<OutboxEntry> due = queue.takeDue(System.currentTimeMillis());
+        for (OutboxEntry entry : due) {
+            send(entry);
+        }
+        if (!due.isEmpty()) {
+            publish();
+        }
+        scheduleNextFlush();
+    }
+
+    private void send(OutboxEntry entry) {
+        DocumentReference document = firestore.collection(entry.getCollection()).document(entry.getDocumentId());
+        Task<Void> write;
+        if (!queue.mayHaveBeenSent(entry.getKey())) {
+            write = write(document, entry);
+        } else {
+            // An earlier attempt, possibly by a process that has since died, may have reached
+            // the server without its answer reaching us, and the document may have been
+            // claimed or updated since. Create it only if it is still missing, in a transaction
+            // so nothing written in between is overwritten. Linked documents are written
+            // together with it, so they exist if it does
+            write = firestore.runTransaction(transaction -> {
+                if (!transaction.get(document).exists()) {
+                    transaction.set(document, entry.getFields());
+                    for (OutboxEntry.LinkedDocument linked : entry.getLinkedDocuments()) {
+                        transaction.set(firestore.collection(linked.getCollection()).document(linked.getDocumentId()),
+                                linked.getFields());
+                    }
+                }
+                return null;
+            });
+        }
+        write.addOnCompleteListener(executor, task -> {
+            if (task.isSuccessful()) {
+                onSent(entry.getKey());
+            } else {
+                onFailed(entry.getKey(), task.getException());
+            }
+        });
+    }
+
+    private Task<Void> write(DocumentReference document, OutboxEntry entry) {
+        if (entry.getLinkedDocuments().isEmpty()) {
+            return document.set(entry.getFields());
+        }
+        WriteBatch batch = firestore.batch();
+        batch.set(document, entry.getFields());
+        for (OutboxEntry.LinkedDocument linked : entry.getLinkedDocuments()) {
+            batch.set(firestore.collection(linked.getCollection()).document(linked.getDocumentId()),
+                    linked.getFields());
+        }
+        return batch.commit();
+    }
+
+    private void onSent(String key) {
+        OutboxEntry sent;
+        try {
+            sent = queue.markSent(key);
+        } catch (IOException e) {
+            // The entry is delivered; at worst it is checked against the server again after a restart
+            Log.e(TAG, "Cannot remove " + key + " from the outbox", e);
+            sent = queue.get(key);
+        }
+        WriteListener listener = listeners.remove(key);
+        if (sent != null && listener != null) {
+            notify(listener, sent);
+        }
+        if (sent != null) {
+            OutboxEntry entry = sent;
+            for (SentListener sentListener : sentListeners) {
+                mainHandler.post(() -> sentListener.onSent(entry));
+            }
+        }
+        publish();
+    }
+
+    private void onFailed(String key, @Nullable Exception error) {
+        boolean permanent = isPermanent(error);
+        String message = error != null && error.getMessage() != null ? error.getMessage() : "Unknown error";
+        Log.w(TAG, (permanent ? "Rejected " : "Will retry ") + key + ": " + message);
+        OutboxEntry failed;
+        try {
+            failed = queue.markFailed(key, message, permanent, System.currentTimeMillis());
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot save failure of " + key, e);
+            failed = queue.get(key);
+        }
+        WriteListener listener = listeners.remove(key);
+        if (failed != null && listener != null) {
+            if (permanent) {
+                notify(listener, failed);
+            } else {
+                notifyDeferred(listener, failed);
+            }
+        }
+        publish();
+        scheduleNextFlush();
+    }
+
+    /** Errors that retrying the same write cannot fix */
+    private static boolean isPermanent(@Nullable Exception error) {
+        if (error instanceof FirebaseFirestoreException) {
+            switch (((FirebaseFirestoreException) error).getCode()) {
+                case INVALID_ARGUMENT:
+                case PERMISSION_DENIED:
+                case FAILED_PRECONDITION:
+                case OUT_OF_RANGE:
+                case UNIMPLEMENTED:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return error instanceof IllegalArgumentException;
+    }
+
+    private void scheduleNextFlush() {
+        long next = queue.nextAttemptAt();
+        if (online && next != Long.MAX_VALUE) {
+            mainHandler.postDelayed(flushTask, Math.max(0, next - System.currentTimeMillis()));
+        }
+    }
+
+    private void publish() {
+        entries.postValue(queue.snapshot());
+    }
+
+    private void notify(WriteListener listener, OutboxEntry entry) {
+        mainHandler.post(() -> {
+            if (entry.getStatus() == OutboxEntry.Status.SENT) {
+                listener.onSent(entry);
+            } else {
+                listener.onRejected(entry);
+            }
+        });
+    }
+
+    private void notifyDeferred(WriteListener listener, OutboxEntry entry) {
+        mainHandler.post(() -> listener.onDeferred(entry));
+    }
+
+    private void execute(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Outbox task failed", e);
+            }
+        });
+    }
+
+    private void registerNetworkCallback(Context context) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            online = true;
+            return;
+        }
+        NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(
+                connectivityManager.getActiveNetwork());
+        online = capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        try {
+            connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    online = true;
+                    execute(() -> {
+                        queue.makePendingDue(System.currentTimeMillis());
+                        flush();
+                    });
+                }
+
+                @Override
+                public void onLost(@NonNull Network network) {
+                    online = false;
+                }
+            });
+        } catch (RuntimeException e) {
+            // Without callbacks, assume connectivity and rely on the retry schedule
+            Log.e(TAG, "Cannot watch connectivity", e);
+            online = true;
+        }
+    }
+}
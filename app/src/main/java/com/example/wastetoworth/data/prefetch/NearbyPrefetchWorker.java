@@ -0,0 +1,204 @@
+package com.example.wastetoworth.data.prefetch;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.wastetoworth.MapMarkerLayer;
+import com.example.wastetoworth.data.DonationSummaries;
+import com.example.wastetoworth.data.GeocodingService;
+import com.example.wastetoworth.util.GeoHash;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically fetches the donations volunteers are about to look at, so that their screens
+ * open on warm data.
+ *
+ * Results are read from the server and so land in Firestore's disk cache. Snapshot
+ * listeners answer from that cache first and then reconcile with the server, so the first
+ * snapshot of the volunteer and order screens arrives without waiting for the network.
+ * Addresses of fetched donations without coordinates are geocoded into the
+ * {@link GeocodingService} cache.
+ *
+ * Runs only on an unmetered network or while charging. WorkManager constraints must all
+ * hold, so each of the two conditions has its own periodic request; a run shortly after
+ * the other request's run is skipped.
+ */
+public class NearbyPrefetchWorker extends Worker {
+    private static final String TAG = "NearbyPrefetchWorker";
+    private static final String WORK_UNMETERED = "nearby-prefetch-unmetered";
+    private static final String WORK_CHARGING = "nearby-prefetch-charging";
+    private static final String PREFS_NAME = "nearby_prefetch";
+    private static final String KEY_LAST_PREFETCH = "last_prefetch";
+    private static final long INTERVAL_HOURS = 4;
+    /** Runs closer together than this, from the other request, are skipped */
+    private static final long MIN_SPACING_MS = TimeUnit.HOURS.toMillis(INTERVAL_HOURS) / 2;
+    private static final long TIMEOUT_SECONDS = 60;
+    /** Same radius as the recommendations volunteers and receivers see */
+    private static final double NEARBY_RADIUS_KM = 25.0;
+    /** Newest donations and summaries fetched, matching the list screens */
+    private static final int RECENT_LIMIT = 50;
+
+    public NearbyPrefetchWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the periodic prefetch, keeping any schedule already in place.
+     */
+    public static void schedule(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        workManager.enqueueUniquePeriodicWork(WORK_UNMETERED, ExistingPeriodicWorkPolicy.KEEP,
+                request(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.UNMETERED)
+                        .build()));
+        workManager.enqueueUniquePeriodicWork(WORK_CHARGING, ExistingPeriodicWorkPolicy.KEEP,
+                request(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresCharging(true)
+                        .build()));
+    }
+
+    private static PeriodicWorkRequest request(Constraints constraints) {
+        return new PeriodicWorkRequest.Builder(NearbyPrefetchWorker.class, INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        // Donations are only readable when signed in
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            return Result.success();
+        }
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long now = System.currentTimeMillis();
+        if (now - prefs.getLong(KEY_LAST_PREFETCH, 0) < MIN_SPACING_MS) {
+            return Result.success();
+        }
+
+        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
+        List<Task<QuerySnapshot>> fetches = new ArrayList<>();
+        Query donations = firestore.collection(DonationSummaries.SOURCE_COLLECTION);
+        fetches.add(donations.orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(RECENT_LIMIT)
+                .get(Source.SERVER));
+        fetches.add(firestore.collection(DonationSummaries.COLLECTION)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(RECENT_LIMIT)
+                .get(Source.SERVER));
+        Location location = lastKnownLocation();
+        if (location != null) {
+            for (String[] bound : GeoHash.queryBounds(location.getLatitude(), location.getLongitude(), NEARBY_RADIUS_KM)) {
+                fetches.add(donations.whereEqualTo("status", "available")
+                        .orderBy(GeoHash.FIELD_GEOHASH)
+                        .startAt(bound[0])
+                        .endAt(bound[1])
+                        .get(Source.SERVER));
+            }
+        }
+
+        Set<String> addresses = new LinkedHashSet<>();
+        int documentCount = 0;
+        try {
+            for (QuerySnapshot result : Tasks.await(Tasks.<QuerySnapshot>whenAllSuccess(fetches), TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                for (DocumentSnapshot document : result.getDocuments()) {
+                    documentCount++;
+                    String address = document.getString("address");
+                    if (address != null && !address.isEmpty() && MapMarkerLayer.readPosition(document) == null) {
+                        addresses.add(address);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Prefetch failed: " + e.getMessage());
+            return Result.retry();
+        }
+
+        int geocoded = geocode(addresses);
+        prefs.edit().putLong(KEY_LAST_PREFETCH, now).apply();
+        Log.d(TAG, "Prefetched " + documentCount + " donations, geocoded " + geocoded + " of "
+                + addresses.size() + " addresses" + (location == null ? " without a location" : ""));
+        return Result.success();
+    }
+
+    /**
+     * @return The device's last known location, or null if it is unknown or may not be read
+     */
+    @Nullable
+    private Location lastKnownLocation() {
+        Context context = getApplicationContext();
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return null;
+        }
+        try {
+            return Tasks.await(LocationServices.getFusedLocationProviderClient(context).getLastLocation(),
+                    TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // Background location access may be denied even with the foreground permission
+            Log.d(TAG, "No last known location: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Resolves addresses into the geocoding cache, which must be used from the main thread.
+     * @return Number of addresses resolved
+     */
+    private int geocode(Set<String> addresses) {
+        if (addresses.isEmpty()) {
+            return 0;
+        }
+        GeocodingService geocoding = GeocodingService.getInstance(getApplicationContext());
+        CountDownLatch done = new CountDownLatch(1);
+        int[] resolved = new int[1];
+        new Handler(Looper.getMainLooper()).post(() -> geocoding.geocodeAll(addresses, results -> {
+            resolved[0] = results.size();
+            done.countDown();
+        }));
+        try {
+            if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.w(TAG, "Geocoding timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        geocoding.flush();
+        return resolved[0];
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.wastetoworth.ml;
+
+/**
+ * Chooses how a TensorFlow Lite model is executed on this device.
+ */
+public final class AccelerationPolicy {
+
+    /**
+     * Ways of executing a model, from most to least specialised.
+     */
+    public enum Acceleration {
+        /** GPU delegate */
+        GPU,
+        /** Android Neural Networks API delegate */
+        NNAPI,
+        /** Multi-threaded CPU with the XNNPACK delegate */
+        XNNPACK,
+        /** Plain multi-threaded CPU kernels */
+        CPU
+    }
+
+    /** NNAPI drivers before Android 9 are often slower than the CPU */
+    static final int MIN_NNAPI_SDK = 28;
+    private static final int MAX_THREADS = 4;
+
+    private AccelerationPolicy() {
+        // Utility class
+    }
+
+    /**
+     * Picks the preferred acceleration. GPU and NNAPI are opt-in because their
+     * numerics and speed vary by device; XNNPACK is the default.
+     */
+    public static Acceleration choose(int sdkInt, boolean allowGpu, boolean gpuSupported, boolean allowNnapi) {
+        if (allowGpu && gpuSupported) {
+            return Acceleration.GPU;
+        }
+        if (allowNnapi && sdkInt >= MIN_NNAPI_SDK) {
+            return Acceleration.NNAPI;
+        }
+        return Acceleration.XNNPACK;
+    }
+
+    /**
+     * Returns the acceleration to retry with when creating an interpreter with the given one fails.
+     * @return The fallback, or null if there is nothing left to try
+     */
+    public static Acceleration fallback(Acceleration failed) {
+        switch (failed) {
+            case GPU:
+            case NNAPI:
+                return Acceleration.XNNPACK;
+            case XNNPACK:
+                return Acceleration.CPU;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * CPU threads for inference: half the cores, leaving the rest to the UI, between 1 and 4.
+     */
+    public static int threadCount(int availableProcessors) {
+        return Math.max(1, Math.min(MAX_THREADS, availableProcessors / 2));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.wastetoworth.ml;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Two-stage pipeline for classifying a batch of inputs.
+ *
+ * The prepare stage (decoding and preprocessing) runs on a worker pool while the
+ * calling thread runs the infer stage, so that the next images are decoded while the
+ * current one is being classified. At most maxInFlight prepared inputs exist at any
+ * time: a new input is only submitted for preparation once an earlier one has been
+ * consumed, which bounds memory no matter how large the batch is.
+ *
+ * A failure in either stage fails only that item.
+ */
+public final class BatchPipeline {
+
+    /**
+     * One stage of the pipeline.
+     */
+    public interface Stage<A, B> {
+        B apply(int index, A input) throws Exception;
+    }
+
+    /**
+     * Receives each item's outcome on the calling thread, in completion order.
+     */
+    public interface Listener<R> {
+        void onItemComplete(int index, Outcome<R> outcome);
+    }
+
+    /**
+     * Result or failure of one item.
+     */
+    public static final class Outcome<R> {
+        @Nullable
+        public final R result;
+        @Nullable
+        public final Exception error;
+
+        Outcome(@Nullable R result, @Nullable Exception error) {
+            this.result = result;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private BatchPipeline() {
+        // Utility class
+    }
+
+    /**
+     * Runs the batch, blocking the calling thread until every item has completed.
+     *
+     * @param prepareExecutor Pool for the prepare stage
+     * @param maxInFlight     Maximum number of items submitted or prepared but not yet inferred
+     * @param listener        Notified as each item completes, or null
+     * @return One outcome per input, in input order
+     * @throws InterruptedException if the calling thread is interrupted; items still being
+     *                              prepared are left to finish on the pool
+     */
+    public static <I, P, R> List<Outcome<R>> run(List<I> inputs, Executor prepareExecutor, int maxInFlight,
+                                                 Stage<I, P> prepare, Stage<P, R> infer,
+                                                 @Nullable Listener<R> listener) throws InterruptedException {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in flight must be greater than 0");
+        }
+        int count = inputs.size();
+        List<Outcome<R>> outcomes = new ArrayList<>(Collections.nCopies(count, (Outcome<R>) null));
+        CompletionService<Prepared<P>> completion = new ExecutorCompletionService<>(prepareExecutor);
+
+        int submitted = 0;
+        int inFlight = 0;
+        for (int completed = 0; completed < count; completed++) {
+            while (submitted < count && inFlight < maxInFlight) {
+                int index = submitted++;
+                I input = inputs.get(index);
+                completion.submit(() -> {
+                    try {
+                        return new Prepared<>(index, prepare.apply(index, input), null);
+                    } catch (Exception e) {
+                        return new Prepared<>(index, null, e);
+                    }
+                });
+                inFlight++;
+            }
+
+            Future<Prepared<P>> next = completion.take();
+            inFlight--;
+            Prepared<P> prepared;
+            try {
+                prepared = next.get();
+            } catch (ExecutionException e) {
+                // The prepare task catches its own exceptions, so only Errors get here
+                throw new IllegalStateException(e.getCause());
+            }
+
+            Outcome<R> outcome;
+            if (prepared.error != null) {
+                outcome = new Outcome<>(null, prepared.error);
+            } else {
+                try {
+                    outcome = new Outcome<>(infer.apply(prepared.index, prepared.value), null);
+                } catch (Exception e) {
+                    outcome = new Outcome<>(null, e);
+                }
+            }
+            outcomes.set(prepared.index, outcome);
+            if (listener != null) {
+                listener.onItemComplete(prepared.index, outcome);
+            }
+        }
+        return outcomes;
+    }
+
+    private static final class Prepared<P> {
+        final int index;
+        final P value;
+        final Exception error;
+
+        Prepared(int index, @Nullable P value, @Nullable Exception error) {
+            this.index = index;
+            this.value = value;
+            this.error = error;
+        }
+    }
+}
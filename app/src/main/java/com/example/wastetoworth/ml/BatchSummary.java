@@ -0,0 +1,118 @@
+package com.example.wastetoworth.ml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Combined view of a classified batch: what was found, how much of it can be donated,
+ * and how fast the batch ran.
+ */
+public final class BatchSummary {
+    private final Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+    private final Map<String, Integer> freshnessCounts = new LinkedHashMap<>();
+    private int classified = 0;
+    private int failed = 0;
+    private int donatable = 0;
+    private long elapsedNanos = 0;
+
+    /**
+     * Records a classified item.
+     */
+    public void add(String category, String freshness, boolean isDonatable) {
+        classified++;
+        if (isDonatable) donatable++;
+        increment(categoryCounts, category);
+        increment(freshnessCounts, freshness);
+    }
+
+    /**
+     * Records an item that could not be classified.
+     */
+    public void addFailure() {
+        failed++;
+    }
+
+    /**
+     * Records the wall-clock duration of the whole batch.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getTotal() {
+        return classified + failed;
+    }
+
+    public int getClassified() {
+        return classified;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getDonatable() {
+        return donatable;
+    }
+
+    /** @return Item count per category, in first-seen order */
+    public Map<String, Integer> getCategoryCounts() {
+        return Collections.unmodifiableMap(categoryCounts);
+    }
+
+    /** @return Item count per freshness grade, in first-seen order */
+    public Map<String, Integer> getFreshnessCounts() {
+        return Collections.unmodifiableMap(freshnessCounts);
+    }
+
+    /** @return The most frequent category, or null if nothing was classified */
+    public String getDominantCategory() {
+        String dominant = null;
+        int best = 0;
+        for (Map.Entry<String, Integer> entry : categoryCounts.entrySet()) {
+            if (entry.getValue() > best) {
+                best = entry.getValue();
+                dominant = entry.getKey();
+            }
+        }
+        return dominant;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    /** @return Images processed per second, including failed ones */
+    public double getImagesPerSecond() {
+        return elapsedNanos > 0 ? getTotal() * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    /**
+     * @return Donation advice for the batch as a whole
+     */
+    public List<String> getRecommendations() {
+        List<String> recommendations = new ArrayList<>();
+        if (donatable > 0) {
+            recommendations.add(donatable + " of " + getTotal() + " items are suitable for donation.");
+        }
+        if (categoryCounts.containsKey("Prepared Food")) {
+            recommendations.add("Prepared food should be donated within 2 hours for food safety.");
+        }
+        if (donatable > 5) {
+            recommendations.add("Large donation! Consider contacting an NGO for pickup service.");
+        }
+        int poor = freshnessCounts.containsKey("Poor") ? freshnessCounts.get("Poor") : 0;
+        if (poor > 0) {
+            recommendations.add(poor + " items look spoiled. Consider composting them instead.");
+        }
+        return recommendations;
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.wastetoworth.ml;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes and scales images for classification without ever holding a
+ * full-resolution copy in memory.
+ */
+public final class BitmapDecoder {
+
+    private BitmapDecoder() {
+        // Utility class
+    }
+
+    /**
+     * Decodes an image, subsampled so that it is no smaller than minSize on its shorter side.
+     * The pixel buffer is taken from the pool when a large enough bitmap is available.
+     *
+     * @throws IOException if the image cannot be read or decoded
+     */
+    public static Bitmap decodeSampled(ContentResolver resolver, Uri uri, int minSize, BitmapPool pool)
+            throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) throw new IOException("Cannot open " + uri);
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not an image: " + uri);
+        }
+
+        int sampleSize = calculateInSampleSize(options.outWidth, options.outHeight, minSize);
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        int sampledWidth = (options.outWidth + sampleSize - 1) / sampleSize;
+        int sampledHeight = (options.outHeight + sampleSize - 1) / sampleSize;
+        options.inBitmap = pool.getReusable(sampledWidth * sampledHeight * 4);
+
+        Bitmap decoded;
+        try {
+            decoded = decode(resolver, uri, options);
+        } catch (IllegalArgumentException e) {
+            // The pooled bitmap could not be reused for this image
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            decoded = decode(resolver, uri, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Cannot decode " + uri);
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns the largest power-of-two sample size that keeps the shorter side
+     * of the decoded image at least minSize pixels.
+     */
+    public static int calculateInSampleSize(int width, int height, int minSize) {
+        int shorter = Math.min(width, height);
+        int sampleSize = 1;
+        while (shorter / (sampleSize * 2) >= minSize) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Scales a bitmap so that its longer side is at most maxSize, keeping its aspect ratio.
+     * Returns the source itself if it is already small enough; otherwise the result comes
+     * from the pool and should be returned to it when no longer needed.
+     */
+    public static Bitmap scaleToFit(Bitmap source, int maxSize, BitmapPool pool) {
+        int longer = Math.max(source.getWidth(), source.getHeight());
+        if (longer <= maxSize) {
+            return source;
+        }
+        float scale = (float) maxSize / longer;
+        int width = Math.max(1, Math.round(source.getWidth() * scale));
+        int height = Math.max(1, Math.round(source.getHeight() * scale));
+        Bitmap scaled = pool.get(width, height, Bitmap.Config.ARGB_8888);
+        new Canvas(scaled).drawBitmap(source, null, new Rect(0, 0, width, height),
+                new Paint(Paint.FILTER_BITMAP_FLAG));
+        return scaled;
+    }
+
+    private static Bitmap decode(ContentResolver resolver, Uri uri, BitmapFactory.Options options)
+            throws IOException {
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) throw new IOException("Cannot open " + uri);
+            return BitmapFactory.decodeStream(in, null, options);
+        }
+    }
+}
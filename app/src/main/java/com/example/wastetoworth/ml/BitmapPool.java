@@ -0,0 +1,107 @@
+package com.example.wastetoworth.ml;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Size-bounded pool of mutable bitmaps.
+ *
+ * Bitmaps are handed back with {@link #put(Bitmap)} once nothing draws them any more,
+ * and reused as decode targets ({@link #getReusable(int)}) or scaling targets
+ * ({@link #get(int, int, Bitmap.Config)}) instead of allocating a new pixel buffer for
+ * every image. When the pool exceeds its byte budget the least recently pooled bitmaps
+ * are recycled. All methods are thread-safe.
+ */
+public class BitmapPool {
+    private final long maxBytes;
+    private final LinkedList<Bitmap> bitmaps = new LinkedList<>();
+    private long currentBytes = 0;
+
+    /**
+     * @param maxBytes Total pixel bytes the pool may hold
+     */
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a bitmap of exactly the given size and config, reused if possible.
+     * Reused bitmaps are cleared to transparent.
+     */
+    public Bitmap get(int width, int height, Bitmap.Config config) {
+        synchronized (this) {
+            Iterator<Bitmap> iterator = bitmaps.iterator();
+            while (iterator.hasNext()) {
+                Bitmap bitmap = iterator.next();
+                if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                    iterator.remove();
+                    currentBytes -= bitmap.getAllocationByteCount();
+                    bitmap.eraseColor(0);
+                    return bitmap;
+                }
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Removes and returns a bitmap whose allocation can hold byteCount bytes,
+     * for use as {@link android.graphics.BitmapFactory.Options#inBitmap}.
+     * @return The smallest such bitmap, or null if none is pooled
+     */
+    @Nullable
+    public synchronized Bitmap getReusable(int byteCount) {
+        Bitmap best = null;
+        for (Bitmap bitmap : bitmaps) {
+            int size = bitmap.getAllocationByteCount();
+            if (size >= byteCount && (best == null || size < best.getAllocationByteCount())) {
+                best = bitmap;
+            }
+        }
+        if (best != null) {
+            bitmaps.remove(best);
+            currentBytes -= best.getAllocationByteCount();
+        }
+        return best;
+    }
+
+    /**
+     * Returns a bitmap to the pool. The caller must not use it afterwards.
+     * Immutable and recycled bitmaps are ignored.
+     */
+    public void put(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        synchronized (this) {
+            if (bitmaps.contains(bitmap)) return;
+            bitmaps.addLast(bitmap);
+            currentBytes += size;
+            while (currentBytes > maxBytes) {
+                Bitmap evicted = bitmaps.removeFirst();
+                currentBytes -= evicted.getAllocationByteCount();
+                evicted.recycle();
+            }
+        }
+    }
+
+    /**
+     * Recycles every pooled bitmap.
+     */
+    public synchronized void clear() {
+        for (Bitmap bitmap : bitmaps) {
+            bitmap.recycle();
+        }
+        bitmaps.clear();
+        currentBytes = 0;
+    }
+}
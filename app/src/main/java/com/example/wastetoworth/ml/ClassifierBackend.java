@@ -0,0 +1,35 @@
+package com.example.wastetoworth.ml;
+
+import android.graphics.Bitmap;
+
+import java.util.List;
+
+/**
+ * An on-device model that labels an image.
+ *
+ * Implementations may block and are called from the classifier thread only.
+ */
+public interface ClassifierBackend {
+
+    /**
+     * @return Short name used in logs
+     */
+    String getName();
+
+    /**
+     * @return Side of the square input the model expects, in pixels
+     */
+    int getInputSize();
+
+    /**
+     * Labels an image.
+     * @return Labels ordered by descending confidence
+     * @throws Exception if inference fails
+     */
+    List<Label> infer(Bitmap image) throws Exception;
+
+    /**
+     * Releases the model. The backend must not be used afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,230 @@
+package com.example.wastetoworth.ml;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable inverted index from label terms to food categories.
+ *
+ * Each term is indexed together with its plural forms, so "apples" and "berries" need
+ * no stemming at lookup time. Keys live in an open-addressing table probed with a
+ * case-insensitive hash computed over the label's characters, so a lookup is O(1)
+ * in the number of terms and allocates nothing.
+ *
+ * Taxonomies are defined in a line-based text format:
+ * <pre>
+ * # comment
+ * Fruits: fruit, apple, banana
+ * produce = vegetable
+ * </pre>
+ * "Category: term, ..." adds terms to a category, and "alias = term" files an alias
+ * under the category of an already defined term. When a term is defined twice, the
+ * first definition wins.
+ */
+public final class FoodTaxonomy {
+
+    /** ID returned when a label matches no category */
+    public static final int NO_CATEGORY = -1;
+
+    /** Built-in taxonomy, used when no taxonomy asset is bundled */
+    public static final String DEFAULT_DEFINITION =
+            "Fruits: fruit, apple, banana, orange, grape, berry\n"
+            + "Vegetables: vegetable, carrot, potato, tomato, lettuce, broccoli\n"
+            + "Grains: bread, rice, pasta, cereal, grain\n"
+            + "Dairy: milk, cheese, yogurt, dairy\n"
+            + "Protein: meat, chicken, fish, egg, bean\n"
+            + "Prepared Food: meal, dish, food, cuisine\n"
+            + "veggie = vegetable\n"
+            + "produce = vegetable\n"
+            + "loaf = bread\n"
+            + "noodle = pasta\n"
+            + "poultry = chicken\n"
+            + "seafood = fish\n"
+            + "legume = bean\n"
+            + "lentil = bean\n";
+
+    private final List<String> categories;
+    private final String[] keys;
+    private final int[] categoryIds;
+    private final int mask;
+
+    private FoodTaxonomy(List<String> categories, Map<String, Integer> terms) {
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+        int capacity = Integer.highestOneBit(Math.max(4, terms.size() * 2) - 1) << 1;
+        this.keys = new String[capacity];
+        this.categoryIds = new int[capacity];
+        this.mask = capacity - 1;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            String key = term.getKey();
+            int slot = hash(key, 0, key.length()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            categoryIds[slot] = term.getValue();
+        }
+    }
+
+    /**
+     * Parses a taxonomy definition.
+     * @throws IOException if the definition cannot be read or is malformed
+     */
+    public static FoodTaxonomy parse(Reader definition) throws IOException {
+        List<String> categories = new ArrayList<>();
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(definition);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            int colon = line.indexOf(':');
+            int equals = line.indexOf('=');
+            if (colon > 0) {
+                String category = line.substring(0, colon).trim();
+                int id = categories.indexOf(category);
+                if (id < 0) {
+                    id = categories.size();
+                    categories.add(category);
+                }
+                for (String term : line.substring(colon + 1).split(",")) {
+                    addTerm(terms, term, id);
+                }
+            } else if (equals > 0) {
+                String alias = line.substring(0, equals);
+                String target = normalize(line.substring(equals + 1));
+                Integer id = terms.get(target);
+                if (id == null) {
+                    throw new IOException("Line " + lineNumber + ": unknown term '" + target + "'");
+                }
+                addTerm(terms, alias, id);
+            } else {
+                throw new IOException("Line " + lineNumber + ": expected 'Category: terms' or 'alias = term'");
+            }
+        }
+        return new FoodTaxonomy(categories, terms);
+    }
+
+    /**
+     * @return The built-in taxonomy
+     */
+    public static FoodTaxonomy createDefault() {
+        try {
+            return parse(new StringReader(DEFAULT_DEFINITION));
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid built-in taxonomy", e);
+        }
+    }
+
+    /**
+     * Looks up a label, first as a whole and then word by word.
+     * @return The category ID, or {@link #NO_CATEGORY}
+     */
+    public int lookup(String label) {
+        int length = label.length();
+        int whole = find(label, 0, length);
+        if (whole != NO_CATEGORY) {
+            return whole;
+        }
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isSeparator(label.charAt(i))) {
+                if (i > start && (start > 0 || i < length)) {
+                    int id = find(label, start, i);
+                    if (id != NO_CATEGORY) {
+                        return id;
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        return NO_CATEGORY;
+    }
+
+    /**
+     * @return The category name for an ID from {@link #lookup(String)}
+     */
+    public String categoryName(int id) {
+        return categories.get(id);
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    private int find(String text, int start, int end) {
+        int length = end - start;
+        int slot = hash(text, start, end) & mask;
+        while (true) {
+            String key = keys[slot];
+            if (key == null) {
+                return NO_CATEGORY;
+            }
+            if (key.length() == length && key.regionMatches(true, 0, text, start, length)) {
+                return categoryIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Case-insensitive string hash over text[start, end), spread for power-of-two tables */
+    private static int hash(String text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + Character.toLowerCase(text.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-' || c == '_' || c == '/';
+    }
+
+    private static String normalize(String term) {
+        return term.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void addTerm(Map<String, Integer> terms, String rawTerm, int id) {
+        String term = normalize(rawTerm);
+        if (term.isEmpty()) return;
+        for (String form : inflections(term)) {
+            if (!terms.containsKey(form)) {
+                terms.put(form, id);
+            }
+        }
+    }
+
+    /**
+     * Returns a term with its English plural forms.
+     */
+    static List<String> inflections(String term) {
+        List<String> forms = new ArrayList<>(3);
+        forms.add(term);
+        int length = term.length();
+        char last = term.charAt(length - 1);
+        if (length > 1 && last == 'y' && !isVowel(term.charAt(length - 2))) {
+            forms.add(term.substring(0, length - 1) + "ies");
+        } else if (last == 's' || last == 'x' || last == 'z' || last == 'o'
+                || term.endsWith("ch") || term.endsWith("sh")) {
+            forms.add(term + "es");
+        }
+        if (last != 's') {
+            forms.add(term + "s");
+        }
+        return forms;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.wastetoworth.ml;
+
+/**
+ * A label produced by a classifier backend, with its confidence in [0, 1].
+ */
+public final class Label {
+    private final String text;
+    private final float confidence;
+
+    public Label(String text, float confidence) {
+        this.text = text;
+        this.confidence = confidence;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.wastetoworth.ml;
+
+import android.graphics.Bitmap;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.label.ImageLabel;
+import com.google.mlkit.vision.label.ImageLabeler;
+import com.google.mlkit.vision.label.ImageLabeling;
+import com.google.mlkit.vision.label.defaults.ImageLabelerOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend using the ML Kit base image labeling model.
+ */
+public class MlKitBackend implements ClassifierBackend {
+    /** Input resolution of the ML Kit base labeling model */
+    public static final int INPUT_SIZE = 224;
+
+    private final ImageLabeler imageLabeler;
+
+    /**
+     * @param confidenceThreshold Labels below this confidence are dropped
+     */
+    public MlKitBackend(float confidenceThreshold) {
+        ImageLabelerOptions options = new ImageLabelerOptions.Builder()
+                .setConfidenceThreshold(confidenceThreshold)
+                .build();
+        imageLabeler = ImageLabeling.getClient(options);
+    }
+
+    @Override
+    public String getName() {
+        return "mlkit";
+    }
+
+    @Override
+    public int getInputSize() {
+        return INPUT_SIZE;
+    }
+
+    @Override
+    public List<Label> infer(Bitmap image) throws Exception {
+        List<ImageLabel> labels = Tasks.await(imageLabeler.process(InputImage.fromBitmap(image, 0)));
+        List<Label> result = new ArrayList<>(labels.size());
+        for (ImageLabel label : labels) {
+            result.add(new Label(label.getText(), label.getConfidence()));
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        imageLabeler.close();
+    }
+}
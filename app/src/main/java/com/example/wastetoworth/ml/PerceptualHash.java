@@ -0,0 +1,84 @@
+package com.example.wastetoworth.ml;
+
+import android.graphics.Bitmap;
+
+/**
+ * 64-bit difference hash (dHash) of an image.
+ *
+ * The image is reduced to a 9x8 grid of average brightness, and each bit records whether
+ * a cell is darker than its right-hand neighbour. Re-encoding, rescaling, small crops and
+ * exposure changes flip few bits, so photos of the same scene have hashes a small
+ * {@link #distance(long, long) Hamming distance} apart while unrelated photos differ
+ * in about half of their bits.
+ */
+public final class PerceptualHash {
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+
+    private PerceptualHash() {
+        // Utility class
+    }
+
+    /**
+     * Hashes a bitmap. Reads every pixel, so pass a bitmap already scaled down to
+     * classification size rather than a full-resolution photo.
+     */
+    public static long dHash(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        return dHash(pixels, width, height);
+    }
+
+    /**
+     * Hashes ARGB pixels stored row by row.
+     */
+    public static long dHash(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Expected " + width + "x" + height + " pixels");
+        }
+        long[] grid = new long[GRID_WIDTH * GRID_HEIGHT];
+        for (int cy = 0; cy < GRID_HEIGHT; cy++) {
+            int y0 = cy * height / GRID_HEIGHT;
+            int y1 = Math.max(y0 + 1, (cy + 1) * height / GRID_HEIGHT);
+            for (int cx = 0; cx < GRID_WIDTH; cx++) {
+                int x0 = cx * width / GRID_WIDTH;
+                int x1 = Math.max(x0 + 1, (cx + 1) * width / GRID_WIDTH);
+                long sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    int row = y * width;
+                    for (int x = x0; x < x1; x++) {
+                        sum += luma(pixels[row + x]);
+                    }
+                }
+                grid[cy * GRID_WIDTH + cx] = sum / ((long) (x1 - x0) * (y1 - y0));
+            }
+        }
+
+        long hash = 0;
+        for (int cy = 0; cy < GRID_HEIGHT; cy++) {
+            for (int cx = 0; cx < GRID_WIDTH - 1; cx++) {
+                int cell = cy * GRID_WIDTH + cx;
+                hash = (hash << 1) | (grid[cell] < grid[cell + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return Number of differing bits, from 0 for identical hashes to 64
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /** Integer approximation of Rec. 601 luma, 0-255 */
+    private static int luma(int argb) {
+        int r = (argb >> 16) & 0xff;
+        int g = (argb >> 8) & 0xff;
+        int b = argb & 0xff;
+        return (77 * r + 150 * g + 29 * b) >> 8;
+    }
+}
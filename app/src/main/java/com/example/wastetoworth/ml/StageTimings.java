@@ -0,0 +1,56 @@
+package com.example.wastetoworth.ml;
+
+import java.util.Locale;
+
+/**
+ * Wall-clock time spent in each stage of one classification.
+ */
+public final class StageTimings {
+
+    /**
+     * Stages of the classification pipeline, in execution order.
+     */
+    public enum Stage {
+        DECODE,
+        PREPROCESS,
+        INFER,
+        POSTPROCESS
+    }
+
+    private final long[] nanos = new long[Stage.values().length];
+
+    /**
+     * Adds elapsed time to a stage.
+     * @param startNanos Value of {@link System#nanoTime()} when the stage started
+     */
+    public void record(Stage stage, long startNanos) {
+        nanos[stage.ordinal()] += System.nanoTime() - startNanos;
+    }
+
+    public double getMillis(Stage stage) {
+        return nanos[stage.ordinal()] / 1_000_000.0;
+    }
+
+    public double getTotalMillis() {
+        long total = 0;
+        for (long stageNanos : nanos) {
+            total += stageNanos;
+        }
+        return total / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            builder.append(stage.name().toLowerCase(Locale.ROOT))
+                    .append('=')
+                    .append(String.format(Locale.ROOT, "%.1f", getMillis(stage)))
+                    .append("ms ");
+        }
+        return builder.append("total=")
+                .append(String.format(Locale.ROOT, "%.1f", getTotalMillis()))
+                .append("ms")
+                .toString();
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.wastetoworth.ml;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.wastetoworth.ml.AccelerationPolicy.Acceleration;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Delegate;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+import org.tensorflow.lite.gpu.CompatibilityList;
+import org.tensorflow.lite.gpu.GpuDelegate;
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Backend running a bundled TensorFlow Lite image classification model.
+ *
+ * The model is memory-mapped from an uncompressed asset, and a single {@link Interpreter}
+ * is kept for the life of the backend together with a preallocated input bitmap and
+ * input/output buffers, so an inference allocates no tensors or pixel memory.
+ * The model must take one [1, height, width, 3] RGB image (float32 or uint8) and
+ * return one [1, labels] score tensor.
+ */
+public class TfLiteBackend implements ClassifierBackend {
+    private static final String TAG = "TfLiteBackend";
+
+    /**
+     * Options for creating a backend.
+     */
+    public static final class Options {
+        /** Use the GPU delegate when the device supports it */
+        public boolean allowGpu = false;
+        /** Use NNAPI on devices where it is considered reliable */
+        public boolean allowNnapi = false;
+        /** CPU threads; 0 picks a count from the number of cores */
+        public int numThreads = 0;
+        /** Float inputs are normalised as (pixel - inputMean) / inputStd */
+        public float inputMean = 127.5f;
+        public float inputStd = 127.5f;
+    }
+
+    private final String name;
+    private final List<String> labels;
+    private final Interpreter interpreter;
+    @Nullable
+    private final Delegate delegate;
+    private final Acceleration acceleration;
+    private final int inputWidth;
+    private final int inputHeight;
+    private final boolean floatInput;
+    private final boolean floatOutput;
+    private final float outputScale;
+    private final int outputZeroPoint;
+    private final float inputMean;
+    private final float inputStd;
+
+    // Reused by every inference
+    private final Bitmap inputBitmap;
+    private final Canvas inputCanvas;
+    private final Rect inputRect;
+    private final Paint scalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final int[] pixels;
+    private final ByteBuffer inputBuffer;
+    private final ByteBuffer outputBuffer;
+    private final float[] scores;
+
+    private TfLiteBackend(String name, List<String> labels, Interpreter interpreter,
+                          @Nullable Delegate delegate, Acceleration acceleration, Options options) {
+        this.name = name;
+        this.labels = labels;
+        this.interpreter = interpreter;
+        this.delegate = delegate;
+        this.acceleration = acceleration;
+        this.inputMean = options.inputMean;
+        this.inputStd = options.inputStd;
+
+        Tensor input = interpreter.getInputTensor(0);
+        int[] inputShape = input.shape();
+        inputHeight = inputShape[1];
+        inputWidth = inputShape[2];
+        floatInput = input.dataType() == DataType.FLOAT32;
+
+        Tensor output = interpreter.getOutputTensor(0);
+        int labelCount = output.shape()[output.shape().length - 1];
+        if (labelCount != labels.size()) {
+            throw new IllegalArgumentException("Model has " + labelCount + " outputs but "
+                    + labels.size() + " labels");
+        }
+        floatOutput = output.dataType() == DataType.FLOAT32;
+        Tensor.QuantizationParams quantization = output.quantizationParams();
+        outputScale = quantization.getScale() != 0 ? quantization.getScale() : 1f / 255f;
+        outputZeroPoint = quantization.getZeroPoint();
+
+        inputBitmap = Bitmap.createBitmap(inputWidth, inputHeight, Bitmap.Config.ARGB_8888);
+        inputCanvas = new Canvas(inputBitmap);
+        inputRect = new Rect(0, 0, inputWidth, inputHeight);
+        pixels = new int[inputWidth * inputHeight];
+        inputBuffer = ByteBuffer.allocateDirect(pixels.length * 3 * (floatInput ? 4 : 1))
+                .order(ByteOrder.nativeOrder());
+        outputBuffer = ByteBuffer.allocateDirect(labelCount * (floatOutput ? 4 : 1))
+                .order(ByteOrder.nativeOrder());
+        scores = new float[labelCount];
+    }
+
+    /**
+     * Creates a backend from a model and a label file in the app's assets.
+     * The model asset must be stored uncompressed so that it can be memory-mapped.
+     *
+     * @param labelsAsset Text asset with one label per line, in output order
+     * @return The backend, or null if the model asset is not bundled
+     * @throws IOException if the model or labels cannot be read
+     */
+    @Nullable
+    public static TfLiteBackend fromAssets(Context context, String modelAsset, String labelsAsset,
+                                           Options options) throws IOException {
+        if (!hasAsset(context, modelAsset)) {
+            return null;
+        }
+        MappedByteBuffer model = FileUtil.loadMappedFile(context, modelAsset);
+        List<String> labels = FileUtil.loadLabels(context, labelsAsset);
+
+        boolean gpuSupported = false;
+        if (options.allowGpu) {
+            CompatibilityList compatibility = new CompatibilityList();
+            try {
+                gpuSupported = compatibility.isDelegateSupportedOnThisDevice();
+            } finally {
+                compatibility.close();
+            }
+        }
+        Acceleration acceleration = AccelerationPolicy.choose(Build.VERSION.SDK_INT,
+                options.allowGpu, gpuSupported, options.allowNnapi);
+        int threads = options.numThreads > 0
+                ? options.numThreads
+                : AccelerationPolicy.threadCount(Runtime.getRuntime().availableProcessors());
+
+        while (true) {
+            Delegate delegate = null;
+            try {
+                Interpreter.Options interpreterOptions = new Interpreter.Options().setNumThreads(threads);
+                switch (acceleration) {
+                    case GPU:
+                        delegate = new GpuDelegate();
+                        interpreterOptions.addDelegate(delegate);
+                        break;
+                    case NNAPI:
+                        interpreterOptions.setUseNNAPI(true);
+                        break;
+                    case XNNPACK:
+                        interpreterOptions.setUseXNNPACK(true);
+                        break;
+                    default:
+                        interpreterOptions.setUseXNNPACK(false);
+                        break;
+                }
+                Interpreter interpreter = new Interpreter(model, interpreterOptions);
+                Log.d(TAG, modelAsset + " loaded with " + acceleration + ", " + threads + " threads");
+                try {
+                    return new TfLiteBackend(modelAsset, labels, interpreter, delegate, acceleration, options);
+                } catch (IllegalArgumentException e) {
+                    // The model does not match its labels; no acceleration will fix that
+                    interpreter.close();
+                    if (delegate != null) delegate.close();
+                    throw new IOException(e.getMessage(), e);
+                }
+            } catch (RuntimeException | LinkageError e) {
+                if (delegate != null) delegate.close();
+                Acceleration fallback = AccelerationPolicy.fallback(acceleration);
+                if (fallback == null) throw e;
+                Log.w(TAG, acceleration + " unavailable, falling back to " + fallback, e);
+                acceleration = fallback;
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "tflite:" + name + "/" + acceleration;
+    }
+
+    @Override
+    public int getInputSize() {
+        return Math.max(inputWidth, inputHeight);
+    }
+
+    public Acceleration getAcceleration() {
+        return acceleration;
+    }
+
+    /**
+     * Runs one inference on a blank image so that delegates compile their
+     * kernels and buffers are allocated before the first real image.
+     */
+    public synchronized void warmUp() {
+        inputBitmap.eraseColor(0);
+        runInterpreter();
+    }
+
+    @Override
+    public synchronized List<Label> infer(Bitmap image) {
+        inputCanvas.drawBitmap(image, null, inputRect, scalePaint);
+        runInterpreter();
+
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        List<Label> result = new ArrayList<>(scores.length);
+        for (int index : order) {
+            result.add(new Label(labels.get(index), scores[index]));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public synchronized void close() {
+        interpreter.close();
+        if (delegate != null) delegate.close();
+        inputBitmap.recycle();
+    }
+
+    /** Fills the input buffer from the input bitmap, runs the model and decodes the scores */
+    private void runInterpreter() {
+        inputBitmap.getPixels(pixels, 0, inputWidth, 0, 0, inputWidth, inputHeight);
+        inputBuffer.rewind();
+        for (int pixel : pixels) {
+            int r = (pixel >> 16) & 0xff;
+            int g = (pixel >> 8) & 0xff;
+            int b = pixel & 0xff;
+            if (floatInput) {
+                inputBuffer.putFloat((r - inputMean) / inputStd);
+                inputBuffer.putFloat((g - inputMean) / inputStd);
+                inputBuffer.putFloat((b - inputMean) / inputStd);
+            } else {
+                inputBuffer.put((byte) r);
+                inputBuffer.put((byte) g);
+                inputBuffer.put((byte) b);
+            }
+        }
+        inputBuffer.rewind();
+        outputBuffer.rewind();
+        interpreter.run(inputBuffer, outputBuffer);
+
+        outputBuffer.rewind();
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = floatOutput
+                    ? outputBuffer.getFloat()
+                    : ((outputBuffer.get() & 0xff) - outputZeroPoint) * outputScale;
+        }
+    }
+
+    private static boolean hasAsset(Context context, String asset) {
+        try {
+            context.getAssets().open(asset).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.wastetoworth.recommendation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Interns category names as small integer IDs.
+ *
+ * Names are trimmed and lower-cased once when interned, so scoring can compare
+ * categories by ID and run substring checks on pre-normalised strings without
+ * allocating per candidate.
+ */
+public class CategoryDictionary {
+
+    /** ID used for a missing or blank category */
+    public static final int NO_CATEGORY = -1;
+
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Returns the ID for a category, assigning a new one if it has not been seen.
+     * @param category Raw category name, may be null
+     * @return The category ID, or {@link #NO_CATEGORY} for null or blank names
+     */
+    public synchronized int intern(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        String normalized = category.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return NO_CATEGORY;
+        }
+        Integer id = idsByName.get(normalized);
+        if (id == null) {
+            id = names.size();
+            names.add(normalized);
+            idsByName.put(normalized, id);
+        }
+        return id;
+    }
+
+    /**
+     * Interns several categories at once.
+     */
+    public int[] internAll(List<String> categories) {
+        int[] ids = new int[categories.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = intern(categories.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * @return The normalised name for an ID, or null for {@link #NO_CATEGORY}
+     */
+    public synchronized String name(int id) {
+        return id == NO_CATEGORY ? null : names.get(id);
+    }
+
+    /**
+     * @return true if the category named by haystackId contains the one named by needleId
+     */
+    public boolean contains(int haystackId, int needleId) {
+        if (haystackId == NO_CATEGORY || needleId == NO_CATEGORY) {
+            return false;
+        }
+        if (haystackId == needleId) {
+            return true;
+        }
+        return name(haystackId).contains(name(needleId));
+    }
+
+    /**
+     * @return Number of interned categories
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+}
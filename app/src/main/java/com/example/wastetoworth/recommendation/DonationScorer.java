@@ -0,0 +1,198 @@
+package com.example.wastetoworth.recommendation;
+
+/**
+ * Scores donation candidates for donor and receiver recommendations.
+ *
+ * The scorer works on {@link ScoringCandidate} records only, so it can be unit-tested and
+ * benchmarked on the JVM. Batch methods take a [from, to) range so that large candidate
+ * arrays can be split across threads.
+ */
+public class DonationScorer {
+
+    /** Score written by {@link #scoreForReceiver} for candidates matching no needed category */
+    public static final double NOT_MATCHED = Double.NaN;
+
+    private static final double BASE_SCORE = 100.0;
+    private static final long MILLIS_PER_HOUR = 1000L * 60 * 60;
+
+    private final CategoryDictionary categories;
+
+    public DonationScorer(CategoryDictionary categories) {
+        this.categories = categories;
+    }
+
+    public CategoryDictionary getCategories() {
+        return categories;
+    }
+
+    /**
+     * Calculate priority (1-3) of an urgent request for a donor
+     */
+    public int priority(ScoringCandidate candidate, int foodCategoryId) {
+        int priority = 1;
+
+        // Higher priority for urgent requests
+        if (candidate.urgent) {
+            priority = 3;
+        }
+
+        // Adjust based on distance
+        if (candidate.distanceKm < 5) {
+            priority++;
+        }
+
+        // Adjust based on category match
+        if (candidate.categoryId != CategoryDictionary.NO_CATEGORY && candidate.categoryId == foodCategoryId) {
+            priority++;
+        }
+
+        return Math.min(priority, 3);
+    }
+
+    /**
+     * Calculate match score of an urgent request for a donor
+     */
+    public double matchScore(ScoringCandidate candidate, int foodCategoryId, int quantity) {
+        boolean exact = candidate.categoryId != CategoryDictionary.NO_CATEGORY
+                && candidate.categoryId == foodCategoryId;
+        boolean partial = !exact && categories.contains(candidate.categoryId, foodCategoryId);
+        return donorScore(candidate, exact, partial, quantity);
+    }
+
+    /**
+     * Calculate match score of an available donation for a receiver
+     * @param neededCategoryIds Interned categories the receiver needs
+     * @param nowMillis Current time used for the freshness factor
+     */
+    public double receiverMatchScore(ScoringCandidate candidate, int[] neededCategoryIds, long nowMillis) {
+        return receiverScore(candidate, matchesAny(candidate, neededCategoryIds), nowMillis);
+    }
+
+    /**
+     * @return true if the candidate's category contains any of the needed categories
+     */
+    public boolean matchesAny(ScoringCandidate candidate, int[] neededCategoryIds) {
+        for (int needed : neededCategoryIds) {
+            if (categories.contains(candidate.categoryId, needed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scores candidates[from..to) for a donor in one pass.
+     * Category containment is resolved once per distinct category rather than per candidate.
+     */
+    public void scoreForDonor(ScoringCandidate[] candidates, int from, int to,
+                              int foodCategoryId, int quantity, double[] scores) {
+        boolean[] partialMatch = containmentTable(new int[]{foodCategoryId});
+        for (int i = from; i < to; i++) {
+            ScoringCandidate candidate = candidates[i];
+            int categoryId = candidate.categoryId;
+            boolean exact = categoryId != CategoryDictionary.NO_CATEGORY && categoryId == foodCategoryId;
+            boolean partial = !exact && categoryId >= 0 && categoryId < partialMatch.length
+                    && partialMatch[categoryId];
+            scores[i] = donorScore(candidate, exact, partial, quantity);
+        }
+    }
+
+    /**
+     * Scores candidates[from..to) for a receiver in one pass.
+     * Candidates matching none of the needed categories get {@link #NOT_MATCHED}.
+     */
+    public void scoreForReceiver(ScoringCandidate[] candidates, int from, int to,
+                                 int[] neededCategoryIds, long nowMillis, double[] scores) {
+        boolean[] matches = containmentTable(neededCategoryIds);
+        for (int i = from; i < to; i++) {
+            ScoringCandidate candidate = candidates[i];
+            int categoryId = candidate.categoryId;
+            if (categoryId >= 0 && categoryId < matches.length && matches[categoryId]) {
+                scores[i] = receiverScore(candidate, true, nowMillis);
+            } else {
+                scores[i] = NOT_MATCHED;
+            }
+        }
+    }
+
+    private double donorScore(ScoringCandidate candidate, boolean exactCategory,
+                              boolean partialCategory, int quantity) {
+        double score = BASE_SCORE;
+
+        // Category match (40 points)
+        if (exactCategory) {
+            score += 40;
+        } else if (partialCategory) {
+            score += 20;
+        }
+
+        // Distance factor (30 points)
+        double distance = candidate.distanceKm;
+        if (distance < 2) {
+            score += 30;
+        } else if (distance < 5) {
+            score += 20;
+        } else if (distance < 10) {
+            score += 10;
+        }
+
+        // Urgency factor (20 points)
+        if (candidate.urgent) {
+            score += 20;
+        }
+
+        // Quantity match (10 points)
+        if (candidate.requiredQuantity != ScoringCandidate.NO_QUANTITY) {
+            score += quantity >= candidate.requiredQuantity ? 10 : 5;
+        }
+
+        return score;
+    }
+
+    private double receiverScore(ScoringCandidate candidate, boolean categoryMatch, long nowMillis) {
+        double score = BASE_SCORE;
+
+        // Category match
+        if (categoryMatch) {
+            score += 30;
+        }
+
+        // Distance factor
+        double distance = candidate.distanceKm;
+        if (distance < 2) {
+            score += 25;
+        } else if (distance < 5) {
+            score += 15;
+        } else if (distance < 10) {
+            score += 5;
+        }
+
+        // Freshness/time factor
+        if (candidate.timestampMillis != ScoringCandidate.NO_TIMESTAMP) {
+            long hoursSince = (nowMillis - candidate.timestampMillis) / MILLIS_PER_HOUR;
+            if (hoursSince < 2) {
+                score += 20; // Very fresh
+            } else if (hoursSince < 6) {
+                score += 10;
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * Builds a lookup of which interned categories contain any of the given needles.
+     */
+    private boolean[] containmentTable(int[] needleIds) {
+        boolean[] table = new boolean[categories.size()];
+        for (int id = 0; id < table.length; id++) {
+            for (int needle : needleIds) {
+                if (categories.contains(id, needle)) {
+                    table[id] = true;
+                    break;
+                }
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.wastetoworth.recommendation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Ranked set of scored items maintained from incremental changes.
+ *
+ * Changes are staged with {@link #put} and {@link #remove} as they arrive (for example
+ * from Firestore DocumentChanges) and {@link #commit()} returns what changed in the
+ * best {@code visibleLimit} items since the previous commit. Only changed items need
+ * to be rescored by the caller.
+ *
+ * @param <T> Type of the ranked items
+ */
+public class LiveRankedSet<T> {
+
+    private static class Entry<T> {
+        final String id;
+        final T item;
+        final double score;
+
+        Entry(String id, T item, double score) {
+            this.id = id;
+            this.item = item;
+            this.score = score;
+        }
+    }
+
+    private final int visibleLimit;
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+    private final TreeSet<Entry<T>> ranking = new TreeSet<>((a, b) -> {
+        int byScore = Double.compare(b.score, a.score);
+        return byScore != 0 ? byScore : a.id.compareTo(b.id);
+    });
+    private final Set<String> pendingChanges = new HashSet<>();
+    private List<Entry<T>> lastVisible = new ArrayList<>();
+
+    /**
+     * @param visibleLimit Number of best items reported in diffs
+     */
+    public LiveRankedSet(int visibleLimit) {
+        if (visibleLimit <= 0) {
+            throw new IllegalArgumentException("Visible limit must be greater than 0");
+        }
+        this.visibleLimit = visibleLimit;
+    }
+
+    /**
+     * Stages an added or rescored item.
+     */
+    public void put(String id, T item, double score) {
+        Entry<T> previous = entries.remove(id);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        Entry<T> entry = new Entry<>(id, item, score);
+        entries.put(id, entry);
+        ranking.add(entry);
+        pendingChanges.add(id);
+    }
+
+    /**
+     * Stages the removal of an item; unknown IDs are ignored.
+     */
+    public void remove(String id) {
+        Entry<T> previous = entries.remove(id);
+        if (previous != null) {
+            ranking.remove(previous);
+            pendingChanges.add(id);
+        }
+    }
+
+    /**
+     * Applies staged changes and returns the diff of the visible window.
+     */
+    public RankedSetDiff<T> commit() {
+        List<Entry<T>> visible = new ArrayList<>(Math.min(visibleLimit, ranking.size()));
+        Iterator<Entry<T>> iterator = ranking.iterator();
+        while (iterator.hasNext() && visible.size() < visibleLimit) {
+            visible.add(iterator.next());
+        }
+
+        Map<String, Integer> oldPositions = new HashMap<>();
+        for (int i = 0; i < lastVisible.size(); i++) {
+            oldPositions.put(lastVisible.get(i).id, i);
+        }
+        Set<String> newIds = new HashSet<>();
+        for (Entry<T> entry : visible) {
+            newIds.add(entry.id);
+        }
+
+        RankedSetDiff<T> diff = new RankedSetDiff<>();
+        for (int i = 0; i < lastVisible.size(); i++) {
+            Entry<T> old = lastVisible.get(i);
+            if (!newIds.contains(old.id)) {
+                diff.addRemoved(new RankedSetDiff.Change<>(old.id, old.item, i));
+            }
+        }
+        for (int i = 0; i < visible.size(); i++) {
+            Entry<T> entry = visible.get(i);
+            if (!oldPositions.containsKey(entry.id)) {
+                diff.addAdded(new RankedSetDiff.Change<>(entry.id, entry.item, i));
+            } else if (pendingChanges.contains(entry.id)) {
+                diff.addUpdated(new RankedSetDiff.Change<>(entry.id, entry.item, i));
+            }
+        }
+
+        lastVisible = visible;
+        pendingChanges.clear();
+        return diff;
+    }
+
+    /**
+     * @return The visible items as of the last commit, best first
+     */
+    public List<T> visibleItems() {
+        List<T> items = new ArrayList<>(lastVisible.size());
+        for (Entry<T> entry : lastVisible) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    /**
+     * @return Number of tracked candidates, visible or not
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops all items and staged changes.
+     */
+    public void clear() {
+        entries.clear();
+        ranking.clear();
+        pendingChanges.clear();
+        lastVisible = new ArrayList<>();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.wastetoworth.recommendation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changes to the visible window of a {@link LiveRankedSet} produced by one commit.
+ *
+ * @param <T> Type of the ranked items
+ */
+public class RankedSetDiff<T> {
+
+    /**
+     * A single changed item and its position in the visible window.
+     * For removals the position is the old one, otherwise it is the new one.
+     */
+    public static class Change<T> {
+        public final String id;
+        public final T item;
+        public final int position;
+
+        public Change(String id, T item, int position) {
+            this.id = id;
+            this.item = item;
+            this.position = position;
+        }
+    }
+
+    private final List<Change<T>> added = new ArrayList<>();
+    private final List<Change<T>> updated = new ArrayList<>();
+    private final List<Change<T>> removed = new ArrayList<>();
+
+    void addAdded(Change<T> change) { added.add(change); }
+    void addUpdated(Change<T> change) { updated.add(change); }
+    void addRemoved(Change<T> change) { removed.add(change); }
+
+    /** Items that entered the visible window */
+    public List<Change<T>> getAdded() { return Collections.unmodifiableList(added); }
+
+    /** Items that stayed visible and were rescored in this commit */
+    public List<Change<T>> getUpdated() { return Collections.unmodifiableList(updated); }
+
+    /** Items that left the visible window */
+    public List<Change<T>> getRemoved() { return Collections.unmodifiableList(removed); }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.wastetoworth.recommendation;
+
+/**
+ * Flat, primitive-field view of a donation or urgent request used for scoring.
+ *
+ * Candidates are filled once from their source document so the scoring hot path
+ * never touches Firestore or performs string conversions.
+ */
+public class ScoringCandidate {
+
+    /** Value of {@link #requiredQuantity} when the request does not specify one */
+    public static final int NO_QUANTITY = -1;
+
+    /** Value of {@link #timestampMillis} when the creation time is unknown */
+    public static final long NO_TIMESTAMP = -1L;
+
+    /** Interned category ID from {@link CategoryDictionary} */
+    public int categoryId = CategoryDictionary.NO_CATEGORY;
+    public boolean urgent;
+    public int requiredQuantity = NO_QUANTITY;
+    public double distanceKm;
+    public long timestampMillis = NO_TIMESTAMP;
+
+    public ScoringCandidate() {
+    }
+
+    public ScoringCandidate(int categoryId, boolean urgent, int requiredQuantity,
+                            double distanceKm, long timestampMillis) {
+        this.categoryId = categoryId;
+        this.urgent = urgent;
+        this.requiredQuantity = requiredQuantity;
+        this.distanceKm = distanceKm;
+        this.timestampMillis = timestampMillis;
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.wastetoworth.startup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs application initialization as a dependency graph of steps.
+ *
+ * Each step runs on the main thread or on a background executor as soon as the steps it
+ * depends on have finished, so independent steps run in parallel. Startup is ready once
+ * every critical step has finished; the remaining steps carry on in the background. Every
+ * step is timed, and a step that throws is recorded as failed without holding up the steps
+ * that depend on it, as initialization has always been best effort.
+ */
+public final class StartupOrchestrator {
+
+    /**
+     * Thread a step runs on.
+     */
+    public enum Where {
+        MAIN,
+        BACKGROUND
+    }
+
+    /**
+     * Timing of one finished step.
+     */
+    public static final class StepTiming {
+        private final String name;
+        private final Where where;
+        private final boolean critical;
+        private final long startOffsetNanos;
+        private final long durationNanos;
+        private final RuntimeException error;
+
+        StepTiming(String name, Where where, boolean critical, long startOffsetNanos, long durationNanos,
+                   RuntimeException error) {
+            this.name = name;
+            this.where = where;
+            this.critical = critical;
+            this.startOffsetNanos = startOffsetNanos;
+            this.durationNanos = durationNanos;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Where getWhere() {
+            return where;
+        }
+
+        public boolean isCritical() {
+            return critical;
+        }
+
+        /** @return Time from {@link #start()} until the step began */
+        public long getStartOffsetNanos() {
+            return startOffsetNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+
+        /** @return What the step threw, or null if it succeeded */
+        public RuntimeException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s [%s%s] +%.1fms %.1fms%s", name, where, critical ? ", critical" : "",
+                    startOffsetNanos / 1e6, durationNanos / 1e6, error != null ? " FAILED" : "");
+        }
+    }
+
+    /**
+     * Receives progress reports, on the thread that ran the step.
+     */
+    public interface Listener {
+        void onStepFinished(StepTiming timing);
+
+        /** @param elapsedNanos Time from {@link #start()} until the last critical step finished */
+        void onReady(long elapsedNanos);
+
+        /** @param timings Every step, in the order they finished */
+        void onFinished(long elapsedNanos, List<StepTiming> timings);
+    }
+
+    private static final class Step {
+        final String name;
+        final Where where;
+        final boolean critical;
+        final Runnable task;
+        final String[] dependencies;
+        final List<Step> dependents = new ArrayList<>();
+        int remaining;
+
+        Step(String name, Where where, boolean critical, Runnable task, String[] dependencies) {
+            this.name = name;
+            this.where = where;
+            this.critical = critical;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final Executor mainExecutor;
+    private final Executor backgroundExecutor;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private final List<StepTiming> timings = new ArrayList<>();
+    private final List<Runnable> readyActions = new ArrayList<>();
+    private Listener listener;
+    private long startNanos;
+    private boolean started;
+    private int criticalRemaining;
+    private int unfinished;
+    private boolean ready;
+
+    /**
+     * @param mainExecutor       Runs main thread steps and ready actions; may run them
+     *                           directly when already on the main thread
+     * @param backgroundExecutor Runs background steps, in parallel if it has several threads
+     */
+    public StartupOrchestrator(Executor mainExecutor, Executor backgroundExecutor) {
+        this.mainExecutor = mainExecutor;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    /**
+     * Adds a step. Steps must be added before {@link #start()}, but in any order.
+     *
+     * @param critical     Whether startup is not ready until the step has finished
+     * @param dependencies Names of steps that must finish first
+     */
+    public synchronized StartupOrchestrator add(String name, Where where, boolean critical, Runnable task,
+                                                String... dependencies) {
+        if (started) {
+            throw new IllegalStateException("Startup already started");
+        }
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup step " + name);
+        }
+        steps.put(name, new Step(name, where, critical, task, dependencies));
+        return this;
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts every step without dependencies.
+     * @throws IllegalArgumentException If a dependency is unknown or the steps form a cycle
+     */
+    public void start() {
+        List<Step> runnable = new ArrayList<>();
+        Runnable readyNow = null;
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("Startup already started");
+            }
+            for (Step step : steps.values()) {
+                step.remaining = step.dependencies.length;
+                for (String dependency : step.dependencies) {
+                    Step required = steps.get(dependency);
+                    if (required == null) {
+                        throw new IllegalArgumentException(step.name + " depends on unknown step " + dependency);
+                    }
+                    required.dependents.add(step);
+                }
+                if (step.critical) {
+                    criticalRemaining++;
+                }
+            }
+            checkAcyclic();
+            started = true;
+            unfinished = steps.size();
+            startNanos = System.nanoTime();
+            for (Step step : steps.values()) {
+                if (step.remaining == 0) {
+                    runnable.add(step);
+                }
+            }
+            if (criticalRemaining == 0) {
+                readyNow = markReady();
+            }
+        }
+        if (readyNow != null) {
+            readyNow.run();
+        }
+        dispatch(runnable);
+        if (steps.isEmpty()) {
+            reportFinished();
+        }
+    }
+
+    /**
+     * Runs an action on the main executor once startup is ready, or now if it already is.
+     */
+    public void whenReady(Runnable action) {
+        synchronized (this) {
+            if (!ready) {
+                readyActions.add(action);
+                return;
+            }
+        }
+        mainExecutor.execute(action);
+    }
+
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /** @return Timings of the steps finished so far */
+    public synchronized List<StepTiming> getTimings() {
+        return new ArrayList<>(timings);
+    }
+
+    private void dispatch(List<Step> runnable) {
+        for (Step step : runnable) {
+            (step.where == Where.MAIN ? mainExecutor : backgroundExecutor).execute(() -> run(step));
+        }
+    }
+
+    private void run(Step step) {
+        long begin = System.nanoTime();
+        RuntimeException error = null;
+        try {
+            step.task.run();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        long end = System.nanoTime();
+        StepTiming timing = new StepTiming(step.name, step.where, step.critical, begin - startNanos, end - begin, error);
+
+        List<Step> runnable = new ArrayList<>();
+        Runnable readyNow = null;
+        boolean finished;
+        Listener current;
+        synchronized (this) {
+            timings.add(timing);
+            for (Step dependent : step.dependents) {
+                if (--dependent.remaining == 0) {
+                    runnable.add(dependent);
+                }
+            }
+            if (step.critical && --criticalRemaining == 0) {
+                readyNow = markReady();
+            }
+            finished = --unfinished == 0;
+            current = listener;
+        }
+        if (current != null) {
+            current.onStepFinished(timing);
+        }
+        if (readyNow != null) {
+            readyNow.run();
+        }
+        dispatch(runnable);
+        if (finished) {
+            reportFinished();
+        }
+    }
+
+    /** Must hold the lock. @return Reports readiness once the lock is released */
+    private Runnable markReady() {
+        ready = true;
+        long elapsed = System.nanoTime() - startNanos;
+        List<Runnable> actions = new ArrayList<>(readyActions);
+        readyActions.clear();
+        Listener current = listener;
+        return () -> {
+            if (current != null) {
+                current.onReady(elapsed);
+            }
+            for (Runnable action : actions) {
+                mainExecutor.execute(action);
+            }
+        };
+    }
+
+    private void reportFinished() {
+        long elapsed;
+        List<StepTiming> finished;
+        Listener current;
+        synchronized (this) {
+            elapsed = System.nanoTime() - startNanos;
+            finished = Collections.unmodifiableList(new ArrayList<>(timings));
+            current = listener;
+        }
+        if (current != null) {
+            current.onFinished(elapsed, finished);
+        }
+    }
+
+    /** Must hold the lock. Kahn's algorithm over a copy of the dependency counts */
+    private void checkAcyclic() {
+        Map<Step, Integer> remaining = new LinkedHashMap<>();
+        ArrayDeque<Step> free = new ArrayDeque<>();
+        for (Step step : steps.values()) {
+            remaining.put(step, step.remaining);
+            if (step.remaining == 0) {
+                free.add(step);
+            }
+        }
+        int visited = 0;
+        while (!free.isEmpty()) {
+            Step step = free.poll();
+            visited++;
+            for (Step dependent : step.dependents) {
+                int left = remaining.get(dependent) - 1;
+                remaining.put(dependent, left);
+                if (left == 0) {
+                    free.add(dependent);
+                }
+            }
+        }
+        if (visited != steps.size()) {
+            throw new IllegalArgumentException("Startup steps depend on each other in a cycle");
+        }
+    }
+}
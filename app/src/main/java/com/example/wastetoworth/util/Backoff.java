@@ -0,0 +1,42 @@
+package com.example.wastetoworth.util;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with jitter.
+ *
+ * The delay before retry n is drawn between half and all of base * 2^(n-1), capped at
+ * the maximum, so that clients which failed together do not all retry together.
+ */
+public final class Backoff {
+    private final long baseMillis;
+    private final long maxMillis;
+    private final Random random;
+
+    /**
+     * @param baseMillis Upper bound of the delay before the first retry
+     * @param maxMillis  Upper bound of any delay
+     * @param random     Source of jitter
+     */
+    public Backoff(long baseMillis, long maxMillis, Random random) {
+        if (baseMillis <= 0 || maxMillis < baseMillis) {
+            throw new IllegalArgumentException("Need 0 < base <= max");
+        }
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+        this.random = random;
+    }
+
+    /**
+     * @param attempt Number of attempts that have failed so far, from 1
+     * @return Milliseconds to wait before the next attempt
+     */
+    public long delayMillis(int attempt) {
+        int doublings = Math.min(Math.max(attempt, 1) - 1, 62);
+        long ceiling = baseMillis > maxMillis >> doublings ? maxMillis : Math.min(maxMillis, baseMillis << doublings);
+        long half = ceiling / 2;
+        synchronized (random) {
+            return half + (long) (random.nextDouble() * (ceiling - half + 1));
+        }
+    }
+}
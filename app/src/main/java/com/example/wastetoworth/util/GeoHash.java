@@ -0,0 +1,227 @@
+package com.example.wastetoworth.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Utility class for geohash encoding and proximity range queries.
+ *
+ * Donations store a "geohash" field at write time so that nearby candidates can be
+ * fetched with a handful of ordered range queries instead of a full collection scan.
+ */
+public final class GeoHash {
+
+    /** Firestore field holding the geohash of a document's location. */
+    public static final String FIELD_GEOHASH = "geohash";
+
+    /** Precision used when writing geohashes (~1.2m x 0.6m cells). */
+    public static final int STORED_PRECISION = 10;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private GeoHash() {
+        // Utility class
+    }
+
+    /**
+     * Encodes a coordinate into a geohash.
+     *
+     * @param latitude  Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param precision Number of base32 characters
+     * @return The geohash string
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Encodes a coordinate at the precision stored on documents.
+     */
+    public static String encode(double latitude, double longitude) {
+        return encode(latitude, longitude, STORED_PRECISION);
+    }
+
+    /**
+     * Stores a position on document fields as latitude, longitude and geohash, which the
+     * map and proximity queries need.
+     */
+    public static void putPosition(Map<String, Object> fields, double latitude, double longitude) {
+        fields.put("latitude", latitude);
+        fields.put("longitude", longitude);
+        fields.put(FIELD_GEOHASH, encode(latitude, longitude));
+    }
+
+    /**
+     * Computes the geohash ranges that together cover a circle around a centre point.
+     * Each range is a {start, end} pair suitable for orderBy(geohash).startAt(start).endAt(end).
+     *
+     * @param latitude  Centre latitude in degrees
+     * @param longitude Centre longitude in degrees
+     * @param radiusKm  Search radius in kilometers
+     * @return Sorted, de-duplicated list of ranges (at most 9)
+     */
+    public static List<String[]> queryBounds(double latitude, double longitude, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE_LAT;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double lngDelta = cosLat < 1e-6 ? 360 : Math.min(360, radiusKm / (KM_PER_DEGREE_LAT * cosLat));
+        if (latDelta >= 45 || lngDelta >= 45) {
+            // Radius larger than the coarsest cell, cover the whole keyspace
+            List<String[]> all = new ArrayList<>(1);
+            all.add(new String[]{"0", "~"});
+            return all;
+        }
+        int precision = precisionFor(latDelta, lngDelta);
+
+        // Cells are at least as large as the radius, so sampling the 3x3 grid of
+        // offset points hits every cell that the circle can touch.
+        TreeSet<String> cells = new TreeSet<>();
+        for (int i = -1; i <= 1; i++) {
+            double lat = clampLatitude(latitude + i * latDelta);
+            for (int j = -1; j <= 1; j++) {
+                double lng = wrapLongitude(longitude + j * lngDelta);
+                cells.add(encode(lat, lng, precision));
+            }
+        }
+
+        List<String[]> bounds = new ArrayList<>(cells.size());
+        for (String cell : cells) {
+            bounds.add(new String[]{cell, cell + "~"});
+        }
+        return bounds;
+    }
+
+    /**
+     * Computes the geohash ranges that together cover a bounding box, such as a map viewport.
+     * A box crossing the antimeridian (west greater than east) is split in two.
+     *
+     * @return Sorted, de-duplicated list of {start, end} ranges
+     */
+    public static List<String[]> queryBoundsForBox(double south, double west, double north, double east) {
+        if (west > east) {
+            TreeSet<String> cells = new TreeSet<>();
+            addBoxCells(cells, south, west, north, 180);
+            addBoxCells(cells, south, -180, north, east);
+            return toBounds(cells);
+        }
+        TreeSet<String> cells = new TreeSet<>();
+        addBoxCells(cells, south, west, north, east);
+        return toBounds(cells);
+    }
+
+    private static void addBoxCells(TreeSet<String> cells, double south, double west, double north, double east) {
+        double latSpan = Math.max(0, north - south);
+        double lngSpan = Math.max(0, east - west);
+        if (latSpan >= 90 || lngSpan >= 90) {
+            // Box larger than the coarsest useful cell, cover the whole keyspace
+            cells.clear();
+            cells.add("");
+            return;
+        }
+        // Cells at least half the box size, so each axis touches at most three cells
+        int precision = precisionFor(latSpan / 2, lngSpan / 2);
+        double latStep = Math.max(latSpan / 2, 1e-9);
+        double lngStep = Math.max(lngSpan / 2, 1e-9);
+        for (double lat = south; ; lat += latStep) {
+            double clampedLat = Math.min(lat, north);
+            for (double lng = west; ; lng += lngStep) {
+                double clampedLng = Math.min(lng, east);
+                cells.add(encode(clampLatitude(clampedLat), wrapLongitude(clampedLng), precision));
+                if (clampedLng >= east) break;
+            }
+            if (clampedLat >= north) break;
+        }
+    }
+
+    private static List<String[]> toBounds(TreeSet<String> cells) {
+        List<String[]> bounds = new ArrayList<>(cells.size());
+        if (cells.contains("")) {
+            bounds.add(new String[]{"0", "~"});
+            return bounds;
+        }
+        for (String cell : cells) {
+            bounds.add(new String[]{cell, cell + "~"});
+        }
+        return bounds;
+    }
+
+    /**
+     * Calculate distance between two coordinates in kilometers (haversine).
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    /**
+     * Returns the finest precision whose cell is at least latDelta by lngDelta degrees.
+     */
+    static int precisionFor(double latDelta, double lngDelta) {
+        int precision = 1;
+        for (int p = 1; p <= STORED_PRECISION; p++) {
+            int totalBits = p * 5;
+            int lngBits = (totalBits + 1) / 2;
+            int latBits = totalBits / 2;
+            double cellLat = 180.0 / (1L << latBits);
+            double cellLng = 360.0 / (1L << lngBits);
+            if (cellLat < latDelta || cellLng < lngDelta) {
+                break;
+            }
+            precision = p;
+        }
+        return precision;
+    }
+
+    private static double clampLatitude(double latitude) {
+        return Math.max(-90, Math.min(90, latitude));
+    }
+
+    private static double wrapLongitude(double longitude) {
+        if (longitude > 180) return longitude - 360;
+        if (longitude < -180) return longitude + 360;
+        return longitude;
+    }
+}
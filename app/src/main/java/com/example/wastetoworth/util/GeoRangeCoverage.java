@@ -0,0 +1,58 @@
+package com.example.wastetoworth.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks which geohash ranges of a source have been loaded, and how recently.
+ *
+ * A range loaded completely covers itself and every finer range inside it. A range whose
+ * query hit its cap covers only itself: querying it again at the same precision would
+ * return the same truncated page, so it is re-queried only once the map is zoomed in far
+ * enough to ask for finer ranges. Both kinds of entries expire after a time to live, so
+ * loaded areas are refreshed. Ranges are identified by their geohash prefix, the empty
+ * prefix covering the whole keyspace. Not thread-safe.
+ */
+public final class GeoRangeCoverage {
+    private final long ttlMillis;
+    /** Load time by prefix, for ranges loaded completely */
+    private final Map<String, Long> complete = new HashMap<>();
+    /** Load time by prefix, for ranges truncated at the cap */
+    private final Map<String, Long> truncated = new HashMap<>();
+
+    public GeoRangeCoverage(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * @return Whether a range needs no query at this time
+     */
+    public boolean isCovered(String prefix, long now) {
+        if (isFresh(truncated.get(prefix), now)) {
+            return true;
+        }
+        for (int length = 0; length <= prefix.length(); length++) {
+            if (isFresh(complete.get(prefix.substring(0, length)), now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a finished query for a range.
+     * @param wasComplete False if the query returned as many documents as its cap
+     */
+    public void markLoaded(String prefix, boolean wasComplete, long now) {
+        if (wasComplete) {
+            complete.put(prefix, now);
+            truncated.remove(prefix);
+        } else {
+            truncated.put(prefix, now);
+        }
+    }
+
+    private boolean isFresh(Long loadedAt, long now) {
+        return loadedAt != null && now - loadedAt < ttlMillis;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.wastetoworth.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid-based clustering of map points.
+ *
+ * The grid is anchored at latitude -90 and longitude -180 rather than at the viewport,
+ * so a point stays in the same cell while the camera pans and cluster keys are stable
+ * between runs. Clustering n points costs O(n) and touches no Android classes, so it can
+ * run on any thread.
+ */
+public final class GridClusterer {
+
+    /** Width of a cluster cell on screen, in density-independent pixels */
+    private static final double CELL_SIZE_DP = 64;
+    /** Width of the world at zoom 0, in density-independent pixels */
+    private static final double WORLD_SIZE_DP = 256;
+
+    /**
+     * A point to be clustered.
+     *
+     * @param <T> Type of the payload carried with the point
+     */
+    public static final class Point<T> {
+        public final String id;
+        public final double latitude;
+        public final double longitude;
+        public final T payload;
+
+        public Point(String id, double latitude, double longitude, T payload) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * A group of points rendered as one marker.
+     */
+    public static final class Cluster<T> {
+        /** Stable identity: "p:" plus the point id for single points, "c:" plus the cell otherwise */
+        public final String key;
+        public final double latitude;
+        public final double longitude;
+        public final List<Point<T>> points;
+
+        Cluster(String key, double latitude, double longitude, List<Point<T>> points) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.points = Collections.unmodifiableList(points);
+        }
+
+        public int size() {
+            return points.size();
+        }
+    }
+
+    private GridClusterer() {
+        // Utility class
+    }
+
+    /**
+     * Returns the cell size in degrees for a camera zoom level. Zoom is floored so that
+     * cluster keys only change when the zoom crosses a whole level.
+     */
+    public static double cellDegreesForZoom(float zoom) {
+        int level = Math.max(0, (int) Math.floor(zoom));
+        return 360.0 * CELL_SIZE_DP / WORLD_SIZE_DP / (1L << Math.min(level, 30));
+    }
+
+    /**
+     * Clusters the points that fall inside a bounding box.
+     * A box crossing the antimeridian (west greater than east) is handled.
+     *
+     * @param cellDegrees Cell size in degrees, see {@link #cellDegreesForZoom(float)}
+     * @return Clusters in no particular order
+     */
+    public static <T> List<Cluster<T>> cluster(Collection<Point<T>> points, double south, double west,
+                                               double north, double east, double cellDegrees) {
+        Map<Long, List<Point<T>>> cells = new HashMap<>();
+        for (Point<T> point : points) {
+            if (!contains(point, south, west, north, east)) continue;
+            long row = (long) Math.floor((point.latitude + 90) / cellDegrees);
+            long col = (long) Math.floor((point.longitude + 180) / cellDegrees);
+            long cell = (row << 32) | (col & 0xffffffffL);
+            List<Point<T>> members = cells.get(cell);
+            if (members == null) {
+                members = new ArrayList<>(1);
+                cells.put(cell, members);
+            }
+            members.add(point);
+        }
+
+        List<Cluster<T>> clusters = new ArrayList<>(cells.size());
+        for (Map.Entry<Long, List<Point<T>>> entry : cells.entrySet()) {
+            List<Point<T>> members = entry.getValue();
+            if (members.size() == 1) {
+                Point<T> single = members.get(0);
+                clusters.add(new Cluster<>("p:" + single.id, single.latitude, single.longitude, members));
+                continue;
+            }
+            double latSum = 0, lngSum = 0;
+            for (Point<T> member : members) {
+                latSum += member.latitude;
+                lngSum += member.longitude;
+            }
+            long cell = entry.getKey();
+            String key = "c:" + (cell >> 32) + ":" + (int) cell;
+            clusters.add(new Cluster<>(key, latSum / members.size(), lngSum / members.size(), members));
+        }
+        return clusters;
+    }
+
+    private static boolean contains(Point<?> point, double south, double west, double north, double east) {
+        if (point.latitude < south || point.latitude > north) return false;
+        if (west <= east) {
+            return point.longitude >= west && point.longitude <= east;
+        }
+        return point.longitude >= west || point.longitude <= east;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.wastetoworth.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of individually sorted sources.
+ *
+ * Each source is consumed from its head, so merging n items from k sources costs
+ * O(n log k) and never re-sorts items that are already in order.
+ */
+public final class KWayMerge {
+
+    private KWayMerge() {
+        // Utility class
+    }
+
+    /**
+     * Removes up to limit items from the heads of the buffers in merged order.
+     *
+     * A buffer that runs empty while its source still has unfetched items stops the merge,
+     * since that source's next item could sort before anything left in the other buffers.
+     *
+     * @param buffers   Per-source buffers, each sorted by order
+     * @param exhausted exhausted[i] is true when source i has no items beyond its buffer
+     * @param order     Order the sources are sorted by
+     * @param limit     Maximum number of items to take
+     * @return The merged items, possibly fewer than limit
+     */
+    public static <T> List<T> take(List<? extends Deque<T>> buffers, boolean[] exhausted,
+                                   Comparator<? super T> order, int limit) {
+        List<T> merged = new ArrayList<>(Math.max(0, limit));
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, buffers.size()),
+                (a, b) -> order.compare(buffers.get(a).peekFirst(), buffers.get(b).peekFirst()));
+        for (int i = 0; i < buffers.size(); i++) {
+            if (buffers.get(i).isEmpty()) {
+                if (!exhausted[i]) {
+                    return merged;
+                }
+            } else {
+                heads.add(i);
+            }
+        }
+
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int source = heads.poll();
+            Deque<T> buffer = buffers.get(source);
+            merged.add(buffer.pollFirst());
+            if (!buffer.isEmpty()) {
+                heads.add(source);
+            } else if (!exhausted[source]) {
+                break;
+            }
+        }
+        return merged;
+    }
+}
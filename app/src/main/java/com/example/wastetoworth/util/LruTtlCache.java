@@ -0,0 +1,151 @@
+package com.example.wastetoworth.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Thread-safe LRU cache whose entries also expire after a fixed time to live.
+ *
+ * Entries keep the time they were stored, so a cache restored from disk expires
+ * them at the same moment the original would have.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public class LruTtlCache<K, V> {
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    public interface Clock {
+        long now();
+    }
+
+    /**
+     * Receives entries from {@link #forEach(EntryVisitor)}.
+     */
+    public interface EntryVisitor<K, V> {
+        void visit(K key, V value, long storedAt);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long storedAt;
+
+        Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public LruTtlCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxEntries Maximum number of entries before the least recently used is evicted
+     * @param ttlMillis  Time after which an entry expires
+     * @param clock      Source of the current time
+     */
+    public LruTtlCache(int maxEntries, long ttlMillis, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be greater than 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LruTtlCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return The cached value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, clock.now())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Finds the live entry whose key is nearest to a wanted key, for keys such as image
+     * hashes where close keys stand for the same thing. The entry found counts as used.
+     * This scans every entry, so it suits caches of at most a few thousand entries.
+     *
+     * @param distance    Distance of a key from the wanted key
+     * @param maxDistance Entries farther than this never match
+     * @return The nearest value, or null if no live entry is within maxDistance
+     */
+    public synchronized V getNearest(ToIntFunction<K> distance, int maxDistance) {
+        long now = clock.now();
+        K nearestKey = null;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            if (isExpired(entry.getValue(), now)) {
+                continue;
+            }
+            int d = distance.applyAsInt(entry.getKey());
+            if (d <= maxDistance && d < nearestDistance) {
+                nearestDistance = d;
+                nearestKey = entry.getKey();
+                if (d == 0) break;
+            }
+        }
+        return nearestKey != null ? entries.get(nearestKey).value : null;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, clock.now()));
+    }
+
+    /**
+     * Restores an entry with its original store time. Already expired entries are ignored.
+     */
+    public synchronized void restore(K key, V value, long storedAt) {
+        Entry<V> entry = new Entry<>(value, storedAt);
+        if (!isExpired(entry, clock.now())) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Visits live entries from least to most recently used, so that restoring them
+     * in visit order reproduces the eviction order.
+     */
+    public synchronized void forEach(EntryVisitor<K, V> visitor) {
+        long now = clock.now();
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            if (!isExpired(entry.getValue(), now)) {
+                visitor.visit(entry.getKey(), entry.getValue().value, entry.getValue().storedAt);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.storedAt >= ttlMillis;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.wastetoworth.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Streaming top-K selector backed by a bounded min-heap.
+ *
+ * Items are offered one at a time as they are scored; only the best {@code capacity}
+ * are retained, so selecting from n candidates costs O(n log K) instead of a full sort.
+ * The retained items can then be read back page by page without rescoring.
+ *
+ * @param <T> Type of the ranked items
+ */
+public class TopKSelector<T> {
+    private final int capacity;
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<T> heap;
+    private List<T> ranked;
+    private int cursor = 0;
+
+    /**
+     * @param capacity   Maximum number of items to retain
+     * @param comparator Orders items so that greater means better
+     */
+    public TopKSelector(int capacity, Comparator<? super T> comparator) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.comparator = comparator;
+        // Head of the heap is the worst retained item
+        this.heap = new PriorityQueue<>(capacity, comparator);
+    }
+
+    /**
+     * Offers an item to the selector.
+     * @param item The scored item
+     * @return true if the item is currently retained
+     */
+    public boolean offer(T item) {
+        if (heap.size() < capacity) {
+            heap.offer(item);
+        } else if (comparator.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.offer(item);
+        } else {
+            return false;
+        }
+        ranked = null;
+        return true;
+    }
+
+    /**
+     * Returns the next page of retained items, best first.
+     * Offering after paging has started re-ranks the retained items but keeps the cursor position.
+     * @param pageSize Maximum number of items to return
+     * @return The next page, empty when all retained items have been returned
+     */
+    public List<T> nextPage(int pageSize) {
+        List<T> all = ranked();
+        int end = Math.min(cursor + pageSize, all.size());
+        List<T> page = cursor < end ? new ArrayList<>(all.subList(cursor, end)) : new ArrayList<>();
+        cursor = Math.max(cursor, end);
+        return page;
+    }
+
+    /**
+     * @return true if {@link #nextPage(int)} would return more items
+     */
+    public boolean hasMore() {
+        return cursor < heap.size();
+    }
+
+    /**
+     * @return Number of retained items
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Clears retained items and the page cursor.
+     */
+    public void clear() {
+        heap.clear();
+        ranked = null;
+        cursor = 0;
+    }
+
+    private List<T> ranked() {
+        if (ranked == null) {
+            ranked = new ArrayList<>(heap);
+            Collections.sort(ranked, Collections.reverseOrder(comparator));
+        }
+        return ranked;
+    }
+}
@@ -157,6 +157,12 @@ public class DonateViewModel extends AndroidViewModel {
                     showMessage.postValue(new Event<>("Donation submitted successfully!"));
                 }
                 
+                @Override
+                public void onQueued(String donationId) {
+                    submissionState.postValue(new DonationSubmissionState(false, true, null));
+                    showMessage.postValue(new Event<>("No connection right now. Your donation is saved and will be sent automatically."));
+                }
+                
                 @Override
                 public void onError(String error) {
                     submissionState.postValue(new DonationSubmissionState(false, false, error));
@@ -0,0 +1,103 @@
+package com.example.wastetoworth.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BulkProgressTest {
+
+    @Test
+    public void donationsAreChunkedAtBatchBoundaries() {
+        assertEquals(Collections.emptyList(), chunkSizes(0));
+        assertEquals(Collections.singletonList(250), chunkSizes(250));
+        assertEquals(Arrays.asList(250, 1), chunkSizes(251));
+        assertEquals(Arrays.asList(250, 250), chunkSizes(500));
+    }
+
+    @Test
+    public void chunksKeepOrderWithoutGapsOrOverlap() {
+        List<List<String>> chunks = BulkProgress.chunk(ids(0, 251), DonationRepository.MAX_BATCH_DONATIONS);
+
+        assertEquals("d0", chunks.get(0).get(0));
+        assertEquals("d249", chunks.get(0).get(249));
+        assertEquals(Collections.singletonList("d250"), chunks.get(1));
+    }
+
+    @Test
+    public void completionCountsCommittedAndFailedDonations() {
+        RecordingCallback callback = new RecordingCallback();
+        BulkProgress progress = new BulkProgress(3, callback);
+
+        // Batches may finish in any order
+        progress.batchFinished(2, ids(500, 501), 30, null);
+        progress.batchFinished(0, ids(0, 250), 10, null);
+        assertNull(callback.completed);
+        progress.batchFinished(1, ids(250, 500), 20, "unavailable");
+
+        assertArrayEquals(new int[]{251, 250}, callback.completed);
+        assertEquals(1, callback.completions);
+        assertEquals(2, callback.committed.size());
+        assertEquals(1, callback.failed.size());
+        DonationRepository.BatchResult failed = callback.failed.get(0);
+        assertEquals(1, failed.getBatchIndex());
+        assertEquals(250, failed.getDonationIds().size());
+        assertEquals("unavailable", failed.getError());
+        assertFalse(failed.isCommitted());
+        assertTrue(callback.committed.get(0).isCommitted());
+    }
+
+    @Test
+    public void singleBatchCompletesOnceFinished() {
+        RecordingCallback callback = new RecordingCallback();
+        BulkProgress progress = new BulkProgress(1, callback);
+
+        progress.batchFinished(0, ids(0, 250), 10, null);
+
+        assertArrayEquals(new int[]{250, 0}, callback.completed);
+        assertEquals(1, callback.completions);
+    }
+
+    private static List<Integer> chunkSizes(int donations) {
+        List<Integer> sizes = new ArrayList<>();
+        for (List<String> chunk : BulkProgress.chunk(ids(0, donations), DonationRepository.MAX_BATCH_DONATIONS)) {
+            sizes.add(chunk.size());
+        }
+        return sizes;
+    }
+
+    private static List<String> ids(int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add("d" + i);
+        }
+        return ids;
+    }
+
+    private static final class RecordingCallback implements DonationRepository.BulkDonationCallback {
+        final List<DonationRepository.BatchResult> committed = new ArrayList<>();
+        final List<DonationRepository.BatchResult> failed = new ArrayList<>();
+        int[] completed;
+        int completions;
+
+        @Override
+        public void onBatchCommitted(DonationRepository.BatchResult result) {
+            committed.add(result);
+        }
+
+        @Override
+        public void onBatchFailed(DonationRepository.BatchResult result) {
+            failed.add(result);
+        }
+
+        @Override
+        public void onComplete(int committedCount, int failedCount) {
+            completed = new int[]{committedCount, failedCount};
+            completions++;
+        }
+    }
+}
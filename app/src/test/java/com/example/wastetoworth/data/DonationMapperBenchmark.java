@@ -0,0 +1,134 @@
+package com.example.wastetoworth.data;
+
+import com.example.wastetoworth.DonationModel;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark of document mapping over synthetic documents.
+ *
+ * "legacy" replays the per-activity fallback chains that {@link DonationMapper} replaced,
+ * "mapper" uses the shared mapper with its resolved-field cache.
+ */
+public class DonationMapperBenchmark {
+
+    private static final int SIZE = 10_000;
+    private static final int WARMUP_ITERATIONS = 30;
+    private static final int ITERATIONS = 30;
+    private static final int LEGACY_PERCENT = 10;
+
+    @Test
+    public void compareMappingStrategies() {
+        Random random = new Random(1);
+        List<Map<String, Object>> documents = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            Map<String, Object> doc = new HashMap<>();
+            // Mostly current schema with a minority of legacy documents
+            boolean legacy = random.nextInt(100) < LEGACY_PERCENT;
+            doc.put(legacy ? "foodName" : "itemName", "Item " + i);
+            doc.put(legacy ? "userId" : "donorId", "user" + random.nextInt(100));
+            doc.put("donorName", "Donor " + i);
+            doc.put("phone", "99999" + i);
+            doc.put("description", "Description " + i);
+            doc.put("quantity", legacy ? (Object) (long) random.nextInt(20) : random.nextInt(20) + " kg");
+            doc.put("location", legacy ? (Object) "Somewhere" : new GeoPoint(random.nextDouble() * 10, random.nextDouble() * 10));
+            doc.put("timestamp", legacy ? (Object) 1_000_000L : new Timestamp(new Date(1_000_000L + i)));
+            doc.put("type", "Food");
+            doc.put("isReceived", random.nextBoolean());
+            documents.add(doc);
+        }
+
+        DonationMapper mapper = new DonationMapper();
+        double legacyMs = 0, mapperMs = 0;
+        int legacyChecksum = 0, mapperChecksum = 0;
+        for (int iter = 0; iter < WARMUP_ITERATIONS + ITERATIONS; iter++) {
+            boolean measure = iter >= WARMUP_ITERATIONS;
+
+            long start = System.nanoTime();
+            legacyChecksum = 0;
+            for (int i = 0; i < SIZE; i++) {
+                legacyChecksum += legacyMap(String.valueOf(i), documents.get(i)).getName().length();
+            }
+            if (measure) legacyMs += (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            mapperChecksum = 0;
+            for (int i = 0; i < SIZE; i++) {
+                mapperChecksum += mapper.map(String.valueOf(i), documents.get(i)::get).getName().length();
+            }
+            if (measure) mapperMs += (System.nanoTime() - start) / 1e6;
+        }
+
+        System.out.printf("map n=%d legacy: %.3f ms | mapper: %.3f ms%n",
+                SIZE, legacyMs / ITERATIONS, mapperMs / ITERATIONS);
+        assertEquals(legacyChecksum, mapperChecksum);
+    }
+
+    private static DonationModel legacyMap(String id, Map<String, Object> doc) {
+        DonationModel donation = new DonationModel();
+        donation.setDocumentId(id);
+        String name = null;
+        for (String field : new String[]{"itemName", "foodName", "food", "name", "foodType", "category"}) {
+            Object value = doc.get(field);
+            if (value instanceof String && !((String) value).isEmpty()) {
+                name = (String) value;
+                break;
+            }
+        }
+        donation.setName(name != null ? name : "Donation");
+        Object donorId = doc.get("donorId");
+        if (donorId == null) donorId = doc.get("userId");
+        if (donorId == null) donorId = doc.get("userid");
+        donation.setDonorId(donorId instanceof String ? (String) donorId : null);
+        donation.setDonorName((String) doc.get("donorName"));
+        donation.setPhone((String) doc.get("phone"));
+        donation.setDescription((String) doc.get("description"));
+        Object quantity = doc.get("quantity");
+        donation.setQuantity(quantity instanceof String ? (String) quantity
+                : quantity instanceof Number ? String.valueOf(quantity) : "");
+        Object location = doc.get("location");
+        if (location instanceof GeoPoint) {
+            GeoPoint geoPoint = (GeoPoint) location;
+            donation.setLocation(geoPoint.getLatitude() + "," + geoPoint.getLongitude());
+        } else if (location instanceof String) {
+            donation.setLocation((String) location);
+        }
+        Object timestamp = doc.get("timestamp");
+        if (timestamp instanceof Timestamp) {
+            donation.setTimestamp((Timestamp) timestamp);
+        } else if (timestamp instanceof Number) {
+            donation.setTimestamp(new Timestamp(new Date(((Number) timestamp).longValue())));
+        }
+        String address = (String) doc.get("address");
+        donation.setAddress(address != null ? address : donation.getLocation());
+        donation.setType((String) doc.get("type"));
+        donation.setCategory((String) doc.get("category"));
+        donation.setStatus((String) doc.get("status"));
+        donation.setImageUrl((String) doc.get("imageUrl"));
+        donation.setReceived(Boolean.TRUE.equals(doc.get("isReceived")));
+        donation.setReceiverId((String) doc.get("receiverId"));
+        Object assigned = doc.get("isVolunteerAssigned");
+        if (assigned == null) assigned = doc.get("volunteerAssigned");
+        donation.setVolunteerAssigned(Boolean.TRUE.equals(assigned));
+        donation.setVolunteerId((String) doc.get("volunteerId"));
+        donation.setVolunteerName((String) doc.get("volunteerName"));
+        donation.setDeliveryStatus((String) doc.get("deliveryStatus"));
+        donation.setClothesType((String) doc.get("clothesType"));
+        donation.setClothesSize((String) doc.get("clothesSize"));
+        donation.setClothesGender((String) doc.get("clothesGender"));
+        donation.setUrgent(Boolean.TRUE.equals(doc.get("urgent")));
+        donation.setUrgentReason((String) doc.get("urgentReason"));
+        return donation;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.wastetoworth.data;
+
+import com.example.wastetoworth.DonationModel;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DonationMapperTest {
+
+    private DonationMapper mapper;
+
+    @Before
+    public void setUp() {
+        mapper = new DonationMapper();
+    }
+
+    @Test
+    public void mapsLegacyFieldVariants() {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("foodName", "Rice");
+        doc.put("userId", "u1");
+        doc.put("quantity", 5L);
+        doc.put("location", new GeoPoint(12.5, 77.25));
+        doc.put("timestamp", 1_000L);
+
+        DonationModel donation = mapper.map("d1", doc::get);
+
+        assertEquals("d1", donation.getDocumentId());
+        assertEquals("Rice", donation.getName());
+        assertEquals("u1", donation.getDonorId());
+        assertEquals("5", donation.getQuantity());
+        assertEquals("12.5,77.25", donation.getLocation());
+        assertEquals("12.5,77.25", donation.getAddress());
+        assertEquals(1_000L, donation.getTimestamp().toDate().getTime());
+        assertEquals("food", donation.getType());
+    }
+
+    @Test
+    public void fallsBackWhenPreferredFieldIsMissing() {
+        Map<String, Object> itemNameDoc = new HashMap<>();
+        itemNameDoc.put("itemName", "Bread");
+        Map<String, Object> foodNameDoc = new HashMap<>();
+        foodNameDoc.put("foodName", "Milk");
+
+        assertEquals("Bread", mapper.map("a", itemNameDoc::get).getName());
+        assertEquals("Milk", mapper.map("b", foodNameDoc::get).getName());
+        assertEquals("Bread", mapper.map("c", itemNameDoc::get).getName());
+    }
+
+    @Test
+    public void multiVariantDocumentsKeepPriorityWhateverWasMappedBefore() {
+        Map<String, Object> categoryOnly = new HashMap<>();
+        categoryOnly.put("category", "Bakery");
+        // As written by Receive
+        Map<String, Object> receive = new HashMap<>();
+        receive.put("name", "Dal");
+        receive.put("category", "Food");
+        // As written for urgent requests
+        Map<String, Object> urgent = new HashMap<>();
+        urgent.put("foodName", "Urgent Request - Asha");
+        urgent.put("category", "Urgent");
+
+        assertEquals("Bakery", mapper.map("a", categoryOnly::get).getName());
+        assertEquals("Dal", mapper.map("b", receive::get).getName());
+        assertEquals("Urgent Request - Asha", mapper.map("c", urgent::get).getName());
+
+        DonationMapper reversed = new DonationMapper();
+        assertEquals("Urgent Request - Asha", reversed.map("c", urgent::get).getName());
+        assertEquals("Dal", reversed.map("b", receive::get).getName());
+        assertEquals("Bakery", reversed.map("a", categoryOnly::get).getName());
+        assertEquals("Dal", reversed.map("b", receive::get).getName());
+    }
+
+    @Test
+    public void donorNameIsNotTakenFromItemName() {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("name", "Dal");
+        doc.put("donorId", "u1");
+
+        assertNull(mapper.map("a", doc::get).getDonorName());
+
+        doc.put("donorName", "Ravi");
+        assertEquals("Ravi", mapper.map("b", doc::get).getDonorName());
+    }
+
+    @Test
+    public void appliesDefaultsToEmptyDocument() {
+        DonationModel donation = mapper.map("empty", field -> null);
+
+        assertEquals("Donation", donation.getName());
+        assertEquals("", donation.getDescription());
+        assertEquals("", donation.getQuantity());
+        assertEquals("", donation.getAddress());
+        assertNull(donation.getLocation());
+        assertNull(donation.getTimestamp());
+        assertFalse(donation.isReceived());
+    }
+
+    @Test
+    public void switchesConvertersBetweenValueTypes() {
+        Map<String, Object> stringQuantity = new HashMap<>();
+        stringQuantity.put("quantity", "3 kg");
+        Map<String, Object> numberQuantity = new HashMap<>();
+        numberQuantity.put("quantity", 7);
+
+        assertEquals("3 kg", mapper.map("a", stringQuantity::get).getQuantity());
+        assertEquals("7", mapper.map("b", numberQuantity::get).getQuantity());
+        assertEquals("3 kg", mapper.map("c", stringQuantity::get).getQuantity());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.wastetoworth.data;
+
+import com.example.wastetoworth.data.outbox.OutboxEntry;
+import com.example.wastetoworth.util.GeoHash;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DonationSummariesTest {
+
+    @Test
+    public void summaryKeepsListFieldsOnly() {
+        Map<String, Object> donation = new HashMap<>();
+        donation.put("itemName", "Rice");
+        donation.put("quantity", 12L);
+        donation.put("address", "12 Main St");
+        donation.put(GeoHash.FIELD_GEOHASH, "tdr1y");
+        donation.put("timestamp", 1_700_000_000_000L);
+        donation.put("status", "available");
+        donation.put("isReceived", false);
+        donation.put("description", "Cooked this morning, packed in boxes");
+        donation.put("imageUrl", "https://example.com/rice.jpg");
+        donation.put("phone", "555-0100");
+        donation.put("volunteerEmail", "v@example.com");
+
+        Map<String, Object> summary = DonationSummaries.project(donation);
+
+        assertEquals(7, summary.size());
+        assertEquals("Rice", summary.get("itemName"));
+        assertEquals(12L, summary.get("quantity"));
+        assertEquals("tdr1y", summary.get(GeoHash.FIELD_GEOHASH));
+        assertEquals(Boolean.FALSE, summary.get("isReceived"));
+        assertFalse(summary.containsKey("description"));
+        assertFalse(summary.containsKey("imageUrl"));
+        assertFalse(summary.containsKey("phone"));
+        assertFalse(summary.containsKey("volunteerEmail"));
+    }
+
+    @Test
+    public void partialUpdatesProjectToTheirSummaryFields() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("isVolunteerAssigned", true);
+        updates.put("volunteerId", "v1");
+        updates.put("volunteerEmail", "v@example.com");
+
+        Map<String, Object> summary = DonationSummaries.project(updates);
+
+        assertEquals(2, summary.size());
+        assertEquals(Boolean.TRUE, summary.get("isVolunteerAssigned"));
+        assertEquals("v1", summary.get("volunteerId"));
+        assertTrue(DonationSummaries.project(new HashMap<>()).isEmpty());
+    }
+
+    @Test
+    public void linkedSummaryUsesDonationId() {
+        Map<String, Object> donation = new HashMap<>();
+        donation.put("foodName", "Bread");
+        donation.put("description", "Two loaves");
+
+        OutboxEntry.LinkedDocument linked = DonationSummaries.linkedTo("d1", donation);
+
+        assertEquals(DonationSummaries.COLLECTION, linked.getCollection());
+        assertEquals("d1", linked.getDocumentId());
+        assertEquals("Bread", linked.getFields().get("foodName"));
+        assertFalse(linked.getFields().containsKey("description"));
+    }
+}
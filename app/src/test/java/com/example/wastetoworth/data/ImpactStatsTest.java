@@ -0,0 +1,38 @@
+package com.example.wastetoworth.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ImpactStatsTest {
+
+    @Test
+    public void estimatesFollowDonationCount() {
+        ImpactStats stats = new ImpactStats(10, 0);
+
+        assertEquals(30, stats.getMealsFed());
+        assertEquals(20, stats.getCo2SavedKg());
+    }
+
+    @Test
+    public void localDonationsAddToTotalsWithoutRenewingThem() {
+        ImpactStats stats = new ImpactStats(10, 1000);
+
+        ImpactStats updated = stats.withDonation().withDonation();
+
+        assertEquals(12, updated.getDonationCount());
+        assertEquals(1000, updated.getFetchedAt());
+        assertEquals(10, stats.getDonationCount());
+    }
+
+    @Test
+    public void freshnessFollowsTtl() {
+        ImpactStats stats = new ImpactStats(1, 1000);
+
+        assertTrue(stats.isFresh(1000, 500));
+        assertTrue(stats.isFresh(1499, 500));
+        assertFalse(stats.isFresh(1500, 500));
+        // A clock set back makes the totals suspect
+        assertFalse(stats.isFresh(900, 500));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.wastetoworth.data;
+
+import com.example.wastetoworth.util.GeoHash;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class UrgentRequestsTest {
+
+    @Test
+    public void onlyPendingRequestsWithoutDonationNeedOne() {
+        Map<String, Object> request = request();
+        assertTrue(UrgentRequests.needsDonation(request));
+
+        request.put(UrgentRequests.FIELD_DONATION_ID, "");
+        assertTrue(UrgentRequests.needsDonation(request));
+
+        request.put(UrgentRequests.FIELD_DONATION_ID, "d1");
+        assertFalse(UrgentRequests.needsDonation(request));
+
+        request.remove(UrgentRequests.FIELD_DONATION_ID);
+        request.put(UrgentRequests.FIELD_STATUS, "fulfilled");
+        assertFalse(UrgentRequests.needsDonation(request));
+    }
+
+    @Test
+    public void donationLinksBackToRequest() {
+        Map<String, Object> donation = UrgentRequests.toDonation(request(), "r1");
+
+        assertEquals("r1", donation.get("urgentRequestId"));
+        assertEquals("Urgent Request - Asha", donation.get("foodName"));
+        assertEquals("u1", donation.get("donorId"));
+        assertEquals("12 Main St", donation.get("location"));
+        assertEquals(Boolean.FALSE, donation.get("isReceived"));
+        assertFalse(donation.containsKey(GeoHash.FIELD_GEOHASH));
+    }
+
+    @Test
+    public void donationKeepsCoordinatesWhenKnown() {
+        Map<String, Object> request = request();
+        request.put("latitude", 12.97);
+        request.put("longitude", 77.59);
+        request.put(GeoHash.FIELD_GEOHASH, GeoHash.encode(12.97, 77.59));
+
+        Map<String, Object> donation = UrgentRequests.toDonation(request, "r1");
+
+        assertEquals(12.97, donation.get("latitude"));
+        assertEquals(request.get(GeoHash.FIELD_GEOHASH), donation.get(GeoHash.FIELD_GEOHASH));
+    }
+
+    private static Map<String, Object> request() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("requesterName", "Asha");
+        request.put("requesterId", "u1");
+        request.put("quantity", "20");
+        request.put("address", "12 Main St");
+        request.put(UrgentRequests.FIELD_STATUS, UrgentRequests.STATUS_PENDING);
+        return request;
+    }
+}
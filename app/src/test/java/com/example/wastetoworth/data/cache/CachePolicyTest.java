@@ -0,0 +1,59 @@
+package com.example.wastetoworth.data.cache;
+
+import com.example.wastetoworth.data.cache.CachePolicy.Tier;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CachePolicyTest {
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    public void tierFollowsDeviceClass() {
+        assertEquals(Tier.SMALL, CachePolicy.choose(true, 512, 64 * GB, null));
+        assertEquals(Tier.SMALL, CachePolicy.choose(false, 128, 64 * GB, null));
+        assertEquals(Tier.MEDIUM, CachePolicy.choose(false, 256, 64 * GB, null));
+        assertEquals(Tier.LARGE, CachePolicy.choose(false, 512, 64 * GB, null));
+    }
+
+    @Test
+    public void lowStorageShrinksTier() {
+        assertEquals(Tier.SMALL, CachePolicy.choose(false, 512, GB / 2, null));
+        assertEquals(Tier.MEDIUM, CachePolicy.choose(false, 512, 3 * GB, null));
+    }
+
+    @Test
+    public void overrideWinsUnlessStorageIsShort() {
+        assertEquals(Tier.LARGE, CachePolicy.choose(true, 64, 64 * GB, Tier.LARGE));
+        assertEquals(Tier.SMALL, CachePolicy.choose(false, 512, 64 * GB, Tier.SMALL));
+        // 1.5GB free allows at most about 77MB of cache
+        assertEquals(Tier.MEDIUM, CachePolicy.choose(false, 512, 3 * GB / 2, Tier.LARGE));
+    }
+
+    @Test
+    public void tierNamesParse() {
+        assertEquals(Tier.MEDIUM, Tier.parse("medium"));
+        assertNull(Tier.parse("huge"));
+        assertNull(Tier.parse(null));
+    }
+
+    @Test
+    public void metricsReportHitRate() {
+        CacheMetrics metrics = new CacheMetrics();
+        assertEquals(0, metrics.snapshot().getHitRate(), 0);
+
+        metrics.recordResult(true);
+        metrics.recordResult(false);
+        metrics.recordCacheLookup(true);
+        metrics.recordCacheLookup(false);
+        metrics.recordCacheSize(2048);
+
+        CacheMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getCacheHits());
+        assertEquals(1, snapshot.getCacheMisses());
+        assertEquals(1, snapshot.getServerReads());
+        assertEquals(0.5, snapshot.getHitRate(), 1e-9);
+        assertEquals(2048, snapshot.getCacheSizeBytes());
+    }
+}
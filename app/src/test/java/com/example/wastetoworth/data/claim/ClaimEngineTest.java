@@ -0,0 +1,246 @@
+package com.example.wastetoworth.data.claim;
+
+import com.example.wastetoworth.data.claim.ClaimResult.Outcome;
+import com.example.wastetoworth.util.Backoff;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ClaimEngineTest {
+
+    private MemoryStore store;
+    private ClaimEngine engine;
+
+    @Before
+    public void setUp() {
+        store = new MemoryStore();
+        engine = new ClaimEngine(store, new Backoff(1, 4, new Random(5)));
+        store.put("d1", new HashMap<>());
+    }
+
+    @Test
+    public void freeDocumentIsWonAndVersioned() {
+        ClaimResult result = engine.claim(volunteer("alice"));
+
+        assertEquals(Outcome.WON, result.getOutcome());
+        assertEquals("alice", store.field("d1", ClaimRequest.FIELD_VOLUNTEER_ID));
+        assertEquals("accepted", store.field("d1", "deliveryStatus"));
+        assertEquals(1, store.version("d1"));
+    }
+
+    @Test
+    public void heldDocumentIsLostOrAlreadyWon() {
+        engine.claim(volunteer("alice"));
+
+        ClaimResult lost = engine.claim(volunteer("bob"));
+        ClaimResult again = engine.claim(volunteer("alice"));
+
+        assertEquals(Outcome.LOST_TO_OTHER, lost.getOutcome());
+        assertEquals("alice", lost.getHolderId());
+        assertEquals(Outcome.WON, again.getOutcome());
+        assertEquals(1, store.version("d1"));
+    }
+
+    @Test
+    public void missingOrClosedDocumentIsStale() {
+        Map<String, Object> received = new HashMap<>();
+        received.put(ClaimRequest.FIELD_RECEIVED, true);
+        store.put("d2", received);
+
+        assertEquals(Outcome.STALE, engine.claim(
+                ClaimRequest.volunteer("donations", "missing", "alice", Collections.emptyMap())).getOutcome());
+        assertEquals(Outcome.STALE, engine.claim(
+                ClaimRequest.volunteer("donations", "d2", "alice", Collections.emptyMap())).getOutcome());
+        assertEquals(0, store.version("d2"));
+    }
+
+    @Test
+    public void claimRetriesAfterUnrelatedConcurrentWrite() {
+        // Someone else bumps the version between our read and our write, without claiming
+        store.beforeCompareAndSet = () -> {
+            store.beforeCompareAndSet = null;
+            store.bump("d1");
+        };
+
+        ClaimResult result = engine.claim(volunteer("alice"));
+
+        assertEquals(Outcome.WON, result.getOutcome());
+        assertEquals(2, result.getAttempts());
+        assertEquals(2, store.version("d1"));
+    }
+
+    @Test
+    public void claimIsDecidedAgainAtWriteTime() {
+        // A writer that does not increment the version takes the document after our read
+        store.beforeCompareAndSet = () -> {
+            store.beforeCompareAndSet = null;
+            store.set("d1", ClaimRequest.FIELD_VOLUNTEER_ID, "bob");
+        };
+
+        ClaimResult result = engine.claim(volunteer("alice"));
+
+        assertEquals(Outcome.LOST_TO_OTHER, result.getOutcome());
+        assertEquals("bob", store.field("d1", ClaimRequest.FIELD_VOLUNTEER_ID));
+        assertEquals(0, store.version("d1"));
+
+        store.put("d2", new HashMap<>());
+        store.beforeCompareAndSet = () -> {
+            store.beforeCompareAndSet = null;
+            store.set("d2", ClaimRequest.FIELD_RECEIVED, true);
+        };
+        ClaimResult closed = engine.claim(ClaimRequest.volunteer("donations", "d2", "alice",
+                Collections.emptyMap()));
+
+        assertEquals(Outcome.STALE, closed.getOutcome());
+        assertNull(store.field("d2", ClaimRequest.FIELD_VOLUNTEER_ID));
+    }
+
+    @Test
+    public void transientErrorsAreRetriedAndPermanentOnesAreNot() {
+        store.failures.set(2);
+        assertEquals(Outcome.WON, engine.claim(volunteer("alice")).getOutcome());
+
+        store.put("d1", new HashMap<>());
+        store.failures.set(ClaimEngine.MAX_ATTEMPTS);
+        ClaimResult exhausted = engine.claim(volunteer("alice"));
+        assertEquals(Outcome.FAILED, exhausted.getOutcome());
+        assertEquals(ClaimEngine.MAX_ATTEMPTS, exhausted.getAttempts());
+
+        store.failures.set(1);
+        store.retryable = false;
+        ClaimResult denied = engine.claim(volunteer("alice"));
+        assertEquals(Outcome.FAILED, denied.getOutcome());
+        assertEquals(1, denied.getAttempts());
+        assertEquals("Unavailable", denied.getError());
+    }
+
+    @Test
+    public void exactlyOneOfManyConcurrentClaimantsWins() throws Exception {
+        int claimants = 32;
+        for (int round = 0; round < 20; round++) {
+            String documentId = "hot" + round;
+            store.put(documentId, new HashMap<>());
+            store.yieldInside = true;
+            ExecutorService pool = Executors.newFixedThreadPool(claimants);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ClaimResult>> futures = new ArrayList<>();
+            for (int i = 0; i < claimants; i++) {
+                String claimant = "volunteer" + i;
+                futures.add(pool.submit((Callable<ClaimResult>) () -> {
+                    start.await();
+                    return engine.claim(ClaimRequest.volunteer("donations", documentId, claimant,
+                            Collections.singletonMap("deliveryStatus", "accepted")));
+                }));
+            }
+            start.countDown();
+
+            List<String> winners = new ArrayList<>();
+            for (Future<ClaimResult> future : futures) {
+                ClaimResult result = future.get(10, TimeUnit.SECONDS);
+                if (result.isWon()) {
+                    winners.add(result.getHolderId());
+                } else {
+                    assertEquals(Outcome.LOST_TO_OTHER, result.getOutcome());
+                }
+            }
+            pool.shutdown();
+
+            assertEquals(1, winners.size());
+            assertEquals(winners.get(0), store.field(documentId, ClaimRequest.FIELD_VOLUNTEER_ID));
+            assertEquals(1, store.version(documentId));
+        }
+    }
+
+    private static ClaimRequest volunteer(String claimant) {
+        return ClaimRequest.volunteer("donations", "d1", claimant,
+                Collections.singletonMap("deliveryStatus", "accepted"));
+    }
+
+    /** In-memory stand-in for Firestore with an atomic compare-and-set */
+    private static final class MemoryStore implements ClaimEngine.Store {
+        private final Map<String, Map<String, Object>> documents = new HashMap<>();
+        private final Map<String, Long> versions = new HashMap<>();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile boolean retryable = true;
+        volatile boolean yieldInside = false;
+        volatile Runnable beforeCompareAndSet;
+
+        synchronized void put(String id, Map<String, Object> fields) {
+            documents.put(id, new HashMap<>(fields));
+            versions.put(id, 0L);
+        }
+
+        synchronized Object field(String id, String field) {
+            return documents.get(id).get(field);
+        }
+
+        synchronized long version(String id) {
+            return versions.get(id);
+        }
+
+        synchronized void set(String id, String field, Object value) {
+            documents.get(id).put(field, value);
+        }
+
+        synchronized void bump(String id) {
+            versions.put(id, versions.get(id) + 1);
+        }
+
+        @Override
+        public ClaimEngine.Snapshot read(String collection, String documentId) throws IOException {
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IOException("Unavailable");
+            }
+            synchronized (this) {
+                Map<String, Object> fields = documents.get(documentId);
+                return fields == null ? null
+                        : new ClaimEngine.Snapshot(new HashMap<>(fields), versions.get(documentId));
+            }
+        }
+
+        @Override
+        public boolean compareAndSet(ClaimRequest request, long expectedVersion) {
+            Runnable hook = beforeCompareAndSet;
+            if (hook != null) {
+                hook.run();
+            }
+            if (yieldInside) {
+                // Widen the window between read and write so that claimants interleave
+                Thread.yield();
+            }
+            synchronized (this) {
+                String documentId = request.getDocumentId();
+                Map<String, Object> fields = documents.get(documentId);
+                if (fields == null || versions.get(documentId) != expectedVersion
+                        || ClaimEngine.decide(request, new ClaimEngine.Snapshot(fields, expectedVersion), 0) != null) {
+                    return false;
+                }
+                fields.putAll(request.getUpdates());
+                versions.put(documentId, expectedVersion + 1);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean isRetryable(Exception error) {
+            return retryable;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.wastetoworth.data.outbox;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class OutboxLogTest {
+
+    private File directory;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox").toFile();
+        file = new File(directory, "outbox.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void replaysLatestVersionOfLiveEntries() throws IOException {
+        OutboxLog log = new OutboxLog(file, new TextCodec());
+        log.write(entry("a", "first"));
+        log.write(entry("b", "second"));
+        log.write(entry("a", "updated"));
+        log.delete(OutboxEntry.keyOf("donations", "b"));
+
+        List<OutboxEntry> loaded = new OutboxLog(file, new TextCodec()).load();
+
+        assertEquals(1, loaded.size());
+        assertEquals("updated", loaded.get(0).getFields().get("name"));
+    }
+
+    @Test
+    public void skipsLineTruncatedByCrashAndKeepsAppending() throws IOException {
+        OutboxLog log = new OutboxLog(file, new TextCodec());
+        log.write(entry("a", "kept"));
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("P\tdonations|b".getBytes(StandardCharsets.UTF_8));
+        }
+
+        OutboxLog reopened = new OutboxLog(file, new TextCodec());
+        assertEquals(1, reopened.load().size());
+        assertEquals(1, reopened.getSkippedRecordCount());
+        reopened.write(entry("c", "after crash"));
+
+        List<OutboxEntry> loaded = new OutboxLog(file, new TextCodec()).load();
+        assertEquals(2, loaded.size());
+        assertEquals("after crash", loaded.get(1).getFields().get("name"));
+    }
+
+    @Test
+    public void compactsOnceMostRecordsAreSuperseded() throws IOException {
+        OutboxLog log = new OutboxLog(file, new TextCodec());
+        for (int i = 0; i < 200; i++) {
+            log.write(entry("a", "version " + i));
+        }
+        log.write(entry("b", "other"));
+
+        assertTrue(log.getRecordCount() < 64);
+        List<OutboxEntry> loaded = new OutboxLog(file, new TextCodec()).load();
+        assertEquals(2, loaded.size());
+        assertEquals("version 199", loaded.get(0).getFields().get("name"));
+    }
+
+    @Test
+    public void writeBeforeLoadKeepsExistingEntries() throws IOException {
+        OutboxLog log = new OutboxLog(file, new TextCodec());
+        for (int i = 0; i < 10; i++) {
+            log.write(entry("old" + i, "old"));
+        }
+
+        OutboxLog unloaded = new OutboxLog(file, new TextCodec());
+        for (int i = 0; i < 100; i++) {
+            unloaded.write(entry("new", "version " + i));
+        }
+
+        assertEquals(11, new OutboxLog(file, new TextCodec()).load().size());
+    }
+
+    private static OutboxEntry entry(String id, String name) {
+        return OutboxEntry.create("donations", id, Collections.singletonMap("name", name), 0);
+    }
+
+    /** "collection|id|name", enough to tell entries apart */
+    private static final class TextCodec implements OutboxLog.Codec {
+        @Override
+        public String encode(OutboxEntry entry) {
+            return entry.getCollection() + "|" + entry.getDocumentId() + "|" + entry.getFields().get("name");
+        }
+
+        @Override
+        public OutboxEntry decode(String line) throws IOException {
+            String[] parts = line.split("\\|");
+            if (parts.length != 3) throw new IOException("Truncated: " + line);
+            Map<String, Object> fields = Collections.singletonMap("name", parts[2]);
+            return OutboxEntry.create(parts[0], parts[1], fields, 0);
+        }
+    }
+}
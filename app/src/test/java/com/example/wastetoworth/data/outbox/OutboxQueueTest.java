@@ -0,0 +1,236 @@
+package com.example.wastetoworth.data.outbox;
+
+import com.example.wastetoworth.data.outbox.OutboxEntry.Status;
+import com.example.wastetoworth.util.Backoff;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OutboxQueueTest {
+
+    private MemoryStore store;
+    private OutboxQueue queue;
+
+    @Before
+    public void setUp() {
+        store = new MemoryStore();
+        queue = newQueue();
+    }
+
+    @Test
+    public void enqueueDeduplicatesByDocument() throws IOException {
+        assertTrue(queue.enqueue(entry("a", 0)));
+        assertFalse(queue.enqueue(entry("a", 5)));
+        assertTrue(queue.enqueue(entry("b", 5)));
+
+        assertEquals(2, queue.undeliveredCount());
+        assertEquals(2, store.entries.size());
+    }
+
+    @Test
+    public void dueEntriesAreSentOnceUntilTheyFail() throws IOException {
+        queue.enqueue(entry("a", 0));
+        queue.enqueue(entry("b", 10));
+
+        List<OutboxEntry> due = queue.takeDue(10);
+        assertEquals(2, due.size());
+        assertEquals(Status.SENDING, due.get(0).getStatus());
+        assertTrue(queue.takeDue(20).isEmpty());
+    }
+
+    @Test
+    public void transientFailureBacksOffAndPermanentFailureRejects() throws IOException {
+        queue.enqueue(entry("a", 0));
+        queue.enqueue(entry("b", 0));
+        queue.takeDue(0);
+
+        OutboxEntry retried = queue.markFailed(key("a"), "unavailable", false, 100);
+        OutboxEntry rejected = queue.markFailed(key("b"), "denied", true, 100);
+
+        assertEquals(Status.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertTrue(retried.getNextAttemptAt() >= 100 + 500 && retried.getNextAttemptAt() <= 100 + 1000);
+        assertEquals(Status.REJECTED, rejected.getStatus());
+        assertEquals("denied", store.entries.get(key("b")).getLastError());
+
+        assertTrue(queue.takeDue(100).isEmpty());
+        assertEquals(retried.getNextAttemptAt(), queue.nextAttemptAt());
+        assertEquals(Collections.singletonList(key("a")), keys(queue.takeDue(retried.getNextAttemptAt())));
+    }
+
+    @Test
+    public void backoffGrowsWithEachFailure() throws IOException {
+        queue.enqueue(entry("a", 0));
+        long now = 0;
+        long previousDelay = 0;
+        for (int attempt = 1; attempt <= 4; attempt++) {
+            queue.takeDue(now);
+            OutboxEntry failed = queue.markFailed(key("a"), "unavailable", false, now);
+            long delay = failed.getNextAttemptAt() - now;
+            assertTrue(delay >= previousDelay);
+            previousDelay = delay;
+            now = failed.getNextAttemptAt();
+        }
+        assertTrue(previousDelay >= 4000);
+    }
+
+    @Test
+    public void makePendingDueCutsBackoffShort() throws IOException {
+        queue.enqueue(entry("a", 0));
+        queue.takeDue(0);
+        queue.markFailed(key("a"), "unavailable", false, 0);
+
+        queue.makePendingDue(1);
+
+        assertEquals(1, queue.takeDue(1).size());
+    }
+
+    @Test
+    public void sentEntriesLeaveStorageButStayVisible() throws IOException {
+        queue.enqueue(entry("a", 0));
+        queue.takeDue(0);
+
+        OutboxEntry sent = queue.markSent(key("a"));
+
+        assertEquals(Status.SENT, sent.getStatus());
+        assertTrue(store.entries.isEmpty());
+        assertEquals(0, queue.undeliveredCount());
+        assertEquals(Status.SENT, queue.snapshot().get(0).getStatus());
+        assertFalse(queue.enqueue(entry("a", 5)));
+        assertEquals(Long.MAX_VALUE, queue.nextAttemptAt());
+    }
+
+    @Test
+    public void reloadRetriesEntriesThatWereInFlight() throws IOException {
+        queue.enqueue(entry("a", 0));
+        queue.enqueue(entry("b", 0));
+        queue.takeDue(0);
+        queue.markFailed(key("b"), "denied", true, 0);
+        store.entries.put(key("a"), store.entries.get(key("a")).withStatus(Status.SENDING));
+
+        OutboxQueue reloaded = newQueue();
+        reloaded.load();
+
+        assertEquals(Collections.singletonList(key("a")), keys(reloaded.takeDue(0)));
+        assertEquals(Status.REJECTED, reloaded.get(key("b")).getStatus());
+    }
+
+    @Test
+    public void onlyFailedOrReloadedEntriesMayHaveBeenSent() throws IOException {
+        queue.enqueue(entry("a", 0));
+        queue.enqueue(entry("b", 0));
+        queue.takeDue(0);
+        assertFalse(queue.mayHaveBeenSent(key("a")));
+
+        queue.markFailed(key("b"), "unavailable", false, 0);
+        assertTrue(queue.mayHaveBeenSent(key("b")));
+
+        // Reloaded after the process died with "a" in flight and never failed
+        OutboxQueue reloaded = newQueue();
+        reloaded.load();
+        assertEquals(0, reloaded.get(key("a")).getAttempts());
+        assertTrue(reloaded.mayHaveBeenSent(key("a")));
+
+        reloaded.takeDue(0);
+        reloaded.markSent(key("a"));
+        assertFalse(reloaded.mayHaveBeenSent(key("a")));
+        assertFalse(reloaded.mayHaveBeenSent(key("c")));
+    }
+
+    @Test
+    public void rejectedEntriesCanBeRetriedOrDiscarded() throws IOException {
+        queue.enqueue(entry("a", 0));
+        queue.enqueue(entry("b", 0));
+        queue.takeDue(0);
+        queue.markFailed(key("a"), "denied", true, 0);
+        queue.markFailed(key("b"), "denied", true, 0);
+
+        assertTrue(queue.retry(key("a"), 50));
+        assertTrue(queue.discard(key("b")));
+        assertFalse(queue.retry(key("a"), 50));
+
+        assertEquals(Collections.singletonList(key("a")), keys(queue.takeDue(50)));
+        assertFalse(store.entries.containsKey(key("b")));
+    }
+
+    @Test
+    public void linkedDocumentsStayWithTheirEntry() throws IOException {
+        OutboxEntry.LinkedDocument donation = new OutboxEntry.LinkedDocument("donations", "d1",
+                Collections.<String, Object>singletonMap("urgentRequestId", "r1"));
+        queue.enqueue(OutboxEntry.create("urgent_requests", "r1", Collections.<String, Object>emptyMap(),
+                Collections.singletonList(donation), 0));
+        queue.takeDue(0);
+        queue.markFailed(OutboxEntry.keyOf("urgent_requests", "r1"), "unavailable", false, 0);
+
+        OutboxQueue reloaded = newQueue();
+        reloaded.load();
+        OutboxEntry entry = reloaded.get(OutboxEntry.keyOf("urgent_requests", "r1"));
+
+        assertEquals(1, entry.getLinkedDocuments().size());
+        assertEquals("d1", entry.getLinkedDocuments().get(0).getDocumentId());
+        assertEquals("r1", entry.getLinkedDocuments().get(0).getFields().get("urgentRequestId"));
+    }
+
+    @Test
+    public void failedStoreWriteStillQueuesEntry() {
+        store.failWrites = true;
+        try {
+            queue.enqueue(entry("a", 0));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Reported to the caller
+        }
+        assertEquals(1, queue.takeDue(0).size());
+    }
+
+    private OutboxQueue newQueue() {
+        return new OutboxQueue(store, new Backoff(1000, 60_000, new Random(7)));
+    }
+
+    private static OutboxEntry entry(String id, long now) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", "item " + id);
+        return OutboxEntry.create("donations", id, fields, now);
+    }
+
+    private static String key(String id) {
+        return OutboxEntry.keyOf("donations", id);
+    }
+
+    private static List<String> keys(List<OutboxEntry> entries) {
+        List<String> keys = new ArrayList<>();
+        for (OutboxEntry entry : entries) keys.add(entry.getKey());
+        return keys;
+    }
+
+    private static final class MemoryStore implements OutboxQueue.Store {
+        final Map<String, OutboxEntry> entries = new LinkedHashMap<>();
+        boolean failWrites = false;
+
+        @Override
+        public List<OutboxEntry> load() {
+            return new ArrayList<>(entries.values());
+        }
+
+        @Override
+        public void write(OutboxEntry entry) throws IOException {
+            if (failWrites) throw new IOException("Disk full");
+            entries.put(entry.getKey(), entry);
+        }
+
+        @Override
+        public void delete(String key) {
+            entries.remove(key);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.wastetoworth.ml;
+
+import com.example.wastetoworth.ml.AccelerationPolicy.Acceleration;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AccelerationPolicy}.
+ */
+public class AccelerationPolicyTest {
+
+    @Test
+    public void choose_defaultsToXnnpack() {
+        assertEquals(Acceleration.XNNPACK, AccelerationPolicy.choose(34, false, true, false));
+    }
+
+    @Test
+    public void choose_gpuOnlyWhenAllowedAndSupported() {
+        assertEquals(Acceleration.GPU, AccelerationPolicy.choose(34, true, true, false));
+        assertEquals(Acceleration.XNNPACK, AccelerationPolicy.choose(34, true, false, false));
+    }
+
+    @Test
+    public void choose_nnapiOnlyOnRecentSdk() {
+        assertEquals(Acceleration.NNAPI, AccelerationPolicy.choose(28, false, false, true));
+        assertEquals(Acceleration.XNNPACK, AccelerationPolicy.choose(27, false, false, true));
+    }
+
+    @Test
+    public void fallback_endsAtPlainCpu() {
+        assertEquals(Acceleration.XNNPACK, AccelerationPolicy.fallback(Acceleration.GPU));
+        assertEquals(Acceleration.XNNPACK, AccelerationPolicy.fallback(Acceleration.NNAPI));
+        assertEquals(Acceleration.CPU, AccelerationPolicy.fallback(Acceleration.XNNPACK));
+        assertNull(AccelerationPolicy.fallback(Acceleration.CPU));
+    }
+
+    @Test
+    public void threadCount_halfTheCoresBetweenOneAndFour() {
+        assertEquals(1, AccelerationPolicy.threadCount(1));
+        assertEquals(2, AccelerationPolicy.threadCount(4));
+        assertEquals(4, AccelerationPolicy.threadCount(16));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.wastetoworth.ml;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BatchSummary}.
+ */
+public class BatchSummaryTest {
+
+    @Test
+    public void add_countsCategoriesFreshnessAndDonatable() {
+        BatchSummary summary = new BatchSummary();
+        summary.add("Fruits", "Fresh", true);
+        summary.add("Fruits", "Good", true);
+        summary.add("Grains", "Poor", false);
+        summary.addFailure();
+
+        assertEquals(4, summary.getTotal());
+        assertEquals(3, summary.getClassified());
+        assertEquals(1, summary.getFailed());
+        assertEquals(2, summary.getDonatable());
+        assertEquals(Integer.valueOf(2), summary.getCategoryCounts().get("Fruits"));
+        assertEquals("Fruits", summary.getDominantCategory());
+        assertTrue(summary.getRecommendations().contains("2 of 4 items are suitable for donation."));
+        assertTrue(summary.getRecommendations().contains("1 items look spoiled. Consider composting them instead."));
+    }
+
+    @Test
+    public void getImagesPerSecond_usesElapsedTime() {
+        BatchSummary summary = new BatchSummary();
+        for (int i = 0; i < 10; i++) summary.add("Dairy", "Fresh", true);
+        summary.setElapsedNanos(2_000_000_000L);
+
+        assertEquals(5.0, summary.getImagesPerSecond(), 1e-9);
+        assertEquals(2000.0, summary.getElapsedMillis(), 1e-9);
+    }
+
+    @Test
+    public void emptySummary() {
+        BatchSummary summary = new BatchSummary();
+        assertNull(summary.getDominantCategory());
+        assertEquals(0, summary.getImagesPerSecond(), 0);
+        assertTrue(summary.getRecommendations().isEmpty());
+    }
+}
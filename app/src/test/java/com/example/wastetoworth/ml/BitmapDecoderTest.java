@@ -0,0 +1,31 @@
+package com.example.wastetoworth.ml;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BitmapDecoder}.
+ */
+public class BitmapDecoderTest {
+
+    @Test
+    public void calculateInSampleSize_keepsShorterSideAtLeastMinSize() {
+        // 12MP photo down to the 224px model input
+        int sampleSize = BitmapDecoder.calculateInSampleSize(4000, 3000, 224);
+        assertEquals(8, sampleSize);
+        assertTrue(3000 / sampleSize >= 224);
+        assertTrue(3000 / (sampleSize * 2) < 224);
+    }
+
+    @Test
+    public void calculateInSampleSize_smallImageIsNotSubsampled() {
+        assertEquals(1, BitmapDecoder.calculateInSampleSize(160, 120, 224));
+        assertEquals(1, BitmapDecoder.calculateInSampleSize(300, 300, 224));
+    }
+
+    @Test
+    public void calculateInSampleSize_exactMultiple() {
+        assertEquals(4, BitmapDecoder.calculateInSampleSize(896, 896, 224));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.wastetoworth.ml;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark of label-to-category lookup on 50-label classifier outputs.
+ *
+ * "legacy" replays what processLabels did before {@link FoodTaxonomy}: rebuild the
+ * category map per classification, scan every list with contains, and String.format
+ * each label. "taxonomy" is the precompiled index.
+ */
+public class FoodTaxonomyBenchmark {
+
+    private static final int OUTPUTS = 2_000;
+    private static final int LABELS_PER_OUTPUT = 50;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 20;
+    private static final String[] VOCABULARY = {
+            "Food", "Fruit", "Apple", "Banana", "Bread", "Rice", "Meat", "Fish", "Cheese", "Milk",
+            "Vegetable", "Carrot", "Tomato", "Dish", "Meal", "Cuisine", "Egg", "Bean", "Pasta", "Cereal",
+            "Tableware", "Plate", "Bowl", "Cutlery", "Table", "Cup", "Glass", "Hand", "Kitchen", "Container",
+            "Baked goods", "Fast food", "Snack", "Dessert", "Sweet", "Leaf", "Plant", "Flower", "Wood", "Paper"};
+
+    @Test
+    public void compareLookupStrategies() {
+        Random random = new Random(3);
+        List<List<Label>> outputs = new ArrayList<>(OUTPUTS);
+        for (int i = 0; i < OUTPUTS; i++) {
+            List<Label> labels = new ArrayList<>(LABELS_PER_OUTPUT);
+            for (int j = 0; j < LABELS_PER_OUTPUT; j++) {
+                labels.add(new Label(VOCABULARY[random.nextInt(VOCABULARY.length)], 0.5f + random.nextFloat() / 2));
+            }
+            outputs.add(labels);
+        }
+
+        FoodTaxonomy taxonomy = FoodTaxonomy.createDefault();
+        double legacyMs = 0, taxonomyMs = 0;
+        long taxonomyBytes = 0;
+        int legacyChecksum = 0, taxonomyChecksum = 0;
+        for (int iter = 0; iter < WARMUP_ITERATIONS + ITERATIONS; iter++) {
+            boolean measure = iter >= WARMUP_ITERATIONS;
+
+            long start = System.nanoTime();
+            legacyChecksum = 0;
+            for (List<Label> labels : outputs) {
+                legacyChecksum += legacyCategory(labels).hashCode();
+            }
+            if (measure) legacyMs += (System.nanoTime() - start) / 1e6;
+
+            long allocatedBefore = allocatedBytes();
+            start = System.nanoTime();
+            taxonomyChecksum = 0;
+            for (List<Label> labels : outputs) {
+                taxonomyChecksum += taxonomyCategory(taxonomy, labels).hashCode();
+            }
+            if (measure) {
+                taxonomyMs += (System.nanoTime() - start) / 1e6;
+                taxonomyBytes += allocatedBytes() - allocatedBefore;
+            }
+        }
+
+        assertEquals(legacyChecksum, taxonomyChecksum);
+        System.out.printf("legacy: %.3f ms/output, taxonomy: %.4f ms/output (%.1fx), taxonomy allocation: %d bytes/output%n",
+                legacyMs / ITERATIONS / OUTPUTS, taxonomyMs / ITERATIONS / OUTPUTS,
+                legacyMs / taxonomyMs, taxonomyBytes / ITERATIONS / OUTPUTS);
+        assertTrue(taxonomyMs < legacyMs);
+    }
+
+    /** Category chosen by the taxonomy, excluding label formatting which both versions still do */
+    private static String taxonomyCategory(FoodTaxonomy taxonomy, List<Label> labels) {
+        float maxConfidence = 0f;
+        int detected = FoodTaxonomy.NO_CATEGORY;
+        for (int i = 0; i < labels.size(); i++) {
+            Label label = labels.get(i);
+            // Legacy matched whole labels only; words of multi-word labels are skipped to compare like for like
+            if (label.getText().indexOf(' ') >= 0) continue;
+            int category = taxonomy.lookup(label.getText());
+            if (category != FoodTaxonomy.NO_CATEGORY && label.getConfidence() > maxConfidence) {
+                maxConfidence = label.getConfidence();
+                detected = category;
+            }
+        }
+        return detected == FoodTaxonomy.NO_CATEGORY ? "Other" : taxonomy.categoryName(detected);
+    }
+
+    private static String legacyCategory(List<Label> labels) {
+        Map<String, List<String>> foodCategories = legacyCategories();
+        List<String> detectedLabels = new ArrayList<>();
+        float maxConfidence = 0f;
+        String detectedCategory = "Other";
+        for (Label label : labels) {
+            String labelText = label.getText().toLowerCase();
+            float confidence = label.getConfidence();
+            detectedLabels.add(labelText + " (" + String.format("%.1f%%", confidence * 100) + ")");
+            for (Map.Entry<String, List<String>> entry : foodCategories.entrySet()) {
+                if (entry.getValue().contains(labelText)) {
+                    if (confidence > maxConfidence) {
+                        maxConfidence = confidence;
+                        detectedCategory = entry.getKey();
+                    }
+                }
+            }
+        }
+        return detectedCategory;
+    }
+
+    private static Map<String, List<String>> legacyCategories() {
+        Map<String, List<String>> categories = new HashMap<>();
+        categories.put("Fruits", list("fruit", "apple", "banana", "orange", "grape", "berry"));
+        categories.put("Vegetables", list("vegetable", "carrot", "potato", "tomato", "lettuce", "broccoli"));
+        categories.put("Grains", list("bread", "rice", "pasta", "cereal", "grain"));
+        categories.put("Dairy", list("milk", "cheese", "yogurt", "dairy"));
+        categories.put("Protein", list("meat", "chicken", "fish", "egg", "bean"));
+        categories.put("Prepared Food", list("meal", "dish", "food", "cuisine"));
+        return categories;
+    }
+
+    private static List<String> list(String... values) {
+        List<String> list = new ArrayList<>(values.length);
+        for (String value : values) list.add(value);
+        return list;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
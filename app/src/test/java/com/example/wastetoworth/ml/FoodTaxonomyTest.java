@@ -0,0 +1,82 @@
+package com.example.wastetoworth.ml;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FoodTaxonomy}.
+ */
+public class FoodTaxonomyTest {
+
+    private final FoodTaxonomy taxonomy = FoodTaxonomy.createDefault();
+
+    @Test
+    public void lookup_matchesTermsCaseInsensitively() {
+        assertEquals("Fruits", name(taxonomy.lookup("Apple")));
+        assertEquals("Dairy", name(taxonomy.lookup("CHEESE")));
+        assertEquals("Prepared Food", name(taxonomy.lookup("food")));
+    }
+
+    @Test
+    public void lookup_matchesPluralForms() {
+        assertEquals("Fruits", name(taxonomy.lookup("Berries")));
+        assertEquals("Vegetables", name(taxonomy.lookup("tomatoes")));
+        assertEquals("Protein", name(taxonomy.lookup("Eggs")));
+        assertEquals("Prepared Food", name(taxonomy.lookup("dishes")));
+    }
+
+    @Test
+    public void lookup_matchesSynonyms() {
+        assertEquals("Vegetables", name(taxonomy.lookup("Produce")));
+        assertEquals("Protein", name(taxonomy.lookup("Seafood")));
+        assertEquals("Grains", name(taxonomy.lookup("noodles")));
+    }
+
+    @Test
+    public void lookup_fallsBackToWords() {
+        assertEquals("Prepared Food", name(taxonomy.lookup("Fast food")));
+        assertEquals("Grains", name(taxonomy.lookup("Whole-grain")));
+    }
+
+    @Test
+    public void lookup_unknownLabel() {
+        assertEquals(FoodTaxonomy.NO_CATEGORY, taxonomy.lookup("Tableware"));
+        assertEquals(FoodTaxonomy.NO_CATEGORY, taxonomy.lookup(""));
+        assertEquals(FoodTaxonomy.NO_CATEGORY, taxonomy.lookup("app"));
+    }
+
+    @Test
+    public void parse_customTaxonomyFirstDefinitionWins() throws IOException {
+        FoodTaxonomy custom = FoodTaxonomy.parse(new StringReader(
+                "# Bakery first\nBakery: bread, roll\nGrains: bread, rice\nbun = roll\n"));
+
+        assertEquals("Bakery", name(custom, custom.lookup("bread")));
+        assertEquals("Grains", name(custom, custom.lookup("rice")));
+        assertEquals("Bakery", name(custom, custom.lookup("buns")));
+        assertEquals(2, custom.getCategories().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_rejectsAliasOfUnknownTerm() throws IOException {
+        FoodTaxonomy.parse(new StringReader("Fruits: apple\npear = quince\n"));
+    }
+
+    @Test
+    public void inflections_coverCommonPlurals() {
+        assertTrue(FoodTaxonomy.inflections("berry").contains("berries"));
+        assertTrue(FoodTaxonomy.inflections("potato").contains("potatoes"));
+        assertTrue(FoodTaxonomy.inflections("apple").contains("apples"));
+    }
+
+    private String name(int id) {
+        return name(taxonomy, id);
+    }
+
+    private static String name(FoodTaxonomy taxonomy, int id) {
+        return id == FoodTaxonomy.NO_CATEGORY ? null : taxonomy.categoryName(id);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.wastetoworth.ml;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PerceptualHash}.
+ */
+public class PerceptualHashTest {
+
+    @Test
+    public void dHash_isStableUnderRescalingAndExposure() {
+        long original = PerceptualHash.dHash(scene(180, 160, 0), 180, 160);
+
+        assertTrue(PerceptualHash.distance(original, PerceptualHash.dHash(scene(90, 80, 0), 90, 80)) <= 4);
+        assertTrue(PerceptualHash.distance(original, PerceptualHash.dHash(scene(180, 160, 40), 180, 160)) <= 4);
+    }
+
+    @Test
+    public void dHash_separatesDifferentImages() {
+        Random random = new Random(5);
+        long a = PerceptualHash.dHash(noise(random, 120, 120), 120, 120);
+        long b = PerceptualHash.dHash(noise(random, 120, 120), 120, 120);
+
+        assertTrue(PerceptualHash.distance(a, b) > 16);
+    }
+
+    @Test
+    public void dHash_horizontalGradientSetsEveryBit() {
+        int[] pixels = new int[90 * 8];
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 90; x++) {
+                pixels[y * 90 + x] = gray(x * 255 / 89);
+            }
+        }
+        assertEquals(-1L, PerceptualHash.dHash(pixels, 90, 8));
+        assertEquals(0L, PerceptualHash.dHash(new int[90 * 8], 90, 8));
+    }
+
+    @Test
+    public void dHash_acceptsImagesSmallerThanTheGrid() {
+        PerceptualHash.dHash(new int[]{gray(0), gray(100), gray(200), gray(50), gray(150), gray(250)}, 3, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dHash_rejectsShortPixelArray() {
+        PerceptualHash.dHash(new int[10], 4, 4);
+    }
+
+    @Test
+    public void distance_countsDifferingBits() {
+        assertEquals(0, PerceptualHash.distance(0x1234L, 0x1234L));
+        assertEquals(64, PerceptualHash.distance(0L, -1L));
+        assertEquals(2, PerceptualHash.distance(0b1010L, 0b0110L));
+    }
+
+    /** A few soft blobs on a background, brightened by exposure */
+    private static int[] scene(int width, int height, int exposure) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double u = (double) x / width;
+                double v = (double) y / height;
+                double value = 60
+                        + 120 * Math.exp(-((u - 0.3) * (u - 0.3) + (v - 0.4) * (v - 0.4)) * 20)
+                        + 70 * Math.exp(-((u - 0.75) * (u - 0.75) + (v - 0.7) * (v - 0.7)) * 30)
+                        + 30 * Math.sin(u * 7) * Math.cos(v * 5);
+                pixels[y * width + x] = gray((int) Math.min(255, value + exposure));
+            }
+        }
+        return pixels;
+    }
+
+    private static int[] noise(Random random, int width, int height) {
+        // Blocky noise, so that the 9x8 grid averages do not all wash out to the same grey
+        int[] pixels = new int[width * height];
+        int[] blocks = new int[20 * 20];
+        for (int i = 0; i < blocks.length; i++) blocks[i] = random.nextInt(256);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = gray(blocks[(y * 20 / height) * 20 + x * 20 / width]);
+            }
+        }
+        return pixels;
+    }
+
+    private static int gray(int value) {
+        return 0xff000000 | (value << 16) | (value << 8) | value;
+    }
+}
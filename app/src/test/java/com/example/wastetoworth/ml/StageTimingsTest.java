@@ -0,0 +1,30 @@
+package com.example.wastetoworth.ml;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link StageTimings}.
+ */
+public class StageTimingsTest {
+
+    @Test
+    public void record_accumulatesPerStageAndTotal() throws InterruptedException {
+        StageTimings timings = new StageTimings();
+        long start = System.nanoTime();
+        Thread.sleep(5);
+        timings.record(StageTimings.Stage.INFER, start);
+
+        assertTrue(timings.getMillis(StageTimings.Stage.INFER) >= 5);
+        assertEquals(0, timings.getMillis(StageTimings.Stage.DECODE), 0);
+        assertEquals(timings.getMillis(StageTimings.Stage.INFER), timings.getTotalMillis(), 1e-9);
+    }
+
+    @Test
+    public void toString_listsEveryStage() {
+        String text = new StageTimings().toString();
+        assertTrue(text.startsWith("decode=0.0ms preprocess=0.0ms infer=0.0ms postprocess=0.0ms"));
+        assertTrue(text.endsWith("total=0.0ms"));
+    }
+}
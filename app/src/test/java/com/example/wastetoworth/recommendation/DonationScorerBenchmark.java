@@ -0,0 +1,131 @@
+package com.example.wastetoworth.recommendation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JMH-style microbenchmark of donor and receiver match scoring over synthetic candidates.
+ *
+ * "string" replays the previous per-document logic (toLowerCase/contains on every field),
+ * "scorer" calls {@link DonationScorer} per candidate and "batch" uses the one-pass batch API.
+ */
+public class DonationScorerBenchmark {
+
+    private static final int SIZE = 100_000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 20;
+    private static final String[] CATEGORIES = {
+            "Cooked Food", "Bakery", "Fresh Fruit", "Vegetables", "Dairy", "Packaged Food", "Rice", "Fried Rice"
+    };
+
+    @Test
+    public void compareScoringStrategies() {
+        Random random = new Random(1);
+        long now = System.currentTimeMillis();
+        String[] rawCategories = new String[SIZE];
+        CategoryDictionary categories = new CategoryDictionary();
+        DonationScorer scorer = new DonationScorer(categories);
+        ScoringCandidate[] candidates = new ScoringCandidate[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            rawCategories[i] = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            candidates[i] = new ScoringCandidate(categories.intern(rawCategories[i]), random.nextBoolean(),
+                    random.nextInt(20), random.nextDouble() * 15, now - random.nextInt(10) * 3_600_000L);
+        }
+        String foodCategory = "rice";
+        List<String> needed = Arrays.asList("Rice", "fruit");
+        int foodCategoryId = categories.intern(foodCategory);
+        int[] neededIds = categories.internAll(needed);
+        double[] scores = new double[SIZE];
+
+        double stringDonor = 0, scorerDonor = 0, batchDonor = 0;
+        double stringReceiver = 0, scorerReceiver = 0, batchReceiver = 0;
+        double checksumString = 0, checksumBatch = 0;
+        for (int iter = 0; iter < WARMUP_ITERATIONS + ITERATIONS; iter++) {
+            boolean measure = iter >= WARMUP_ITERATIONS;
+
+            long start = System.nanoTime();
+            checksumString = 0;
+            for (int i = 0; i < SIZE; i++) {
+                checksumString += legacyDonorScore(rawCategories[i], candidates[i], foodCategory, 10);
+            }
+            if (measure) stringDonor += (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SIZE; i++) {
+                scores[i] = scorer.matchScore(candidates[i], foodCategoryId, 10);
+            }
+            if (measure) scorerDonor += (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            scorer.scoreForDonor(candidates, 0, SIZE, foodCategoryId, 10, scores);
+            if (measure) batchDonor += (System.nanoTime() - start) / 1e6;
+            checksumBatch = 0;
+            for (double score : scores) checksumBatch += score;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SIZE; i++) {
+                legacyReceiverScore(rawCategories[i], candidates[i], needed, now);
+            }
+            if (measure) stringReceiver += (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SIZE; i++) {
+                if (scorer.matchesAny(candidates[i], neededIds)) {
+                    scores[i] = scorer.receiverMatchScore(candidates[i], neededIds, now);
+                }
+            }
+            if (measure) scorerReceiver += (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            scorer.scoreForReceiver(candidates, 0, SIZE, neededIds, now, scores);
+            if (measure) batchReceiver += (System.nanoTime() - start) / 1e6;
+        }
+
+        System.out.printf("donor    n=%d string: %.3f ms | scorer: %.3f ms | batch: %.3f ms%n",
+                SIZE, stringDonor / ITERATIONS, scorerDonor / ITERATIONS, batchDonor / ITERATIONS);
+        System.out.printf("receiver n=%d string: %.3f ms | scorer: %.3f ms | batch: %.3f ms%n",
+                SIZE, stringReceiver / ITERATIONS, scorerReceiver / ITERATIONS, batchReceiver / ITERATIONS);
+        assertEquals(checksumString, checksumBatch, 1e-6);
+    }
+
+    private static double legacyDonorScore(String requestedCategory, ScoringCandidate c,
+                                           String foodCategory, int quantity) {
+        double score = 100.0;
+        if (requestedCategory != null && requestedCategory.equalsIgnoreCase(foodCategory)) {
+            score += 40;
+        } else if (requestedCategory != null
+                && requestedCategory.toLowerCase(Locale.ROOT).contains(foodCategory.toLowerCase(Locale.ROOT))) {
+            score += 20;
+        }
+        if (c.distanceKm < 2) score += 30;
+        else if (c.distanceKm < 5) score += 20;
+        else if (c.distanceKm < 10) score += 10;
+        if (c.urgent) score += 20;
+        if (c.requiredQuantity != ScoringCandidate.NO_QUANTITY) score += quantity >= c.requiredQuantity ? 10 : 5;
+        return score;
+    }
+
+    private static double legacyReceiverScore(String foodType, ScoringCandidate c,
+                                              List<String> neededCategories, long now) {
+        double score = 100.0;
+        for (String category : neededCategories) {
+            if (foodType != null && foodType.toLowerCase(Locale.ROOT).contains(category.toLowerCase(Locale.ROOT))) {
+                score += 30;
+                break;
+            }
+        }
+        if (c.distanceKm < 2) score += 25;
+        else if (c.distanceKm < 5) score += 15;
+        else if (c.distanceKm < 10) score += 5;
+        long hoursSince = (now - c.timestampMillis) / (1000 * 60 * 60);
+        if (hoursSince < 2) score += 20;
+        else if (hoursSince < 6) score += 10;
+        return score;
+    }
+}
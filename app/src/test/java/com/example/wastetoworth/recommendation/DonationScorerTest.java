@@ -0,0 +1,89 @@
+package com.example.wastetoworth.recommendation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DonationScorer}.
+ */
+public class DonationScorerTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long HOUR = 60L * 60 * 1000;
+
+    private CategoryDictionary categories;
+    private DonationScorer scorer;
+
+    @Before
+    public void setUp() {
+        categories = new CategoryDictionary();
+        scorer = new DonationScorer(categories);
+    }
+
+    @Test
+    public void intern_normalisesCase() {
+        assertEquals(categories.intern("Cooked Food"), categories.intern("  cooked food "));
+        assertEquals(CategoryDictionary.NO_CATEGORY, categories.intern(null));
+        assertEquals(CategoryDictionary.NO_CATEGORY, categories.intern("   "));
+    }
+
+    @Test
+    public void matchScore_exactCategoryNearbyUrgent() {
+        int food = categories.intern("Bakery");
+        ScoringCandidate candidate = new ScoringCandidate(categories.intern("BAKERY"), true, 10, 1.5,
+                ScoringCandidate.NO_TIMESTAMP);
+        // 100 base + 40 category + 30 distance + 20 urgent + 10 quantity
+        assertEquals(200.0, scorer.matchScore(candidate, food, 12), 0);
+        assertEquals(3, scorer.priority(candidate, food));
+    }
+
+    @Test
+    public void matchScore_partialCategoryFarAway() {
+        int food = categories.intern("rice");
+        ScoringCandidate candidate = new ScoringCandidate(categories.intern("Fried Rice"), false, 10, 8,
+                ScoringCandidate.NO_TIMESTAMP);
+        // 100 base + 20 partial + 10 distance + 5 short quantity
+        assertEquals(135.0, scorer.matchScore(candidate, food, 4), 0);
+        assertEquals(1, scorer.priority(candidate, food));
+    }
+
+    @Test
+    public void receiverMatchScore_freshMatchingDonation() {
+        int[] needed = categories.internAll(Arrays.asList("Vegetables", "Fruit"));
+        ScoringCandidate candidate = new ScoringCandidate(categories.intern("Fresh fruit"), false,
+                ScoringCandidate.NO_QUANTITY, 3, NOW - HOUR);
+        assertTrue(scorer.matchesAny(candidate, needed));
+        // 100 base + 30 category + 15 distance + 20 freshness
+        assertEquals(165.0, scorer.receiverMatchScore(candidate, needed, NOW), 0);
+    }
+
+    @Test
+    public void batchScoring_matchesSingleScoring() {
+        int food = categories.intern("rice");
+        int[] needed = categories.internAll(Arrays.asList("rice", "bread"));
+        String[] names = {"Rice", "Fried rice", "Bread", "Milk", null};
+        ScoringCandidate[] candidates = new ScoringCandidate[50];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = new ScoringCandidate(categories.intern(names[i % names.length]), i % 3 == 0,
+                    i % 4 == 0 ? ScoringCandidate.NO_QUANTITY : i, i % 12, NOW - (i % 8) * HOUR);
+        }
+
+        double[] donorScores = new double[candidates.length];
+        double[] receiverScores = new double[candidates.length];
+        scorer.scoreForDonor(candidates, 0, candidates.length, food, 10, donorScores);
+        scorer.scoreForReceiver(candidates, 0, candidates.length, needed, NOW, receiverScores);
+
+        for (int i = 0; i < candidates.length; i++) {
+            assertEquals(scorer.matchScore(candidates[i], food, 10), donorScores[i], 0);
+            if (scorer.matchesAny(candidates[i], needed)) {
+                assertEquals(scorer.receiverMatchScore(candidates[i], needed, NOW), receiverScores[i], 0);
+            } else {
+                assertTrue(Double.isNaN(receiverScores[i]));
+            }
+        }
+    }
+}
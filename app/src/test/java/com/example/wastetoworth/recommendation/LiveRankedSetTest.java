@@ -0,0 +1,88 @@
+package com.example.wastetoworth.recommendation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LiveRankedSet}.
+ */
+public class LiveRankedSetTest {
+
+    @Test
+    public void firstCommitAddsVisibleItemsInRankOrder() {
+        LiveRankedSet<String> set = new LiveRankedSet<>(2);
+        set.put("a", "A", 10);
+        set.put("b", "B", 30);
+        set.put("c", "C", 20);
+
+        RankedSetDiff<String> diff = set.commit();
+        assertEquals(2, diff.getAdded().size());
+        assertEquals("B", diff.getAdded().get(0).item);
+        assertEquals(0, diff.getAdded().get(0).position);
+        assertEquals("C", diff.getAdded().get(1).item);
+        assertTrue(diff.getRemoved().isEmpty());
+        assertEquals(Arrays.asList("B", "C"), set.visibleItems());
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void rescoredItemIsReportedAsUpdate() {
+        LiveRankedSet<String> set = new LiveRankedSet<>(2);
+        set.put("a", "A", 10);
+        set.put("b", "B", 30);
+        set.commit();
+
+        set.put("a", "A2", 15);
+        RankedSetDiff<String> diff = set.commit();
+        assertTrue(diff.getAdded().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertEquals(1, diff.getUpdated().size());
+        assertEquals("A2", diff.getUpdated().get(0).item);
+    }
+
+    @Test
+    public void newBetterItemPushesWorstOutOfWindow() {
+        LiveRankedSet<String> set = new LiveRankedSet<>(2);
+        set.put("a", "A", 10);
+        set.put("b", "B", 20);
+        set.commit();
+
+        set.put("c", "C", 50);
+        RankedSetDiff<String> diff = set.commit();
+        assertEquals("C", diff.getAdded().get(0).item);
+        assertEquals(0, diff.getAdded().get(0).position);
+        assertEquals("A", diff.getRemoved().get(0).item);
+        assertEquals(1, diff.getRemoved().get(0).position);
+        assertTrue(diff.getUpdated().isEmpty());
+    }
+
+    @Test
+    public void removalPromotesNextCandidate() {
+        LiveRankedSet<String> set = new LiveRankedSet<>(2);
+        set.put("a", "A", 10);
+        set.put("b", "B", 20);
+        set.put("c", "C", 30);
+        set.commit();
+
+        set.remove("c");
+        set.remove("unknown");
+        RankedSetDiff<String> diff = set.commit();
+        assertEquals("C", diff.getRemoved().get(0).item);
+        assertEquals("A", diff.getAdded().get(0).item);
+        assertEquals(Arrays.asList("B", "A"), set.visibleItems());
+    }
+
+    @Test
+    public void changesOutsideWindowProduceEmptyDiff() {
+        LiveRankedSet<String> set = new LiveRankedSet<>(1);
+        set.put("a", "A", 10);
+        set.put("b", "B", 20);
+        set.commit();
+
+        set.put("a", "A2", 5);
+        assertTrue(set.commit().isEmpty());
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.wastetoworth.startup;
+
+import com.example.wastetoworth.startup.StartupOrchestrator.StepTiming;
+import com.example.wastetoworth.startup.StartupOrchestrator.Where;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StartupOrchestratorTest {
+
+    private ExecutorService main;
+    private ExecutorService background;
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final List<StepTiming> finishedTimings = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        main = Executors.newSingleThreadExecutor();
+        background = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        main.shutdownNow();
+        background.shutdownNow();
+    }
+
+    @Test
+    public void stepsRunAfterTheirDependencies() throws InterruptedException {
+        StartupOrchestrator startup = newStartup();
+        startup.add("outbox", Where.BACKGROUND, false, record("outbox"), "firestore");
+        startup.add("firestore", Where.MAIN, true, record("firestore"), "properties");
+        startup.add("properties", Where.BACKGROUND, true, record("properties"));
+        startup.add("logging", Where.MAIN, true, record("logging"));
+
+        startup.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(4, order.size());
+        assertTrue(order.indexOf("properties") < order.indexOf("firestore"));
+        assertTrue(order.indexOf("firestore") < order.indexOf("outbox"));
+        assertEquals(4, finishedTimings.size());
+    }
+
+    @Test
+    public void independentBackgroundStepsOverlap() throws InterruptedException {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        Runnable meetOther = () -> {
+            bothRunning.countDown();
+            try {
+                // Only returns promptly if the other step runs at the same time
+                assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        StartupOrchestrator startup = newStartup();
+        startup.add("a", Where.BACKGROUND, true, meetOther);
+        startup.add("b", Where.BACKGROUND, true, meetOther);
+
+        startup.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        for (StepTiming timing : finishedTimings) {
+            assertFalse(timing.isFailed());
+        }
+    }
+
+    @Test
+    public void readyWaitsForCriticalStepsOnly() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ready = new CountDownLatch(1);
+        StartupOrchestrator startup = newStartup();
+        startup.add("critical", Where.BACKGROUND, true, record("critical"));
+        startup.add("slow", Where.BACKGROUND, false, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        startup.start();
+        startup.whenReady(ready::countDown);
+
+        assertTrue(ready.await(5, TimeUnit.SECONDS));
+        assertTrue(startup.isReady());
+        assertEquals(1, finished.getCount());
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        // Actions added later run straight away
+        CountDownLatch late = new CountDownLatch(1);
+        startup.whenReady(late::countDown);
+        assertTrue(late.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failedStepIsReportedAndDoesNotBlockDependents() throws InterruptedException {
+        StartupOrchestrator startup = newStartup();
+        startup.add("broken", Where.MAIN, true, () -> {
+            throw new IllegalStateException("no play services");
+        });
+        startup.add("after", Where.BACKGROUND, true, record("after"), "broken");
+
+        startup.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("after"), order);
+        StepTiming broken = finishedTimings.get(0);
+        assertEquals("broken", broken.getName());
+        assertTrue(broken.isFailed());
+        assertEquals("no play services", broken.getError().getMessage());
+    }
+
+    @Test
+    public void emptyGraphIsReadyAndFinished() throws InterruptedException {
+        StartupOrchestrator startup = newStartup();
+        AtomicInteger readyCalls = new AtomicInteger();
+        startup.whenReady(readyCalls::incrementAndGet);
+
+        startup.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        main.shutdown();
+        assertTrue(main.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, readyCalls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownDependencyIsRejected() {
+        newStartup().add("a", Where.MAIN, true, record("a"), "missing").start();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cycleIsRejected() {
+        StartupOrchestrator startup = newStartup();
+        startup.add("a", Where.MAIN, true, record("a"), "c");
+        startup.add("b", Where.MAIN, true, record("b"), "a");
+        startup.add("c", Where.MAIN, true, record("c"), "b");
+        startup.start();
+    }
+
+    private StartupOrchestrator newStartup() {
+        StartupOrchestrator startup = new StartupOrchestrator(main, background);
+        startup.setListener(new StartupOrchestrator.Listener() {
+            @Override
+            public void onStepFinished(StepTiming timing) {
+                assertTrue(timing.getDurationNanos() >= 0);
+                assertTrue(timing.getStartOffsetNanos() >= 0);
+            }
+
+            @Override
+            public void onReady(long elapsedNanos) {
+            }
+
+            @Override
+            public void onFinished(long elapsedNanos, List<StepTiming> timings) {
+                finishedTimings.addAll(timings);
+                finished.countDown();
+            }
+        });
+        return startup;
+    }
+
+    private Runnable record(String name) {
+        return () -> order.add(name);
+    }
+}
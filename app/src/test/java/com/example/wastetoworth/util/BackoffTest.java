@@ -0,0 +1,48 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BackoffTest {
+
+    @Test
+    public void delayDoublesWithJitterWithinBounds() {
+        Backoff backoff = new Backoff(1000, 60_000, new Random(1));
+        for (int attempt = 1; attempt <= 6; attempt++) {
+            long ceiling = 1000L << (attempt - 1);
+            for (int i = 0; i < 100; i++) {
+                long delay = backoff.delayMillis(attempt);
+                assertTrue("attempt " + attempt + ": " + delay, delay >= ceiling / 2 && delay <= ceiling);
+            }
+        }
+    }
+
+    @Test
+    public void delayIsCappedForManyAttempts() {
+        Backoff backoff = new Backoff(1000, 60_000, new Random(2));
+        for (int attempt : new int[]{7, 20, 63, 64, 1000, Integer.MAX_VALUE}) {
+            long delay = backoff.delayMillis(attempt);
+            assertTrue("attempt " + attempt + ": " + delay, delay >= 30_000 && delay <= 60_000);
+        }
+    }
+
+    @Test
+    public void jitterSpreadsRetries() {
+        Backoff backoff = new Backoff(1000, 60_000, new Random(3));
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (int i = 0; i < 200; i++) {
+            long delay = backoff.delayMillis(4);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(max - min > 2000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMaxBelowBase() {
+        new Backoff(1000, 500, new Random());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pure-JVM benchmark comparing documents read and latency of a full collection scan
+ * against geohash range queries, over a synthetic metro-sized set of donations.
+ */
+public class GeoHashProximityBenchmark {
+
+    private static final double CENTER_LAT = 28.6139;
+    private static final double CENTER_LNG = 77.2090;
+    private static final double SPREAD_DEGREES = 1.0;
+    private static final double RADIUS_KM = 10;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void compareFullScanWithGeohashIndex() {
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            runAtSize(size);
+        }
+    }
+
+    private void runAtSize(int size) {
+        Random random = new Random(size);
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        String[] hashes = new String[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = CENTER_LAT + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+            lngs[i] = CENTER_LNG + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+            hashes[i] = GeoHash.encode(lats[i], lngs[i]);
+        }
+
+        // The "index" is the collection ordered by geohash, as Firestore keeps it
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> hashes[a].compareTo(hashes[b]));
+        String[] sortedHashes = new String[size];
+        for (int i = 0; i < size; i++) sortedHashes[i] = hashes[order[i]];
+
+        int scanMatches = 0;
+        long scanNanos = 0;
+        for (int iter = 0; iter < ITERATIONS; iter++) {
+            long start = System.nanoTime();
+            scanMatches = 0;
+            for (int i = 0; i < size; i++) {
+                if (GeoHash.distanceKm(CENTER_LAT, CENTER_LNG, lats[i], lngs[i]) <= RADIUS_KM) {
+                    scanMatches++;
+                }
+            }
+            scanNanos += System.nanoTime() - start;
+        }
+
+        int indexedMatches = 0;
+        int indexedReads = 0;
+        long indexedNanos = 0;
+        for (int iter = 0; iter < ITERATIONS; iter++) {
+            long start = System.nanoTime();
+            indexedMatches = 0;
+            indexedReads = 0;
+            List<String[]> bounds = GeoHash.queryBounds(CENTER_LAT, CENTER_LNG, RADIUS_KM);
+            for (String[] bound : bounds) {
+                int from = lowerBound(sortedHashes, bound[0]);
+                int to = lowerBound(sortedHashes, bound[1]);
+                for (int k = from; k < to; k++) {
+                    indexedReads++;
+                    int i = order[k];
+                    if (GeoHash.distanceKm(CENTER_LAT, CENTER_LNG, lats[i], lngs[i]) <= RADIUS_KM) {
+                        indexedMatches++;
+                    }
+                }
+            }
+            indexedNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("n=%d full scan: reads=%d %.3f ms | geohash: reads=%d %.3f ms | matches=%d%n",
+                size, size, scanNanos / 1e6 / ITERATIONS,
+                indexedReads, indexedNanos / 1e6 / ITERATIONS, indexedMatches);
+
+        assertEquals(scanMatches, indexedMatches);
+        assertTrue(indexedReads < size);
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GeoHash}.
+ */
+public class GeoHashTest {
+
+    @Test
+    public void putPositionStoresCoordinatesAndGeohash() {
+        Map<String, Object> fields = new HashMap<>();
+        GeoHash.putPosition(fields, 28.6139, 77.2090);
+
+        assertEquals(28.6139, (Double) fields.get("latitude"), 0);
+        assertEquals(77.2090, (Double) fields.get("longitude"), 0);
+        assertEquals(GeoHash.encode(28.6139, 77.2090), fields.get(GeoHash.FIELD_GEOHASH));
+    }
+
+    @Test
+    public void encode_matchesReferenceValue() {
+        assertEquals("u4pruydqqv", GeoHash.encode(57.64911, 10.40744, 10));
+        assertEquals("u4pru", GeoHash.encode(57.64911, 10.40744, 5));
+    }
+
+    @Test
+    public void queryBounds_coverEveryPointInsideRadius() {
+        Random random = new Random(42);
+        double centerLat = 28.6139;
+        double centerLng = 77.2090;
+        double radiusKm = 10;
+        List<String[]> bounds = GeoHash.queryBounds(centerLat, centerLng, radiusKm);
+        assertTrue(bounds.size() <= 9);
+
+        for (int i = 0; i < 5000; i++) {
+            double lat = centerLat + (random.nextDouble() - 0.5) * 0.4;
+            double lng = centerLng + (random.nextDouble() - 0.5) * 0.4;
+            if (GeoHash.distanceKm(centerLat, centerLng, lat, lng) > radiusKm) continue;
+
+            String hash = GeoHash.encode(lat, lng);
+            boolean covered = false;
+            for (String[] bound : bounds) {
+                if (hash.compareTo(bound[0]) >= 0 && hash.compareTo(bound[1]) <= 0) {
+                    covered = true;
+                    break;
+                }
+            }
+            assertTrue("Point not covered: " + lat + "," + lng, covered);
+        }
+    }
+
+    @Test
+    public void queryBounds_largeRadiusCoversWholeKeyspace() {
+        List<String[]> bounds = GeoHash.queryBounds(0, 0, 10000);
+        assertEquals(1, bounds.size());
+        assertEquals("0", bounds.get(0)[0]);
+    }
+
+    @Test
+    public void queryBoundsForBox_coverEveryPointInsideBox() {
+        Random random = new Random(7);
+        double south = 28.40, west = 76.95, north = 28.85, east = 77.45;
+        List<String[]> bounds = GeoHash.queryBoundsForBox(south, west, north, east);
+        assertTrue(bounds.size() <= 9);
+
+        for (int i = 0; i < 5000; i++) {
+            double lat = south + random.nextDouble() * (north - south);
+            double lng = west + random.nextDouble() * (east - west);
+            assertTrue("Point not covered: " + lat + "," + lng, isCovered(bounds, GeoHash.encode(lat, lng)));
+        }
+    }
+
+    @Test
+    public void queryBoundsForBox_splitsAtAntimeridian() {
+        List<String[]> bounds = GeoHash.queryBoundsForBox(-18, 179, -17, -179);
+        assertTrue(isCovered(bounds, GeoHash.encode(-17.5, 179.5)));
+        assertTrue(isCovered(bounds, GeoHash.encode(-17.5, -179.5)));
+    }
+
+    @Test
+    public void queryBoundsForBox_worldViewCoversWholeKeyspace() {
+        List<String[]> bounds = GeoHash.queryBoundsForBox(-80, -170, 80, 170);
+        assertEquals(1, bounds.size());
+        assertEquals("0", bounds.get(0)[0]);
+    }
+
+    @Test
+    public void distanceKm_delhiToMumbai() {
+        double distance = GeoHash.distanceKm(28.6139, 77.2090, 19.0760, 72.8777);
+        assertEquals(1150, distance, 10);
+    }
+
+    private static boolean isCovered(List<String[]> bounds, String hash) {
+        for (String[] bound : bounds) {
+            if (hash.compareTo(bound[0]) >= 0 && hash.compareTo(bound[1]) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
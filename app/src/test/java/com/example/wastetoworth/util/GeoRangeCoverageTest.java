@@ -0,0 +1,58 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GeoRangeCoverage}.
+ */
+public class GeoRangeCoverageTest {
+    private static final long TTL = 1000;
+
+    @Test
+    public void completeRangeCoversFinerRanges() {
+        GeoRangeCoverage coverage = new GeoRangeCoverage(TTL);
+        assertFalse(coverage.isCovered("tsq", 0));
+
+        coverage.markLoaded("tsq", true, 0);
+
+        assertTrue(coverage.isCovered("tsq", 10));
+        assertTrue(coverage.isCovered("tsq4", 10));
+        assertFalse(coverage.isCovered("ts", 10));
+        assertFalse(coverage.isCovered("tsr", 10));
+    }
+
+    @Test
+    public void truncatedRangeIsRequeriedOnlyWhenZoomingIn() {
+        GeoRangeCoverage coverage = new GeoRangeCoverage(TTL);
+        coverage.markLoaded("tsq", false, 0);
+
+        // Same precision: the query would return the same capped page
+        assertTrue(coverage.isCovered("tsq", 10));
+        // Finer ranges inside it may hold documents the cap left out
+        assertFalse(coverage.isCovered("tsq4", 10));
+        assertFalse(coverage.isCovered("ts", 10));
+    }
+
+    @Test
+    public void completingATruncatedRangeReplacesIt() {
+        GeoRangeCoverage coverage = new GeoRangeCoverage(TTL);
+        coverage.markLoaded("tsq", false, 0);
+        coverage.markLoaded("tsq", true, 5);
+
+        assertTrue(coverage.isCovered("tsq4", 10));
+    }
+
+    @Test
+    public void rangesExpireAfterTtl() {
+        GeoRangeCoverage coverage = new GeoRangeCoverage(TTL);
+        coverage.markLoaded("", true, 0);
+        coverage.markLoaded("tsq", false, 500);
+
+        assertTrue(coverage.isCovered("u4pr", TTL - 1));
+        assertFalse(coverage.isCovered("u4pr", TTL));
+        assertTrue(coverage.isCovered("tsq", TTL));
+        assertFalse(coverage.isCovered("tsq", 500 + TTL));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GridClusterer}.
+ */
+public class GridClustererTest {
+
+    @Test
+    public void cluster_groupsNearbyPointsAndKeepsDistantOnesSingle() {
+        List<GridClusterer.Point<String>> points = new ArrayList<>();
+        points.add(new GridClusterer.Point<>("a", 28.6101, 77.2001, "a"));
+        points.add(new GridClusterer.Point<>("b", 28.6102, 77.2002, "b"));
+        points.add(new GridClusterer.Point<>("c", 28.6103, 77.2003, "c"));
+        points.add(new GridClusterer.Point<>("far", 28.9000, 77.6000, "far"));
+
+        double cell = GridClusterer.cellDegreesForZoom(12);
+        List<GridClusterer.Cluster<String>> clusters = GridClusterer.cluster(points, 28, 77, 29, 78, cell);
+
+        Map<String, GridClusterer.Cluster<String>> byKey = byKey(clusters);
+        assertEquals(2, clusters.size());
+        assertTrue(byKey.containsKey("p:far"));
+        for (GridClusterer.Cluster<String> cluster : clusters) {
+            if (!cluster.key.equals("p:far")) {
+                assertEquals(3, cluster.size());
+                assertEquals(28.6102, cluster.latitude, 1e-9);
+                assertEquals(77.2002, cluster.longitude, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void cluster_skipsPointsOutsideBox() {
+        List<GridClusterer.Point<String>> points = new ArrayList<>();
+        points.add(new GridClusterer.Point<>("in", 10, 10, "in"));
+        points.add(new GridClusterer.Point<>("out", 40, 10, "out"));
+
+        List<GridClusterer.Cluster<String>> clusters = GridClusterer.cluster(points, 0, 0, 20, 20, 0.01);
+
+        assertEquals(1, clusters.size());
+        assertEquals("p:in", clusters.get(0).key);
+    }
+
+    @Test
+    public void cluster_keysAreStableWhenViewportPans() {
+        List<GridClusterer.Point<String>> points = new ArrayList<>();
+        points.add(new GridClusterer.Point<>("a", 28.6101, 77.2001, "a"));
+        points.add(new GridClusterer.Point<>("b", 28.6102, 77.2002, "b"));
+        double cell = GridClusterer.cellDegreesForZoom(10);
+
+        String before = GridClusterer.cluster(points, 28, 77, 29, 78, cell).get(0).key;
+        String after = GridClusterer.cluster(points, 28.3, 76.8, 29.3, 77.8, cell).get(0).key;
+
+        assertEquals(before, after);
+    }
+
+    @Test
+    public void cluster_handlesBoxAcrossAntimeridian() {
+        List<GridClusterer.Point<String>> points = new ArrayList<>();
+        points.add(new GridClusterer.Point<>("east", -17.5, 179.5, "east"));
+        points.add(new GridClusterer.Point<>("west", -17.5, -179.5, "west"));
+        points.add(new GridClusterer.Point<>("outside", -17.5, 0, "outside"));
+
+        List<GridClusterer.Cluster<String>> clusters = GridClusterer.cluster(points, -18, 179, -17, -179, 0.1);
+
+        Map<String, GridClusterer.Cluster<String>> byKey = byKey(clusters);
+        assertEquals(2, clusters.size());
+        assertTrue(byKey.containsKey("p:east"));
+        assertTrue(byKey.containsKey("p:west"));
+    }
+
+    @Test
+    public void cellDegreesForZoom_halvesPerLevel() {
+        assertEquals(90.0, GridClusterer.cellDegreesForZoom(0), 1e-9);
+        assertEquals(45.0, GridClusterer.cellDegreesForZoom(1.9f), 1e-9);
+    }
+
+    private static Map<String, GridClusterer.Cluster<String>> byKey(List<GridClusterer.Cluster<String>> clusters) {
+        Map<String, GridClusterer.Cluster<String>> byKey = new HashMap<>();
+        for (GridClusterer.Cluster<String> cluster : clusters) {
+            byKey.put(cluster.key, cluster);
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class KWayMergeTest {
+
+    private static final Comparator<Integer> DESCENDING = Comparator.reverseOrder();
+
+    @Test
+    public void mergesExhaustedSourcesInOrder() {
+        List<ArrayDeque<Integer>> buffers = Arrays.asList(
+                new ArrayDeque<>(Arrays.asList(9, 6, 2)),
+                new ArrayDeque<>(Arrays.asList(8, 7, 1)));
+
+        List<Integer> merged = KWayMerge.take(buffers, new boolean[]{true, true}, DESCENDING, 10);
+
+        assertEquals(Arrays.asList(9, 8, 7, 6, 2, 1), merged);
+        assertTrue(buffers.get(0).isEmpty());
+        assertTrue(buffers.get(1).isEmpty());
+    }
+
+    @Test
+    public void stopsAtLimitAndKeepsRemainder() {
+        List<ArrayDeque<Integer>> buffers = Arrays.asList(
+                new ArrayDeque<>(Arrays.asList(5, 3)),
+                new ArrayDeque<>(Arrays.asList(4, 2)));
+
+        assertEquals(Arrays.asList(5, 4), KWayMerge.take(buffers, new boolean[]{true, true}, DESCENDING, 2));
+        assertEquals(Arrays.asList(3, 2), KWayMerge.take(buffers, new boolean[]{true, true}, DESCENDING, 2));
+    }
+
+    @Test
+    public void stopsWhenSourceWithMoreItemsRunsDry() {
+        List<ArrayDeque<Integer>> buffers = Arrays.asList(
+                new ArrayDeque<>(Arrays.asList(9, 5)),
+                new ArrayDeque<>(Arrays.asList(8, 3)));
+
+        List<Integer> merged = KWayMerge.take(buffers, new boolean[]{false, true}, DESCENDING, 10);
+
+        // Source 0 may still hold items between 5 and 3, so 3 must wait for the next fetch
+        assertEquals(Arrays.asList(9, 8, 5), merged);
+        assertEquals(Arrays.asList(3), Arrays.asList(buffers.get(1).toArray()));
+    }
+
+    @Test
+    public void takesNothingWhileUnfetchedSourceIsEmpty() {
+        List<ArrayDeque<Integer>> buffers = Arrays.asList(
+                new ArrayDeque<Integer>(),
+                new ArrayDeque<>(Arrays.asList(1)));
+
+        assertTrue(KWayMerge.take(buffers, new boolean[]{false, true}, DESCENDING, 10).isEmpty());
+    }
+}
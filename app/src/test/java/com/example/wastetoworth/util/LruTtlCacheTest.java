@@ -0,0 +1,98 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LruTtlCacheTest {
+
+    private long now;
+    private LruTtlCache<String, String> cache;
+
+    @Before
+    public void setUp() {
+        now = 1_000;
+        cache = new LruTtlCache<>(2, 100, () -> now);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void expiresAfterTtl() {
+        cache.put("a", "1");
+        now += 99;
+        assertEquals("1", cache.get("a"));
+        now += 1;
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void restoreKeepsOriginalStoreTime() {
+        cache.restore("old", "x", now - 100);
+        cache.restore("recent", "y", now - 50);
+
+        assertNull(cache.get("old"));
+        assertEquals("y", cache.get("recent"));
+        now += 50;
+        assertNull(cache.get("recent"));
+    }
+
+    @Test
+    public void forEachVisitsInEvictionOrder() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+
+        List<String> keys = new ArrayList<>();
+        cache.forEach((key, value, storedAt) -> keys.add(key));
+
+        assertEquals(Arrays.asList("b", "a"), keys);
+    }
+
+    @Test
+    public void getNearestFindsClosestLiveKeyWithinDistance() {
+        LruTtlCache<Integer, String> numbers = new LruTtlCache<>(3, 100, () -> now);
+        numbers.put(10, "ten");
+        numbers.put(20, "twenty");
+        now += 60;
+        numbers.put(14, "fourteen");
+
+        assertEquals("fourteen", numbers.getNearest(key -> Math.abs(key - 13), 5));
+        assertEquals("ten", numbers.getNearest(key -> Math.abs(key - 7), 5));
+        assertNull(numbers.getNearest(key -> Math.abs(key - 30), 5));
+        now += 40;
+        assertNull(numbers.getNearest(key -> Math.abs(key - 7), 5));
+    }
+
+    @Test
+    public void getNearestCountsAsUse() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.getNearest(key -> key.equals("a") ? 0 : 10, 0);
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCapacity() {
+        new LruTtlCache<String, String>(0, 100);
+    }
+}
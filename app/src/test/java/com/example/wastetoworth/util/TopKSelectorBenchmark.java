@@ -0,0 +1,59 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pure-JVM benchmark comparing a full sort of scored candidates against
+ * streaming top-K selection, as used by SmartDonationRecommender.
+ */
+public class TopKSelectorBenchmark {
+
+    private static final int K = 50;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void compareFullSortWithTopK() {
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            double[] scores = new double[size];
+            Random random = new Random(size);
+            for (int i = 0; i < size; i++) {
+                scores[i] = 100 + random.nextInt(120);
+            }
+
+            double sortMs = 0;
+            double topKMs = 0;
+            double sortedBest = 0;
+            double selectedBest = 0;
+            for (int iter = 0; iter < WARMUP_ITERATIONS + ITERATIONS; iter++) {
+                long start = System.nanoTime();
+                List<Double> all = new ArrayList<>(size);
+                for (double score : scores) all.add(score);
+                all.sort((a, b) -> Double.compare(b, a));
+                sortedBest = all.get(0);
+                long sortNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                TopKSelector<Double> selector = new TopKSelector<>(K, Double::compare);
+                for (double score : scores) selector.offer(score);
+                selectedBest = selector.nextPage(10).get(0);
+                long topKNanos = System.nanoTime() - start;
+
+                if (iter >= WARMUP_ITERATIONS) {
+                    sortMs += sortNanos / 1e6;
+                    topKMs += topKNanos / 1e6;
+                }
+            }
+
+            System.out.printf("n=%d full sort: %.3f ms | top-%d heap: %.3f ms%n",
+                    size, sortMs / ITERATIONS, K, topKMs / ITERATIONS);
+            assertEquals(sortedBest, selectedBest, 0);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.wastetoworth.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TopKSelector}.
+ */
+public class TopKSelectorTest {
+
+    @Test
+    public void retainsOnlyBestItems() {
+        TopKSelector<Integer> selector = new TopKSelector<>(3, Integer::compare);
+        for (int value : new int[]{5, 1, 9, 3, 7, 2}) {
+            selector.offer(value);
+        }
+        assertEquals(3, selector.size());
+        assertEquals(Arrays.asList(9, 7, 5), selector.nextPage(10));
+    }
+
+    @Test
+    public void pagesContinueWithoutRepeating() {
+        TopKSelector<Integer> selector = new TopKSelector<>(5, Integer::compare);
+        for (int i = 0; i < 20; i++) {
+            selector.offer(i);
+        }
+        assertEquals(Arrays.asList(19, 18), selector.nextPage(2));
+        assertTrue(selector.hasMore());
+        assertEquals(Arrays.asList(17, 16), selector.nextPage(2));
+        assertEquals(Collections.singletonList(15), selector.nextPage(2));
+        assertFalse(selector.hasMore());
+        assertTrue(selector.nextPage(2).isEmpty());
+    }
+
+    @Test
+    public void matchesFullSortOnRandomInput() {
+        Random random = new Random(7);
+        List<Double> values = new ArrayList<>();
+        TopKSelector<Double> selector = new TopKSelector<>(25, Double::compare);
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextDouble();
+            values.add(value);
+            selector.offer(value);
+        }
+        values.sort(Collections.reverseOrder());
+        assertEquals(values.subList(0, 25), selector.nextPage(25));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCapacity() {
+        new TopKSelector<Integer>(0, Integer::compare);
+    }
+}